@@ -1,27 +1,43 @@
 package org.optaplanner.openshift.employeerostering.benchmark;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
 
+import org.jboss.weld.environment.se.Weld;
+import org.jboss.weld.environment.se.WeldContainer;
 import org.optaplanner.benchmark.api.PlannerBenchmark;
 import org.optaplanner.benchmark.api.PlannerBenchmarkFactory;
-import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.openshift.employeerostering.server.employee.EmployeeRestServiceImpl;
 import org.optaplanner.openshift.employeerostering.server.roster.RosterGenerator;
+import org.optaplanner.openshift.employeerostering.server.roster.RosterRestServiceImpl;
+import org.optaplanner.openshift.employeerostering.server.shift.ShiftRestServiceImpl;
+import org.optaplanner.openshift.employeerostering.server.solver.WannabeSolverManager;
+import org.optaplanner.openshift.employeerostering.server.spot.SpotRestServiceImpl;
 import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
-import org.optaplanner.persistence.xstream.impl.domain.solution.XStreamSolutionFileIO;
+import org.optaplanner.openshift.employeerostering.shared.shift.ShiftRestService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class OptaShiftEmployeeRosteringBenchmarkApp {
 
+    private static final Logger logger = LoggerFactory.getLogger(OptaShiftEmployeeRosteringBenchmarkApp.class);
+
+    public static final String DEFAULT_BENCHMARK_CONFIG
+            = "org/optaplanner/openshift/employeerostering/benchmark/employeeRosteringBenchmarkConfig.xml";
+
+    /**
+     * @param args optionally the classpath resource of the benchmark config, defaults to
+     * {@link #DEFAULT_BENCHMARK_CONFIG}
+     */
     public static void main(String[] args) {
+        String benchmarkConfigResource = (args.length > 0) ? args[0] : DEFAULT_BENCHMARK_CONFIG;
         List<Roster> rosterList = generateRosters();
 
-        SolverFactory<Roster> solverFactory = SolverFactory.createFromXmlResource(
-                "org/optaplanner/openshift/employeerostering/server/solver/employeeRosteringSolverConfig.xml");
-        PlannerBenchmarkFactory benchmarkFactory = PlannerBenchmarkFactory.createFromSolverFactory(solverFactory);
+        PlannerBenchmarkFactory benchmarkFactory = PlannerBenchmarkFactory.createFromXmlResource(
+                benchmarkConfigResource);
         PlannerBenchmark plannerBenchmark = benchmarkFactory.buildPlannerBenchmark(rosterList);
         plannerBenchmark.benchmark();
     }
@@ -29,15 +45,50 @@ public class OptaShiftEmployeeRosteringBenchmarkApp {
     private static List<Roster> generateRosters() {
         EntityManagerFactory entityManagerFactory = Persistence.createEntityManagerFactory("optashift-employee-rostering-persistence-unit");
         EntityManager entityManager = entityManagerFactory.createEntityManager();
-        RosterGenerator rosterGenerator = new RosterGenerator(entityManager);
-
+        // The server beans are injected like in the webapp, but outside a container:
+        // the benchmark manages the transactions and the solver manager is never started
+        Weld weld = new Weld()
+                .disableDiscovery()
+                .addPackages(false, ShiftRestServiceImpl.class, SpotRestServiceImpl.class,
+                        EmployeeRestServiceImpl.class, RosterRestServiceImpl.class, WannabeSolverManager.class)
+                .addExtension(new PersistenceContextExtension(entityManager));
+        WeldContainer container = weld.initialize();
         List<Roster> rosterList = new ArrayList<>();
-        rosterList.add(rosterGenerator.generateRoster(10, 7, false));
-        rosterList.add(rosterGenerator.generateRoster(80, (28 * 4), false));
+        try {
+            // Not a bean here, because its @PostConstruct generates the demo data
+            RosterGenerator rosterGenerator = new RosterGenerator(entityManager,
+                    container.select(ShiftRestService.class).get());
+            rosterList.add(generateRoster(entityManager, rosterGenerator, 10, 7));
+            rosterList.add(generateRoster(entityManager, rosterGenerator, 80, (28 * 4)));
+        } finally {
+            weld.shutdown();
+        }
+        rosterList.forEach(Roster::indexSkills);
+        rosterList.forEach(Roster::buildEmployeeRanges);
 
         entityManager.close();
         entityManagerFactory.close();
         return rosterList;
     }
 
+    /**
+     * Also reports the insert throughput of the template expansion, which generates the time slots,
+     * shifts and employee availabilities.
+     */
+    private static Roster generateRoster(EntityManager entityManager, RosterGenerator rosterGenerator,
+            int spotListSize, int timeSlotListSize) {
+        long startTimeMillis = System.currentTimeMillis();
+        entityManager.getTransaction().begin();
+        Roster roster = rosterGenerator.generateRoster(spotListSize, timeSlotListSize, false);
+        entityManager.getTransaction().commit();
+        long timeMillisSpent = Math.max(1L, System.currentTimeMillis() - startTimeMillis);
+        int rowCount = roster.getTimeSlotList().size() + roster.getShiftList().size()
+                + roster.getEmployeeAvailabilityList().size();
+        logger.info("Generated tenantId ({}) with {} time slots, {} shifts and {} employee availabilities"
+                        + " in {} ms ({} rows per second).",
+                roster.getTenantId(), roster.getTimeSlotList().size(), roster.getShiftList().size(),
+                roster.getEmployeeAvailabilityList().size(), timeMillisSpent, rowCount * 1000L / timeMillisSpent);
+        return roster;
+    }
+
 }
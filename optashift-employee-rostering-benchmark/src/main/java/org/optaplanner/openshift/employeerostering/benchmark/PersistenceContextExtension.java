@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.enterprise.context.spi.CreationalContext;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AnnotatedField;
+import javax.enterprise.inject.spi.Extension;
+import javax.enterprise.inject.spi.InjectionPoint;
+import javax.enterprise.inject.spi.InjectionTarget;
+import javax.enterprise.inject.spi.ProcessInjectionTarget;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Injects the {@link PersistenceContext} fields of the server beans, like WildFly does,
+ * but with the entity manager of the benchmark, because CDI SE doesn't know about JPA.
+ */
+public class PersistenceContextExtension implements Extension {
+
+    private final EntityManager entityManager;
+
+    /**
+     * @param entityManager never null, shared by all beans
+     */
+    public PersistenceContextExtension(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    <T> void injectPersistenceContexts(@Observes ProcessInjectionTarget<T> event) {
+        List<Field> fieldList = new ArrayList<>();
+        for (AnnotatedField<? super T> annotatedField : event.getAnnotatedType().getFields()) {
+            if (annotatedField.isAnnotationPresent(PersistenceContext.class)) {
+                Field field = annotatedField.getJavaMember();
+                field.setAccessible(true);
+                fieldList.add(field);
+            }
+        }
+        if (fieldList.isEmpty()) {
+            return;
+        }
+        InjectionTarget<T> injectionTarget = event.getInjectionTarget();
+        event.setInjectionTarget(new InjectionTarget<T>() {
+            @Override
+            public void inject(T instance, CreationalContext<T> creationalContext) {
+                injectionTarget.inject(instance, creationalContext);
+                for (Field field : fieldList) {
+                    try {
+                        field.set(instance, entityManager);
+                    } catch (IllegalAccessException e) {
+                        throw new IllegalStateException("The field (" + field + ") can't be injected.", e);
+                    }
+                }
+            }
+
+            @Override
+            public void postConstruct(T instance) {
+                injectionTarget.postConstruct(instance);
+            }
+
+            @Override
+            public void preDestroy(T instance) {
+                injectionTarget.preDestroy(instance);
+            }
+
+            @Override
+            public T produce(CreationalContext<T> creationalContext) {
+                return injectionTarget.produce(creationalContext);
+            }
+
+            @Override
+            public void dispose(T instance) {
+                injectionTarget.dispose(instance);
+            }
+
+            @Override
+            public Set<InjectionPoint> getInjectionPoints() {
+                return injectionTarget.getInjectionPoints();
+            }
+        });
+    }
+
+}
@@ -3,8 +3,10 @@ package org.optaplanner.openshift.employeerostering.gwtui.client.employee;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -19,7 +21,10 @@ import org.optaplanner.openshift.employeerostering.gwtui.client.interfaces.Updat
 import org.optaplanner.openshift.employeerostering.gwtui.client.popups.ErrorPopup;
 import org.optaplanner.openshift.employeerostering.gwtui.client.popups.LoadingPopup;
 import org.optaplanner.openshift.employeerostering.gwtui.client.spot.SpotData;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.CompactRosterView;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.CompactRosterViewUtils;
 import org.optaplanner.openshift.employeerostering.shared.roster.view.EmployeeRosterView;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.RosterChangesView;
 import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
 import org.optaplanner.openshift.employeerostering.shared.shift.view.ShiftView;
 import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
@@ -51,12 +56,14 @@ public class EmployeeDataFetchable implements Fetchable<Collection<EmployeeData>
             Integer tenantId = tenantIdProvider.get();
             if (null == last || !last.getTenantId().equals(tenantId)) {
                 LoadingPopup.setLoading(LOADING_STRING);
-                RosterRestServiceBuilder.getCurrentEmployeeRosterView(tenantId, new FailureShownRestCallback<
-                        EmployeeRosterView>() {
+                RosterRestServiceBuilder.getCurrentCompactEmployeeRosterView(tenantId, new FailureShownRestCallback<
+                        CompactRosterView>() {
 
                     @Override
-                    public void onSuccess(EmployeeRosterView employeeRosterView) {
+                    public void onSuccess(CompactRosterView compactRosterView) {
                         try {
+                            EmployeeRosterView employeeRosterView = CompactRosterViewUtils.toEmployeeRosterView(
+                                    compactRosterView);
                             last = employeeRosterView;
                             Map<Long, Map<Long, List<ShiftView>>> timeSlotIdToEmployeeIdToShiftViewListMap =
                                     employeeRosterView
@@ -114,15 +121,17 @@ public class EmployeeDataFetchable implements Fetchable<Collection<EmployeeData>
                     }
                 });
             } else {
-                RosterRestServiceBuilder.getEmployeeRosterViewFor(tenantId, calendar.getViewStartDate().toLocalDate()
+                RosterRestServiceBuilder.getCompactEmployeeRosterViewFor(tenantId, calendar.getViewStartDate().toLocalDate()
                         .toString(),
                         calendar.getViewEndDate().toLocalDate().toString(), calendar.getVisibleGroups().stream()
                                 .map((g) -> g.getEmployee()).collect(Collectors.toList()),
                         new FailureShownRestCallback<
-                                EmployeeRosterView>() {
+                                CompactRosterView>() {
 
                             @Override
-                            public void onSuccess(EmployeeRosterView employeeRosterView) {
+                            public void onSuccess(CompactRosterView compactRosterView) {
+                                EmployeeRosterView employeeRosterView = CompactRosterViewUtils.toEmployeeRosterView(
+                                        compactRosterView);
                                 last = employeeRosterView;
                                 Map<Long, Map<Long, List<ShiftView>>> timeSlotIdToEmployeeIdToShiftViewListMap =
                                         employeeRosterView
@@ -177,6 +186,96 @@ public class EmployeeDataFetchable implements Fetchable<Collection<EmployeeData>
         }
     }
 
+    /**
+     * @return sometimes null, the revision of the last fetched roster view or of the last applied changes
+     */
+    public Long getRevision() {
+        return (null == last) ? null : last.getRevision();
+    }
+
+    /**
+     * Patches the calendar in place, instead of fetching the roster view again.
+     * Every cell is an employee in a time slot: a shift that leaves a cell leaves an empty cell behind.
+     * The changes outside the last fetched roster view are ignored.
+     * @param changes never null
+     * @return false if the roster view must be fetched again instead
+     */
+    public boolean applyChanges(RosterChangesView changes) {
+        if (null == last || changes.isReloadRequired() || !last.getTenantId().equals(changes.getTenantId())) {
+            return false;
+        }
+        Map<Long, Spot> spotMap = last.getSpotList().stream()
+                .collect(Collectors.toMap(Spot::getId, Function.identity()));
+        Map<Long, TimeSlot> timeSlotMap = last.getTimeSlotList().stream()
+                .collect(Collectors.toMap(TimeSlot::getId, Function.identity()));
+        Map<Long, Employee> employeeMap = last.getEmployeeList().stream()
+                .collect(Collectors.toMap(Employee::getId, Function.identity()));
+        for (ShiftView sv : changes.getShiftList()) {
+            if (null == spotMap.get(sv.getSpotId())) {
+                return false;
+            }
+        }
+        Map<Long, Map<Long, EmployeeAvailabilityView>> timeSlotIdToEmployeeIdToAvailabilityViewMap = last
+                .getTimeSlotIdToEmployeeIdToAvailabilityViewMap();
+        for (Long removedId : changes.getRemovedEmployeeAvailabilityIdList()) {
+            timeSlotIdToEmployeeIdToAvailabilityViewMap.values().forEach((employeeIdToAvailabilityViewMap) ->
+                    employeeIdToAvailabilityViewMap.values().removeIf((av) -> removedId.equals(av.getId())));
+        }
+        for (EmployeeAvailabilityView av : changes.getEmployeeAvailabilityList()) {
+            timeSlotIdToEmployeeIdToAvailabilityViewMap.computeIfAbsent(av.getTimeSlotId(), (k) -> new HashMap<>())
+                    .put(av.getEmployeeId(), av);
+        }
+
+        Map<Long, EmployeeData> shiftIdToEmployeeDataMap = new HashMap<>();
+        Map<List<Long>, EmployeeData> cellToEmployeeDataMap = new HashMap<>();
+        for (EmployeeData employeeData : calendar.getShifts()) {
+            Shift shift = employeeData.getShift();
+            if (null != shift.getId()) {
+                shiftIdToEmployeeDataMap.put(shift.getId(), employeeData);
+            }
+            cellToEmployeeDataMap.put(Arrays.asList(shift.getEmployee().getId(), shift.getTimeSlot().getId()),
+                    employeeData);
+        }
+        List<Long> leftShiftIdList = new ArrayList<>(changes.getRemovedShiftIdList());
+        changes.getShiftList().forEach((sv) -> leftShiftIdList.add(sv.getId()));
+        for (Long shiftId : leftShiftIdList) {
+            EmployeeData oldShift = shiftIdToEmployeeDataMap.get(shiftId);
+            if (null != oldShift) {
+                Shift shift = new Shift();
+                shift.setTenantId(oldShift.getEmployee().getTenantId());
+                shift.setEmployee(oldShift.getEmployee());
+                shift.setTimeSlot(oldShift.getShift().getTimeSlot());
+                EmployeeData emptyCell = new EmployeeData(shift, null);
+                calendar.updateShift(emptyCell);
+                cellToEmployeeDataMap.put(Arrays.asList(shift.getEmployee().getId(), shift.getTimeSlot().getId()),
+                        emptyCell);
+            }
+        }
+        for (ShiftView sv : changes.getShiftList()) {
+            Employee employee = employeeMap.get(sv.getEmployeeId());
+            TimeSlot timeslot = timeSlotMap.get(sv.getTimeSlotId());
+            if (null != employee && null != timeslot) {
+                Shift shift = new Shift(sv, spotMap.get(sv.getSpotId()), timeslot);
+                shift.setEmployee(employee);
+                EmployeeData newShift = new EmployeeData(shift, null);
+                calendar.updateShift(newShift);
+                cellToEmployeeDataMap.put(Arrays.asList(employee.getId(), timeslot.getId()), newShift);
+            }
+        }
+        // Every cell whose shift or availability changed gets its current availability
+        for (EmployeeData employeeData : cellToEmployeeDataMap.values()) {
+            EmployeeAvailabilityView availabilityView = timeSlotIdToEmployeeIdToAvailabilityViewMap
+                    .getOrDefault(employeeData.getShift().getTimeSlot().getId(), Collections.emptyMap())
+                    .get(employeeData.getEmployee().getId());
+            if (availabilityView != employeeData.getAvailability()) {
+                employeeData.setAvailability(availabilityView);
+                calendar.updateShift(employeeData);
+            }
+        }
+        last.setRevision(changes.getRevision());
+        return true;
+    }
+
     @Override
     public void setUpdatable(Updatable<Collection<EmployeeData>> listener) {
         this.updatable = listener;
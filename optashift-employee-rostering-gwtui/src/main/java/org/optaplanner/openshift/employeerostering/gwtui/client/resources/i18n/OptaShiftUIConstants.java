@@ -8,14 +8,20 @@ public interface OptaShiftUIConstants {
             defaultValue = "The server returned an empty result which is impossible.\nMaybe the server is using the wrong WildFly version. Try using WildFly 10.1.0.Final.")
     final String AbstractRosterViewPanel_emptyResult = "AbstractRosterViewPanel.emptyResult";
 
+    @TranslationKey(defaultValue = "Also stops at score {0}.")
+    final String AbstractRosterViewPanel_bestScoreLimit = "AbstractRosterViewPanel.bestScoreLimit";
+
     @TranslationKey(defaultValue = "Finished solving")
     final String AbstractRosterViewPanel_finishedSolving = "AbstractRosterViewPanel.finishedSolving";
 
     @TranslationKey(defaultValue = "Solve")
     final String AbstractRosterViewPanel_solve = "AbstractRosterViewPanel.solve";
 
-    @TranslationKey(defaultValue = "Solving for another")
-    final String AbstractRosterViewPanel_solvingFor = "AbstractRosterViewPanel.solvingFor";
+    @TranslationKey(defaultValue = "Solving...")
+    final String AbstractRosterViewPanel_solving = "AbstractRosterViewPanel.solving";
+
+    @TranslationKey(defaultValue = "Solving, best score {0}...")
+    final String AbstractRosterViewPanel_solvingWithBestScore = "AbstractRosterViewPanel.solvingWithBestScore";
 
     @TranslationKey(defaultValue = "AbstractRosterViewPanel.startSolving")
     final String AbstractRosterViewPanel_startSolving = "Click the <i>Solve</i> button to start solving.";
@@ -23,6 +29,15 @@ public interface OptaShiftUIConstants {
     @TranslationKey(defaultValue = "AbstractRosterViewPanel.terminateEarly")
     final String AbstractRosterViewPanel_terminateEarly = "Terminate";
 
+    @TranslationKey(defaultValue = "Stops within {0} seconds.")
+    final String AbstractRosterViewPanel_timeLimit = "AbstractRosterViewPanel.timeLimit";
+
+    @TranslationKey(defaultValue = "Stops within {0} seconds, or after {1} seconds without a better score.")
+    final String AbstractRosterViewPanel_unimprovedTimeLimit = "AbstractRosterViewPanel.unimprovedTimeLimit";
+
+    @TranslationKey(defaultValue = "Waiting for a free solver, number {0} in the queue...")
+    final String AbstractRosterViewPanel_waitingInQueue = "AbstractRosterViewPanel.waitingInQueue";
+
     @TranslationKey(defaultValue = "Week {0}")
     final String DateDisplay_WEEKS_FROM_EPOCH = "DateDisplay.WEEKS_FROM_EPOCH";
 
@@ -1,10 +1,10 @@
 package org.optaplanner.openshift.employeerostering.gwtui.client.roster;
 
+import java.util.Objects;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
 import com.google.gwt.core.client.GWT;
-import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
 import org.gwtbootstrap3.client.ui.Button;
@@ -16,14 +16,15 @@ import org.jboss.errai.ui.shared.api.annotations.DataField;
 import org.jboss.errai.ui.shared.api.annotations.EventHandler;
 import org.optaplanner.openshift.employeerostering.gwtui.client.common.FailureShownRestCallback;
 import org.optaplanner.openshift.employeerostering.shared.roster.RosterRestServiceBuilder;
+import org.optaplanner.openshift.employeerostering.shared.roster.SolverStatus;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.RosterChangesView;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.SolverStatusView;
 import org.optaplanner.openshift.employeerostering.shared.tenant.Tenant;
 
 import static org.optaplanner.openshift.employeerostering.gwtui.client.resources.i18n.OptaShiftUIConstants.*;
 
 public abstract class AbstractRosterViewPanel implements Observer, IsElement {
 
-    protected static final int REFRESH_RATE = 2000;
-
     protected Integer tenantId = null;
 
     @Inject
@@ -37,11 +38,17 @@ public abstract class AbstractRosterViewPanel implements Observer, IsElement {
     protected Span solveStatus;
 
     protected static Observable solverObservable = new Observable();
+    // Shared by all roster views, so each browser tab has only 1 connection
+    protected static SolverStatusSocket solverStatusSocket = new SolverStatusSocket(
+            solverStatusView -> solverObservable.notifyObservers(solverStatusView));
 
     protected Span buttonContent;
     protected Span buttonImage;
     protected Span buttonText;
     private boolean isSolving = false;
+    // The first solver status after a tenant change doesn't re-render, because the tenant change already did
+    private boolean solverStatusReceived = false;
+    private Long lastRevision = null;
     @Inject
     private TranslationService CONSTANTS;
 
@@ -63,7 +70,9 @@ public abstract class AbstractRosterViewPanel implements Observer, IsElement {
 
     public void onAnyTenantEvent(@Observes Tenant tenant) {
         tenantId = tenant.getId();
+        solverStatusReceived = false;
         refresh();
+        solverStatusSocket.connect(tenantId);
     }
 
     @EventHandler("refreshButton")
@@ -76,123 +85,129 @@ public abstract class AbstractRosterViewPanel implements Observer, IsElement {
     }
 
     public void update(Observable observable, Object arg) {
-        if (solverObservable == observable) {
-            if (arg instanceof StartSolvingEvent) {
-                solveButton.getElement().setAttribute("class", "btn btn-danger");
-                buttonImage.getElement().setAttribute("class", "glyphicon glyphicon-stop");
-                buttonImage.getElement().setAttribute("aria-hidden", "true");
-                buttonText.setHTML(new SafeHtmlBuilder()
-                        .appendEscaped(CONSTANTS.format("AbstractRosterViewPanel.terminateEarly"))
-                        .toSafeHtml().asString());
-                isSolving = true;
-            } else if (arg instanceof TerminateSolvingEvent) {
+        if (solverObservable == observable && arg instanceof SolverStatusView) {
+            SolverStatusView solverStatusView = (SolverStatusView) arg;
+            if (!solverStatusView.getTenantId().equals(tenantId)) {
+                return;
+            }
+            if (solverStatusView.getSolverStatus() == SolverStatus.TERMINATED) {
                 solveButton.getElement().setAttribute("class", "btn btn-success");
                 buttonImage.getElement().setAttribute("class", "glyphicon glyphicon-play");
                 buttonImage.getElement().setAttribute("aria-hidden", "true");
                 buttonText.setHTML(new SafeHtmlBuilder()
                         .appendEscaped(CONSTANTS.format("AbstractRosterViewPanel.solve"))
                         .toSafeHtml().asString());
+                if (isSolving) {
+                    solveStatus.setHTML(new SafeHtmlBuilder()
+                            .appendHtmlConstant(CONSTANTS.format(AbstractRosterViewPanel_finishedSolving) + ".")
+                            .toSafeHtml().asString());
+                }
                 isSolving = false;
-                solveStatus.setHTML(new SafeHtmlBuilder()
-                        .appendHtmlConstant(CONSTANTS.format(AbstractRosterViewPanel_finishedSolving) + ".")
+            } else {
+                solveButton.getElement().setAttribute("class", "btn btn-danger");
+                buttonImage.getElement().setAttribute("class", "glyphicon glyphicon-stop");
+                buttonImage.getElement().setAttribute("aria-hidden", "true");
+                buttonText.setHTML(new SafeHtmlBuilder()
+                        .appendEscaped(CONSTANTS.format("AbstractRosterViewPanel.terminateEarly"))
                         .toSafeHtml().asString());
-            } else if (arg instanceof SetSolvingTimeEvent) {
-                SetSolvingTimeEvent event = (SetSolvingTimeEvent) arg;
+                isSolving = true;
+                String status;
+                if (solverStatusView.getSolverStatus() == SolverStatus.SCHEDULED
+                        && solverStatusView.getQueuePosition() != null) {
+                    status = CONSTANTS.format(AbstractRosterViewPanel_waitingInQueue,
+                            solverStatusView.getQueuePosition());
+                } else if (solverStatusView.getBestScore() != null) {
+                    status = CONSTANTS.format(AbstractRosterViewPanel_solvingWithBestScore,
+                            solverStatusView.getBestScore().toString());
+                } else {
+                    status = CONSTANTS.format(AbstractRosterViewPanel_solving);
+                }
+                // The termination depends on the tenant configuration and the size of the roster
+                if (solverStatusView.getUnimprovedTimeMillisSpentLimit() != null) {
+                    status += " " + CONSTANTS.format(AbstractRosterViewPanel_unimprovedTimeLimit,
+                            solverStatusView.getTimeMillisSpentLimit() / 1000L,
+                            solverStatusView.getUnimprovedTimeMillisSpentLimit() / 1000L);
+                } else if (solverStatusView.getTimeMillisSpentLimit() != null) {
+                    status += " " + CONSTANTS.format(AbstractRosterViewPanel_timeLimit,
+                            solverStatusView.getTimeMillisSpentLimit() / 1000L);
+                }
+                if (solverStatusView.getBestScoreLimit() != null) {
+                    status += " " + CONSTANTS.format(AbstractRosterViewPanel_bestScoreLimit,
+                            solverStatusView.getBestScoreLimit());
+                }
                 solveStatus.setHTML(new SafeHtmlBuilder()
-                        .appendHtmlConstant(CONSTANTS.format(AbstractRosterViewPanel_solvingFor, event
-                                .getSecondsRemaining()))
+                        .appendEscaped(status)
                         .toSafeHtml().asString());
             }
+            // Only re-render if the solver persisted a new best solution since the previous message
+            if (solverStatusReceived && !Objects.equals(solverStatusView.getRevision(), lastRevision)) {
+                refreshChanges();
+            }
+            lastRevision = solverStatusView.getRevision();
+            solverStatusReceived = true;
         }
     }
 
     protected abstract void refreshTable();
 
+    /**
+     * Patches the roster view with the shifts and employee availabilities that changed since it was fetched,
+     * instead of fetching it again.
+     * Falls back to {@link #refreshTable()} if the server or the roster view can't express the changes.
+     */
+    protected void refreshChanges() {
+        Integer changesTenantId = tenantId;
+        Long revision = getRosterViewRevision();
+        if (changesTenantId == null || revision == null) {
+            refreshTable();
+            return;
+        }
+        RosterRestServiceBuilder.getRosterChangesSince(changesTenantId, revision,
+                new FailureShownRestCallback<RosterChangesView>() {
+
+                    @Override
+                    public void onSuccess(RosterChangesView changes) {
+                        if (!changesTenantId.equals(tenantId)) {
+                            // The tenant changed in the meantime, which already re-rendered
+                            return;
+                        }
+                        if (changes.isReloadRequired() || !applyRosterChanges(changes)) {
+                            refreshTable();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * @return sometimes null, the revision of the roster view that is shown
+     */
+    protected abstract Long getRosterViewRevision();
+
+    /**
+     * @param changes never null, not {@link RosterChangesView#isReloadRequired()}
+     * @return false if the roster view must be fetched again instead
+     */
+    protected abstract boolean applyRosterChanges(RosterChangesView changes);
+
     @EventHandler("solveButton")
     public void solve(ClickEvent e) {
         if (tenantId == null) {
             throw new IllegalStateException("The tenantId (" + tenantId + ") cannot be null at this time.");
         }
+        // The solver status changes are pushed by the server
         if (isSolving) {
             RosterRestServiceBuilder.terminateRosterEarly(tenantId, new FailureShownRestCallback<Void>() {
 
                 public void onSuccess(Void t) {
-                    solverObservable.notifyObservers(new TerminateSolvingEvent());
                 }
             });
         } else {
             RosterRestServiceBuilder.solveRoster(tenantId, new FailureShownRestCallback<Void>() {
 
                 public void onSuccess(Void t) {
-                    solverObservable.notifyObservers(new StartSolvingEvent());
-                    // TODO 15 * 2000ms = 30 seconds - Keep in sync with solver config
-                    Scheduler.get().scheduleFixedDelay(new RefreshTableRepeatingCommand(15), REFRESH_RATE);
                 }
             });
         }
     }
 
-    protected class StartSolvingEvent {
-    }
-
-    protected class TerminateSolvingEvent {
-    }
-
-    protected class SetSolvingTimeEvent {
-
-        final int secondsRemaining;
-
-        public SetSolvingTimeEvent(int secondRemaining) {
-            this.secondsRemaining = secondRemaining;
-        }
-
-        public int getSecondsRemaining() {
-            return secondsRemaining;
-        }
-    }
-
-    protected class RefreshTableRepeatingCommand implements Scheduler.RepeatingCommand, Observer {
-
-        private int repeatCount;
-        boolean terminateEarly = false;
-
-        public RefreshTableRepeatingCommand(int repeatCount) {
-            this.repeatCount = repeatCount;
-            solverObservable.addObserver(this);
-            updateSolverStatus();
-        }
-
-        @Override
-        public boolean execute() {
-            if (terminateEarly) {
-                solverObservable.removeObserver(this);
-                return false;
-            }
-            refreshTable();
-            // To repeat n times, return true only n-1 times.
-            repeatCount--;
-            if (repeatCount > 0) {
-                updateSolverStatus();
-                return true;
-            } else {
-                solverObservable.removeObserver(this);
-                solverObservable.notifyObservers(new TerminateSolvingEvent());
-                return false;
-            }
-        }
-
-        private void updateSolverStatus() {
-            int remainingSeconds = REFRESH_RATE * repeatCount / 1000;
-            solverObservable.notifyObservers(new SetSolvingTimeEvent(remainingSeconds));
-
-        }
-
-        @Override
-        public void update(Observable observable, Object argument) {
-            if (observable == solverObservable && argument instanceof TerminateSolvingEvent) {
-                terminateEarly = true;
-            }
-        }
-
-    }
 }
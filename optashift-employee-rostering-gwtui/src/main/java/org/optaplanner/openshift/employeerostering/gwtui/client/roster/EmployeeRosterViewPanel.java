@@ -45,6 +45,7 @@ import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeRestS
 import org.optaplanner.openshift.employeerostering.shared.employee.view.EmployeeAvailabilityView;
 import org.optaplanner.openshift.employeerostering.shared.roster.RosterRestServiceBuilder;
 import org.optaplanner.openshift.employeerostering.shared.roster.view.EmployeeRosterView;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.RosterChangesView;
 import org.optaplanner.openshift.employeerostering.shared.shift.ShiftRestServiceBuilder;
 import org.optaplanner.openshift.employeerostering.shared.shift.view.ShiftView;
 import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
@@ -64,6 +65,7 @@ public class EmployeeRosterViewPanel extends AbstractRosterViewPanel {
     private Div container;
 
     private Calendar<EmployeeId, EmployeeData> calendar;
+    private EmployeeDataFetchable dataFetchable;
 
     private EmployeeRosterView employeeRosterView;
     private Map<Long, Spot> spotMap;
@@ -106,7 +108,8 @@ public class EmployeeRosterViewPanel extends AbstractRosterViewPanel {
                         .withBeanManager(beanManager)
                         .asTwoDayView((v, d, i) -> new EmployeeDrawable<>(v, d, i));
 
-        calendar.setDataProvider(new EmployeeDataFetchable(calendar, () -> getTenantId()));
+        dataFetchable = new EmployeeDataFetchable(calendar, () -> getTenantId());
+        calendar.setDataProvider(dataFetchable);
         Window.addResizeHandler((e) -> calendar.setViewSize(e.getWidth() - container.getAbsoluteLeft(),
                 e.getHeight() - container.getAbsoluteTop()));
     }
@@ -133,6 +136,16 @@ public class EmployeeRosterViewPanel extends AbstractRosterViewPanel {
         calendar.forceUpdate();
     }
 
+    @Override
+    protected Long getRosterViewRevision() {
+        return dataFetchable.getRevision();
+    }
+
+    @Override
+    protected boolean applyRosterChanges(RosterChangesView changes) {
+        return dataFetchable.applyChanges(changes);
+    }
+
     private Integer getTenantId() {
         return tenantId;
     }
@@ -0,0 +1,95 @@
+package org.optaplanner.openshift.employeerostering.gwtui.client.roster;
+
+import java.util.function.Consumer;
+
+import com.github.nmorel.gwtjackson.client.ObjectMapper;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.user.client.Window;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.SolverStatusView;
+
+/**
+ * Receives the solver status of a tenant from the server as soon as it changes,
+ * instead of polling for it. Reconnects if the connection drops.
+ */
+public class SolverStatusSocket {
+
+    protected static final int RECONNECT_DELAY = 5000;
+
+    public interface SolverStatusViewMapper extends ObjectMapper<SolverStatusView> {
+
+    }
+
+    private static final SolverStatusViewMapper MAPPER = GWT.create(SolverStatusViewMapper.class);
+
+    private final Consumer<SolverStatusView> listener;
+
+    private Integer tenantId = null;
+    private JavaScriptObject webSocket = null;
+
+    public SolverStatusSocket(Consumer<SolverStatusView> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Does nothing if it's already connected to that tenant.
+     * @param tenantId never null
+     */
+    public void connect(Integer tenantId) {
+        if (tenantId.equals(this.tenantId) && webSocket != null) {
+            return;
+        }
+        close();
+        this.tenantId = tenantId;
+        // Keep in sync with SolverStatusWebSocketEndpoint
+        String protocol = "https:".equals(Window.Location.getProtocol()) ? "wss:" : "ws:";
+        webSocket = open(protocol + "//" + Window.Location.getHost()
+                + "/websocket/tenant/" + tenantId + "/solverStatus");
+    }
+
+    public void close() {
+        if (webSocket != null) {
+            JavaScriptObject oldWebSocket = webSocket;
+            webSocket = null;
+            close(oldWebSocket);
+        }
+        tenantId = null;
+    }
+
+    private void onMessage(String message) {
+        listener.accept(MAPPER.read(message));
+    }
+
+    private void onClose(JavaScriptObject closedWebSocket) {
+        if (closedWebSocket != webSocket) {
+            // Closed by close() or replaced by a newer connection
+            return;
+        }
+        webSocket = null;
+        Integer reconnectTenantId = tenantId;
+        Scheduler.get().scheduleFixedDelay(() -> {
+            if (webSocket == null && reconnectTenantId.equals(tenantId)) {
+                connect(reconnectTenantId);
+            }
+            return false;
+        }, RECONNECT_DELAY);
+    }
+
+    private native JavaScriptObject open(String url) /*-{
+        var self = this;
+        var webSocket = new $wnd.WebSocket(url);
+        webSocket.onmessage = $entry(function (event) {
+            self.@org.optaplanner.openshift.employeerostering.gwtui.client.roster.SolverStatusSocket::onMessage(Ljava/lang/String;)(event.data);
+        });
+        webSocket.onclose = $entry(function () {
+            self.@org.optaplanner.openshift.employeerostering.gwtui.client.roster.SolverStatusSocket::onClose(Lcom/google/gwt/core/client/JavaScriptObject;)(webSocket);
+        });
+        return webSocket;
+    }-*/;
+
+    private static native void close(JavaScriptObject webSocket) /*-{
+        webSocket.close();
+    }-*/;
+
+}
@@ -49,6 +49,7 @@ import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
 import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeRestServiceBuilder;
 import org.optaplanner.openshift.employeerostering.shared.roster.RosterRestServiceBuilder;
 import org.optaplanner.openshift.employeerostering.shared.roster.view.EmployeeRosterView;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.RosterChangesView;
 import org.optaplanner.openshift.employeerostering.shared.roster.view.SpotRosterView;
 import org.optaplanner.openshift.employeerostering.shared.shift.ShiftRestServiceBuilder;
 import org.optaplanner.openshift.employeerostering.shared.shift.view.ShiftView;
@@ -68,6 +69,7 @@ public class SpotRosterViewPanel extends AbstractRosterViewPanel {
     private Div container;
 
     private Calendar<SpotId, SpotData> calendar;
+    private SpotDataFetchable dataFetchable;
 
     @Inject
     private SyncBeanManager beanManager;
@@ -91,7 +93,8 @@ public class SpotRosterViewPanel extends AbstractRosterViewPanel {
                 .fetchingGroupsFrom(new SpotNameFetchable(() -> getTenantId()))
                 .withBeanManager(beanManager)
                 .asTwoDayView((v, d, i) -> new SpotDrawable<>(v, d, i));
-        calendar.setDataProvider(new SpotDataFetchable(calendar, () -> getTenantId()));
+        dataFetchable = new SpotDataFetchable(calendar, () -> getTenantId());
+        calendar.setDataProvider(dataFetchable);
         Window.addResizeHandler((e) -> calendar.setViewSize(e.getWidth() - container.getAbsoluteLeft(),
                 e.getHeight() - container.getAbsoluteTop()));
     }
@@ -117,6 +120,16 @@ public class SpotRosterViewPanel extends AbstractRosterViewPanel {
         calendar.forceUpdate();
     }
 
+    @Override
+    protected Long getRosterViewRevision() {
+        return dataFetchable.getRevision();
+    }
+
+    @Override
+    protected boolean applyRosterChanges(RosterChangesView changes) {
+        return dataFetchable.applyChanges(changes);
+    }
+
     private int getTenantId() {
         return tenantId;
     }
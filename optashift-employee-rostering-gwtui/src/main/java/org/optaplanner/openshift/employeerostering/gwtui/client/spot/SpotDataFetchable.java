@@ -4,6 +4,7 @@ import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -19,7 +20,10 @@ import org.optaplanner.openshift.employeerostering.gwtui.client.interfaces.Fetch
 import org.optaplanner.openshift.employeerostering.gwtui.client.interfaces.Updatable;
 import org.optaplanner.openshift.employeerostering.gwtui.client.popups.ErrorPopup;
 import org.optaplanner.openshift.employeerostering.gwtui.client.popups.LoadingPopup;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.CompactRosterView;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.CompactRosterViewUtils;
 import org.optaplanner.openshift.employeerostering.shared.roster.view.EmployeeRosterView;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.RosterChangesView;
 import org.optaplanner.openshift.employeerostering.shared.roster.view.SpotRosterView;
 import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
 import org.optaplanner.openshift.employeerostering.shared.shift.view.ShiftView;
@@ -57,12 +61,13 @@ public class SpotDataFetchable implements Fetchable<Collection<SpotData>> {
             Integer tenantId = tenantIdProvider.get();
             if (null == last || null == calendar || !last.getTenantId().equals(tenantId)) {
                 LoadingPopup.setLoading(LOADING_STRING);
-                RosterRestServiceBuilder.getCurrentSpotRosterView(tenantId, new FailureShownRestCallback<
-                        SpotRosterView>() {
+                RosterRestServiceBuilder.getCurrentCompactSpotRosterView(tenantId, new FailureShownRestCallback<
+                        CompactRosterView>() {
 
                     @Override
-                    public void onSuccess(SpotRosterView spotRosterView) {
+                    public void onSuccess(CompactRosterView compactRosterView) {
                         try {
+                            SpotRosterView spotRosterView = CompactRosterViewUtils.toSpotRosterView(compactRosterView);
                             last = spotRosterView;
                             Map<Long, Map<Long, List<ShiftView>>> timeSlotIdToSpotIdToShiftViewListMap = spotRosterView
                                     .getTimeSlotIdToSpotIdToShiftViewListMap();
@@ -97,16 +102,18 @@ public class SpotDataFetchable implements Fetchable<Collection<SpotData>> {
                     }
                 });
             } else {
-                RosterRestServiceBuilder.getSpotRosterViewFor(tenantId, calendar.getViewStartDate().minusDays(1)
+                RosterRestServiceBuilder.getCompactSpotRosterViewFor(tenantId, calendar.getViewStartDate().minusDays(1)
                         .toLocalDate()
                         .toString(),
                         calendar.getViewEndDate().plusDays(1).toLocalDate().toString(), calendar.getVisibleGroups()
                                 .stream()
                                 .map((g) -> g.getSpot()).collect(Collectors.toList()), new FailureShownRestCallback<
-                                        SpotRosterView>() {
+                                        CompactRosterView>() {
 
                                     @Override
-                                    public void onSuccess(SpotRosterView spotRosterView) {
+                                    public void onSuccess(CompactRosterView compactRosterView) {
+                                        SpotRosterView spotRosterView = CompactRosterViewUtils.toSpotRosterView(
+                                                compactRosterView);
                                         last = spotRosterView;
                                         Map<Long, Map<Long, List<ShiftView>>> timeSlotIdToSpotIdToShiftViewListMap =
                                                 spotRosterView
@@ -143,6 +150,64 @@ public class SpotDataFetchable implements Fetchable<Collection<SpotData>> {
 
     }
 
+    /**
+     * @return sometimes null, the revision of the last fetched roster view or of the last applied changes
+     */
+    public Long getRevision() {
+        return (null == last) ? null : last.getRevision();
+    }
+
+    /**
+     * Patches the calendar in place, instead of fetching the roster view again.
+     * The changed shifts outside the last fetched roster view are ignored.
+     * @param changes never null
+     * @return false if the roster view must be fetched again instead
+     */
+    public boolean applyChanges(RosterChangesView changes) {
+        if (null == last || null == calendar || changes.isReloadRequired()
+                || !last.getTenantId().equals(changes.getTenantId())) {
+            return false;
+        }
+        Map<Long, Spot> spotMap = last.getSpotList().stream()
+                .collect(Collectors.toMap(Spot::getId, Function.identity()));
+        Map<Long, TimeSlot> timeSlotMap = last.getTimeSlotList().stream()
+                .collect(Collectors.toMap(TimeSlot::getId, Function.identity()));
+        Map<Long, Employee> employeeMap = last.getEmployeeList().stream()
+                .collect(Collectors.toMap(Employee::getId, Function.identity()));
+        for (ShiftView sv : changes.getShiftList()) {
+            if (null != sv.getEmployeeId() && !employeeMap.containsKey(sv.getEmployeeId())) {
+                return false;
+            }
+        }
+        Map<Long, SpotData> shiftIdToSpotDataMap = new HashMap<>();
+        for (SpotData spotData : calendar.getShifts()) {
+            shiftIdToSpotDataMap.put(spotData.getShift().getId(), spotData);
+        }
+        for (ShiftView sv : changes.getShiftList()) {
+            Spot spot = spotMap.get(sv.getSpotId());
+            TimeSlot timeslot = timeSlotMap.get(sv.getTimeSlotId());
+            SpotData oldShift = shiftIdToSpotDataMap.get(sv.getId());
+            // A shift that moved to another spot or time slot moves to another row or column
+            if (null != oldShift && (null == spot || null == timeslot || !oldShift.getSpot().equals(spot)
+                    || !oldShift.getShift().getTimeSlot().equals(timeslot))) {
+                calendar.removeShift(oldShift);
+            }
+            if (null != spot && null != timeslot) {
+                Shift shift = new Shift(sv, spot, timeslot);
+                shift.setEmployee(employeeMap.get(sv.getEmployeeId()));
+                calendar.updateShift(new SpotData(shift));
+            }
+        }
+        for (Long removedShiftId : changes.getRemovedShiftIdList()) {
+            SpotData oldShift = shiftIdToSpotDataMap.get(removedShiftId);
+            if (null != oldShift) {
+                calendar.removeShift(oldShift);
+            }
+        }
+        last.setRevision(changes.getRevision());
+        return true;
+    }
+
     @Override
     public void setUpdatable(Updatable<Collection<SpotData>> listener) {
         this.updatable = listener;
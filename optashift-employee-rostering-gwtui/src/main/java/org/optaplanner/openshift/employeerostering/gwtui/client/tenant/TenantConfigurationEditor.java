@@ -12,15 +12,19 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.user.client.ui.Button;
+import org.gwtbootstrap3.client.ui.CheckBox;
 import org.gwtbootstrap3.client.ui.IntegerBox;
 import org.gwtbootstrap3.client.ui.ListBox;
+import org.gwtbootstrap3.client.ui.TextBox;
 import org.gwtbootstrap3.client.ui.form.validator.DecimalMinValidator;
 import org.jboss.errai.ui.client.local.api.IsElement;
 import org.jboss.errai.ui.shared.api.annotations.DataField;
 import org.jboss.errai.ui.shared.api.annotations.EventHandler;
 import org.jboss.errai.ui.shared.api.annotations.Templated;
 import org.optaplanner.openshift.employeerostering.gwtui.client.common.FailureShownRestCallback;
+import org.optaplanner.openshift.employeerostering.gwtui.client.popups.ErrorPopup;
 import org.optaplanner.openshift.employeerostering.gwtui.client.tenant.ConfigurationEditor.Views;
+import org.optaplanner.openshift.employeerostering.shared.roster.RosterPartitionStrategy;
 import org.optaplanner.openshift.employeerostering.shared.tenant.Tenant;
 import org.optaplanner.openshift.employeerostering.shared.tenant.TenantRestServiceBuilder;
 
@@ -35,6 +39,38 @@ public class TenantConfigurationEditor implements IsElement {
     @DataField
     private IntegerBox desiredWeightInput;
 
+    @Inject
+    @DataField
+    private IntegerBox solverThreadCountInput;
+
+    @Inject
+    @DataField
+    private ListBox partitionStrategy;
+
+    @Inject
+    @DataField
+    private CheckBox employeeRangeFiltered;
+
+    @Inject
+    @DataField
+    private IntegerBox solverSecondsPerThousandShiftsInput;
+
+    @Inject
+    @DataField
+    private IntegerBox minimumSolverSecondsInput;
+
+    @Inject
+    @DataField
+    private IntegerBox maximumSolverSecondsInput;
+
+    @Inject
+    @DataField
+    private IntegerBox unimprovedSolverSecondsInput;
+
+    @Inject
+    @DataField
+    private TextBox bestScoreLimitInput;
+
     @Inject
     @DataField
     private ListBox weekStart;
@@ -65,6 +101,9 @@ public class TenantConfigurationEditor implements IsElement {
         for (DayOfWeek day : DayOfWeek.values()) {
             weekStart.addItem(day.toString());
         }
+        for (RosterPartitionStrategy strategy : RosterPartitionStrategy.values()) {
+            partitionStrategy.addItem(strategy.toString());
+        }
 
         // TODO: Make this more maintainable
         templateDurationIndexMap = HashBiMap.create();
@@ -77,6 +116,11 @@ public class TenantConfigurationEditor implements IsElement {
 
         desiredWeightInput.setValidators(new DecimalMinValidator<Integer>(0));
         undesiredWeightInput.setValidators(new DecimalMinValidator<Integer>(0));
+        solverThreadCountInput.setValidators(new DecimalMinValidator<Integer>(1));
+        solverSecondsPerThousandShiftsInput.setValidators(new DecimalMinValidator<Integer>(0));
+        minimumSolverSecondsInput.setValidators(new DecimalMinValidator<Integer>(1));
+        maximumSolverSecondsInput.setValidators(new DecimalMinValidator<Integer>(1));
+        unimprovedSolverSecondsInput.setValidators(new DecimalMinValidator<Integer>(0));
     }
 
     public void onAnyTenantEvent(@Observes Tenant tenant) {
@@ -86,6 +130,14 @@ public class TenantConfigurationEditor implements IsElement {
                                                                              .getTemplateDuration()));
         desiredWeightInput.setValue(tenant.getConfiguration().getDesiredTimeSlotWeight());
         undesiredWeightInput.setValue(tenant.getConfiguration().getUndesiredTimeSlotWeight());
+        solverThreadCountInput.setValue(tenant.getConfiguration().getSolverThreadCount());
+        partitionStrategy.setSelectedIndex(tenant.getConfiguration().getPartitionStrategy().ordinal());
+        employeeRangeFiltered.setValue(tenant.getConfiguration().getEmployeeRangeFiltered());
+        solverSecondsPerThousandShiftsInput.setValue(tenant.getConfiguration().getSolverSecondsPerThousandShifts());
+        minimumSolverSecondsInput.setValue(tenant.getConfiguration().getMinimumSolverSeconds());
+        maximumSolverSecondsInput.setValue(tenant.getConfiguration().getMaximumSolverSeconds());
+        unimprovedSolverSecondsInput.setValue(tenant.getConfiguration().getUnimprovedSolverSeconds());
+        bestScoreLimitInput.setValue(tenant.getConfiguration().getBestScoreLimit());
         refresh();
     }
 
@@ -97,11 +149,30 @@ public class TenantConfigurationEditor implements IsElement {
 
     @EventHandler("updateConfig")
     private void onUpdateConfigClick(ClickEvent e) {
+        Integer minimumSolverSeconds = minimumSolverSecondsInput.getValue();
+        Integer maximumSolverSeconds = maximumSolverSecondsInput.getValue();
+        if (minimumSolverSeconds != null && maximumSolverSeconds != null
+                && minimumSolverSeconds > maximumSolverSeconds) {
+            ErrorPopup.show("The minimum solver seconds (" + minimumSolverSeconds
+                    + ") must not be greater than the maximum solver seconds (" + maximumSolverSeconds + ").");
+            return;
+        }
         tenant.getConfiguration().setTemplateDuration(templateDurationIndexMap.inverse().get(templateDuration
                                                                                                              .getSelectedIndex()));
         tenant.getConfiguration().setWeekStart(DayOfWeek.valueOf(weekStart.getSelectedItemText()));
         tenant.getConfiguration().setDesiredTimeSlotWeight(desiredWeightInput.getValue());
         tenant.getConfiguration().setUndesiredTimeSlotWeight(undesiredWeightInput.getValue());
+        tenant.getConfiguration().setSolverThreadCount(solverThreadCountInput.getValue());
+        tenant.getConfiguration().setPartitionStrategy(RosterPartitionStrategy.valueOf(partitionStrategy
+                                                                                               .getSelectedItemText()));
+        tenant.getConfiguration().setEmployeeRangeFiltered(employeeRangeFiltered.getValue());
+        tenant.getConfiguration().setSolverSecondsPerThousandShifts(solverSecondsPerThousandShiftsInput.getValue());
+        tenant.getConfiguration().setMinimumSolverSeconds(minimumSolverSeconds);
+        tenant.getConfiguration().setMaximumSolverSeconds(maximumSolverSeconds);
+        tenant.getConfiguration().setUnimprovedSolverSeconds(unimprovedSolverSecondsInput.getValue());
+        String bestScoreLimit = bestScoreLimitInput.getValue();
+        tenant.getConfiguration().setBestScoreLimit((bestScoreLimit == null || bestScoreLimit.trim().isEmpty())
+                                                            ? null : bestScoreLimit.trim());
         TenantRestServiceBuilder.updateTenantConfiguration(tenant.getConfiguration(),
                                                            new FailureShownRestCallback<Tenant>() {
 
@@ -19,11 +19,16 @@ package org.optaplanner.openshift.employeerostering.server.employee;
 import java.util.List;
 import java.util.Objects;
 
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
 
 import org.optaplanner.openshift.employeerostering.server.common.AbstractRestServiceImpl;
+import org.optaplanner.openshift.employeerostering.server.roster.RosterRevisionTracker;
+import org.optaplanner.openshift.employeerostering.server.roster.RosterViewCache;
+import org.optaplanner.openshift.employeerostering.server.solver.RosterProblemFactChanges;
+import org.optaplanner.openshift.employeerostering.server.solver.WannabeSolverManager;
 import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
 import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailability;
 import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeGroup;
@@ -37,6 +42,15 @@ public class EmployeeRestServiceImpl extends AbstractRestServiceImpl implements
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Inject
+    private WannabeSolverManager solverManager;
+
+    @Inject
+    private RosterViewCache rosterViewCache;
+
+    @Inject
+    private RosterRevisionTracker rosterRevisionTracker;
+
     @Override
     @Transactional
     public List<Employee> getEmployeeList(Integer tenantId) {
@@ -58,6 +72,9 @@ public class EmployeeRestServiceImpl extends AbstractRestServiceImpl implements
     public Employee addEmployee(Integer tenantId, Employee employee) {
         validateTenantIdParameter(tenantId, employee);
         entityManager.persist(employee);
+        rosterViewCache.invalidate(tenantId);
+        rosterRevisionTracker.reloadRequired(tenantId);
+        solverManager.addProblemFactChange(tenantId, RosterProblemFactChanges.addEmployee(employee));
         return employee;
     }
 
@@ -66,6 +83,9 @@ public class EmployeeRestServiceImpl extends AbstractRestServiceImpl implements
     public Employee updateEmployee(Integer tenantId, Employee employee) {
         validateTenantIdParameter(tenantId, employee);
         employee = entityManager.merge(employee);
+        rosterViewCache.invalidate(tenantId);
+        rosterRevisionTracker.reloadRequired(tenantId);
+        solverManager.addProblemFactChange(tenantId, RosterProblemFactChanges.updateEmployee(employee));
         return employee;
     }
 
@@ -78,6 +98,9 @@ public class EmployeeRestServiceImpl extends AbstractRestServiceImpl implements
         }
         validateTenantIdParameter(tenantId, employee);
         entityManager.remove(employee);
+        rosterViewCache.invalidate(tenantId);
+        rosterRevisionTracker.reloadRequired(tenantId);
+        solverManager.addProblemFactChange(tenantId, RosterProblemFactChanges.removeEmployee(employee));
         return true;
     }
 
@@ -97,6 +120,10 @@ public class EmployeeRestServiceImpl extends AbstractRestServiceImpl implements
     public Long addEmployeeAvailability(Integer tenantId, EmployeeAvailabilityView employeeAvailabilityView) {
         EmployeeAvailability employeeAvailability = convertFromView(tenantId, employeeAvailabilityView);
         entityManager.persist(employeeAvailability);
+        rosterViewCache.invalidate(tenantId);
+        rosterRevisionTracker.employeeAvailabilityChanged(tenantId, employeeAvailability.getId());
+        solverManager.addProblemFactChange(tenantId,
+                RosterProblemFactChanges.addEmployeeAvailability(employeeAvailability));
         return employeeAvailability.getId();
     }
 
@@ -105,6 +132,10 @@ public class EmployeeRestServiceImpl extends AbstractRestServiceImpl implements
     public void updateEmployeeAvailability(Integer tenantId, EmployeeAvailabilityView employeeAvailabilityView) {
         EmployeeAvailability employeeAvailability = convertFromView(tenantId, employeeAvailabilityView);
         entityManager.merge(employeeAvailability);
+        rosterViewCache.invalidate(tenantId);
+        rosterRevisionTracker.employeeAvailabilityChanged(tenantId, employeeAvailability.getId());
+        solverManager.addProblemFactChange(tenantId,
+                RosterProblemFactChanges.updateEmployeeAvailability(employeeAvailability));
     }
 
     private EmployeeAvailability convertFromView(Integer tenantId, EmployeeAvailabilityView employeeAvailabilityView) {
@@ -127,6 +158,10 @@ public class EmployeeRestServiceImpl extends AbstractRestServiceImpl implements
         }
         validateTenantIdParameter(tenantId, employeeAvailability);
         entityManager.remove(employeeAvailability);
+        rosterViewCache.invalidate(tenantId);
+        rosterRevisionTracker.employeeAvailabilityRemoved(tenantId, employeeAvailability.getId());
+        solverManager.addProblemFactChange(tenantId,
+                RosterProblemFactChanges.removeEmployeeAvailability(employeeAvailability));
         return true;
     }
 
@@ -3,12 +3,22 @@ package org.optaplanner.openshift.employeerostering.server.lang.parser;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -18,9 +28,11 @@ import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvail
 import org.optaplanner.openshift.employeerostering.shared.lang.parser.DateMatcher;
 import org.optaplanner.openshift.employeerostering.shared.lang.parser.ParserException;
 import org.optaplanner.openshift.employeerostering.shared.lang.tokens.BaseDateDefinitions;
+import org.optaplanner.openshift.employeerostering.shared.lang.tokens.EmployeeConditional;
 import org.optaplanner.openshift.employeerostering.shared.lang.tokens.EmployeeTimeSlotInfo;
 import org.optaplanner.openshift.employeerostering.shared.lang.tokens.IdOrGroup;
 import org.optaplanner.openshift.employeerostering.shared.lang.tokens.RepeatMode;
+import org.optaplanner.openshift.employeerostering.shared.lang.tokens.ShiftConditional;
 import org.optaplanner.openshift.employeerostering.shared.lang.tokens.ShiftInfo;
 import org.optaplanner.openshift.employeerostering.shared.lang.tokens.ShiftTemplate;
 import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
@@ -29,14 +41,90 @@ import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
 
 //CUP maven plugins seems out of date; the format file is simple enough to code by hand
 public class ShiftFileParser {
-    
+
+    /**
+     * Set to true to expand the shift infos of a template on the fork/join pool, see
+     * {@link #addShiftsInParallelFrom(ParserState, List)}.
+     * The output is the same, but it costs memory: the dates of every occurrence in the whole date range
+     * (about 200 bytes per occurrence of a shift info, regardless of its spots and employees) are kept until
+     * they are generated, instead of one window of {@link #TIME_SLOT_WINDOW_DAYS} days at a time.
+     * For example 100 daily shift infos over a year keep about 7 MB.
+     */
+    public static final String PARALLEL_PROPERTY = "optashift.templateExpansion.parallel";
+
+    private static final long PARALLEL_CHUNK_OCCURRENCE_COUNT = 16L;
+
+    /**
+     * The occurrences of all shift infos are generated one window of this many days at a time,
+     * so only the time slots of the current window (and their employee availabilities) are kept in memory.
+     */
+    private static final long TIME_SLOT_WINDOW_DAYS = 7L;
+
+    /**
+     * Above this size, the least recently used date matcher of a parse is evicted.
+     */
+    private static final int DATE_MATCHER_CACHE_MAXIMUM_SIZE = 1000;
+
+    /**
+     * Collects the whole expansion in memory, see {@link #parse(Integer, List, List, Map, Map, LocalDateTime,
+     * LocalDateTime, ShiftTemplate, ParserListener)} to process it as it is generated instead.
+     */
     public static ParserOut parse(Integer tenantId, List<Spot> spots,
             List<Employee> employees, Map<Long, List<Spot>> spotGroupMap,
             Map<Long, List<Employee>> employeeGroupMap,
             LocalDateTime start, LocalDateTime end,
             ShiftTemplate template) throws ParserException {
+        ParserOut out = new ParserOut();
+        out.shiftsOut = new ArrayList<>();
+        out.employeeAvailabilityOut = new ArrayList<>();
+        parse(tenantId, spots, employees, spotGroupMap, employeeGroupMap, start, end, template,
+                new ParserListener() {
+                    @Override
+                    public void onTimeSlot(TimeSlot timeSlot) {
+                    }
+
+                    @Override
+                    public void onShift(Shift shift) {
+                        out.shiftsOut.add(shift);
+                    }
+
+                    @Override
+                    public void onEmployeeAvailability(EmployeeAvailability employeeAvailability) {
+                        out.employeeAvailabilityOut.add(employeeAvailability);
+                    }
+                });
+        return out;
+    }
+
+    /**
+     * Passes every generated entity to the listener as soon as it is generated, so the caller can persist them
+     * without holding the whole expansion in memory.
+     * Time slots with the same start and end are generated once and shared by their shifts and employee
+     * availabilities. Only the first employee availability of an employee in a time slot is generated,
+     * in the order of the shift infos of the template, as if each shift info were expanded over the whole date range
+     * before the next one.
+     */
+    public static void parse(Integer tenantId, List<Spot> spots,
+            List<Employee> employees, Map<Long, List<Spot>> spotGroupMap,
+            Map<Long, List<Employee>> employeeGroupMap,
+            LocalDateTime start, LocalDateTime end,
+            ShiftTemplate template, ParserListener listener) throws ParserException {
+        parse(tenantId, spots, employees, spotGroupMap, employeeGroupMap, start, end, template, listener,
+                Boolean.getBoolean(PARALLEL_PROPERTY));
+    }
+
+    /**
+     * @param parallel true to expand on the fork/join pool, see {@link #PARALLEL_PROPERTY}
+     */
+    static void parse(Integer tenantId, List<Spot> spots,
+            List<Employee> employees, Map<Long, List<Spot>> spotGroupMap,
+            Map<Long, List<Employee>> employeeGroupMap,
+            LocalDateTime start, LocalDateTime end,
+            ShiftTemplate template, ParserListener listener, boolean parallel) throws ParserException {
         ParserState state = new ParserState();
         state.tenantId = tenantId;
+        state.listener = listener;
+        state.parallel = parallel;
         state.startDate = start;
         state.endDate = end;
 
@@ -101,21 +189,21 @@ public class ShiftFileParser {
             state.repeatYears = dateMode.years;
         }
 
-        state.universalExceptions = template.getUniversalExceptions().stream()
-                .map((e) -> {
-                    try {
-                        return DateMatcher.getDateMatcher(e);
-                    } catch (Exception bad) {
-                        return null;
-                    }
-                }).collect(Collectors.toList());
-        
-        if (state.universalExceptions.contains(null)) {
-            throw new ParserException("Badly formatted date exception string");
+        state.dateMatcherCache = createDateMatcherCache();
+        state.universalExceptions = new ArrayList<>(template.getUniversalExceptions().size());
+        for (ShiftConditional universalException : template.getUniversalExceptions()) {
+            state.universalExceptions.add(getDateMatcher(state, universalException.getCondition(),
+                    universalException.getShift()));
         }
+        state.shiftInfoToExceptionsMap = new IdentityHashMap<>();
+        state.employeeTimeSlotInfoToStateMap = new IdentityHashMap<>();
 
-        state.shiftsOut = new ArrayList<>();
-        state.employeeAvailabilityOut = new ArrayList<>();
+        state.startDateTimeToEndDateTimeToTimeSlotMap = new TreeMap<>();
+        state.replacementStartDateTimeToEndDateTimeSetMap = new HashMap<>();
+        state.timeSlotToEmployeeIndexSetMap = new IdentityHashMap<>();
+        state.replacementTimeSlotToEmployeeAvailabilityMap = new IdentityHashMap<>();
+        state.replacementTimeSlotList = new ArrayList<>();
+        state.employeeToIndexMap = new IdentityHashMap<>(employees.size());
         state.spotMap = spots.stream()
                 .collect(Collectors.toMap(Spot::getId, Function.identity()));
         state.employeeMap = employees.stream()
@@ -124,83 +212,243 @@ public class ShiftFileParser {
         state.employeeGroupMap = employeeGroupMap;
         
         addShiftsFrom(state, template.getShifts());
-        ParserOut out = new ParserOut();
-        out.shiftsOut = state.shiftsOut;
-        out.employeeAvailabilityOut = state.employeeAvailabilityOut;
-
-        return out;
     }
     
     private static void addShiftsFrom(ParserState state, List<ShiftInfo> shifts)
             throws ParserException {
-        for (ShiftInfo shiftInfo : shifts) {
-            List<DateMatcher<ShiftInfo>> exceptions = (null != shiftInfo.getExceptions()) ? shiftInfo.getExceptions()
-                    .stream()
-                    .map((e) -> {
-                        try {
-                            return DateMatcher.getDateMatcher(e);
-                        } catch (Exception bad) {
-                            return null;
-                        }
-                    }).collect(Collectors.toList()) : Collections.emptyList();
-            if (exceptions.contains(null)) {
-                throw new ParserException("Badly formatted date exception string");
+        // A replacement is generated once in the whole date range
+        state.replacementRepeatDays = Duration.between(state.startDate, state.endDate).toDays() + 1;
+        keepReplacementTimeSlots(state, shifts);
+        if (state.parallel) {
+            addShiftsInParallelFrom(state, shifts);
+        } else {
+            addShiftsInWindowsFrom(state, shifts);
+        }
+        addReplacementEmployeeAvailabilities(state);
+    }
+
+    /**
+     * Expands the shift infos together, one window of {@link #TIME_SLOT_WINDOW_DAYS} days at a time,
+     * and shift info by shift info within a window.
+     * Only a replacement can generate a time slot that another window generates too, because it is generated
+     * at the base date whatever date matched its exception, so the employee availabilities of those time slots
+     * are kept until the end, see {@link #addEmployeeAvailability(ParserState, int, Employee, TimeSlot,
+     * EmployeeAvailabilityState)}. The first employee availability of any other time slot is the same
+     * as if every shift info were expanded before the next one.
+     */
+    private static void addShiftsInWindowsFrom(ParserState state, List<ShiftInfo> shifts) throws ParserException {
+        if (shifts.isEmpty()) {
+            return;
+        }
+        List<ExpansionCursor> cursorList = new ArrayList<>(shifts.size());
+        for (int i = 0; i < shifts.size(); i++) {
+            ShiftInfo shiftInfo = shifts.get(i);
+            cursorList.add(new ExpansionCursor(i, shiftInfo, getExceptions(state, shiftInfo),
+                    getFirstStartDate(state, shiftInfo), getFirstEndDate(state, shiftInfo)));
+        }
+        LocalDateTime windowStart = getWindowOrigin(state, shifts);
+        boolean expanding = true;
+        while (expanding) {
+            LocalDateTime windowEnd = windowStart.plusDays(TIME_SLOT_WINDOW_DAYS);
+            expanding = false;
+            for (ExpansionCursor cursor : cursorList) {
+                OccurrenceConsumer consumer = (occurrenceShiftInfo, triggerStartDate, startDate, endDate) -> addShift(
+                        state, cursor.shiftInfoIndex, occurrenceShiftInfo, startDate, endDate);
+                while (cursor.startDate.isBefore(windowEnd) && cursor.startDate.isBefore(state.endDate)) {
+                    expandOccurrence(state, cursor.shiftInfo, cursor.exceptions, cursor.startDate,
+                            cursor.startDate, cursor.endDate, consumer);
+                    cursor.startDate = getNextDate(state, cursor.startDate, state.repeatDays);
+                    cursor.endDate = getNextDate(state, cursor.endDate, state.repeatDays);
+                }
+                expanding |= cursor.startDate.isBefore(state.endDate);
             }
-            for (LocalDateTime startDate = state.baseDate.plus(Duration.between(LocalDateTime.ofEpochSecond(0, 0,
-                    ZoneOffset.UTC),
-                    shiftInfo.getStartTime())), endDate = state.baseDate.plus(Duration.between(LocalDateTime
-                            .ofEpochSecond(0, 0, ZoneOffset.UTC),
-                            shiftInfo.getEndTime()));
-                    //Cond
-                    startDate.isBefore(state.endDate);
-                    //Post
-                    startDate = startDate.plusYears(state.repeatYears)
-                            .plusMonths(state.repeatMonths)
-                            .plusWeeks(state.repeatWeeks)
-                            .plusDays(state.repeatDays),
-
-                    endDate = endDate.plusYears(state.repeatYears)
-                            .plusMonths(state.repeatMonths)
-                            .plusWeeks(state.repeatWeeks)
-                            .plusDays(state.repeatDays)) {
-                LocalDateTime clone = startDate;
-                Optional<DateMatcher<ShiftInfo>> shiftException = exceptions.stream().filter((dm) -> dm.test(clone))
-                        .findFirst();
-                if (shiftException.isPresent()) {
-                    DateMatcher<ShiftInfo> dateMatcher = shiftException.get();
-                    if (null != dateMatcher.getReplacement()) {
-                        long oldRepeatDays = state.repeatDays;
-                        state.repeatDays = Duration.between(state.startDate, state.endDate).toDays() + 1;
-                        addShiftsFrom(state, Arrays.asList(dateMatcher
-                                .getReplacement()));
-                        state.repeatDays = oldRepeatDays;
-                    }
-                } else {
-                    shiftException = state.universalExceptions.stream().filter((dm) -> dm.test(clone)).findFirst();
-                    if (shiftException.isPresent()) {
-                        DateMatcher<ShiftInfo> dateMatcher = shiftException.get();
-                        if (null != dateMatcher.getReplacement()) {
-                            long oldRepeatDays = state.repeatDays;
-                            state.repeatDays = Duration.between(state.startDate, state.endDate).toDays() + 1;
-                            addShiftsFrom(state, Arrays.asList(dateMatcher
-                                    .getReplacement()));
-                            state.repeatDays = oldRepeatDays;
-                        }
-                    } else {
-                        addShift(state, shiftInfo, startDate, endDate);
+            evictTimeSlotsBefore(state, windowEnd);
+            windowStart = windowEnd;
+        }
+    }
+
+    /**
+     * Parses every exception up front, so the expansion only reads the parser state.
+     * A replacement is generated at the same dates whenever one of its exceptions matches,
+     * so the time slots of the replacements are kept for the whole expansion, see
+     * {@link #evictTimeSlotsBefore(ParserState, LocalDateTime)}.
+     */
+    private static void keepReplacementTimeSlots(ParserState state, List<ShiftInfo> shifts) throws ParserException {
+        Deque<ShiftInfo> unparsedShiftInfoDeque = new ArrayDeque<>(shifts);
+        List<ShiftInfo> replacementList = new ArrayList<>();
+        for (DateMatcher<ShiftInfo> universalException : state.universalExceptions) {
+            if (null != universalException.getReplacement()) {
+                unparsedShiftInfoDeque.add(universalException.getReplacement());
+                replacementList.add(universalException.getReplacement());
+            }
+        }
+        while (!unparsedShiftInfoDeque.isEmpty()) {
+            ShiftInfo shiftInfo = unparsedShiftInfoDeque.poll();
+            if (!state.shiftInfoToExceptionsMap.containsKey(shiftInfo)) {
+                for (DateMatcher<ShiftInfo> exception : getExceptions(state, shiftInfo)) {
+                    if (null != exception.getReplacement()) {
+                        unparsedShiftInfoDeque.add(exception.getReplacement());
+                        replacementList.add(exception.getReplacement());
                     }
                 }
             }
         }
+        for (ShiftInfo replacement : replacementList) {
+            expand(state, replacement, state.replacementRepeatDays, 0L, Long.MAX_VALUE, null,
+                    (occurrenceShiftInfo, triggerStartDate, startDate, endDate) -> state
+                            .replacementStartDateTimeToEndDateTimeSetMap
+                            .computeIfAbsent(startDate, k -> new HashSet<>(2)).add(endDate));
+        }
+    }
+
+    /**
+     * Expands every shift info, split in chunks of {@link #PARALLEL_CHUNK_OCCURRENCE_COUNT} occurrences if it
+     * repeats every fixed number of days, on the fork/join pool.
+     * The entities are still generated on the calling thread, in the same order as the sequential expansion,
+     * so the listener doesn't need to be thread-safe and the output is identical.
+     * Unlike the sequential expansion, the dates of all occurrences are kept in memory until the generation,
+     * see {@link #PARALLEL_PROPERTY}.
+     */
+    private static void addShiftsInParallelFrom(ParserState state, List<ShiftInfo> shifts) throws ParserException {
+        if (shifts.isEmpty()) {
+            return;
+        }
+        List<ExpansionChunk> chunkList = new ArrayList<>();
+        long repeatDaysPerOccurrence = state.repeatWeeks * 7L + state.repeatDays;
+        for (int i = 0; i < shifts.size(); i++) {
+            ShiftInfo shiftInfo = shifts.get(i);
+            if (0L == state.repeatYears && 0L == state.repeatMonths && 0L < repeatDaysPerOccurrence) {
+                // The nth occurrence is n times the repeat days after the first, so each chunk can start on its own
+                long occurrenceCount = Math.max(0L, ChronoUnit.DAYS.between(getFirstStartDate(state, shiftInfo),
+                        state.endDate)) / repeatDaysPerOccurrence + 1L;
+                for (long fromOccurrence = 0L; fromOccurrence < occurrenceCount;
+                        fromOccurrence += PARALLEL_CHUNK_OCCURRENCE_COUNT) {
+                    chunkList.add(new ExpansionChunk(i, shiftInfo, fromOccurrence,
+                            fromOccurrence + PARALLEL_CHUNK_OCCURRENCE_COUNT));
+                }
+            } else {
+                // Adding months or years depends on the previous occurrence, for example after the 31st
+                chunkList.add(new ExpansionChunk(i, shiftInfo, 0L, Long.MAX_VALUE));
+            }
+        }
+        LocalDateTime windowOrigin = getWindowOrigin(state, shifts);
+        // An ordered parallel stream collects the chunks in their original order
+        List<Occurrence> occurrenceList = chunkList.parallelStream()
+                .flatMap((chunk) -> {
+                    List<Occurrence> chunkOccurrenceList = new ArrayList<>();
+                    try {
+                        expand(state, chunk.shiftInfo, state.repeatDays, chunk.fromOccurrence, chunk.toOccurrence,
+                                null, (occurrenceShiftInfo, triggerStartDate, startDate, endDate) ->
+                                        chunkOccurrenceList.add(new Occurrence(chunk.shiftInfoIndex,
+                                                ChronoUnit.DAYS.between(windowOrigin, triggerStartDate)
+                                                        / TIME_SLOT_WINDOW_DAYS,
+                                                occurrenceShiftInfo, startDate, endDate)));
+                    } catch (ParserException e) {
+                        throw new IllegalStateException("Impossible state: the exceptions of shift info ("
+                                + chunk.shiftInfo + ") are parsed before the expansion.", e);
+                    }
+                    return chunkOccurrenceList.stream();
+                }).collect(Collectors.toList());
+        // Like the sequential expansion: window by window, and shift info by shift info within a window.
+        // The sort is stable, so the occurrences of a shift info keep their order.
+        occurrenceList.sort(Comparator.comparingLong((Occurrence occurrence) -> occurrence.windowIndex)
+                .thenComparingInt(occurrence -> occurrence.shiftInfoIndex));
+        long windowIndex = 0L;
+        for (Occurrence occurrence : occurrenceList) {
+            if (windowIndex < occurrence.windowIndex) {
+                windowIndex = occurrence.windowIndex;
+                evictTimeSlotsBefore(state, windowOrigin.plusDays(windowIndex * TIME_SLOT_WINDOW_DAYS));
+            }
+            addShift(state, occurrence.shiftInfoIndex, occurrence.shiftInfo, occurrence.startDate,
+                    occurrence.endDate);
+        }
+    }
+
+    private static LocalDateTime getFirstStartDate(ParserState state, ShiftInfo shiftInfo) {
+        return state.baseDate.plus(Duration.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC),
+                shiftInfo.getStartTime()));
+    }
+
+    private static LocalDateTime getFirstEndDate(ParserState state, ShiftInfo shiftInfo) {
+        return state.baseDate.plus(Duration.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC),
+                shiftInfo.getEndTime()));
+    }
+
+    /**
+     * @return the start of the first window, so every occurrence (but not every replacement) starts after it
+     */
+    private static LocalDateTime getWindowOrigin(ParserState state, List<ShiftInfo> shifts) {
+        LocalDateTime windowOrigin = null;
+        for (ShiftInfo shiftInfo : shifts) {
+            LocalDateTime firstStartDate = getFirstStartDate(state, shiftInfo);
+            if (null == windowOrigin || firstStartDate.isBefore(windowOrigin)) {
+                windowOrigin = firstStartDate;
+            }
+        }
+        return windowOrigin;
+    }
+
+    private static LocalDateTime getNextDate(ParserState state, LocalDateTime date, long repeatDays) {
+        return date.plusYears(state.repeatYears)
+                .plusMonths(state.repeatMonths)
+                .plusWeeks(state.repeatWeeks)
+                .plusDays(repeatDays);
     }
 
-    private static void addShift(ParserState state, ShiftInfo shiftInfo, LocalDateTime startDate, LocalDateTime endDate)
+    /**
+     * Finds the occurrences of a shift info from its occurrence number fromOccurrence (inclusive)
+     * to toOccurrence (exclusive) and the occurrences of the replacements of its exceptions, in generation order.
+     * Only reads the parser state if every exception is already parsed.
+     * fromOccurrence must be 0 if the shift info repeats every number of months or years.
+     * @param triggerStartDate null, unless the shift info is a replacement,
+     * then the start date of the occurrence that matched the exception
+     */
+    private static void expand(ParserState state, ShiftInfo shiftInfo, long repeatDays,
+            long fromOccurrence, long toOccurrence, LocalDateTime triggerStartDate, OccurrenceConsumer consumer)
             throws ParserException {
-        TimeSlot timeslot = new TimeSlot(state.tenantId, startDate, endDate);
+        List<DateMatcher<ShiftInfo>> exceptions = getExceptions(state, shiftInfo);
+        LocalDateTime startDate = getFirstStartDate(state, shiftInfo);
+        LocalDateTime endDate = getFirstEndDate(state, shiftInfo);
+        if (0L < fromOccurrence) {
+            long skippedDays = fromOccurrence * (state.repeatWeeks * 7L + repeatDays);
+            startDate = startDate.plusDays(skippedDays);
+            endDate = endDate.plusDays(skippedDays);
+        }
+        for (long occurrence = fromOccurrence; occurrence < toOccurrence && startDate.isBefore(state.endDate);
+                occurrence++) {
+            expandOccurrence(state, shiftInfo, exceptions, (null == triggerStartDate) ? startDate : triggerStartDate,
+                    startDate, endDate, consumer);
+            startDate = getNextDate(state, startDate, repeatDays);
+            endDate = getNextDate(state, endDate, repeatDays);
+        }
+    }
+
+    private static void expandOccurrence(ParserState state, ShiftInfo shiftInfo,
+            List<DateMatcher<ShiftInfo>> exceptions, LocalDateTime triggerStartDate,
+            LocalDateTime startDate, LocalDateTime endDate, OccurrenceConsumer consumer) throws ParserException {
+        DateMatcher<ShiftInfo> dateMatcher = findFirstMatch(exceptions, startDate);
+        if (null == dateMatcher) {
+            dateMatcher = findFirstMatch(state.universalExceptions, startDate);
+        }
+        if (null == dateMatcher) {
+            consumer.accept(shiftInfo, triggerStartDate, startDate, endDate);
+        } else if (null != dateMatcher.getReplacement()) {
+            expand(state, dateMatcher.getReplacement(), state.replacementRepeatDays, 0L, Long.MAX_VALUE,
+                    triggerStartDate, consumer);
+        }
+    }
+
+    /**
+     * @param shiftInfoIndex the index in the template of the shift info that generated the occurrence,
+     * or that matched the exception if the shift info is a replacement
+     */
+    private static void addShift(ParserState state, int shiftInfoIndex, ShiftInfo shiftInfo,
+            LocalDateTime startDate, LocalDateTime endDate) throws ParserException {
+        TimeSlot timeslot = getTimeSlot(state, startDate, endDate);
         for (IdOrGroup id : shiftInfo.getSpots()) {
             if (id.getIsGroup()) {
                 for (Spot spot : state.spotGroupMap.get(id.getItemId())) {
-                    state.shiftsOut.add(new Shift(state.tenantId, spot, timeslot));
+                    state.listener.onShift(new Shift(state.tenantId, spot, timeslot));
                 }
             }
             else {
@@ -208,54 +456,308 @@ public class ShiftFileParser {
                 if (null == spot) {
                     throw new ParserException("spot is null! id: " + id.getItemId());
                 }
-                state.shiftsOut.add(new Shift(state.tenantId, spot, timeslot));
+                state.listener.onShift(new Shift(state.tenantId, spot, timeslot));
             }
         }
         
         for (EmployeeTimeSlotInfo employeeInfo : shiftInfo.getEmployees()) {
-            List<DateMatcher<EmployeeAvailabilityState>> exceptions = (null != employeeInfo.getAvailabilityConditions())
-                    ? employeeInfo.getAvailabilityConditions().stream()
-                    .map((e) -> {
-                        try {
-                            return DateMatcher.getDateMatcher(e);
-                        } catch (Exception bad) {
-                            return null;
-                        }
-                            }).collect(Collectors.toList()) : Collections.emptyList();
-            if (exceptions.contains(null)) {
+            EmployeeAvailabilityState employeeState = getEmployeeState(state, employeeInfo);
+
+            if (employeeInfo.getEmployeeId().getIsGroup()) {
+                for (Employee employee : state.employeeGroupMap.get(employeeInfo.getEmployeeId().getItemId())) {
+                    addEmployeeAvailability(state, shiftInfoIndex, employee, timeslot, employeeState);
+                }
+            } else {
+                Employee employee = state.employeeMap.get(employeeInfo.getEmployeeId().getItemId());
+                if (null == employee) {
+                    throw new ParserException("employee is null! id: " + employeeInfo.getEmployeeId().getItemId());
+                }
+                addEmployeeAvailability(state, shiftInfoIndex, employee, timeslot, employeeState);
+            }
+
+        }
+    }
+
+    private static List<DateMatcher<ShiftInfo>> getExceptions(ParserState state, ShiftInfo shiftInfo)
+            throws ParserException {
+        // Parsed once per shift info, not once per occurrence or replacement
+        List<DateMatcher<ShiftInfo>> exceptions = state.shiftInfoToExceptionsMap.get(shiftInfo);
+        if (null == exceptions) {
+            if (null == shiftInfo.getExceptions()) {
+                exceptions = Collections.emptyList();
+            } else {
+                exceptions = new ArrayList<>(shiftInfo.getExceptions().size());
+                for (ShiftConditional exception : shiftInfo.getExceptions()) {
+                    exceptions.add(getDateMatcher(state, exception.getCondition(), exception.getShift()));
+                }
+            }
+            state.shiftInfoToExceptionsMap.put(shiftInfo, exceptions);
+        }
+        return exceptions;
+    }
+
+    private static EmployeeAvailabilityState getEmployeeState(ParserState state, EmployeeTimeSlotInfo employeeInfo)
+            throws ParserException {
+        // The conditions are tested against the start date, so the state is the same for every occurrence
+        if (state.employeeTimeSlotInfoToStateMap.containsKey(employeeInfo)) {
+            return state.employeeTimeSlotInfoToStateMap.get(employeeInfo);
+        }
+        EmployeeAvailabilityState employeeState = employeeInfo.getDefaultAvailability();
+        if (null != employeeInfo.getAvailabilityConditions()) {
+            for (EmployeeConditional condition : employeeInfo.getAvailabilityConditions()) {
+                if (getDateMatcher(state, condition.getCondition(), null).test(state.startDate)) {
+                    employeeState = condition.getAvaliability();
+                    break;
+                }
+            }
+        }
+        state.employeeTimeSlotInfoToStateMap.put(employeeInfo, employeeState);
+        return employeeState;
+    }
+
+    /**
+     * Parsed date matchers by condition, because a template often repeats the same conditions.
+     * Each replacement is added by {@link DateMatcher#withReplacement(Object)}.
+     */
+    private static Map<String, DateMatcher<Object>> createDateMatcherCache() {
+        return new LinkedHashMap<String, DateMatcher<Object>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DateMatcher<Object>> eldest) {
+                return size() > DATE_MATCHER_CACHE_MAXIMUM_SIZE;
+            }
+        };
+    }
+
+    private static <T> DateMatcher<T> getDateMatcher(ParserState state, String condition, T replacement)
+            throws ParserException {
+        DateMatcher<Object> dateMatcher = state.dateMatcherCache.get(condition);
+        if (null == dateMatcher) {
+            try {
+                dateMatcher = DateMatcher.getDateMatcher(condition);
+            } catch (Exception bad) {
                 throw new ParserException("Badly formatted date exception string");
             }
-            Optional<DateMatcher<EmployeeAvailabilityState>> employeeStateCond = exceptions.stream()
-                    .filter((cond) -> cond.test(state.startDate)).findFirst();
-            EmployeeAvailabilityState employeeState = employeeInfo.getDefaultAvailability();
+            state.dateMatcherCache.put(condition, dateMatcher);
+        }
+        return dateMatcher.withReplacement(replacement);
+    }
 
-            if (employeeStateCond.isPresent()) {
-                employeeState = employeeStateCond.get().getReplacement();
+    private static <T> DateMatcher<T> findFirstMatch(List<DateMatcher<T>> dateMatchers, LocalDateTime date) {
+        for (int i = 0; i < dateMatchers.size(); i++) {
+            if (dateMatchers.get(i).test(date)) {
+                return dateMatchers.get(i);
             }
+        }
+        return null;
+    }
 
-            if (employeeInfo.getEmployeeId().getIsGroup()) {
-                for (Employee employee : state.employeeGroupMap.get(employeeInfo.getEmployeeId().getItemId())) {
-                    EmployeeAvailability employeeAvailability = new EmployeeAvailability(state.tenantId,
-                            employee, timeslot);
-                    employeeAvailability.setState(employeeState);
-                    state.employeeAvailabilityOut.add(employeeAvailability);
+    private static TimeSlot getTimeSlot(ParserState state, LocalDateTime startDate, LocalDateTime endDate) {
+        Map<LocalDateTime, TimeSlot> endDateTimeToTimeSlotMap = state.startDateTimeToEndDateTimeToTimeSlotMap
+                .computeIfAbsent(startDate, k -> new HashMap<>(2));
+        TimeSlot timeSlot = endDateTimeToTimeSlotMap.get(endDate);
+        if (null == timeSlot) {
+            timeSlot = new TimeSlot(state.tenantId, startDate, endDate);
+            endDateTimeToTimeSlotMap.put(endDate, timeSlot);
+            state.listener.onTimeSlot(timeSlot);
+        }
+        return timeSlot;
+    }
+
+    /**
+     * Only an occurrence with the same start date can share a time slot, so once every occurrence that starts
+     * before the date is generated, the time slots that start before it are no longer needed,
+     * except those of the replacements, see {@link #keepReplacementTimeSlots(ParserState, List)}.
+     */
+    private static void evictTimeSlotsBefore(ParserState state, LocalDateTime date) {
+        Iterator<Map.Entry<LocalDateTime, Map<LocalDateTime, TimeSlot>>> startIterator
+                = state.startDateTimeToEndDateTimeToTimeSlotMap.headMap(date).entrySet().iterator();
+        while (startIterator.hasNext()) {
+            Map.Entry<LocalDateTime, Map<LocalDateTime, TimeSlot>> startEntry = startIterator.next();
+            Set<LocalDateTime> replacementEndDateTimeSet = state.replacementStartDateTimeToEndDateTimeSetMap
+                    .getOrDefault(startEntry.getKey(), Collections.emptySet());
+            Iterator<Map.Entry<LocalDateTime, TimeSlot>> endIterator = startEntry.getValue().entrySet().iterator();
+            while (endIterator.hasNext()) {
+                Map.Entry<LocalDateTime, TimeSlot> endEntry = endIterator.next();
+                if (!replacementEndDateTimeSet.contains(endEntry.getKey())) {
+                    state.timeSlotToEmployeeIndexSetMap.remove(endEntry.getValue());
+                    endIterator.remove();
                 }
-            } else {
+            }
+            if (startEntry.getValue().isEmpty()) {
+                startIterator.remove();
+            }
+        }
+    }
+
+    private static void addEmployeeAvailability(ParserState state, int shiftInfoIndex, Employee employee,
+            TimeSlot timeslot, EmployeeAvailabilityState employeeState) {
+        Integer employeeIndex = state.employeeToIndexMap.computeIfAbsent(employee,
+                k -> state.employeeToIndexMap.size());
+        if (state.replacementStartDateTimeToEndDateTimeSetMap
+                .getOrDefault(timeslot.getStartDateTime(), Collections.emptySet())
+                .contains(timeslot.getEndDateTime())) {
+            // A later window can still generate one of an earlier shift info, which comes first
+            Map<Integer, RankedEmployeeAvailability> employeeIndexToEmployeeAvailabilityMap
+                    = state.replacementTimeSlotToEmployeeAvailabilityMap.get(timeslot);
+            if (null == employeeIndexToEmployeeAvailabilityMap) {
+                employeeIndexToEmployeeAvailabilityMap = new TreeMap<>();
+                state.replacementTimeSlotToEmployeeAvailabilityMap.put(timeslot,
+                        employeeIndexToEmployeeAvailabilityMap);
+                state.replacementTimeSlotList.add(timeslot);
+            }
+            RankedEmployeeAvailability rankedEmployeeAvailability
+                    = employeeIndexToEmployeeAvailabilityMap.get(employeeIndex);
+            if (null == rankedEmployeeAvailability || shiftInfoIndex < rankedEmployeeAvailability.shiftInfoIndex) {
+                employeeIndexToEmployeeAvailabilityMap.put(employeeIndex,
+                        new RankedEmployeeAvailability(shiftInfoIndex, employee, employeeState));
+            }
+            return;
+        }
+        // A bit per employee per time slot, instead of a key object per employee availability
+        BitSet employeeIndexSet = state.timeSlotToEmployeeIndexSetMap.computeIfAbsent(timeslot,
+                k -> new BitSet(state.employeeToIndexMap.size()));
+        if (employeeIndexSet.get(employeeIndex)) {
+            return;
+        }
+        employeeIndexSet.set(employeeIndex);
+        EmployeeAvailability employeeAvailability = new EmployeeAvailability(state.tenantId, employee, timeslot);
+        employeeAvailability.setState(employeeState);
+        state.listener.onEmployeeAvailability(employeeAvailability);
+    }
+
+    /**
+     * Generates the employee availabilities of the time slots of the replacements,
+     * once every shift info is expanded.
+     */
+    private static void addReplacementEmployeeAvailabilities(ParserState state) {
+        for (TimeSlot timeslot : state.replacementTimeSlotList) {
+            for (RankedEmployeeAvailability rankedEmployeeAvailability
+                    : state.replacementTimeSlotToEmployeeAvailabilityMap.get(timeslot).values()) {
                 EmployeeAvailability employeeAvailability = new EmployeeAvailability(state.tenantId,
-                        state.employeeMap.get(employeeInfo.getEmployeeId().getItemId()), timeslot);
-                employeeAvailability.setState(employeeState);
-                state.employeeAvailabilityOut.add(employeeAvailability);
+                        rankedEmployeeAvailability.employee, timeslot);
+                employeeAvailability.setState(rankedEmployeeAvailability.employeeState);
+                state.listener.onEmployeeAvailability(employeeAvailability);
             }
+        }
+    }
+
+    /**
+     * Receives the generated entities in generation order, which is chronological per window of
+     * {@link #TIME_SLOT_WINDOW_DAYS} days, but not within a window or for the replacements of exceptions.
+     * The employee availabilities of the time slots of replacements come after all shifts.
+     */
+    public interface ParserListener {
+
+        /**
+         * Called before the first shift or employee availability of that time slot.
+         * @param timeSlot never null
+         */
+        void onTimeSlot(TimeSlot timeSlot);
+
+        /**
+         * @param shift never null
+         */
+        void onShift(Shift shift);
+
+        /**
+         * @param employeeAvailability never null, its state is null if the employee has no availability then
+         */
+        void onEmployeeAvailability(EmployeeAvailability employeeAvailability);
+
+    }
+
+    private interface OccurrenceConsumer {
+
+        /**
+         * @param triggerStartDate the start date of the occurrence, or for a replacement,
+         * of the occurrence that matched the exception
+         */
+        void accept(ShiftInfo shiftInfo, LocalDateTime triggerStartDate, LocalDateTime startDate,
+                LocalDateTime endDate) throws ParserException;
+
+    }
+
+    private static class ExpansionCursor {
 
+        final int shiftInfoIndex;
+        final ShiftInfo shiftInfo;
+        final List<DateMatcher<ShiftInfo>> exceptions;
+        LocalDateTime startDate;
+        LocalDateTime endDate;
+
+        ExpansionCursor(int shiftInfoIndex, ShiftInfo shiftInfo, List<DateMatcher<ShiftInfo>> exceptions,
+                LocalDateTime startDate, LocalDateTime endDate) {
+            this.shiftInfoIndex = shiftInfoIndex;
+            this.shiftInfo = shiftInfo;
+            this.exceptions = exceptions;
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+    }
+
+    private static class ExpansionChunk {
+
+        final int shiftInfoIndex;
+        final ShiftInfo shiftInfo;
+        final long fromOccurrence;
+        final long toOccurrence;
+
+        ExpansionChunk(int shiftInfoIndex, ShiftInfo shiftInfo, long fromOccurrence, long toOccurrence) {
+            this.shiftInfoIndex = shiftInfoIndex;
+            this.shiftInfo = shiftInfo;
+            this.fromOccurrence = fromOccurrence;
+            this.toOccurrence = toOccurrence;
+        }
+    }
+
+    private static class Occurrence {
+
+        final int shiftInfoIndex;
+        final long windowIndex;
+        final ShiftInfo shiftInfo;
+        final LocalDateTime startDate;
+        final LocalDateTime endDate;
+
+        Occurrence(int shiftInfoIndex, long windowIndex, ShiftInfo shiftInfo, LocalDateTime startDate,
+                LocalDateTime endDate) {
+            this.shiftInfoIndex = shiftInfoIndex;
+            this.windowIndex = windowIndex;
+            this.shiftInfo = shiftInfo;
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+    }
+
+    private static class RankedEmployeeAvailability {
+
+        final int shiftInfoIndex;
+        final Employee employee;
+        final EmployeeAvailabilityState employeeState;
+
+        RankedEmployeeAvailability(int shiftInfoIndex, Employee employee, EmployeeAvailabilityState employeeState) {
+            this.shiftInfoIndex = shiftInfoIndex;
+            this.employee = employee;
+            this.employeeState = employeeState;
         }
     }
 
     private static class ParserState {
 
         Integer tenantId;
-        List<Shift> shiftsOut;
-        List<EmployeeAvailability> employeeAvailabilityOut;
+        ParserListener listener;
+        boolean parallel;
+        // Sorted, to evict the time slots of the previous windows
+        TreeMap<LocalDateTime, Map<LocalDateTime, TimeSlot>> startDateTimeToEndDateTimeToTimeSlotMap;
+        Map<LocalDateTime, Set<LocalDateTime>> replacementStartDateTimeToEndDateTimeSetMap;
+        Map<TimeSlot, BitSet> timeSlotToEmployeeIndexSetMap;
+        // Never evicted, there are only as many as occurrences of replacements
+        Map<TimeSlot, Map<Integer, RankedEmployeeAvailability>> replacementTimeSlotToEmployeeAvailabilityMap;
+        List<TimeSlot> replacementTimeSlotList;
+        Map<Employee, Integer> employeeToIndexMap;
+        Map<String, DateMatcher<Object>> dateMatcherCache;
         List<DateMatcher<ShiftInfo>> universalExceptions;
+        Map<ShiftInfo, List<DateMatcher<ShiftInfo>>> shiftInfoToExceptionsMap;
+        Map<EmployeeTimeSlotInfo, EmployeeAvailabilityState> employeeTimeSlotInfoToStateMap;
         Map<Long, Spot> spotMap;
         Map<Long, Employee> employeeMap;
         Map<Long, List<Spot>> spotGroupMap;
@@ -264,6 +766,7 @@ public class ShiftFileParser {
         LocalDateTime startDate;
         LocalDateTime endDate;
         long repeatDays, repeatWeeks, repeatMonths, repeatYears;
+        long replacementRepeatDays;
     }
 
     public static class ParserOut {
@@ -90,9 +90,11 @@ public class RosterGenerator {
     /**
      * For benchmark only
      * @param entityManager never null
+     * @param shiftRestService never null
      */
-    public RosterGenerator(EntityManager entityManager) {
+    public RosterGenerator(EntityManager entityManager, ShiftRestService shiftRestService) {
         this.entityManager = entityManager;
+        this.shiftRestService = shiftRestService;
     }
 
     @PostConstruct
@@ -17,12 +17,14 @@
 package org.optaplanner.openshift.employeerostering.server.roster;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -37,38 +39,51 @@ import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvail
 import org.optaplanner.openshift.employeerostering.shared.employee.view.EmployeeAvailabilityView;
 import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
 import org.optaplanner.openshift.employeerostering.shared.roster.RosterRestService;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.CompactRosterView;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.CompactRosterViewUtils;
 import org.optaplanner.openshift.employeerostering.shared.roster.view.EmployeeRosterView;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.RosterChangesView;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.SolverStatusView;
 import org.optaplanner.openshift.employeerostering.shared.roster.view.SpotRosterView;
 import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
 import org.optaplanner.openshift.employeerostering.shared.shift.view.ShiftView;
 import org.optaplanner.openshift.employeerostering.shared.skill.Skill;
 import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
+import org.optaplanner.openshift.employeerostering.shared.spot.SpotGroup;
 import org.optaplanner.openshift.employeerostering.shared.tenant.Tenant;
 import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
-import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlotUtils;
 
 public class RosterRestServiceImpl extends AbstractRestServiceImpl implements RosterRestService {
 
+    private static final int IN_CLAUSE_LIMIT = 1000;
+
     @PersistenceContext
     private EntityManager entityManager;
 
     @Inject
     private WannabeSolverManager solverManager;
 
+    @Inject
+    private RosterViewCache rosterViewCache;
+
+    @Inject
+    private RosterRevisionTracker rosterRevisionTracker;
+
     @Override
     @Transactional
     public SpotRosterView getCurrentSpotRosterView(Integer tenantId) {
-        List<TimeSlot> timeSlotList = entityManager.createNamedQuery("TimeSlot.findAll", TimeSlot.class)
+        Object[] startDateTimeRange = entityManager.createNamedQuery("TimeSlot.findStartDateTimeRange",
+                Object[].class)
                 .setParameter("tenantId", tenantId)
-                .getResultList();
+                .getSingleResult();
         LocalDate startDate;
         LocalDate endDate;
-        if (timeSlotList.isEmpty()) {
+        if (startDateTimeRange[0] == null) {
             startDate = LocalDate.parse("1900-01-01");
             endDate = LocalDate.parse("2900-01-01");
         } else {
-            startDate = timeSlotList.get(0).getStartDateTime().toLocalDate();
-            endDate = timeSlotList.get(timeSlotList.size() - 1).getStartDateTime().toLocalDate();
+            startDate = ((LocalDateTime) startDateTimeRange[0]).toLocalDate();
+            endDate = ((LocalDateTime) startDateTimeRange[1]).toLocalDate();
         }
         return getSpotRosterView(tenantId, startDate, endDate, entityManager.createNamedQuery("Spot.findAll",
                 Spot.class)
@@ -99,30 +114,35 @@ public class RosterRestServiceImpl extends AbstractRestServiceImpl implements Ro
         return getSpotRosterView(tenantId, startDate, endDate, spots);
     }
 
-    @Transactional
     protected SpotRosterView getSpotRosterView(Integer tenantId, LocalDate startDate, LocalDate endDate, List<
             Spot> spotList) {
+        List<Object> viewKey = Arrays.asList(SpotRosterView.class, startDate, endDate,
+                spotList.stream().map(Spot::getId).collect(Collectors.toList()));
+        return rosterViewCache.computeIfAbsent(tenantId, viewKey,
+                () -> buildSpotRosterView(tenantId, startDate, endDate, spotList));
+    }
+
+    private SpotRosterView buildSpotRosterView(Integer tenantId, LocalDate startDate, LocalDate endDate,
+            List<Spot> spotList) {
         SpotRosterView spotRosterView = new SpotRosterView(tenantId, startDate, endDate);
+        spotRosterView.setRevision(rosterRevisionTracker.getRevision());
         spotRosterView.setSpotList(spotList);
         Set<Spot> spotSet = spotList.stream().collect(Collectors.toSet());
         List<Employee> employeeList = entityManager.createNamedQuery("Employee.findAll", Employee.class)
                 .setParameter("tenantId", tenantId)
                 .getResultList();
         spotRosterView.setEmployeeList(employeeList);
-        // TODO use startDate and endDate in query
-        List<TimeSlot> timeSlotList = entityManager.createNamedQuery("TimeSlot.findAll", TimeSlot.class)
+        List<TimeSlot> timeSlotList = entityManager.createNamedQuery("TimeSlot.findByStartDateTimeEndDateTime",
+                TimeSlot.class)
                 .setParameter("tenantId", tenantId)
-                .getResultList().stream().filter((t) -> TimeSlotUtils.doTimeslotsIntersect(startDate.atStartOfDay(),
-                        endDate.atStartOfDay(),
-                        t.getStartDateTime(), t.getEndDateTime())).collect(Collectors.toList());
+                .setParameter("startDateTime", startDate.atStartOfDay())
+                .setParameter("endDateTime", endDate.atStartOfDay())
+                .getResultList();
         spotRosterView.setTimeSlotList(timeSlotList);
-//        spotRosterView.setTimeSlotList(entityManager.createNamedQuery("TimeSlot.findByStartDateEndDate", TimeSlot.class)
-//                .setParameter("tenantId", tenantId)
-//                .setParameter("startDate", startDate)
-//                .setParameter("endDate", endDate)
-//                .getResultList());
-        List<Shift> shiftList = entityManager.createNamedQuery("Shift.findAll", Shift.class)
+        List<Shift> shiftList = entityManager.createNamedQuery("Shift.findByStartDateTimeEndDateTime", Shift.class)
                 .setParameter("tenantId", tenantId)
+                .setParameter("startDateTime", startDate.atStartOfDay())
+                .setParameter("endDateTime", endDate.atStartOfDay())
                 .getResultList();
         Map<Long, Map<Long, List<ShiftView>>> timeSlotIdMap = new LinkedHashMap<>(timeSlotList.size());
         for (Shift shift : shiftList) {
@@ -140,20 +160,43 @@ public class RosterRestServiceImpl extends AbstractRestServiceImpl implements Ro
         return spotRosterView;
     }
 
+    // The compact views are encoded from the cached views, the encoding is cheap compared to building them
+
+    @Override
+    @Transactional
+    public CompactRosterView getCurrentCompactSpotRosterView(Integer tenantId) {
+        return CompactRosterViewUtils.encode(getCurrentSpotRosterView(tenantId));
+    }
+
+    @Override
+    @Transactional
+    public CompactRosterView getCompactSpotRosterView(Integer tenantId, String startDateString,
+            String endDateString) {
+        return CompactRosterViewUtils.encode(getSpotRosterView(tenantId, startDateString, endDateString));
+    }
+
+    @Override
+    @Transactional
+    public CompactRosterView getCompactSpotRosterViewFor(Integer tenantId, String startDateString,
+            String endDateString, List<Spot> spots) {
+        return CompactRosterViewUtils.encode(getSpotRosterViewFor(tenantId, startDateString, endDateString, spots));
+    }
+
     @Override
     @Transactional
     public EmployeeRosterView getCurrentEmployeeRosterView(Integer tenantId) {
-        List<TimeSlot> timeSlotList = entityManager.createNamedQuery("TimeSlot.findAll", TimeSlot.class)
+        Object[] startDateTimeRange = entityManager.createNamedQuery("TimeSlot.findStartDateTimeRange",
+                Object[].class)
                 .setParameter("tenantId", tenantId)
-                .getResultList();
+                .getSingleResult();
         LocalDate startDate;
         LocalDate endDate;
-        if (timeSlotList.isEmpty()) {
+        if (startDateTimeRange[0] == null) {
             startDate = LocalDate.parse("1900-01-01");
             endDate = LocalDate.parse("2900-01-01");
         } else {
-            startDate = timeSlotList.get(0).getStartDateTime().toLocalDate();
-            endDate = timeSlotList.get(timeSlotList.size() - 1).getStartDateTime().toLocalDate();
+            startDate = ((LocalDateTime) startDateTimeRange[0]).toLocalDate();
+            endDate = ((LocalDateTime) startDateTimeRange[1]).toLocalDate();
         }
         return getEmployeeRosterView(tenantId, startDate, endDate, entityManager.createNamedQuery("Employee.findAll",
                 Employee.class)
@@ -185,10 +228,18 @@ public class RosterRestServiceImpl extends AbstractRestServiceImpl implements Ro
         return getEmployeeRosterView(tenantId, startDate, endDate, employees);
     }
 
-    @Transactional
     protected EmployeeRosterView getEmployeeRosterView(Integer tenantId, LocalDate startDate, LocalDate endDate, List<
             Employee> employeeList) {
+        List<Object> viewKey = Arrays.asList(EmployeeRosterView.class, startDate, endDate,
+                employeeList.stream().map(Employee::getId).collect(Collectors.toList()));
+        return rosterViewCache.computeIfAbsent(tenantId, viewKey,
+                () -> buildEmployeeRosterView(tenantId, startDate, endDate, employeeList));
+    }
+
+    private EmployeeRosterView buildEmployeeRosterView(Integer tenantId, LocalDate startDate, LocalDate endDate,
+            List<Employee> employeeList) {
         EmployeeRosterView employeeRosterView = new EmployeeRosterView(tenantId, startDate, endDate);
+        employeeRosterView.setRevision(rosterRevisionTracker.getRevision());
         List<Spot> spotList = entityManager.createNamedQuery("Spot.findAll", Spot.class)
                 .setParameter("tenantId", tenantId)
                 .getResultList();
@@ -196,15 +247,17 @@ public class RosterRestServiceImpl extends AbstractRestServiceImpl implements Ro
 
         employeeRosterView.setEmployeeList(employeeList);
         Set<Employee> employeeSet = employeeList.stream().collect(Collectors.toSet());
-        // TODO use startDate and endDate in query
-        List<TimeSlot> timeSlotList = entityManager.createNamedQuery("TimeSlot.findAll", TimeSlot.class)
+        List<TimeSlot> timeSlotList = entityManager.createNamedQuery("TimeSlot.findByStartDateTimeEndDateTime",
+                TimeSlot.class)
                 .setParameter("tenantId", tenantId)
-                .getResultList().stream().filter((t) -> TimeSlotUtils.doTimeslotsIntersect(startDate.atStartOfDay(),
-                        endDate.atStartOfDay(),
-                        t.getStartDateTime(), t.getEndDateTime())).collect(Collectors.toList());
+                .setParameter("startDateTime", startDate.atStartOfDay())
+                .setParameter("endDateTime", endDate.atStartOfDay())
+                .getResultList();
         employeeRosterView.setTimeSlotList(timeSlotList);
-        List<Shift> shiftList = entityManager.createNamedQuery("Shift.findAll", Shift.class)
+        List<Shift> shiftList = entityManager.createNamedQuery("Shift.findByStartDateTimeEndDateTime", Shift.class)
                 .setParameter("tenantId", tenantId)
+                .setParameter("startDateTime", startDate.atStartOfDay())
+                .setParameter("endDateTime", endDate.atStartOfDay())
                 .getResultList();
         Map<Long, Map<Long, List<ShiftView>>> timeSlotIdToEmployeeIdToShiftViewListMap = new LinkedHashMap<>(timeSlotList.size());
         for (Shift shift : shiftList) {
@@ -221,9 +274,11 @@ public class RosterRestServiceImpl extends AbstractRestServiceImpl implements Ro
         }
         employeeRosterView.setTimeSlotIdToEmployeeIdToShiftViewListMap(timeSlotIdToEmployeeIdToShiftViewListMap);
         Map<Long, Map<Long, EmployeeAvailabilityView>> timeSlotIdToEmployeeIdToAvailabilityViewMap = new LinkedHashMap<>(timeSlotList.size());
-        // TODO use startDate and endDate
-        List<EmployeeAvailability>employeeAvailabilityList = entityManager.createNamedQuery("EmployeeAvailability.findAll", EmployeeAvailability.class)
+        List<EmployeeAvailability> employeeAvailabilityList = entityManager.createNamedQuery(
+                "EmployeeAvailability.findByStartDateTimeEndDateTime", EmployeeAvailability.class)
                 .setParameter("tenantId", tenantId)
+                .setParameter("startDateTime", startDate.atStartOfDay())
+                .setParameter("endDateTime", endDate.atStartOfDay())
                 .getResultList();
         for (EmployeeAvailability employeeAvailability : employeeAvailabilityList) {
 
@@ -246,16 +301,84 @@ public class RosterRestServiceImpl extends AbstractRestServiceImpl implements Ro
         return employeeRosterView;
     }
 
+    @Override
+    @Transactional
+    public CompactRosterView getCurrentCompactEmployeeRosterView(Integer tenantId) {
+        return CompactRosterViewUtils.encode(getCurrentEmployeeRosterView(tenantId));
+    }
+
+    @Override
+    @Transactional
+    public CompactRosterView getCompactEmployeeRosterView(Integer tenantId, String startDateString,
+            String endDateString) {
+        return CompactRosterViewUtils.encode(getEmployeeRosterView(tenantId, startDateString, endDateString));
+    }
+
+    @Override
+    @Transactional
+    public CompactRosterView getCompactEmployeeRosterViewFor(Integer tenantId, String startDateString,
+            String endDateString, List<Employee> employees) {
+        return CompactRosterViewUtils.encode(getEmployeeRosterViewFor(tenantId, startDateString, endDateString,
+                employees));
+    }
+
+    @Override
+    @Transactional
+    public RosterChangesView getRosterChangesSince(Integer tenantId, Long revision) {
+        // Read before the shifts, so a concurrent change is returned again by the next poll instead of lost
+        RosterRevisionTracker.RosterChanges changes = rosterRevisionTracker.getChangesSince(tenantId, revision);
+        RosterChangesView rosterChangesView = new RosterChangesView(tenantId, changes.getRevision());
+        if (changes.isReloadRequired()) {
+            rosterChangesView.setReloadRequired(true);
+            return rosterChangesView;
+        }
+        List<ShiftView> shiftViewList = new ArrayList<>(changes.getShiftIdList().size());
+        for (List<Long> shiftIdSubList : partition(changes.getShiftIdList())) {
+            for (Shift shift : entityManager.createNamedQuery("Shift.findByIdList", Shift.class)
+                    .setParameter("tenantId", tenantId)
+                    .setParameter("shiftIdList", shiftIdSubList)
+                    .getResultList()) {
+                shiftViewList.add(new ShiftView(shift));
+            }
+        }
+        rosterChangesView.setShiftList(shiftViewList);
+        rosterChangesView.setRemovedShiftIdList(changes.getRemovedShiftIdList());
+        List<EmployeeAvailabilityView> employeeAvailabilityViewList = new ArrayList<>(
+                changes.getEmployeeAvailabilityIdList().size());
+        for (List<Long> employeeAvailabilityIdSubList : partition(changes.getEmployeeAvailabilityIdList())) {
+            for (EmployeeAvailability employeeAvailability : entityManager.createNamedQuery(
+                    "EmployeeAvailability.findByIdList", EmployeeAvailability.class)
+                    .setParameter("tenantId", tenantId)
+                    .setParameter("employeeAvailabilityIdList", employeeAvailabilityIdSubList)
+                    .getResultList()) {
+                employeeAvailabilityViewList.add(new EmployeeAvailabilityView(employeeAvailability));
+            }
+        }
+        rosterChangesView.setEmployeeAvailabilityList(employeeAvailabilityViewList);
+        rosterChangesView.setRemovedEmployeeAvailabilityIdList(changes.getRemovedEmployeeAvailabilityIdList());
+        return rosterChangesView;
+    }
+
     @Override
     public void solveRoster(Integer tenantId) {
         solverManager.solve(tenantId);
     }
+
+    @Override
+    public void repairRoster(Integer tenantId) {
+        solverManager.repair(tenantId);
+    }
     
     @Override
     public void terminateRosterEarly(Integer tenantId) {
         solverManager.terminate(tenantId);
     }
 
+    @Override
+    public SolverStatusView getSolverStatus(Integer tenantId) {
+        return solverManager.getSolverStatusView(tenantId);
+    }
+
     @Override
     @Transactional
     public Roster buildRoster(Integer tenantId) {
@@ -279,33 +402,61 @@ public class RosterRestServiceImpl extends AbstractRestServiceImpl implements Ro
                 .setParameter("tenantId", tenantId)
                 .getResultList();
         
+        List<SpotGroup> spotGroupList = entityManager.createNamedQuery("SpotGroup.findAll", SpotGroup.class)
+                .setParameter("tenantId", tenantId)
+                .getResultList();
+
         Tenant tenant = entityManager.find(Tenant.class, tenantId);
         // TODO fill in the score too - do we inject a ScoreDirectorFactory?
-        return new Roster((long) tenantId, tenantId,
+        Roster roster = new Roster((long) tenantId, tenantId,
                 skillList, spotList, employeeList, timeSlotList, employeeAvailabilityList, 
                 tenant.getConfiguration(), shiftList);
+        roster.setSpotGroupList(spotGroupList);
+        return roster;
     }
 
     @Override
     @Transactional
-    public void updateShiftsOfRoster(Roster newRoster) {
-        Integer tenantId = newRoster.getTenantId();
-        // TODO HACK avoids optimistic locking exception while solve(), but it circumvents optimistic locking completely
-        Map<Long, Employee> employeeIdMap = entityManager.createNamedQuery("Employee.findAll", Employee.class)
-                .setParameter("tenantId", tenantId)
-                .getResultList().stream().collect(Collectors.toMap(Employee::getId, Function.identity()));
-        Map<Long, Shift> shiftIdMap = entityManager.createNamedQuery("Shift.findAll", Shift.class)
-                .setParameter("tenantId", tenantId)
-                .getResultList().stream().collect(Collectors.toMap(Shift::getId, Function.identity()));
-
-        for (Shift shift : newRoster.getShiftList()) {
-            Shift attachedShift = shiftIdMap.get(shift.getId());
-            if (attachedShift == null) {
-                continue;
+    public void updateShiftEmployees(Integer tenantId, Map<Long, Long> shiftIdToEmployeeIdMap) {
+        rosterViewCache.invalidate(tenantId);
+        rosterRevisionTracker.shiftsChanged(tenantId, new ArrayList<>(shiftIdToEmployeeIdMap.keySet()));
+        // 1 bulk update per employee, instead of loading and dirty checking every shift of the tenant
+        Map<Long, List<Long>> employeeIdToShiftIdListMap = new HashMap<>();
+        List<Long> unassignedShiftIdList = new ArrayList<>();
+        shiftIdToEmployeeIdMap.forEach((shiftId, employeeId) -> {
+            if (employeeId == null) {
+                unassignedShiftIdList.add(shiftId);
+            } else {
+                employeeIdToShiftIdListMap.computeIfAbsent(employeeId, k -> new ArrayList<>()).add(shiftId);
             }
-            attachedShift.setEmployee((shift.getEmployee() == null)
-                    ? null : employeeIdMap.get(shift.getEmployee().getId()));
+        });
+        employeeIdToShiftIdListMap.forEach((employeeId, shiftIdList) -> {
+            Employee employee = entityManager.getReference(Employee.class, employeeId);
+            for (List<Long> shiftIdSubList : partition(shiftIdList)) {
+                entityManager.createNamedQuery("Shift.updateEmployee")
+                        .setParameter("tenantId", tenantId)
+                        .setParameter("employee", employee)
+                        .setParameter("shiftIdList", shiftIdSubList)
+                        .executeUpdate();
+            }
+        });
+        for (List<Long> shiftIdSubList : partition(unassignedShiftIdList)) {
+            entityManager.createNamedQuery("Shift.unassignEmployee")
+                    .setParameter("tenantId", tenantId)
+                    .setParameter("shiftIdList", shiftIdSubList)
+                    .executeUpdate();
+        }
+    }
+
+    /**
+     * Some databases limit the number of elements of an IN clause.
+     */
+    private static List<List<Long>> partition(List<Long> idList) {
+        List<List<Long>> idSubListList = new ArrayList<>((idList.size() + IN_CLAUSE_LIMIT - 1) / IN_CLAUSE_LIMIT);
+        for (int i = 0; i < idList.size(); i += IN_CLAUSE_LIMIT) {
+            idSubListList.add(idList.subList(i, Math.min(i + IN_CLAUSE_LIMIT, idList.size())));
         }
+        return idSubListList;
     }
 
 }
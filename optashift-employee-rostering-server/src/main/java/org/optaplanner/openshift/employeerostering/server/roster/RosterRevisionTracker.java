@@ -0,0 +1,287 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.server.roster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.enterprise.context.ApplicationScoped;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Remembers at which revision each shift and employee availability last changed, per tenant,
+ * so a client can poll for the changes since the revision of its roster view.
+ * Revisions are shared by all tenants and only increase.
+ * Every change is recorded after its transaction commits, so a poll never returns a revision
+ * that is newer than the data it read.
+ * <p>
+ * Only the latest changes are kept per tenant (see {@link #MAXIMUM_CHANGE_COUNT_PROPERTY}):
+ * a client with a revision before a forgotten change must reload its roster view.
+ */
+@ApplicationScoped
+public class RosterRevisionTracker {
+
+    /**
+     * System property to override the maximum number of changed shifts and employee availabilities
+     * that are remembered per tenant.
+     */
+    public static final String MAXIMUM_CHANGE_COUNT_PROPERTY = "optashift.rosterRevisionTracker.maximumChangeCount";
+
+    // Starts from the clock (in microseconds), so the revision a client holds is older than any revision
+    // after a server restart, which lost the recorded changes
+    private final long firstRevision = System.currentTimeMillis() * 1000L;
+    private final AtomicLong lastRevision = new AtomicLong(firstRevision);
+    private final ConcurrentMap<Integer, TenantRevisions> tenantIdToRevisionsMap = new ConcurrentHashMap<>();
+    private final int maximumChangeCount = Integer.getInteger(MAXIMUM_CHANGE_COUNT_PROPERTY, 10000);
+
+    // Null outside a container, such as in the benchmark
+    @Resource
+    private TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @PostConstruct
+    public void setUp() {
+        if (maximumChangeCount < 1) {
+            throw new IllegalStateException("The " + MAXIMUM_CHANGE_COUNT_PROPERTY + " (" + maximumChangeCount
+                    + ") must be at least 1.");
+        }
+    }
+
+    /**
+     * @return the revision to put in a roster view, read before reading the roster view
+     */
+    public long getRevision() {
+        return lastRevision.get();
+    }
+
+    public void shiftChanged(Integer tenantId, Long shiftId) {
+        shiftsChanged(tenantId, Collections.singletonList(shiftId));
+    }
+
+    public void shiftsChanged(Integer tenantId, Collection<Long> shiftIdCollection) {
+        afterCommit(tenantId, tenantRevisions -> {
+            long revision = lastRevision.incrementAndGet();
+            for (Long shiftId : shiftIdCollection) {
+                tenantRevisions.record(tenantRevisions.shiftIdToRevisionMap, shiftId, revision);
+            }
+        });
+    }
+
+    public void shiftRemoved(Integer tenantId, Long shiftId) {
+        afterCommit(tenantId, tenantRevisions -> {
+            tenantRevisions.shiftIdToRevisionMap.remove(shiftId);
+            tenantRevisions.record(tenantRevisions.removedShiftIdToRevisionMap, shiftId,
+                    lastRevision.incrementAndGet());
+        });
+    }
+
+    public void employeeAvailabilityChanged(Integer tenantId, Long employeeAvailabilityId) {
+        afterCommit(tenantId, tenantRevisions -> tenantRevisions.record(
+                tenantRevisions.employeeAvailabilityIdToRevisionMap, employeeAvailabilityId,
+                lastRevision.incrementAndGet()));
+    }
+
+    public void employeeAvailabilityRemoved(Integer tenantId, Long employeeAvailabilityId) {
+        afterCommit(tenantId, tenantRevisions -> {
+            tenantRevisions.employeeAvailabilityIdToRevisionMap.remove(employeeAvailabilityId);
+            tenantRevisions.record(tenantRevisions.removedEmployeeAvailabilityIdToRevisionMap,
+                    employeeAvailabilityId, lastRevision.incrementAndGet());
+        });
+    }
+
+    /**
+     * For a change that isn't a shift or employee availability, such as a spot, skill, employee or time slot.
+     * The clients with an older revision must reload their roster view.
+     * @param tenantId never null
+     */
+    public void reloadRequired(Integer tenantId) {
+        afterCommit(tenantId, tenantRevisions -> {
+            tenantRevisions.reloadRevision = lastRevision.incrementAndGet();
+            // No client can ask for the changes before the reload revision anymore
+            tenantRevisions.shiftIdToRevisionMap.clear();
+            tenantRevisions.removedShiftIdToRevisionMap.clear();
+            tenantRevisions.employeeAvailabilityIdToRevisionMap.clear();
+            tenantRevisions.removedEmployeeAvailabilityIdToRevisionMap.clear();
+        });
+    }
+
+    private void afterCommit(Integer tenantId, Consumer<TenantRevisions> recorder) {
+        Runnable record = () -> {
+            TenantRevisions tenantRevisions = getTenantRevisions(tenantId);
+            // The revision is incremented inside the lock, so a concurrent poll either sees the change or
+            // returns an older revision
+            synchronized (tenantRevisions) {
+                recorder.accept(tenantRevisions);
+            }
+        };
+        if (transactionSynchronizationRegistry != null
+                && transactionSynchronizationRegistry.getTransactionStatus() == Status.STATUS_ACTIVE) {
+            transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == Status.STATUS_COMMITTED) {
+                        record.run();
+                    }
+                }
+            });
+        } else {
+            record.run();
+        }
+    }
+
+    private TenantRevisions getTenantRevisions(Integer tenantId) {
+        return tenantIdToRevisionsMap.computeIfAbsent(tenantId,
+                k -> new TenantRevisions(firstRevision, maximumChangeCount));
+    }
+
+    /**
+     * @param tenantId never null
+     * @param revision sometimes null, the revision of the client's roster view or previous poll
+     * @return never null
+     */
+    public RosterChanges getChangesSince(Integer tenantId, Long revision) {
+        TenantRevisions tenantRevisions = getTenantRevisions(tenantId);
+        synchronized (tenantRevisions) {
+            long currentRevision = lastRevision.get();
+            RosterChanges changes = new RosterChanges(currentRevision);
+            if (revision == null || revision < tenantRevisions.reloadRevision || revision > currentRevision) {
+                changes.reloadRequired = true;
+                return changes;
+            }
+            collectSince(tenantRevisions.shiftIdToRevisionMap, revision, changes.shiftIdList);
+            collectSince(tenantRevisions.removedShiftIdToRevisionMap, revision, changes.removedShiftIdList);
+            collectSince(tenantRevisions.employeeAvailabilityIdToRevisionMap, revision,
+                    changes.employeeAvailabilityIdList);
+            collectSince(tenantRevisions.removedEmployeeAvailabilityIdToRevisionMap, revision,
+                    changes.removedEmployeeAvailabilityIdList);
+            return changes;
+        }
+    }
+
+    private static void collectSince(Map<Long, Long> idToRevisionMap, long revision, List<Long> idList) {
+        idToRevisionMap.forEach((id, idRevision) -> {
+            if (idRevision > revision) {
+                idList.add(id);
+            }
+        });
+    }
+
+    /**
+     * Every map is in revision order, because a recorded id is moved to the end of its map.
+     */
+    private static class TenantRevisions {
+
+        private final int maximumChangeCount;
+        private long reloadRevision;
+        private final LinkedHashMap<Long, Long> shiftIdToRevisionMap = new LinkedHashMap<>();
+        private final LinkedHashMap<Long, Long> removedShiftIdToRevisionMap = new LinkedHashMap<>();
+        private final LinkedHashMap<Long, Long> employeeAvailabilityIdToRevisionMap = new LinkedHashMap<>();
+        private final LinkedHashMap<Long, Long> removedEmployeeAvailabilityIdToRevisionMap = new LinkedHashMap<>();
+
+        private TenantRevisions(long reloadRevision, int maximumChangeCount) {
+            this.reloadRevision = reloadRevision;
+            this.maximumChangeCount = maximumChangeCount;
+        }
+
+        private void record(LinkedHashMap<Long, Long> idToRevisionMap, Long id, long revision) {
+            idToRevisionMap.remove(id);
+            idToRevisionMap.put(id, revision);
+            List<LinkedHashMap<Long, Long>> mapList = Arrays.asList(shiftIdToRevisionMap,
+                    removedShiftIdToRevisionMap, employeeAvailabilityIdToRevisionMap,
+                    removedEmployeeAvailabilityIdToRevisionMap);
+            int changeCount = mapList.stream().mapToInt(Map::size).sum();
+            for (; changeCount > maximumChangeCount; changeCount--) {
+                // Forget the oldest change, so a client that holds an older revision must reload
+                Iterator<Map.Entry<Long, Long>> oldestIterator = null;
+                long oldestRevision = Long.MAX_VALUE;
+                for (LinkedHashMap<Long, Long> map : mapList) {
+                    if (!map.isEmpty()) {
+                        Iterator<Map.Entry<Long, Long>> iterator = map.entrySet().iterator();
+                        long eldestRevision = iterator.next().getValue();
+                        if (eldestRevision < oldestRevision) {
+                            oldestIterator = iterator;
+                            oldestRevision = eldestRevision;
+                        }
+                    }
+                }
+                oldestIterator.remove();
+                reloadRevision = Math.max(reloadRevision, oldestRevision);
+            }
+        }
+
+    }
+
+    public static class RosterChanges {
+
+        private final long revision;
+        private boolean reloadRequired = false;
+        private final List<Long> shiftIdList = new ArrayList<>();
+        private final List<Long> removedShiftIdList = new ArrayList<>();
+        private final List<Long> employeeAvailabilityIdList = new ArrayList<>();
+        private final List<Long> removedEmployeeAvailabilityIdList = new ArrayList<>();
+
+        private RosterChanges(long revision) {
+            this.revision = revision;
+        }
+
+        // ************************************************************************
+        // Simple getters and setters
+        // ************************************************************************
+
+        public long getRevision() {
+            return revision;
+        }
+
+        public boolean isReloadRequired() {
+            return reloadRequired;
+        }
+
+        public List<Long> getShiftIdList() {
+            return shiftIdList;
+        }
+
+        public List<Long> getRemovedShiftIdList() {
+            return removedShiftIdList;
+        }
+
+        public List<Long> getEmployeeAvailabilityIdList() {
+            return employeeAvailabilityIdList;
+        }
+
+        public List<Long> getRemovedEmployeeAvailabilityIdList() {
+            return removedEmployeeAvailabilityIdList;
+        }
+
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.server.roster;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.enterprise.context.ApplicationScoped;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Least recently used cache of the roster views, shared by all tenants.
+ * Every change to the data of a tenant's views must call {@link #invalidate(Integer)}.
+ */
+@ApplicationScoped
+public class RosterViewCache implements RosterViewCacheMXBean {
+
+    /**
+     * System property to override the maximum number of cached roster views.
+     */
+    public static final String MAXIMUM_SIZE_PROPERTY = "optashift.rosterViewCache.maximumSize";
+
+    protected final transient Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final int maximumSize = Integer.getInteger(MAXIMUM_SIZE_PROPERTY, 100);
+    // Guarded by itself
+    private final LinkedHashMap<List<Object>, Object> viewMap = new LinkedHashMap<List<Object>, Object>(
+            16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, Object> eldest) {
+            if (size() > maximumSize) {
+                evictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+    // Incremented on every invalidation, so a view built before an invalidation isn't cached after it
+    private final ConcurrentMap<Integer, Long> tenantIdToVersionMap = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong(0L);
+    private final AtomicLong missCount = new AtomicLong(0L);
+    private final AtomicLong evictionCount = new AtomicLong(0L);
+    private final AtomicLong invalidationCount = new AtomicLong(0L);
+
+    // Null outside a container, such as in the benchmark
+    @Resource
+    private TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+    private ObjectName objectName;
+
+    @PostConstruct
+    public void setUp() {
+        if (maximumSize < 0) {
+            throw new IllegalStateException("The " + MAXIMUM_SIZE_PROPERTY + " (" + maximumSize
+                    + ") must not be negative.");
+        }
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            objectName = new ObjectName("org.optaplanner.openshift.employeerostering:type=RosterViewCache");
+            if (mBeanServer.isRegistered(objectName)) {
+                // Redeployed without undeploying
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(this, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the roster view cache in JMX.", e);
+        }
+    }
+
+    @PreDestroy
+    public void tearDown() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            logger.warn("Could not unregister the roster view cache from JMX.", e);
+        }
+    }
+
+    /**
+     * @param tenantId never null
+     * @param viewKey never null, identifies the view within the tenant, must implement equals() and hashCode()
+     * @param viewSupplier never null, builds the view on a cache miss
+     * @param <View> the type of the view
+     * @return never null
+     */
+    @SuppressWarnings("unchecked")
+    public <View> View computeIfAbsent(Integer tenantId, Object viewKey, Supplier<View> viewSupplier) {
+        List<Object> key = Arrays.asList(tenantId, viewKey);
+        Long version;
+        synchronized (viewMap) {
+            View view = (View) viewMap.get(key);
+            if (view != null) {
+                hitCount.incrementAndGet();
+                return view;
+            }
+            version = tenantIdToVersionMap.get(tenantId);
+        }
+        missCount.incrementAndGet();
+        // Not locked while building, so a slow view doesn't block the other tenants
+        View view = viewSupplier.get();
+        synchronized (viewMap) {
+            if (Objects.equals(version, tenantIdToVersionMap.get(tenantId))) {
+                viewMap.put(key, view);
+            }
+        }
+        return view;
+    }
+
+    /**
+     * Removes all cached views of a tenant, now and (if a transaction is active) again after it completes,
+     * so a view that is built from the database before the commit doesn't survive it.
+     * @param tenantId never null
+     */
+    public void invalidate(Integer tenantId) {
+        invalidationCount.incrementAndGet();
+        invalidateNow(tenantId);
+        if (transactionSynchronizationRegistry != null
+                && transactionSynchronizationRegistry.getTransactionStatus() == Status.STATUS_ACTIVE) {
+            transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateNow(tenantId);
+                }
+            });
+        }
+    }
+
+    private void invalidateNow(Integer tenantId) {
+        synchronized (viewMap) {
+            tenantIdToVersionMap.merge(tenantId, 1L, Long::sum);
+            viewMap.keySet().removeIf(key -> key.get(0).equals(tenantId));
+        }
+    }
+
+    // ************************************************************************
+    // Statistics
+    // ************************************************************************
+
+    @Override
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    @Override
+    public int getSize() {
+        synchronized (viewMap) {
+            return viewMap.size();
+        }
+    }
+
+    @Override
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+}
@@ -21,7 +21,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -34,6 +33,10 @@ import javax.transaction.Transactional;
 
 import org.optaplanner.openshift.employeerostering.server.common.AbstractRestServiceImpl;
 import org.optaplanner.openshift.employeerostering.server.lang.parser.ShiftFileParser;
+import org.optaplanner.openshift.employeerostering.server.roster.RosterRevisionTracker;
+import org.optaplanner.openshift.employeerostering.server.roster.RosterViewCache;
+import org.optaplanner.openshift.employeerostering.server.solver.RosterProblemFactChanges;
+import org.optaplanner.openshift.employeerostering.server.solver.WannabeSolverManager;
 import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
 import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailability;
 import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeGroup;
@@ -55,6 +58,9 @@ import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlotState
 
 public class ShiftRestServiceImpl extends AbstractRestServiceImpl implements ShiftRestService {
 
+    // A multiple of the hibernate.jdbc.batch_size
+    private static final int FLUSH_CHUNK_SIZE = 1000;
+
     @PersistenceContext
     private EntityManager entityManager;
     
@@ -64,6 +70,15 @@ public class ShiftRestServiceImpl extends AbstractRestServiceImpl implements Shi
     @Inject
     private EmployeeRestService employeeRestService;
 
+    @Inject
+    private WannabeSolverManager solverManager;
+
+    @Inject
+    private RosterViewCache rosterViewCache;
+
+    @Inject
+    private RosterRevisionTracker rosterRevisionTracker;
+
     @Override
     @Transactional
     public ShiftView getShift(Integer tenantId, Long id) {
@@ -77,6 +92,9 @@ public class ShiftRestServiceImpl extends AbstractRestServiceImpl implements Shi
     public Long addShift(Integer tenantId, ShiftView shiftView) {
         Shift shift = convertFromView(tenantId, shiftView);
         entityManager.persist(shift);
+        rosterViewCache.invalidate(tenantId);
+        rosterRevisionTracker.shiftChanged(tenantId, shift.getId());
+        solverManager.addProblemFactChange(tenantId, RosterProblemFactChanges.addShift(shift));
         return shift.getId();
     }
 
@@ -85,6 +103,9 @@ public class ShiftRestServiceImpl extends AbstractRestServiceImpl implements Shi
     public void updateShift(Integer tenantId, ShiftView shiftView) {
         Shift shift = convertFromView(tenantId, shiftView);
         entityManager.merge(shift);
+        rosterViewCache.invalidate(tenantId);
+        rosterRevisionTracker.shiftChanged(tenantId, shift.getId());
+        solverManager.addProblemFactChange(tenantId, RosterProblemFactChanges.updateShift(shift));
     }
 
     private Shift convertFromView(Integer tenantId, ShiftView shiftView) {
@@ -117,6 +138,9 @@ public class ShiftRestServiceImpl extends AbstractRestServiceImpl implements Shi
         }
         validateTenantIdParameter(tenantId, shift);
         entityManager.remove(shift);
+        rosterViewCache.invalidate(tenantId);
+        rosterRevisionTracker.shiftRemoved(tenantId, shift.getId());
+        solverManager.addProblemFactChange(tenantId, RosterProblemFactChanges.removeShift(shift));
         return true;
     }
 
@@ -140,50 +164,66 @@ public class ShiftRestServiceImpl extends AbstractRestServiceImpl implements Shi
                 .getEmployees()));
         employeeGroupMap.put(EmployeeGroup.ALL_GROUP_ID, employeeRestService.getEmployeeList(tenantId));
 
+        List<Long> out = new ArrayList<Long>();
+        List<Object> unflushedEntityList = new ArrayList<>(FLUSH_CHUNK_SIZE);
         try {
-            ShiftFileParser.ParserOut parserOutput = ShiftFileParser.parse(tenantId,
+            // Persist each entity as soon as it's generated, instead of generating all of them first
+            ShiftFileParser.parse(tenantId,
                     spotRestService.getSpotList(tenantId),
                     employeeRestService.getEmployeeList(tenantId),
                     spotGroupMap,
                     employeeGroupMap,
                     startDate,
                     endDate,
-                    template);
-            List<Shift> shifts = parserOutput.getShiftsOut();
-
-            List<EmployeeAvailability> employeeAvailabilities = parserOutput.getEmployeeAvailabilityOut();
-
-            HashMap<String, TimeSlot> timeSlotMap = new HashMap<>();
-            List<Long> out = new ArrayList<Long>();
-            for (Shift shift : shifts) {
-                if (!timeSlotMap.containsKey(shift.getTimeSlot().toString())) {
-                    shift.getTimeSlot().setTimeSlotState(TimeSlotState.DRAFT);
-                    entityManager.persist(shift.getTimeSlot());
-                    timeSlotMap.put(shift.getTimeSlot().toString(), shift.getTimeSlot());
-                }
-                TimeSlot timeSlot = timeSlotMap.get(shift.getTimeSlot().toString());
-                Shift newShift = new Shift(tenantId, shift.getSpot(), timeSlot);
-                entityManager.persist(newShift);
-                out.add(newShift.getId());
-            }
+                    template,
+                    new ShiftFileParser.ParserListener() {
+                        @Override
+                        public void onTimeSlot(TimeSlot timeSlot) {
+                            timeSlot.setTimeSlotState(TimeSlotState.DRAFT);
+                            persistInChunks(timeSlot, unflushedEntityList);
+                        }
 
-            HashSet<String> employeeAvailabilitySet = new HashSet<>();
-            for (EmployeeAvailability availability : employeeAvailabilities) {
-                if (!employeeAvailabilitySet.contains(availability.toString())) {
-                    TimeSlot timeSlot = timeSlotMap.get(availability.getTimeSlot().toString());
-                    availability.setTimeSlot(timeSlot);
-                    if (null != availability.getState()) {
-                        entityManager.persist(availability);
-                    }
-                    employeeAvailabilitySet.add(availability.toString());
-                }
-            }
+                        @Override
+                        public void onShift(Shift shift) {
+                            persistInChunks(shift, unflushedEntityList);
+                            out.add(shift.getId());
+                        }
+
+                        @Override
+                        public void onEmployeeAvailability(EmployeeAvailability employeeAvailability) {
+                            if (null != employeeAvailability.getState()) {
+                                persistInChunks(employeeAvailability, unflushedEntityList);
+                            }
+                        }
+                    });
+            flushAndDetach(unflushedEntityList);
+            rosterViewCache.invalidate(tenantId);
+            rosterRevisionTracker.reloadRequired(tenantId);
             return out;
         } catch (ParserException e) {
             throw new Exception(e.getMessage());
         }
     }
 
+    /**
+     * Flushes every {@link #FLUSH_CHUNK_SIZE} entities as JDBC batches
+     * and detaches them, so the persistence context doesn't grow with the number of generated entities.
+     * Only the new entities are detached, not the spots and employees the caller might still use.
+     */
+    private void persistInChunks(Object entity, List<Object> unflushedEntityList) {
+        entityManager.persist(entity);
+        unflushedEntityList.add(entity);
+        if (unflushedEntityList.size() >= FLUSH_CHUNK_SIZE) {
+            flushAndDetach(unflushedEntityList);
+        }
+    }
+
+    private void flushAndDetach(List<Object> unflushedEntityList) {
+        entityManager.flush();
+        unflushedEntityList.forEach(entityManager::detach);
+        unflushedEntityList.clear();
+    }
+
     @Override
     public List<ShiftView> getShifts(Integer tenantId) {
         return getAllShifts(tenantId).stream().map((s) -> new ShiftView(s)).collect(Collectors.toList());
@@ -18,11 +18,14 @@ package org.optaplanner.openshift.employeerostering.server.skill;
 
 import java.util.List;
 
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
 
 import org.optaplanner.openshift.employeerostering.server.common.AbstractRestServiceImpl;
+import org.optaplanner.openshift.employeerostering.server.roster.RosterRevisionTracker;
+import org.optaplanner.openshift.employeerostering.server.roster.RosterViewCache;
 import org.optaplanner.openshift.employeerostering.shared.skill.Skill;
 import org.optaplanner.openshift.employeerostering.shared.skill.SkillRestService;
 
@@ -31,6 +34,12 @@ public class SkillRestServiceImpl extends AbstractRestServiceImpl implements Ski
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Inject
+    private RosterViewCache rosterViewCache;
+
+    @Inject
+    private RosterRevisionTracker rosterRevisionTracker;
+
     @Override
     @Transactional
     public List<Skill> getSkillList(Integer tenantId) {
@@ -60,6 +69,9 @@ public class SkillRestServiceImpl extends AbstractRestServiceImpl implements Ski
     public Skill updateSkill(Integer tenantId, Skill skill) {
         validateTenantIdParameter(tenantId, skill);
         skill = entityManager.merge(skill);
+        // The roster views include the skills of the spots and employees
+        rosterViewCache.invalidate(tenantId);
+        rosterRevisionTracker.reloadRequired(tenantId);
         return skill;
     }
 
@@ -72,6 +84,8 @@ public class SkillRestServiceImpl extends AbstractRestServiceImpl implements Ski
         }
         validateTenantIdParameter(tenantId, skill);
         entityManager.remove(skill);
+        rosterViewCache.invalidate(tenantId);
+        rosterRevisionTracker.reloadRequired(tenantId);
         return true;
     }
 
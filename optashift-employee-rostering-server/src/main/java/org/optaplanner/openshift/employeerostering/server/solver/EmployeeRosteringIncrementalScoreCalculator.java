@@ -0,0 +1,279 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.optaplanner.core.api.score.Score;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.impl.score.director.incremental.IncrementalScoreCalculator;
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailability;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailabilityState;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+import org.optaplanner.openshift.employeerostering.shared.tenant.TenantConfiguration;
+import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
+
+/**
+ * Java equivalent of employeeRosteringScoreRules.drl: every constraint is updated by a delta per changed {@link Shift},
+ * using a timeline of the assigned shifts per employee.
+ * Keep both in sync.
+ */
+public class EmployeeRosteringIncrementalScoreCalculator implements IncrementalScoreCalculator<Roster> {
+
+    private static final long MINUTES_PER_DAY = 24L * 60L;
+    private static final long REST_MINUTES = 10L * 60L;
+
+    private Map<Employee, Map<TimeSlot, EmployeeAvailabilityState>> employeeToAvailabilityStateMap;
+    private int undesiredTimeSlotWeight;
+    private int desiredTimeSlotWeight;
+
+    private Map<Employee, EmployeeTimeline> employeeToTimelineMap;
+    private long maximumShiftDurationMinutes;
+
+    private int hardScore;
+    private int softScore;
+
+    @Override
+    public void resetWorkingSolution(Roster roster) {
+        employeeToAvailabilityStateMap = new HashMap<>(roster.getEmployeeList().size());
+        for (EmployeeAvailability employeeAvailability : roster.getEmployeeAvailabilityList()) {
+            employeeToAvailabilityStateMap
+                    .computeIfAbsent(employeeAvailability.getEmployee(), k -> new HashMap<>())
+                    .put(employeeAvailability.getTimeSlot(), employeeAvailability.getState());
+        }
+        TenantConfiguration tenantConfiguration = roster.getTenantConfiguration();
+        undesiredTimeSlotWeight = (tenantConfiguration == null) ? 0 : tenantConfiguration.getUndesiredTimeSlotWeight();
+        desiredTimeSlotWeight = (tenantConfiguration == null) ? 0 : tenantConfiguration.getDesiredTimeSlotWeight();
+
+        employeeToTimelineMap = new HashMap<>(roster.getEmployeeList().size());
+        maximumShiftDurationMinutes = 0L;
+        hardScore = 0;
+        softScore = 0;
+        for (Shift shift : roster.getShiftList()) {
+            insert(shift);
+        }
+    }
+
+    @Override
+    public void beforeEntityAdded(Object entity) {
+        // Do nothing
+    }
+
+    @Override
+    public void afterEntityAdded(Object entity) {
+        insert((Shift) entity);
+    }
+
+    @Override
+    public void beforeVariableChanged(Object entity, String variableName) {
+        retract((Shift) entity);
+    }
+
+    @Override
+    public void afterVariableChanged(Object entity, String variableName) {
+        insert((Shift) entity);
+    }
+
+    @Override
+    public void beforeEntityRemoved(Object entity) {
+        retract((Shift) entity);
+    }
+
+    @Override
+    public void afterEntityRemoved(Object entity) {
+        // Do nothing
+    }
+
+    private void insert(Shift shift) {
+        Employee employee = shift.getEmployee();
+        if (employee == null) {
+            return;
+        }
+        EmployeeAvailabilityState state = getEmployeeAvailabilityState(employee, shift.getTimeSlot());
+        hardScore += getHardWeight(shift, employee, state);
+        softScore += getSoftWeight(state);
+        TimeSlot timeSlot = shift.getTimeSlot();
+        // Only grows, so the timeline windows always cover the shifts inserted before
+        maximumShiftDurationMinutes = Math.max(maximumShiftDurationMinutes,
+                timeSlot.getEndEpochMinute() - timeSlot.getStartEpochMinute());
+        hardScore += employeeToTimelineMap.computeIfAbsent(employee, k -> new EmployeeTimeline())
+                .insert(shift);
+    }
+
+    private void retract(Shift shift) {
+        Employee employee = shift.getEmployee();
+        if (employee == null) {
+            return;
+        }
+        EmployeeAvailabilityState state = getEmployeeAvailabilityState(employee, shift.getTimeSlot());
+        hardScore -= getHardWeight(shift, employee, state);
+        softScore -= getSoftWeight(state);
+        hardScore += employeeToTimelineMap.get(employee).retract(shift);
+    }
+
+    private EmployeeAvailabilityState getEmployeeAvailabilityState(Employee employee, TimeSlot timeSlot) {
+        Map<TimeSlot, EmployeeAvailabilityState> timeSlotToStateMap = employeeToAvailabilityStateMap.get(employee);
+        return (timeSlotToStateMap == null) ? null : timeSlotToStateMap.get(timeSlot);
+    }
+
+    private int getHardWeight(Shift shift, Employee employee, EmployeeAvailabilityState state) {
+        int hardWeight = 0;
+        // Required skill for a shift
+        if (!employee.hasSkill(shift.getSpot().getRequiredSkill())) {
+            hardWeight -= 100;
+        }
+        // Unavailable time slot for an employee
+        if (state == EmployeeAvailabilityState.UNAVAILABLE) {
+            hardWeight -= 50;
+        }
+        return hardWeight;
+    }
+
+    private int getSoftWeight(EmployeeAvailabilityState state) {
+        if (state == null) {
+            return 0;
+        }
+        switch (state) {
+            case UNAVAILABLE:
+                return 0;
+            case UNDESIRED:
+                // Undesired time slot for an employee
+                return -undesiredTimeSlotWeight;
+            case DESIRED:
+                // Desired time slot for an employee
+                return desiredTimeSlotWeight;
+            default:
+                throw new IllegalStateException("The employeeAvailabilityState (" + state
+                        + ") is not implemented.");
+        }
+    }
+
+    @Override
+    public Score calculateScore() {
+        return HardSoftScore.valueOf(hardScore, softScore);
+    }
+
+    /**
+     * The shifts assigned to 1 employee, sorted by start.
+     * Only the shifts close to a changed shift are visited, found by binary search on their start minute.
+     */
+    private class EmployeeTimeline {
+
+        private long[] startEpochMinutes = new long[16];
+        private Shift[] shifts = new Shift[16];
+        private int size = 0;
+
+        /**
+         * @param shift never null
+         * @return the hard score delta caused by the shifts of the same employee
+         */
+        public int insert(Shift shift) {
+            int hardWeight = -calculateTimelineWeight(shift);
+            long startEpochMinute = shift.getTimeSlot().getStartEpochMinute();
+            int index = indexAfter(startEpochMinute);
+            if (size == shifts.length) {
+                startEpochMinutes = Arrays.copyOf(startEpochMinutes, size * 2);
+                shifts = Arrays.copyOf(shifts, size * 2);
+            }
+            System.arraycopy(startEpochMinutes, index, startEpochMinutes, index + 1, size - index);
+            System.arraycopy(shifts, index, shifts, index + 1, size - index);
+            startEpochMinutes[index] = startEpochMinute;
+            shifts[index] = shift;
+            size++;
+            return hardWeight;
+        }
+
+        /**
+         * @param shift never null
+         * @return the hard score delta of removing the shift, the opposite of its {@link #insert(Shift)} delta
+         */
+        public int retract(Shift shift) {
+            long startEpochMinute = shift.getTimeSlot().getStartEpochMinute();
+            int index = indexFrom(startEpochMinute);
+            while (shifts[index] != shift) {
+                index++;
+                if (index >= size || startEpochMinutes[index] != startEpochMinute) {
+                    throw new IllegalStateException("The shift (" + shift + ") is not in the timeline.");
+                }
+            }
+            size--;
+            System.arraycopy(startEpochMinutes, index + 1, startEpochMinutes, index, size - index);
+            System.arraycopy(shifts, index + 1, shifts, index, size - index);
+            shifts[size] = null;
+            return calculateTimelineWeight(shift);
+        }
+
+        /**
+         * @param shift never null, not in this timeline
+         * @return the positive weight of the constraints between the shift and the other shifts in this timeline
+         */
+        private int calculateTimelineWeight(Shift shift) {
+            TimeSlot timeSlot = shift.getTimeSlot();
+            // At most one shift assignment per day per employee: matched once per ordered pair
+            long dayStartEpochMinute = timeSlot.getStartEpochDay() * MINUTES_PER_DAY;
+            int sameDayCount = indexFrom(dayStartEpochMinute + MINUTES_PER_DAY) - indexFrom(dayStartEpochMinute);
+            int weight = 10 * 2 * sameDayCount;
+            // No 2 shifts within 10 hours from each other: matched once per ordered pair
+            long startEpochMinute = timeSlot.getStartEpochMinute();
+            long endEpochMinute = timeSlot.getEndEpochMinute();
+            int toIndex = indexFrom(endEpochMinute + REST_MINUTES);
+            for (int i = indexAfter(startEpochMinute - REST_MINUTES - maximumShiftDurationMinutes); i < toIndex; i++) {
+                TimeSlot otherTimeSlot = shifts[i].getTimeSlot();
+                long otherEndEpochMinute = otherTimeSlot.getEndEpochMinute();
+                if (otherEndEpochMinute >= endEpochMinute
+                        && otherTimeSlot.getStartEpochMinute() < endEpochMinute + REST_MINUTES) {
+                    weight++;
+                }
+                if (endEpochMinute >= otherEndEpochMinute
+                        && startEpochMinute < otherEndEpochMinute + REST_MINUTES) {
+                    weight++;
+                }
+            }
+            return weight;
+        }
+
+        /**
+         * @return the index of the first shift that starts at or after the given minute
+         */
+        private int indexFrom(long epochMinute) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (startEpochMinutes[middle] < epochMinute) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return the index of the first shift that starts after the given minute
+         */
+        private int indexAfter(long epochMinute) {
+            return indexFrom(epochMinute + 1L);
+        }
+
+    }
+
+}
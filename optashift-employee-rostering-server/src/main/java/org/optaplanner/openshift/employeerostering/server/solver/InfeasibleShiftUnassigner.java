@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailability;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailabilityState;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.MovableShiftFilter;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
+
+/**
+ * Prepares a repair solve: unassigns the movable shifts that break a hard constraint,
+ * so the construction heuristic reassigns only those and all other assignments are kept as the starting point.
+ * The hard constraints are the same as in {@link EmployeeRosteringIncrementalScoreCalculator}.
+ */
+public class InfeasibleShiftUnassigner {
+
+    private static final long MINUTES_PER_DAY = 24L * 60L;
+    private static final long REST_MINUTES = 10L * 60L;
+
+    private final MovableShiftFilter movableShiftFilter = new MovableShiftFilter();
+
+    /**
+     * @param roster never null, its skills must be indexed
+     * @return the number of shifts that were unassigned
+     */
+    public int unassignInfeasibleShifts(Roster roster) {
+        Map<Employee, Set<TimeSlot>> employeeToUnavailableTimeSlotSetMap = new HashMap<>(
+                roster.getEmployeeList().size());
+        for (EmployeeAvailability employeeAvailability : roster.getEmployeeAvailabilityList()) {
+            if (employeeAvailability.getState() == EmployeeAvailabilityState.UNAVAILABLE) {
+                employeeToUnavailableTimeSlotSetMap
+                        .computeIfAbsent(employeeAvailability.getEmployee(), k -> new HashSet<>())
+                        .add(employeeAvailability.getTimeSlot());
+            }
+        }
+        // Locked shifts can't be unassigned, so they are kept first and the movable shifts must fit around them
+        List<Shift> movableShiftList = new ArrayList<>(roster.getShiftList().size());
+        Map<Employee, TreeMap<Long, List<Shift>>> employeeToKeptShiftMap = new HashMap<>(
+                roster.getEmployeeList().size());
+        long maximumShiftDurationMinutes = 0L;
+        for (Shift shift : roster.getShiftList()) {
+            TimeSlot timeSlot = shift.getTimeSlot();
+            maximumShiftDurationMinutes = Math.max(maximumShiftDurationMinutes,
+                    timeSlot.getEndEpochMinute() - timeSlot.getStartEpochMinute());
+            if (shift.getEmployee() == null) {
+                continue;
+            }
+            if (movableShiftFilter.accept(null, shift)) {
+                movableShiftList.add(shift);
+            } else {
+                keep(employeeToKeptShiftMap, shift);
+            }
+        }
+        int unassignedShiftCount = 0;
+        for (Shift shift : movableShiftList) {
+            Employee employee = shift.getEmployee();
+            boolean feasible = employee.hasSkill(shift.getSpot().getRequiredSkill())
+                    && !employeeToUnavailableTimeSlotSetMap.getOrDefault(employee, new HashSet<>(0))
+                    .contains(shift.getTimeSlot())
+                    && !conflictsWithKeptShift(employeeToKeptShiftMap.get(employee), shift,
+                    maximumShiftDurationMinutes);
+            if (feasible) {
+                keep(employeeToKeptShiftMap, shift);
+            } else {
+                shift.setEmployee(null);
+                unassignedShiftCount++;
+            }
+        }
+        return unassignedShiftCount;
+    }
+
+    private void keep(Map<Employee, TreeMap<Long, List<Shift>>> employeeToKeptShiftMap, Shift shift) {
+        employeeToKeptShiftMap.computeIfAbsent(shift.getEmployee(), k -> new TreeMap<>())
+                .computeIfAbsent(shift.getTimeSlot().getStartEpochMinute(), k -> new ArrayList<>(1))
+                .add(shift);
+    }
+
+    private boolean conflictsWithKeptShift(TreeMap<Long, List<Shift>> keptShiftMap, Shift shift,
+            long maximumShiftDurationMinutes) {
+        if (keptShiftMap == null) {
+            return false;
+        }
+        TimeSlot timeSlot = shift.getTimeSlot();
+        // At most one shift assignment per day per employee
+        long dayStartEpochMinute = timeSlot.getStartEpochDay() * MINUTES_PER_DAY;
+        if (!keptShiftMap.subMap(dayStartEpochMinute, dayStartEpochMinute + MINUTES_PER_DAY).isEmpty()) {
+            return true;
+        }
+        // No 2 shifts within 10 hours from each other
+        long startEpochMinute = timeSlot.getStartEpochMinute();
+        long endEpochMinute = timeSlot.getEndEpochMinute();
+        Collection<List<Shift>> nearbyShiftLists = keptShiftMap.subMap(
+                startEpochMinute - REST_MINUTES - maximumShiftDurationMinutes, true,
+                endEpochMinute + REST_MINUTES, false).values();
+        for (List<Shift> nearbyShiftList : nearbyShiftLists) {
+            for (Shift nearbyShift : nearbyShiftList) {
+                TimeSlot nearbyTimeSlot = nearbyShift.getTimeSlot();
+                if (startEpochMinute < nearbyTimeSlot.getEndEpochMinute() + REST_MINUTES
+                        && nearbyTimeSlot.getStartEpochMinute() < endEpochMinute + REST_MINUTES) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.optaplanner.core.impl.partitionedsearch.partitioner.SolutionPartitioner;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailability;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeSkillProficiency;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.roster.RosterPartitionStrategy;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+import org.optaplanner.openshift.employeerostering.shared.skill.Skill;
+import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
+import org.optaplanner.openshift.employeerostering.shared.spot.SpotGroup;
+
+/**
+ * Splits a {@link Roster} into parts that are solved in parallel, according to a {@link RosterPartitionStrategy}.
+ * The planning entities are cloned per part, the problem facts are shared by all parts.
+ */
+public class RosterPartitioner implements SolutionPartitioner<Roster> {
+
+    private int partCount = 4;
+    private RosterPartitionStrategy partitionStrategy = RosterPartitionStrategy.EMPLOYEE;
+
+    @Override
+    public List<Roster> splitWorkingSolution(ScoreDirector<Roster> scoreDirector, Integer runnablePartThreadLimit) {
+        Roster originalRoster = scoreDirector.getWorkingSolution();
+        if (partCount < 1) {
+            throw new IllegalStateException("The partCount (" + partCount + ") must be at least 1.");
+        }
+        List<Part> partList;
+        if (originalRoster.getEmployeeList().isEmpty() || originalRoster.getShiftList().isEmpty()) {
+            // Nothing to split: every strategy would create no parts at all
+            partList = splitIntoSinglePart(originalRoster);
+        } else {
+            partList = splitByStrategy(originalRoster);
+        }
+        List<Roster> partRosterList = new ArrayList<>(partList.size());
+        for (Part part : partList) {
+            if (part.shiftList.isEmpty() && partList.size() > 1) {
+                continue;
+            }
+            Roster partRoster = new Roster(originalRoster.getId(), originalRoster.getTenantId(),
+                    originalRoster.getSkillList(), originalRoster.getSpotList(), part.employeeList,
+                    originalRoster.getTimeSlotList(), part.employeeAvailabilityList,
+                    originalRoster.getTenantConfiguration(), part.shiftList);
+            // Only the employees of this part
+            partRoster.buildEmployeeRanges();
+            partRosterList.add(partRoster);
+        }
+        return partRosterList;
+    }
+
+    private List<Part> splitByStrategy(Roster originalRoster) {
+        switch (partitionStrategy) {
+            case EMPLOYEE:
+                return splitByEmployee(originalRoster);
+            case WEEK:
+                return splitByWeek(originalRoster);
+            case SPOT_GROUP:
+                return splitBySpotGroup(originalRoster);
+            default:
+                throw new IllegalStateException("The partitionStrategy (" + partitionStrategy
+                        + ") is not implemented.");
+        }
+    }
+
+    /**
+     * Used for a roster without employees or without shifts, which still needs 1 part to solve.
+     */
+    private List<Part> splitIntoSinglePart(Roster originalRoster) {
+        List<Part> partList = createSharedEmployeePartList(originalRoster, 1);
+        Part part = partList.get(0);
+        for (Shift originalShift : originalRoster.getShiftList()) {
+            part.addShiftClone(originalShift);
+        }
+        return partList;
+    }
+
+    /**
+     * Because no employee is in 2 parts, no constraint spans 2 parts.
+     * A shift goes to the part of its employee, or (if unassigned) to the least loaded part that has the required skill.
+     */
+    private List<Part> splitByEmployee(Roster originalRoster) {
+        List<Employee> originalEmployeeList = originalRoster.getEmployeeList();
+        List<Part> partList = createPartList(Math.min(partCount, originalEmployeeList.size()));
+        Map<Employee, Part> employeeToPartMap = new HashMap<>(originalEmployeeList.size());
+        for (int i = 0; i < originalEmployeeList.size(); i++) {
+            Employee employee = originalEmployeeList.get(i);
+            Part part = partList.get(i % partList.size());
+            part.employeeList.add(employee);
+            for (EmployeeSkillProficiency skillProficiency : employee.getSkillProficiencyList()) {
+                part.skillSet.add(skillProficiency.getSkill());
+            }
+            employeeToPartMap.put(employee, part);
+        }
+        for (EmployeeAvailability employeeAvailability : originalRoster.getEmployeeAvailabilityList()) {
+            employeeToPartMap.get(employeeAvailability.getEmployee()).employeeAvailabilityList
+                    .add(employeeAvailability);
+        }
+        for (Shift originalShift : originalRoster.getShiftList()) {
+            Employee employee = originalShift.getEmployee();
+            Part part = (employee == null) ? selectPart(partList, originalShift.getSpot().getRequiredSkill())
+                    : employeeToPartMap.get(employee);
+            part.addShiftClone(originalShift);
+        }
+        return partList;
+    }
+
+    /**
+     * @return the part with the least shifts per employee, preferring the parts with an employee that has the skill
+     */
+    private Part selectPart(List<Part> partList, Skill requiredSkill) {
+        Part selectedPart = null;
+        boolean selectedHasSkill = false;
+        for (Part part : partList) {
+            boolean hasSkill = part.skillSet.contains(requiredSkill);
+            if (selectedPart == null || (hasSkill && !selectedHasSkill)
+                    || (hasSkill == selectedHasSkill && part.isLessLoadedThan(selectedPart))) {
+                selectedPart = part;
+                selectedHasSkill = hasSkill;
+            }
+        }
+        return selectedPart;
+    }
+
+    /**
+     * Every part gets a range of consecutive weeks with about the same number of shifts,
+     * so only the shifts around the boundary of 2 parts can conflict.
+     */
+    private List<Part> splitByWeek(Roster originalRoster) {
+        DayOfWeek weekStart = originalRoster.getTenantConfiguration().getWeekStart();
+        TreeMap<LocalDate, List<Shift>> weekToShiftListMap = new TreeMap<>();
+        for (Shift originalShift : originalRoster.getShiftList()) {
+            LocalDate week = originalShift.getTimeSlot().getStartDateTime().toLocalDate()
+                    .with(TemporalAdjusters.previousOrSame(weekStart));
+            weekToShiftListMap.computeIfAbsent(week, k -> new ArrayList<>()).add(originalShift);
+        }
+        List<Part> partList = createSharedEmployeePartList(originalRoster,
+                Math.min(partCount, weekToShiftListMap.size()));
+        int shiftCount = originalRoster.getShiftList().size();
+        int assignedShiftCount = 0;
+        for (List<Shift> weekShiftList : weekToShiftListMap.values()) {
+            Part part = partList.get((int) ((long) assignedShiftCount * partList.size() / shiftCount));
+            for (Shift originalShift : weekShiftList) {
+                part.addShiftClone(originalShift);
+            }
+            assignedShiftCount += weekShiftList.size();
+        }
+        return partList;
+    }
+
+    /**
+     * Every spot belongs to its first spot group, the largest groups are spread over the parts first.
+     */
+    private List<Part> splitBySpotGroup(Roster originalRoster) {
+        Map<Spot, Object> spotToGroupMap = new HashMap<>(originalRoster.getSpotList().size());
+        for (SpotGroup spotGroup : originalRoster.getSpotGroupList()) {
+            for (Spot spot : spotGroup.getSpots()) {
+                spotToGroupMap.putIfAbsent(spot, spotGroup);
+            }
+        }
+        Map<Object, List<Shift>> groupToShiftListMap = new LinkedHashMap<>();
+        for (Shift originalShift : originalRoster.getShiftList()) {
+            Spot spot = originalShift.getSpot();
+            groupToShiftListMap.computeIfAbsent(spotToGroupMap.getOrDefault(spot, spot), k -> new ArrayList<>())
+                    .add(originalShift);
+        }
+        List<List<Shift>> groupShiftListList = new ArrayList<>(groupToShiftListMap.values());
+        groupShiftListList.sort(Comparator.comparingInt((List<Shift> shiftList) -> shiftList.size()).reversed());
+        List<Part> partList = createSharedEmployeePartList(originalRoster,
+                Math.min(partCount, groupShiftListList.size()));
+        for (List<Shift> groupShiftList : groupShiftListList) {
+            Part part = partList.stream().min(Comparator.comparingInt(p -> p.shiftList.size()))
+                    .orElseThrow(() -> new IllegalStateException("There are no parts."));
+            for (Shift originalShift : groupShiftList) {
+                part.addShiftClone(originalShift);
+            }
+        }
+        return partList;
+    }
+
+    private List<Part> createPartList(int size) {
+        List<Part> partList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            partList.add(new Part());
+        }
+        return partList;
+    }
+
+    private List<Part> createSharedEmployeePartList(Roster originalRoster, int size) {
+        List<Part> partList = createPartList(size);
+        for (Part part : partList) {
+            part.employeeList.addAll(originalRoster.getEmployeeList());
+            part.employeeAvailabilityList.addAll(originalRoster.getEmployeeAvailabilityList());
+        }
+        return partList;
+    }
+
+    private static class Part {
+
+        private final List<Employee> employeeList = new ArrayList<>();
+        private final Set<Skill> skillSet = new HashSet<>();
+        private final List<EmployeeAvailability> employeeAvailabilityList = new ArrayList<>();
+        private final List<Shift> shiftList = new ArrayList<>();
+
+        public void addShiftClone(Shift originalShift) {
+            Shift shift = new Shift(originalShift.getTenantId(), originalShift.getSpot(), originalShift.getTimeSlot());
+            shift.setId(originalShift.getId());
+            shift.setVersion(originalShift.getVersion());
+            shift.setLockedByUser(originalShift.isLockedByUser());
+            shift.setEmployee(originalShift.getEmployee());
+            shiftList.add(shift);
+        }
+
+        public boolean isLessLoadedThan(Part other) {
+            return (long) shiftList.size() * other.employeeList.size()
+                    < (long) other.shiftList.size() * employeeList.size();
+        }
+
+    }
+
+    // ************************************************************************
+    // Simple getters and setters
+    // ************************************************************************
+
+    public int getPartCount() {
+        return partCount;
+    }
+
+    /**
+     * Set through the solutionPartitionerCustomProperties of the partitioned search phase.
+     * @param partCount at least 1
+     */
+    public void setPartCount(int partCount) {
+        this.partCount = partCount;
+    }
+
+    public RosterPartitionStrategy getPartitionStrategy() {
+        return partitionStrategy;
+    }
+
+    /**
+     * Set through the solutionPartitionerCustomProperties of the partitioned search phase,
+     * which only supports primitive and {@link String} properties.
+     * @param partitionStrategyName the name of a {@link RosterPartitionStrategy}
+     */
+    public void setPartitionStrategy(String partitionStrategyName) {
+        this.partitionStrategy = RosterPartitionStrategy.valueOf(partitionStrategyName);
+    }
+
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+import org.optaplanner.openshift.employeerostering.shared.common.AbstractPersistable;
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailability;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailabilityState;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeSkillProficiency;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+import org.optaplanner.openshift.employeerostering.shared.skill.Skill;
+import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
+import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
+
+/**
+ * Applies the edits of the REST services to the working roster of a running solver,
+ * see {@link WannabeSolverManager#addProblemFactChange(Integer, ProblemFactChange)}.
+ * <p>
+ * The changes copy what they need from the persisted entities when they are created (inside the REST transaction)
+ * and look up the working objects by id when the solver applies them, see {@link WorkingObjectIndex}.
+ * If an edit refers to something that was created after the solver started (for example by a shift template),
+ * the change is ignored: the next solve loads it from the database.
+ * Adding something the working roster already has is ignored too, because the solver loaded it from the database.
+ * The changes don't use {@link ScoreDirector#lookUpWorkingObject(Object)},
+ * because it fails on an object that isn't in the working solution.
+ * <p>
+ * The changes only update the employee ranges (see {@link Shift#getEmployeeRange()}) of the shifts they affect,
+ * instead of rebuilding all of them with {@link Roster#buildEmployeeRanges()}.
+ */
+public final class RosterProblemFactChanges {
+
+    public static ProblemFactChange<Roster> addShift(Shift shift) {
+        Long id = shift.getId();
+        Integer tenantId = shift.getTenantId();
+        Spot spot = shift.getSpot();
+        TimeSlot timeSlot = shift.getTimeSlot();
+        boolean lockedByUser = shift.isLockedByUser();
+        Employee employee = shift.getEmployee();
+        return scoreDirector -> {
+            Roster roster = scoreDirector.getWorkingSolution();
+            WorkingObjectIndex index = new WorkingObjectIndex(roster);
+            Spot workingSpot = index.lookUp(Spot.class, spot);
+            TimeSlot workingTimeSlot = index.lookUp(TimeSlot.class, timeSlot);
+            if (workingSpot == null || workingTimeSlot == null || index.lookUp(Shift.class, id) != null) {
+                return;
+            }
+            Shift workingShift = new Shift(tenantId, workingSpot, workingTimeSlot);
+            workingShift.setId(id);
+            workingShift.setLockedByUser(lockedByUser);
+            workingShift.setEmployee(index.lookUp(Employee.class, employee));
+            roster.buildEmployeeRange(workingShift);
+            scoreDirector.beforeEntityAdded(workingShift);
+            roster.getShiftList().add(workingShift);
+            scoreDirector.afterEntityAdded(workingShift);
+            scoreDirector.triggerVariableListeners();
+        };
+    }
+
+    public static ProblemFactChange<Roster> updateShift(Shift shift) {
+        Spot spot = shift.getSpot();
+        TimeSlot timeSlot = shift.getTimeSlot();
+        boolean lockedByUser = shift.isLockedByUser();
+        Employee employee = shift.getEmployee();
+        return scoreDirector -> {
+            WorkingObjectIndex index = new WorkingObjectIndex(scoreDirector.getWorkingSolution());
+            Shift workingShift = index.lookUp(Shift.class, shift);
+            Spot workingSpot = index.lookUp(Spot.class, spot);
+            TimeSlot workingTimeSlot = index.lookUp(TimeSlot.class, timeSlot);
+            if (workingShift == null || workingSpot == null || workingTimeSlot == null) {
+                return;
+            }
+            scoreDirector.beforeProblemPropertyChanged(workingShift);
+            workingShift.setSpot(workingSpot);
+            workingShift.setTimeSlot(workingTimeSlot);
+            workingShift.setLockedByUser(lockedByUser);
+            // The spot or time slot might have changed
+            scoreDirector.getWorkingSolution().buildEmployeeRange(workingShift);
+            scoreDirector.afterProblemPropertyChanged(workingShift);
+            scoreDirector.beforeVariableChanged(workingShift, "employee");
+            workingShift.setEmployee(index.lookUp(Employee.class, employee));
+            scoreDirector.afterVariableChanged(workingShift, "employee");
+            scoreDirector.triggerVariableListeners();
+        };
+    }
+
+    public static ProblemFactChange<Roster> removeShift(Shift shift) {
+        return scoreDirector -> {
+            Shift workingShift = new WorkingObjectIndex(scoreDirector.getWorkingSolution())
+                    .lookUp(Shift.class, shift);
+            if (workingShift == null) {
+                return;
+            }
+            scoreDirector.beforeEntityRemoved(workingShift);
+            scoreDirector.getWorkingSolution().getShiftList().remove(workingShift);
+            scoreDirector.afterEntityRemoved(workingShift);
+            scoreDirector.triggerVariableListeners();
+        };
+    }
+
+    public static ProblemFactChange<Roster> addEmployee(Employee employee) {
+        Long id = employee.getId();
+        Integer tenantId = employee.getTenantId();
+        String name = employee.getName();
+        List<Skill> skillList = extractSkillList(employee);
+        return scoreDirector -> {
+            Roster roster = scoreDirector.getWorkingSolution();
+            WorkingObjectIndex index = new WorkingObjectIndex(roster);
+            if (index.lookUp(Employee.class, id) != null) {
+                return;
+            }
+            Employee workingEmployee = new Employee(tenantId, name);
+            workingEmployee.setId(id);
+            workingEmployee.setSkillProficiencyList(lookUpSkillProficiencyList(index, workingEmployee, skillList));
+            workingEmployee.indexSkills();
+            scoreDirector.beforeProblemFactAdded(workingEmployee);
+            // The problem fact lists are shared with the best solution, so don't change them in place
+            List<Employee> oldEmployeeList = roster.getEmployeeList();
+            List<Employee> employeeList = new ArrayList<>(oldEmployeeList);
+            employeeList.add(workingEmployee);
+            roster.setEmployeeList(employeeList);
+            // No constraint reads the employee ranges, so the problem fact event of the employee covers them
+            roster.updateEmployeeRanges(oldEmployeeList, workingEmployee);
+            scoreDirector.afterProblemFactAdded(workingEmployee);
+            scoreDirector.triggerVariableListeners();
+        };
+    }
+
+    public static ProblemFactChange<Roster> updateEmployee(Employee employee) {
+        String name = employee.getName();
+        List<Skill> skillList = extractSkillList(employee);
+        return scoreDirector -> {
+            Roster roster = scoreDirector.getWorkingSolution();
+            WorkingObjectIndex index = new WorkingObjectIndex(roster);
+            Employee workingEmployee = index.lookUp(Employee.class, employee);
+            if (workingEmployee == null) {
+                return;
+            }
+            scoreDirector.beforeProblemPropertyChanged(workingEmployee);
+            workingEmployee.setName(name);
+            workingEmployee.setSkillProficiencyList(lookUpSkillProficiencyList(index, workingEmployee, skillList));
+            workingEmployee.indexSkills();
+            roster.updateEmployeeRanges(roster.getEmployeeList(), workingEmployee);
+            scoreDirector.afterProblemPropertyChanged(workingEmployee);
+            scoreDirector.triggerVariableListeners();
+        };
+    }
+
+    public static ProblemFactChange<Roster> removeEmployee(Employee employee) {
+        return scoreDirector -> {
+            Roster roster = scoreDirector.getWorkingSolution();
+            Employee workingEmployee = new WorkingObjectIndex(roster).lookUp(Employee.class, employee);
+            if (workingEmployee == null) {
+                return;
+            }
+            for (Shift shift : roster.getShiftList()) {
+                if (shift.getEmployee() == workingEmployee) {
+                    reassignShift(scoreDirector, shift, workingEmployee);
+                }
+            }
+            List<EmployeeAvailability> originalEmployeeAvailabilityList = roster.getEmployeeAvailabilityList();
+            List<EmployeeAvailability> employeeAvailabilityList = new ArrayList<>(originalEmployeeAvailabilityList);
+            roster.setEmployeeAvailabilityList(employeeAvailabilityList);
+            for (EmployeeAvailability employeeAvailability : originalEmployeeAvailabilityList) {
+                if (employeeAvailability.getEmployee() == workingEmployee) {
+                    scoreDirector.beforeProblemFactRemoved(employeeAvailability);
+                    employeeAvailabilityList.remove(employeeAvailability);
+                    scoreDirector.afterProblemFactRemoved(employeeAvailability);
+                }
+            }
+            scoreDirector.beforeProblemFactRemoved(workingEmployee);
+            List<Employee> oldEmployeeList = roster.getEmployeeList();
+            List<Employee> employeeList = new ArrayList<>(oldEmployeeList);
+            employeeList.remove(workingEmployee);
+            roster.setEmployeeList(employeeList);
+            roster.updateEmployeeRanges(oldEmployeeList, workingEmployee);
+            scoreDirector.afterProblemFactRemoved(workingEmployee);
+            scoreDirector.triggerVariableListeners();
+        };
+    }
+
+    public static ProblemFactChange<Roster> addEmployeeAvailability(EmployeeAvailability employeeAvailability) {
+        Long id = employeeAvailability.getId();
+        Integer tenantId = employeeAvailability.getTenantId();
+        Employee employee = employeeAvailability.getEmployee();
+        TimeSlot timeSlot = employeeAvailability.getTimeSlot();
+        EmployeeAvailabilityState state = employeeAvailability.getState();
+        return scoreDirector -> {
+            Roster roster = scoreDirector.getWorkingSolution();
+            WorkingObjectIndex index = new WorkingObjectIndex(roster);
+            Employee workingEmployee = index.lookUp(Employee.class, employee);
+            TimeSlot workingTimeSlot = index.lookUp(TimeSlot.class, timeSlot);
+            if (workingEmployee == null || workingTimeSlot == null
+                    || index.lookUp(EmployeeAvailability.class, id) != null) {
+                return;
+            }
+            EmployeeAvailability workingEmployeeAvailability = new EmployeeAvailability(tenantId,
+                    workingEmployee, workingTimeSlot);
+            workingEmployeeAvailability.setId(id);
+            workingEmployeeAvailability.setState(state);
+            scoreDirector.beforeProblemFactAdded(workingEmployeeAvailability);
+            List<EmployeeAvailability> employeeAvailabilityList = new ArrayList<>(
+                    roster.getEmployeeAvailabilityList());
+            employeeAvailabilityList.add(workingEmployeeAvailability);
+            roster.setEmployeeAvailabilityList(employeeAvailabilityList);
+            roster.updateEmployeeRanges(roster.getEmployeeList(), workingEmployee);
+            scoreDirector.afterProblemFactAdded(workingEmployeeAvailability);
+            scoreDirector.triggerVariableListeners();
+        };
+    }
+
+    public static ProblemFactChange<Roster> updateEmployeeAvailability(EmployeeAvailability employeeAvailability) {
+        Employee employee = employeeAvailability.getEmployee();
+        TimeSlot timeSlot = employeeAvailability.getTimeSlot();
+        EmployeeAvailabilityState state = employeeAvailability.getState();
+        return scoreDirector -> {
+            WorkingObjectIndex index = new WorkingObjectIndex(scoreDirector.getWorkingSolution());
+            EmployeeAvailability workingEmployeeAvailability = index.lookUp(EmployeeAvailability.class,
+                    employeeAvailability);
+            Employee workingEmployee = index.lookUp(Employee.class, employee);
+            TimeSlot workingTimeSlot = index.lookUp(TimeSlot.class, timeSlot);
+            if (workingEmployeeAvailability == null || workingEmployee == null || workingTimeSlot == null) {
+                return;
+            }
+            Employee oldWorkingEmployee = workingEmployeeAvailability.getEmployee();
+            scoreDirector.beforeProblemPropertyChanged(workingEmployeeAvailability);
+            workingEmployeeAvailability.setEmployee(workingEmployee);
+            workingEmployeeAvailability.setTimeSlot(workingTimeSlot);
+            workingEmployeeAvailability.setState(state);
+            Roster roster = scoreDirector.getWorkingSolution();
+            roster.updateEmployeeRanges(roster.getEmployeeList(), workingEmployee);
+            if (oldWorkingEmployee != workingEmployee) {
+                roster.updateEmployeeRanges(roster.getEmployeeList(), oldWorkingEmployee);
+            }
+            scoreDirector.afterProblemPropertyChanged(workingEmployeeAvailability);
+            scoreDirector.triggerVariableListeners();
+        };
+    }
+
+    public static ProblemFactChange<Roster> removeEmployeeAvailability(EmployeeAvailability employeeAvailability) {
+        return scoreDirector -> {
+            Roster roster = scoreDirector.getWorkingSolution();
+            EmployeeAvailability workingEmployeeAvailability = new WorkingObjectIndex(roster)
+                    .lookUp(EmployeeAvailability.class, employeeAvailability);
+            if (workingEmployeeAvailability == null) {
+                return;
+            }
+            scoreDirector.beforeProblemFactRemoved(workingEmployeeAvailability);
+            List<EmployeeAvailability> employeeAvailabilityList = new ArrayList<>(
+                    roster.getEmployeeAvailabilityList());
+            employeeAvailabilityList.remove(workingEmployeeAvailability);
+            roster.setEmployeeAvailabilityList(employeeAvailabilityList);
+            roster.updateEmployeeRanges(roster.getEmployeeList(), workingEmployeeAvailability.getEmployee());
+            scoreDirector.afterProblemFactRemoved(workingEmployeeAvailability);
+            scoreDirector.triggerVariableListeners();
+        };
+    }
+
+    /**
+     * The construction heuristic has already finished, so a shift without an employee would never be assigned again
+     * (the employee variable isn't nullable).
+     * Instead, the shift goes to the other employee of its range that gives the best score,
+     * and the local search continues from there.
+     * Leaves the shift unassigned only if there is no other employee at all.
+     */
+    private static void reassignShift(ScoreDirector<Roster> scoreDirector, Shift shift, Employee removedEmployee) {
+        List<Employee> candidateList = new ArrayList<>(shift.getEmployeeRange());
+        candidateList.remove(removedEmployee);
+        if (candidateList.isEmpty()) {
+            candidateList.addAll(scoreDirector.getWorkingSolution().getEmployeeList());
+            candidateList.remove(removedEmployee);
+        }
+        Employee bestEmployee = null;
+        HardSoftScore bestScore = null;
+        for (Employee candidate : candidateList) {
+            scoreDirector.beforeVariableChanged(shift, "employee");
+            shift.setEmployee(candidate);
+            scoreDirector.afterVariableChanged(shift, "employee");
+            scoreDirector.triggerVariableListeners();
+            HardSoftScore score = (HardSoftScore) scoreDirector.calculateScore();
+            if (bestScore == null || score.compareTo(bestScore) > 0) {
+                bestEmployee = candidate;
+                bestScore = score;
+            }
+        }
+        scoreDirector.beforeVariableChanged(shift, "employee");
+        shift.setEmployee(bestEmployee);
+        scoreDirector.afterVariableChanged(shift, "employee");
+    }
+
+    private static List<Skill> extractSkillList(Employee employee) {
+        List<Skill> skillList = new ArrayList<>(employee.getSkillProficiencyList().size());
+        for (EmployeeSkillProficiency skillProficiency : employee.getSkillProficiencyList()) {
+            skillList.add(skillProficiency.getSkill());
+        }
+        return skillList;
+    }
+
+    private static List<EmployeeSkillProficiency> lookUpSkillProficiencyList(WorkingObjectIndex index,
+            Employee workingEmployee, List<Skill> skillList) {
+        List<EmployeeSkillProficiency> skillProficiencyList = new ArrayList<>(skillList.size());
+        for (Skill skill : skillList) {
+            Skill workingSkill = index.lookUp(Skill.class, skill);
+            // A skill created after the solver started isn't indexed, so hasSkill() falls back to equals()
+            skillProficiencyList.add(new EmployeeSkillProficiency(workingEmployee.getTenantId(), workingEmployee,
+                    (workingSkill == null) ? skill : workingSkill));
+        }
+        return skillProficiencyList;
+    }
+
+    private RosterProblemFactChanges() {
+    }
+
+    /**
+     * The working objects of a roster by class and id.
+     * Built again for every change, like {@link Roster#buildEmployeeRanges()},
+     * because the solver replaces the working roster by a clone of the best one between changes.
+     * Looks up by the class of the change instead of {@link Object#getClass()},
+     * because the REST services pass lazy loaded proxies.
+     */
+    static class WorkingObjectIndex {
+
+        private final Map<Class<?>, Map<Long, AbstractPersistable>> classToIdToWorkingObjectMap = new HashMap<>(6);
+
+        WorkingObjectIndex(Roster roster) {
+            put(Skill.class, roster.getSkillList());
+            put(Spot.class, roster.getSpotList());
+            put(Employee.class, roster.getEmployeeList());
+            put(TimeSlot.class, roster.getTimeSlotList());
+            put(EmployeeAvailability.class, roster.getEmployeeAvailabilityList());
+            put(Shift.class, roster.getShiftList());
+        }
+
+        private void put(Class<?> workingClass, List<? extends AbstractPersistable> workingObjectList) {
+            Map<Long, AbstractPersistable> idToWorkingObjectMap = new HashMap<>(workingObjectList.size());
+            for (AbstractPersistable workingObject : workingObjectList) {
+                idToWorkingObjectMap.put(workingObject.getId(), workingObject);
+            }
+            classToIdToWorkingObjectMap.put(workingClass, idToWorkingObjectMap);
+        }
+
+        /**
+         * @param workingClass never null
+         * @param externalObject sometimes null
+         * @return null if the external object is null or its id isn't in the working roster
+         */
+        <E extends AbstractPersistable> E lookUp(Class<E> workingClass, E externalObject) {
+            return (externalObject == null) ? null : lookUp(workingClass, externalObject.getId());
+        }
+
+        /**
+         * @param workingClass never null
+         * @param id sometimes null
+         * @return null if the id is null or isn't in the working roster
+         */
+        <E extends AbstractPersistable> E lookUp(Class<E> workingClass, Long id) {
+            return workingClass.cast(classToIdToWorkingObjectMap.get(workingClass).get(id));
+        }
+
+    }
+
+}
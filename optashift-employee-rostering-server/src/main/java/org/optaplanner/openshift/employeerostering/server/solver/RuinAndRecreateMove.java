@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.impl.heuristic.move.AbstractMove;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+
+/**
+ * Unassigns a cluster of shifts and then reassigns them one by one, in the given order,
+ * to the employee of its range that gives the best score.
+ * The recreate is deterministic, so doing the move again after its undo gives the same assignments.
+ * <p>
+ * Each candidate employee costs an incremental score calculation,
+ * so a move costs about as many of them as its shifts have employees in range.
+ */
+public class RuinAndRecreateMove extends AbstractMove<Roster> {
+
+    private final List<Shift> ruinedShiftList;
+    private final RuinAndRecreateMoveIteratorFactory factory;
+
+    private int doMoveCount = 0;
+
+    /**
+     * @param ruinedShiftList never null, in recreate order
+     * @param factory never null, gets the acceptance statistics
+     */
+    public RuinAndRecreateMove(List<Shift> ruinedShiftList, RuinAndRecreateMoveIteratorFactory factory) {
+        this.ruinedShiftList = ruinedShiftList;
+        this.factory = factory;
+    }
+
+    @Override
+    public boolean isMoveDoable(ScoreDirector<Roster> scoreDirector) {
+        return !ruinedShiftList.isEmpty();
+    }
+
+    @Override
+    protected AbstractMove<Roster> createUndoMove(ScoreDirector<Roster> scoreDirector) {
+        return new ReassignMove(ruinedShiftList, getEmployeeList(ruinedShiftList));
+    }
+
+    @Override
+    protected void doMoveOnGenuineVariables(ScoreDirector<Roster> scoreDirector) {
+        // The local search evaluates this instance (and undoes it with a ReassignMove, which isn't counted),
+        // and only does this same instance again if it picks it as its step
+        doMoveCount++;
+        if (doMoveCount == 1) {
+            factory.moveEvaluated(ruinedShiftList.size());
+        } else if (doMoveCount == 2) {
+            factory.moveAccepted();
+        }
+        for (Shift shift : ruinedShiftList) {
+            changeEmployee(scoreDirector, shift, null);
+        }
+        for (Shift shift : ruinedShiftList) {
+            Employee bestEmployee = null;
+            HardSoftScore bestScore = null;
+            for (Employee employee : shift.getEmployeeRange()) {
+                changeEmployee(scoreDirector, shift, employee);
+                scoreDirector.triggerVariableListeners();
+                HardSoftScore score = (HardSoftScore) scoreDirector.calculateScore();
+                if (bestScore == null || score.compareTo(bestScore) > 0) {
+                    bestEmployee = employee;
+                    bestScore = score;
+                }
+            }
+            changeEmployee(scoreDirector, shift, bestEmployee);
+        }
+    }
+
+    private static void changeEmployee(ScoreDirector<Roster> scoreDirector, Shift shift, Employee employee) {
+        if (shift.getEmployee() == employee) {
+            return;
+        }
+        scoreDirector.beforeVariableChanged(shift, "employee");
+        shift.setEmployee(employee);
+        scoreDirector.afterVariableChanged(shift, "employee");
+    }
+
+    private static List<Employee> getEmployeeList(List<Shift> shiftList) {
+        List<Employee> employeeList = new ArrayList<>(shiftList.size());
+        for (Shift shift : shiftList) {
+            employeeList.add(shift.getEmployee());
+        }
+        return employeeList;
+    }
+
+    @Override
+    public Collection<? extends Object> getPlanningEntities() {
+        return ruinedShiftList;
+    }
+
+    @Override
+    public Collection<? extends Object> getPlanningValues() {
+        return getEmployeeList(ruinedShiftList);
+    }
+
+    @Override
+    public String toString() {
+        return "ruin and recreate " + ruinedShiftList;
+    }
+
+    /**
+     * Assigns each shift to its own employee, to undo a {@link RuinAndRecreateMove}.
+     */
+    private static class ReassignMove extends AbstractMove<Roster> {
+
+        private final List<Shift> shiftList;
+        private final List<Employee> employeeList;
+
+        public ReassignMove(List<Shift> shiftList, List<Employee> employeeList) {
+            this.shiftList = shiftList;
+            this.employeeList = employeeList;
+        }
+
+        @Override
+        public boolean isMoveDoable(ScoreDirector<Roster> scoreDirector) {
+            return true;
+        }
+
+        @Override
+        protected AbstractMove<Roster> createUndoMove(ScoreDirector<Roster> scoreDirector) {
+            return new ReassignMove(shiftList, getEmployeeList(shiftList));
+        }
+
+        @Override
+        protected void doMoveOnGenuineVariables(ScoreDirector<Roster> scoreDirector) {
+            for (int i = 0; i < shiftList.size(); i++) {
+                changeEmployee(scoreDirector, shiftList.get(i), employeeList.get(i));
+            }
+        }
+
+        @Override
+        public Collection<? extends Object> getPlanningEntities() {
+            return shiftList;
+        }
+
+        @Override
+        public Collection<? extends Object> getPlanningValues() {
+            return employeeList;
+        }
+
+        @Override
+        public String toString() {
+            return "reassign " + shiftList;
+        }
+
+    }
+
+}
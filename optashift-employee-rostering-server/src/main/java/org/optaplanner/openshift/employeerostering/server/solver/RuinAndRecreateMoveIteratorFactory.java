@@ -0,0 +1,262 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.optaplanner.core.impl.heuristic.move.Move;
+import org.optaplanner.core.impl.heuristic.selector.move.factory.MoveIteratorFactory;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.MovableShiftFilter;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
+import org.optaplanner.openshift.employeerostering.shared.spot.SpotGroup;
+import org.optaplanner.openshift.employeerostering.shared.tenant.TenantConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates {@link RuinAndRecreateMove}s, so the local search can escape a local optimum
+ * that no single shift move can leave.
+ * The ruined shifts are a cluster around a random shift: the shifts of the same day,
+ * or the shifts of the same spot group in the same week, nearest in time to it.
+ * <p>
+ * The ruin size adapts between {@link #getMinimumRuinSize()} and {@link #getMaximumRuinSize()}:
+ * it shrinks by 5% after each evaluated move and grows by 10% (net) after each move that becomes a step.
+ * The acceptance statistics are logged every {@link #STATISTICS_LOG_INTERVAL_MILLIS}.
+ * <p>
+ * Not in the default phase of employeeRosteringSolverConfig.xml, because it did not improve the hard score there,
+ * see employeeRosteringRuinAndRecreateBenchmarkConfig.xml in the benchmark module.
+ * Enable it with {@link WannabeSolverManager#RUIN_AND_RECREATE_MOVE_WEIGHT_PROPERTY}.
+ * Only supports random selection, which is the default of local search.
+ */
+public class RuinAndRecreateMoveIteratorFactory implements MoveIteratorFactory<Roster> {
+
+    public static final int DEFAULT_RUIN_SIZE = 8;
+    public static final int DEFAULT_MINIMUM_RUIN_SIZE = 2;
+    public static final int DEFAULT_MAXIMUM_RUIN_SIZE = 100;
+    public static final long STATISTICS_LOG_INTERVAL_MILLIS = 10000L;
+
+    private static final double EVALUATED_SHRINK_FACTOR = 0.95;
+    private static final double ACCEPTED_GROWTH_FACTOR = 1.1 / EVALUATED_SHRINK_FACTOR;
+
+    protected final transient Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final MovableShiftFilter movableShiftFilter = new MovableShiftFilter();
+
+    private final WorkingShiftListChangeDetector shiftListChangeDetector = new WorkingShiftListChangeDetector();
+    private List<Shift> movableShiftList = Collections.emptyList();
+    private Map<LocalDate, List<Shift>> dayToShiftListMap = Collections.emptyMap();
+    private Map<Spot, List<SpotGroup>> spotToSpotGroupListMap = Collections.emptyMap();
+    private Map<List<Object>, List<Shift>> spotGroupWeekToShiftListMap = Collections.emptyMap();
+    private DayOfWeek weekStart = DayOfWeek.MONDAY;
+
+    private int minimumRuinSize = DEFAULT_MINIMUM_RUIN_SIZE;
+    private int maximumRuinSize = DEFAULT_MAXIMUM_RUIN_SIZE;
+    private double ruinSize = DEFAULT_RUIN_SIZE;
+    private long evaluatedCount = 0L;
+    private long acceptedCount = 0L;
+    private long ruinedShiftCount = 0L;
+    private long lastLogTimeMillis = System.currentTimeMillis();
+
+    @Override
+    public long getSize(ScoreDirector<Roster> scoreDirector) {
+        return scoreDirector.getWorkingSolution().getShiftList().size();
+    }
+
+    @Override
+    public Iterator<Move<Roster>> createOriginalMoveIterator(ScoreDirector<Roster> scoreDirector) {
+        throw new UnsupportedOperationException("The " + getClass().getSimpleName()
+                + " only supports random selection.");
+    }
+
+    @Override
+    public Iterator<Move<Roster>> createRandomMoveIterator(ScoreDirector<Roster> scoreDirector,
+            Random workingRandom) {
+        if (minimumRuinSize > maximumRuinSize) {
+            throw new IllegalStateException("The minimumRuinSize (" + minimumRuinSize
+                    + ") must not be greater than the maximumRuinSize (" + maximumRuinSize + ").");
+        }
+        ruinSize = Math.max(minimumRuinSize, Math.min(maximumRuinSize, ruinSize));
+        Roster roster = scoreDirector.getWorkingSolution();
+        if (shiftListChangeDetector.isChanged(roster)) {
+            index(scoreDirector, roster);
+            shiftListChangeDetector.markIndexed(roster);
+        }
+        return new Iterator<Move<Roster>>() {
+            @Override
+            public boolean hasNext() {
+                return !movableShiftList.isEmpty();
+            }
+
+            @Override
+            public Move<Roster> next() {
+                Shift seedShift = movableShiftList.get(workingRandom.nextInt(movableShiftList.size()));
+                List<Shift> clusterShiftList = selectCluster(seedShift, workingRandom);
+                long seedStartEpochMinute = seedShift.getTimeSlot().getStartEpochMinute();
+                List<Shift> ruinedShiftList = new ArrayList<>(clusterShiftList);
+                ruinedShiftList.sort(Comparator.comparingLong(
+                        shift -> Math.abs(shift.getTimeSlot().getStartEpochMinute() - seedStartEpochMinute)));
+                ruinedShiftList = new ArrayList<>(ruinedShiftList.subList(0,
+                        Math.min((int) Math.round(ruinSize), ruinedShiftList.size())));
+                Collections.shuffle(ruinedShiftList, workingRandom);
+                return new RuinAndRecreateMove(ruinedShiftList, RuinAndRecreateMoveIteratorFactory.this);
+            }
+        };
+    }
+
+    private void index(ScoreDirector<Roster> scoreDirector, Roster roster) {
+        TenantConfiguration tenantConfiguration = roster.getTenantConfiguration();
+        weekStart = (tenantConfiguration == null || tenantConfiguration.getWeekStart() == null) ? DayOfWeek.MONDAY
+                : tenantConfiguration.getWeekStart();
+        spotToSpotGroupListMap = new IdentityHashMap<>();
+        for (SpotGroup spotGroup : roster.getSpotGroupList()) {
+            for (Spot spot : spotGroup.getSpots()) {
+                spotToSpotGroupListMap.computeIfAbsent(spot, k -> new ArrayList<>()).add(spotGroup);
+            }
+        }
+        movableShiftList = new ArrayList<>(roster.getShiftList().size());
+        dayToShiftListMap = new HashMap<>();
+        spotGroupWeekToShiftListMap = new HashMap<>();
+        for (Shift shift : roster.getShiftList()) {
+            // A shift without a start or without an employee in range cannot be recreated
+            if (!movableShiftFilter.accept(scoreDirector, shift)
+                    || shift.getTimeSlot() == null || shift.getTimeSlot().getStartDateTime() == null
+                    || shift.getEmployeeRange() == null || shift.getEmployeeRange().isEmpty()) {
+                continue;
+            }
+            movableShiftList.add(shift);
+            LocalDate day = shift.getTimeSlot().getStartDateTime().toLocalDate();
+            dayToShiftListMap.computeIfAbsent(day, k -> new ArrayList<>()).add(shift);
+            LocalDate week = day.with(TemporalAdjusters.previousOrSame(weekStart));
+            for (SpotGroup spotGroup : spotToSpotGroupListMap.getOrDefault(shift.getSpot(),
+                    Collections.emptyList())) {
+                spotGroupWeekToShiftListMap.computeIfAbsent(Arrays.asList(spotGroup, week), k -> new ArrayList<>())
+                        .add(shift);
+            }
+        }
+    }
+
+    /**
+     * @return never null, the movable shifts of the day of the seed shift,
+     * or of a spot group of the seed shift in the same week
+     */
+    private List<Shift> selectCluster(Shift seedShift, Random workingRandom) {
+        LocalDate day = seedShift.getTimeSlot().getStartDateTime().toLocalDate();
+        List<SpotGroup> spotGroupList = spotToSpotGroupListMap.get(seedShift.getSpot());
+        if (spotGroupList == null || workingRandom.nextBoolean()) {
+            return dayToShiftListMap.get(day);
+        }
+        SpotGroup spotGroup = spotGroupList.get(workingRandom.nextInt(spotGroupList.size()));
+        LocalDate week = day.with(TemporalAdjusters.previousOrSame(weekStart));
+        return spotGroupWeekToShiftListMap.get(Arrays.asList(spotGroup, week));
+    }
+
+    /**
+     * Called when the local search evaluates a {@link RuinAndRecreateMove}.
+     * @param moveRuinSize at least 1
+     */
+    void moveEvaluated(int moveRuinSize) {
+        evaluatedCount++;
+        ruinedShiftCount += moveRuinSize;
+        ruinSize = Math.max(minimumRuinSize, ruinSize * EVALUATED_SHRINK_FACTOR);
+        logStatistics();
+    }
+
+    /**
+     * Called when the local search does an evaluated {@link RuinAndRecreateMove} again as its step.
+     */
+    void moveAccepted() {
+        acceptedCount++;
+        ruinSize = Math.min(maximumRuinSize, ruinSize * ACCEPTED_GROWTH_FACTOR);
+    }
+
+    private void logStatistics() {
+        long timeMillis = System.currentTimeMillis();
+        if (timeMillis - lastLogTimeMillis < STATISTICS_LOG_INTERVAL_MILLIS) {
+            return;
+        }
+        lastLogTimeMillis = timeMillis;
+        logger.info("Ruin and recreate: {} moves evaluated, {} accepted ({}%), {} shifts ruined per move,"
+                        + " next ruin size ({}).",
+                evaluatedCount, acceptedCount, acceptedCount * 100L / evaluatedCount,
+                ruinedShiftCount / evaluatedCount, Math.round(ruinSize));
+    }
+
+    // ************************************************************************
+    // Simple getters and setters
+    // ************************************************************************
+
+    public int getRuinSize() {
+        return (int) Math.round(ruinSize);
+    }
+
+    /**
+     * Set through the moveIteratorFactoryCustomProperties of the move selector.
+     * @param ruinSize at least 1, the initial maximum number of shifts a move ruins
+     */
+    public void setRuinSize(int ruinSize) {
+        if (ruinSize < 1) {
+            throw new IllegalArgumentException("The ruinSize (" + ruinSize + ") must be at least 1.");
+        }
+        this.ruinSize = ruinSize;
+    }
+
+    public int getMinimumRuinSize() {
+        return minimumRuinSize;
+    }
+
+    /**
+     * Set through the moveIteratorFactoryCustomProperties of the move selector.
+     * @param minimumRuinSize at least 1
+     */
+    public void setMinimumRuinSize(int minimumRuinSize) {
+        if (minimumRuinSize < 1) {
+            throw new IllegalArgumentException("The minimumRuinSize (" + minimumRuinSize + ") must be at least 1.");
+        }
+        this.minimumRuinSize = minimumRuinSize;
+    }
+
+    public int getMaximumRuinSize() {
+        return maximumRuinSize;
+    }
+
+    /**
+     * Set through the moveIteratorFactoryCustomProperties of the move selector.
+     * Equal to {@link #getMinimumRuinSize()} for a fixed ruin size.
+     * @param maximumRuinSize at least 1
+     */
+    public void setMaximumRuinSize(int maximumRuinSize) {
+        if (maximumRuinSize < 1) {
+            throw new IllegalArgumentException("The maximumRuinSize (" + maximumRuinSize + ") must be at least 1.");
+        }
+        this.maximumRuinSize = maximumRuinSize;
+    }
+
+}
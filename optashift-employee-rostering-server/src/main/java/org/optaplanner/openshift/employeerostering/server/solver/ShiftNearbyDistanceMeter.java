@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import org.optaplanner.core.impl.heuristic.selector.common.nearby.NearbyDistanceMeter;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+
+/**
+ * Measures how close 2 shifts are in time, so {@link ShiftNearbySwapMoveIteratorFactory} prefers swapping
+ * the employees of shifts that start around the same time:
+ * those compete for the same employees (one shift per day, rest time, availability).
+ * The distance is the number of minutes between their start times.
+ * Of 2 shifts that start at the same time, the one at another spot is nearer,
+ * because swapping the employees of 2 shifts of the same spot and time slot changes nothing.
+ */
+public class ShiftNearbyDistanceMeter implements NearbyDistanceMeter<Shift, Shift> {
+
+    private static final double SAME_SPOT_PENALTY = 0.5;
+
+    @Override
+    public double getNearbyDistance(Shift origin, Shift destination) {
+        long minutes = Math.abs(destination.getTimeSlot().getStartEpochMinute()
+                - origin.getTimeSlot().getStartEpochMinute());
+        return (origin.getSpot() == destination.getSpot()) ? minutes + SAME_SPOT_PENALTY : minutes;
+    }
+
+}
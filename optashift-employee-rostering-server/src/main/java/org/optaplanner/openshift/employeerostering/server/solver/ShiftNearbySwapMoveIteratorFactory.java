@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.optaplanner.core.impl.heuristic.move.Move;
+import org.optaplanner.core.impl.heuristic.selector.move.factory.MoveIteratorFactory;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.MovableShiftFilter;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+
+/**
+ * Generates {@link ShiftSwapMove}s between a random shift and one of its {@link #NEARBY_SIZE_MAXIMUM} nearest shifts,
+ * according to {@link ShiftNearbyDistanceMeter}, preferring the nearer ones.
+ * <p>
+ * Unlike the nearby selection of OptaPlanner, this doesn't build a distance matrix over all shifts at the start
+ * of every phase, which takes minutes for tens of thousands of shifts.
+ * Instead it sorts the shifts by start time and walks outwards from the random shift.
+ * Only supports random selection, which is the default of local search.
+ */
+public class ShiftNearbySwapMoveIteratorFactory implements MoveIteratorFactory<Roster> {
+
+    public static final int NEARBY_SIZE_MAXIMUM = 40;
+
+    private final MovableShiftFilter movableShiftFilter = new MovableShiftFilter();
+    private final ShiftNearbyDistanceMeter distanceMeter = new ShiftNearbyDistanceMeter();
+
+    private final WorkingShiftListChangeDetector shiftListChangeDetector = new WorkingShiftListChangeDetector();
+    /**
+     * The movable shifts, sorted by start time
+     */
+    private List<Shift> sortedShiftList = new ArrayList<>();
+
+    @Override
+    public long getSize(ScoreDirector<Roster> scoreDirector) {
+        return (long) scoreDirector.getWorkingSolution().getShiftList().size() * NEARBY_SIZE_MAXIMUM;
+    }
+
+    @Override
+    public Iterator<Move<Roster>> createOriginalMoveIterator(ScoreDirector<Roster> scoreDirector) {
+        throw new UnsupportedOperationException("The " + getClass().getSimpleName()
+                + " only supports random selection.");
+    }
+
+    @Override
+    public Iterator<Move<Roster>> createRandomMoveIterator(ScoreDirector<Roster> scoreDirector,
+            Random workingRandom) {
+        Roster roster = scoreDirector.getWorkingSolution();
+        if (shiftListChangeDetector.isChanged(roster)) {
+            List<Shift> shiftList = roster.getShiftList();
+            sortedShiftList = new ArrayList<>(shiftList.size());
+            for (Shift shift : shiftList) {
+                if (movableShiftFilter.accept(scoreDirector, shift)) {
+                    sortedShiftList.add(shift);
+                }
+            }
+            sortedShiftList.sort(Comparator.comparingLong(shift -> shift.getTimeSlot().getStartEpochMinute()));
+            shiftListChangeDetector.markIndexed(roster);
+        }
+        List<Shift> nearbyShiftList = sortedShiftList;
+        return new Iterator<Move<Roster>>() {
+            @Override
+            public boolean hasNext() {
+                return nearbyShiftList.size() >= 2;
+            }
+
+            @Override
+            public Move<Roster> next() {
+                int originIndex = workingRandom.nextInt(nearbyShiftList.size());
+                int nearbySize = Math.min(NEARBY_SIZE_MAXIMUM, nearbyShiftList.size() - 1);
+                // The minimum of 2 uniform draws prefers the nearer shifts
+                int nearbyIndex = Math.min(workingRandom.nextInt(nearbySize), workingRandom.nextInt(nearbySize));
+                return new ShiftSwapMove(nearbyShiftList.get(originIndex),
+                        nearbyShiftList.get(findNearby(nearbyShiftList, originIndex, nearbyIndex)));
+            }
+        };
+    }
+
+    /**
+     * @return the index in the sortedShiftList of the nearbyIndex-th nearest shift to the origin (0 is the nearest)
+     */
+    private int findNearby(List<Shift> sortedShiftList, int originIndex, int nearbyIndex) {
+        Shift origin = sortedShiftList.get(originIndex);
+        int left = originIndex - 1;
+        int right = originIndex + 1;
+        int found = -1;
+        for (int i = 0; i <= nearbyIndex; i++) {
+            if (right >= sortedShiftList.size() || (left >= 0
+                    && distanceMeter.getNearbyDistance(origin, sortedShiftList.get(left))
+                    <= distanceMeter.getNearbyDistance(origin, sortedShiftList.get(right)))) {
+                found = left--;
+            } else {
+                found = right++;
+            }
+        }
+        return found;
+    }
+
+}
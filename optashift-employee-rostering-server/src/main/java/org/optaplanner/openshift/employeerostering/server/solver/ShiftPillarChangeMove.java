@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.optaplanner.core.impl.heuristic.move.AbstractMove;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+
+/**
+ * Assigns a pillar (shifts of the same employee, see {@link ShiftPillarIndex}) to another employee at once.
+ */
+public class ShiftPillarChangeMove extends AbstractMove<Roster> {
+
+    private final List<Shift> pillar;
+    private final Employee toEmployee;
+
+    /**
+     * @param pillar never null, all shifts have the same employee
+     * @param toEmployee never null
+     */
+    public ShiftPillarChangeMove(List<Shift> pillar, Employee toEmployee) {
+        this.pillar = pillar;
+        this.toEmployee = toEmployee;
+    }
+
+    @Override
+    public boolean isMoveDoable(ScoreDirector<Roster> scoreDirector) {
+        return !pillar.isEmpty() && pillar.get(0).getEmployee() != toEmployee
+                && ShiftPillarIndex.isInEmployeeRanges(pillar, toEmployee);
+    }
+
+    @Override
+    protected ShiftPillarChangeMove createUndoMove(ScoreDirector<Roster> scoreDirector) {
+        return new ShiftPillarChangeMove(pillar, pillar.get(0).getEmployee());
+    }
+
+    @Override
+    protected void doMoveOnGenuineVariables(ScoreDirector<Roster> scoreDirector) {
+        for (Shift shift : pillar) {
+            scoreDirector.beforeVariableChanged(shift, "employee");
+            shift.setEmployee(toEmployee);
+            scoreDirector.afterVariableChanged(shift, "employee");
+        }
+    }
+
+    @Override
+    public Collection<? extends Object> getPlanningEntities() {
+        return pillar;
+    }
+
+    @Override
+    public Collection<? extends Object> getPlanningValues() {
+        return Collections.singletonList(toEmployee);
+    }
+
+    @Override
+    public String toString() {
+        Employee fromEmployee = pillar.isEmpty() ? null : pillar.get(0).getEmployee();
+        return pillar + " {" + fromEmployee + " -> " + toEmployee + "}";
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.optaplanner.core.impl.heuristic.move.Move;
+import org.optaplanner.core.impl.heuristic.selector.move.factory.MoveIteratorFactory;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+
+/**
+ * Generates {@link ShiftPillarChangeMove}s: picks a random shift and moves its whole pillar
+ * (see {@link ShiftPillarIndex}) to a random employee of its range.
+ * Only supports random selection, which is the default of local search.
+ */
+public class ShiftPillarChangeMoveIteratorFactory implements MoveIteratorFactory<Roster> {
+
+    private final ShiftPillarIndex shiftPillarIndex = new ShiftPillarIndex();
+
+    @Override
+    public long getSize(ScoreDirector<Roster> scoreDirector) {
+        Roster roster = scoreDirector.getWorkingSolution();
+        return (long) roster.getShiftList().size() * roster.getEmployeeList().size();
+    }
+
+    @Override
+    public Iterator<Move<Roster>> createOriginalMoveIterator(ScoreDirector<Roster> scoreDirector) {
+        throw new UnsupportedOperationException("The " + getClass().getSimpleName()
+                + " only supports random selection.");
+    }
+
+    @Override
+    public Iterator<Move<Roster>> createRandomMoveIterator(ScoreDirector<Roster> scoreDirector,
+            Random workingRandom) {
+        Roster roster = scoreDirector.getWorkingSolution();
+        shiftPillarIndex.update(roster);
+        List<Shift> shiftList = roster.getShiftList();
+        return new Iterator<Move<Roster>>() {
+            @Override
+            public boolean hasNext() {
+                return !shiftList.isEmpty();
+            }
+
+            @Override
+            public Move<Roster> next() {
+                Shift shift = shiftList.get(workingRandom.nextInt(shiftList.size()));
+                List<Employee> employeeRange = shift.getEmployeeRange();
+                if (employeeRange == null || employeeRange.isEmpty()) {
+                    // For example a roster without employees: an empty pillar isn't doable, so the solver skips it
+                    return new ShiftPillarChangeMove(Collections.emptyList(), null);
+                }
+                Employee toEmployee = employeeRange.get(workingRandom.nextInt(employeeRange.size()));
+                return new ShiftPillarChangeMove(shiftPillarIndex.extractPillar(scoreDirector, shift), toEmployee);
+            }
+        };
+    }
+
+}
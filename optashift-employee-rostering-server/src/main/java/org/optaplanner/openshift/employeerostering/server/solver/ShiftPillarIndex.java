@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.MovableShiftFilter;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
+
+/**
+ * Groups the shifts of a roster that recur every week: the same spot, day of week, start time and end time.
+ * A pillar is the block of recurring shifts that have the same employee,
+ * for example all Monday morning shifts of a spot that one employee works.
+ * Used by {@link ShiftPillarChangeMoveIteratorFactory} and {@link ShiftPillarSwapMoveIteratorFactory}.
+ */
+public class ShiftPillarIndex {
+
+    private final MovableShiftFilter movableShiftFilter = new MovableShiftFilter();
+
+    private final WorkingShiftListChangeDetector shiftListChangeDetector = new WorkingShiftListChangeDetector();
+    private Map<Shift, List<Shift>> shiftToRecurringShiftListMap = Collections.emptyMap();
+    private Map<Shift, List<Shift>> shiftToSameTimeOfWeekShiftListMap = Collections.emptyMap();
+
+    /**
+     * Rebuilds the index if the working solution has other shifts than at the last call.
+     * @param roster never null, the working solution
+     */
+    public void update(Roster roster) {
+        if (shiftListChangeDetector.isChanged(roster)) {
+            index(roster.getShiftList());
+            shiftListChangeDetector.markIndexed(roster);
+        }
+    }
+
+    private void index(List<Shift> shiftList) {
+        shiftToRecurringShiftListMap = new IdentityHashMap<>(shiftList.size());
+        shiftToSameTimeOfWeekShiftListMap = new IdentityHashMap<>(shiftList.size());
+        Map<List<Object>, List<Shift>> recurringShiftListMap = new HashMap<>();
+        Map<List<Object>, List<Shift>> sameTimeOfWeekShiftListMap = new HashMap<>();
+        for (Shift shift : shiftList) {
+            TimeSlot timeSlot = shift.getTimeSlot();
+            LocalDateTime startDateTime = timeSlot.getStartDateTime();
+            DayOfWeek dayOfWeek = startDateTime.getDayOfWeek();
+            LocalTime startTime = startDateTime.toLocalTime();
+            long durationMinutes = timeSlot.getEndEpochMinute() - timeSlot.getStartEpochMinute();
+            List<Shift> recurringShiftList = recurringShiftListMap.computeIfAbsent(
+                    Arrays.asList(shift.getSpot(), dayOfWeek, startTime, durationMinutes), k -> new ArrayList<>());
+            recurringShiftList.add(shift);
+            shiftToRecurringShiftListMap.put(shift, recurringShiftList);
+            List<Shift> sameTimeOfWeekShiftList = sameTimeOfWeekShiftListMap.computeIfAbsent(
+                    Arrays.asList(dayOfWeek, startTime, durationMinutes), k -> new ArrayList<>());
+            sameTimeOfWeekShiftList.add(shift);
+            shiftToSameTimeOfWeekShiftListMap.put(shift, sameTimeOfWeekShiftList);
+        }
+    }
+
+    /**
+     * @param shift never null, indexed
+     * @return never null, the shifts at any spot on the same day of week, start time and end time,
+     * including the shift itself
+     */
+    public List<Shift> getSameTimeOfWeekShiftList(Shift shift) {
+        return shiftToSameTimeOfWeekShiftListMap.get(shift);
+    }
+
+    /**
+     * @param scoreDirector never null
+     * @param shift never null, indexed
+     * @return never null, the movable shifts that recur with the shift and have the same employee,
+     * empty if the shift itself isn't movable or is unassigned
+     */
+    public List<Shift> extractPillar(ScoreDirector<Roster> scoreDirector, Shift shift) {
+        Employee employee = shift.getEmployee();
+        if (employee == null || !movableShiftFilter.accept(scoreDirector, shift)) {
+            return Collections.emptyList();
+        }
+        List<Shift> pillar = new ArrayList<>();
+        for (Shift recurringShift : shiftToRecurringShiftListMap.get(shift)) {
+            if (recurringShift.getEmployee() == employee && movableShiftFilter.accept(scoreDirector, recurringShift)) {
+                pillar.add(recurringShift);
+            }
+        }
+        return pillar;
+    }
+
+    /**
+     * @param pillar never null
+     * @param employee never null
+     * @return true if every shift of the pillar can be assigned to the employee, see {@link Shift#getEmployeeRange()}
+     */
+    public static boolean isInEmployeeRanges(List<Shift> pillar, Employee employee) {
+        for (Shift shift : pillar) {
+            if (!shift.isInEmployeeRange(employee)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.optaplanner.core.impl.heuristic.move.AbstractMove;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+
+/**
+ * Swaps the employees of 2 pillars (shifts of the same employee, see {@link ShiftPillarIndex}) at once.
+ */
+public class ShiftPillarSwapMove extends AbstractMove<Roster> {
+
+    private final List<Shift> leftPillar;
+    private final List<Shift> rightPillar;
+
+    /**
+     * @param leftPillar never null, all shifts have the same employee
+     * @param rightPillar never null, all shifts have the same employee
+     */
+    public ShiftPillarSwapMove(List<Shift> leftPillar, List<Shift> rightPillar) {
+        this.leftPillar = leftPillar;
+        this.rightPillar = rightPillar;
+    }
+
+    @Override
+    public boolean isMoveDoable(ScoreDirector<Roster> scoreDirector) {
+        if (leftPillar.isEmpty() || rightPillar.isEmpty()) {
+            return false;
+        }
+        Employee leftEmployee = leftPillar.get(0).getEmployee();
+        Employee rightEmployee = rightPillar.get(0).getEmployee();
+        return leftEmployee != rightEmployee
+                && ShiftPillarIndex.isInEmployeeRanges(leftPillar, rightEmployee)
+                && ShiftPillarIndex.isInEmployeeRanges(rightPillar, leftEmployee);
+    }
+
+    @Override
+    protected ShiftPillarSwapMove createUndoMove(ScoreDirector<Roster> scoreDirector) {
+        return new ShiftPillarSwapMove(rightPillar, leftPillar);
+    }
+
+    @Override
+    protected void doMoveOnGenuineVariables(ScoreDirector<Roster> scoreDirector) {
+        Employee leftEmployee = leftPillar.get(0).getEmployee();
+        Employee rightEmployee = rightPillar.get(0).getEmployee();
+        changeEmployee(scoreDirector, leftPillar, rightEmployee);
+        changeEmployee(scoreDirector, rightPillar, leftEmployee);
+    }
+
+    private void changeEmployee(ScoreDirector<Roster> scoreDirector, List<Shift> pillar, Employee toEmployee) {
+        for (Shift shift : pillar) {
+            scoreDirector.beforeVariableChanged(shift, "employee");
+            shift.setEmployee(toEmployee);
+            scoreDirector.afterVariableChanged(shift, "employee");
+        }
+    }
+
+    @Override
+    public Collection<? extends Object> getPlanningEntities() {
+        List<Shift> planningEntityList = new ArrayList<>(leftPillar.size() + rightPillar.size());
+        planningEntityList.addAll(leftPillar);
+        planningEntityList.addAll(rightPillar);
+        return planningEntityList;
+    }
+
+    @Override
+    public Collection<? extends Object> getPlanningValues() {
+        return Arrays.asList(leftPillar.get(0).getEmployee(), rightPillar.get(0).getEmployee());
+    }
+
+    @Override
+    public String toString() {
+        return leftPillar + " <-> " + rightPillar;
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.optaplanner.core.impl.heuristic.move.Move;
+import org.optaplanner.core.impl.heuristic.selector.move.factory.MoveIteratorFactory;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+
+/**
+ * Generates {@link ShiftPillarSwapMove}s: picks a random shift and another shift on the same day of week,
+ * start time and end time (at any spot), and swaps the employees of their pillars (see {@link ShiftPillarIndex}).
+ * So 2 employees swap a block of recurring shifts, while their weekly schedules keep the same shape.
+ * Only supports random selection, which is the default of local search.
+ */
+public class ShiftPillarSwapMoveIteratorFactory implements MoveIteratorFactory<Roster> {
+
+    private final ShiftPillarIndex shiftPillarIndex = new ShiftPillarIndex();
+
+    @Override
+    public long getSize(ScoreDirector<Roster> scoreDirector) {
+        long shiftCount = scoreDirector.getWorkingSolution().getShiftList().size();
+        return shiftCount * shiftCount;
+    }
+
+    @Override
+    public Iterator<Move<Roster>> createOriginalMoveIterator(ScoreDirector<Roster> scoreDirector) {
+        throw new UnsupportedOperationException("The " + getClass().getSimpleName()
+                + " only supports random selection.");
+    }
+
+    @Override
+    public Iterator<Move<Roster>> createRandomMoveIterator(ScoreDirector<Roster> scoreDirector,
+            Random workingRandom) {
+        Roster roster = scoreDirector.getWorkingSolution();
+        shiftPillarIndex.update(roster);
+        List<Shift> shiftList = roster.getShiftList();
+        return new Iterator<Move<Roster>>() {
+            @Override
+            public boolean hasNext() {
+                return !shiftList.isEmpty();
+            }
+
+            @Override
+            public Move<Roster> next() {
+                Shift leftShift = shiftList.get(workingRandom.nextInt(shiftList.size()));
+                List<Shift> sameTimeOfWeekShiftList = shiftPillarIndex.getSameTimeOfWeekShiftList(leftShift);
+                List<Employee> employeeRange = leftShift.getEmployeeRange();
+                if (employeeRange == null || employeeRange.isEmpty()) {
+                    // An empty pillar isn't doable, so the solver skips it
+                    return new ShiftPillarSwapMove(Collections.emptyList(), Collections.emptyList());
+                }
+                Shift rightShift = sameTimeOfWeekShiftList.get(workingRandom.nextInt(sameTimeOfWeekShiftList.size()));
+                return new ShiftPillarSwapMove(shiftPillarIndex.extractPillar(scoreDirector, leftShift),
+                        shiftPillarIndex.extractPillar(scoreDirector, rightShift));
+            }
+        };
+    }
+
+}
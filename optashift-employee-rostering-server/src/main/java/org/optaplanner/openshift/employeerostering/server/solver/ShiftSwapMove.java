@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.optaplanner.core.impl.heuristic.move.AbstractMove;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+
+/**
+ * Swaps the employees of 2 shifts, if each employee is in the employee range of the other shift.
+ */
+public class ShiftSwapMove extends AbstractMove<Roster> {
+
+    private final Shift leftShift;
+    private final Shift rightShift;
+
+    public ShiftSwapMove(Shift leftShift, Shift rightShift) {
+        this.leftShift = leftShift;
+        this.rightShift = rightShift;
+    }
+
+    @Override
+    public boolean isMoveDoable(ScoreDirector<Roster> scoreDirector) {
+        Employee leftEmployee = leftShift.getEmployee();
+        Employee rightEmployee = rightShift.getEmployee();
+        // Swapping an unassigned shift would unassign the other one
+        return leftEmployee != rightEmployee
+                && leftShift.isInEmployeeRange(rightEmployee)
+                && rightShift.isInEmployeeRange(leftEmployee);
+    }
+
+    @Override
+    protected ShiftSwapMove createUndoMove(ScoreDirector<Roster> scoreDirector) {
+        return new ShiftSwapMove(rightShift, leftShift);
+    }
+
+    @Override
+    protected void doMoveOnGenuineVariables(ScoreDirector<Roster> scoreDirector) {
+        Employee leftEmployee = leftShift.getEmployee();
+        Employee rightEmployee = rightShift.getEmployee();
+        scoreDirector.beforeVariableChanged(leftShift, "employee");
+        leftShift.setEmployee(rightEmployee);
+        scoreDirector.afterVariableChanged(leftShift, "employee");
+        scoreDirector.beforeVariableChanged(rightShift, "employee");
+        rightShift.setEmployee(leftEmployee);
+        scoreDirector.afterVariableChanged(rightShift, "employee");
+    }
+
+    @Override
+    public Collection<? extends Object> getPlanningEntities() {
+        return Arrays.asList(leftShift, rightShift);
+    }
+
+    @Override
+    public Collection<? extends Object> getPlanningValues() {
+        return Arrays.asList(leftShift.getEmployee(), rightShift.getEmployee());
+    }
+
+    @Override
+    public String toString() {
+        return leftShift + " {" + leftShift.getEmployee() + "} <-> "
+                + rightShift + " {" + rightShift.getEmployee() + "}";
+    }
+
+}
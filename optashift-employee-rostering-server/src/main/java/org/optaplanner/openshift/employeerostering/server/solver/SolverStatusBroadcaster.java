@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import javax.enterprise.context.ApplicationScoped;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.SolverStatusView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pushes every {@link SolverStatusView} change (a solver status transition or a new persisted best solution)
+ * to the browsers that watch that tenant, see {@link SolverStatusWebSocketEndpoint}.
+ * <p>
+ * Never blocks the caller (a solver thread or a REST call) on a slow browser:
+ * every session has an outbox that is sent asynchronously.
+ * Because every message is the whole status, the outbox only keeps the latest unsent one.
+ */
+@ApplicationScoped
+public class SolverStatusBroadcaster {
+
+    protected final transient Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentMap<Integer, Map<Session, Outbox>> tenantIdToOutboxMapMap = new ConcurrentHashMap<>();
+
+    /**
+     * @param tenantId never null
+     * @param session never null
+     * @param solverStatusViewSupplier never null, the current status, which is sent to the session first
+     */
+    public void addSession(Integer tenantId, Session session, Supplier<SolverStatusView> solverStatusViewSupplier) {
+        Map<Session, Outbox> outboxMap = tenantIdToOutboxMapMap.computeIfAbsent(tenantId,
+                k -> new ConcurrentHashMap<>());
+        // Under the lock of the tenant, so a concurrent broadcast can't be overtaken by an older status
+        synchronized (outboxMap) {
+            Outbox outbox = new Outbox(session);
+            outboxMap.put(session, outbox);
+            outbox.offer(toJson(solverStatusViewSupplier.get()));
+        }
+    }
+
+    public void removeSession(Integer tenantId, Session session) {
+        // The empty map of a tenant is kept, so it stays the lock of that tenant
+        Map<Session, Outbox> outboxMap = tenantIdToOutboxMapMap.get(tenantId);
+        if (outboxMap != null) {
+            outboxMap.remove(session);
+        }
+    }
+
+    /**
+     * Does nothing (and doesn't get the view) if no browser watches the tenant.
+     * The view is got under a lock per tenant, so 2 threads can't send 2 statuses of the same tenant out of order.
+     * The lock is only held to queue the message, never while it is sent.
+     * @param tenantId never null
+     * @param solverStatusViewSupplier never null
+     */
+    public void broadcast(Integer tenantId, Supplier<SolverStatusView> solverStatusViewSupplier) {
+        Map<Session, Outbox> outboxMap = tenantIdToOutboxMapMap.get(tenantId);
+        if (outboxMap == null) {
+            return;
+        }
+        synchronized (outboxMap) {
+            if (outboxMap.isEmpty()) {
+                return;
+            }
+            String message = toJson(solverStatusViewSupplier.get());
+            for (Outbox outbox : outboxMap.values()) {
+                outbox.offer(message);
+            }
+        }
+    }
+
+    private String toJson(SolverStatusView solverStatusView) {
+        try {
+            return objectMapper.writeValueAsString(solverStatusView);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the solverStatusView (" + solverStatusView + ").",
+                    e);
+        }
+    }
+
+    /**
+     * A session doesn't support concurrent sends, so at most 1 message per session is being sent at a time.
+     */
+    private class Outbox implements SendHandler {
+
+        private final Session session;
+        private final AtomicReference<String> pendingMessage = new AtomicReference<>();
+        private final AtomicBoolean sending = new AtomicBoolean(false);
+
+        public Outbox(Session session) {
+            this.session = session;
+        }
+
+        /**
+         * Replaces the unsent message, if any.
+         * @param message never null
+         */
+        public void offer(String message) {
+            pendingMessage.set(message);
+            sendNext();
+        }
+
+        private void sendNext() {
+            while (sending.compareAndSet(false, true)) {
+                String message = pendingMessage.getAndSet(null);
+                if (message != null && session.isOpen()) {
+                    try {
+                        session.getAsyncRemote().sendText(message, this);
+                        return;
+                    } catch (IllegalStateException e) {
+                        // The session closed in the meantime, it will be removed when it closes
+                        logger.debug("Could not send the solver status to session ({}).", session.getId(), e);
+                    }
+                }
+                sending.set(false);
+                // A message offered after the getAndSet() didn't start a send, because this one was still sending
+                if (pendingMessage.get() == null) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void onResult(SendResult result) {
+            if (!result.isOK()) {
+                // The browser went away, the session will be removed when it closes
+                logger.debug("Could not send the solver status to session ({}).", session.getId(),
+                        result.getException());
+            }
+            sending.set(false);
+            sendNext();
+        }
+
+    }
+
+}
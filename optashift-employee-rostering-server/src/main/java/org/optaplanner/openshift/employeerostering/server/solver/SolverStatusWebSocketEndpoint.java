@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import javax.inject.Inject;
+import javax.websocket.OnClose;
+import javax.websocket.OnError;
+import javax.websocket.OnOpen;
+import javax.websocket.Session;
+import javax.websocket.server.PathParam;
+import javax.websocket.server.ServerEndpoint;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends the current solver status of a tenant when the browser connects
+ * and then every change of it, instead of letting the browser poll.
+ * The messages are {@link org.optaplanner.openshift.employeerostering.shared.roster.view.SolverStatusView}s as JSON.
+ */
+@ServerEndpoint("/websocket/tenant/{tenantId}/solverStatus")
+public class SolverStatusWebSocketEndpoint {
+
+    protected final transient Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Inject
+    private SolverStatusBroadcaster solverStatusBroadcaster;
+
+    @Inject
+    private WannabeSolverManager solverManager;
+
+    @OnOpen
+    public void onOpen(Session session, @PathParam("tenantId") Integer tenantId) {
+        solverStatusBroadcaster.addSession(tenantId, session, () -> solverManager.getSolverStatusView(tenantId));
+    }
+
+    @OnClose
+    public void onClose(Session session, @PathParam("tenantId") Integer tenantId) {
+        solverStatusBroadcaster.removeSession(tenantId, session);
+    }
+
+    @OnError
+    public void onError(Session session, Throwable throwable, @PathParam("tenantId") Integer tenantId) {
+        logger.debug("Solver status session ({}) of tenantId ({}) failed.", session.getId(), tenantId, throwable);
+        solverStatusBroadcaster.removeSession(tenantId, session);
+    }
+
+}
@@ -16,18 +16,50 @@
 
 package org.optaplanner.openshift.employeerostering.server.solver;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
-import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.enterprise.concurrent.ManagedThreadFactory;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
 
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
 import org.optaplanner.core.api.solver.Solver;
 import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.constructionheuristic.ConstructionHeuristicPhaseConfig;
+import org.optaplanner.core.config.heuristic.selector.move.composite.UnionMoveSelectorConfig;
+import org.optaplanner.core.config.heuristic.selector.move.factory.MoveIteratorFactoryConfig;
+import org.optaplanner.core.config.localsearch.LocalSearchPhaseConfig;
+import org.optaplanner.core.config.partitionedsearch.PartitionedSearchPhaseConfig;
+import org.optaplanner.core.config.phase.PhaseConfig;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+import org.optaplanner.openshift.employeerostering.server.roster.RosterRevisionTracker;
 import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
 import org.optaplanner.openshift.employeerostering.shared.roster.RosterRestService;
+import org.optaplanner.openshift.employeerostering.shared.roster.SolverStatus;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.SolverStatusView;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+import org.optaplanner.openshift.employeerostering.shared.tenant.TenantConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,38 +67,152 @@ import org.slf4j.LoggerFactory;
 @ApplicationScoped
 public class WannabeSolverManager {
 
+    /**
+     * System property to override the number of rosters that are solved in parallel.
+     */
+    public static final String PARALLEL_SOLVER_COUNT_PROPERTY = "optashift.solver.parallelSolverCount";
+    /**
+     * System property to override the number of rosters that can wait for a free solver thread.
+     */
+    public static final String SOLVER_QUEUE_CAPACITY_PROPERTY = "optashift.solver.queueCapacity";
+    /**
+     * System property to override the minimum number of shifts of a roster
+     * to solve it with {@link TenantConfiguration#getSolverThreadCount()} threads.
+     */
+    public static final String MULTITHREADED_SHIFT_COUNT_THRESHOLD_PROPERTY
+            = "optashift.solver.multithreadedShiftCountThreshold";
+    /**
+     * System property to override the minimum number of milliseconds between 2 writes of a new best roster.
+     */
+    public static final String BEST_SOLUTION_PERSIST_INTERVAL_MILLIS_PROPERTY
+            = "optashift.solver.bestSolutionPersistIntervalMillis";
+    /**
+     * System property to add the {@link RuinAndRecreateMoveIteratorFactory} to the local search, with this
+     * fixedProbabilityWeight (for example 0.001). Absent by default.
+     */
+    public static final String RUIN_AND_RECREATE_MOVE_WEIGHT_PROPERTY
+            = "optashift.solver.ruinAndRecreateMoveWeight";
+
     protected final transient Logger logger = LoggerFactory.getLogger(getClass());
 
     private SolverFactory<Roster> solverFactory;
-    // TODO Needs to default to size Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
-    @Resource(name = "DefaultManagedExecutorService")
-    private ManagedExecutorService executorService;
+    @Resource(name = "DefaultManagedThreadFactory")
+    private ManagedThreadFactory threadFactory;
+    // Null outside a container, such as in the benchmark
+    @Resource
+    private TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+    // Dedicated pool, so solving tenants don't starve each other (or the container) of CPU cores
+    private ThreadPoolExecutor executorService;
+    // Persists the last best solution of a solver that found no new one within the interval
+    private ScheduledExecutorService persistScheduler;
+    private int multithreadedShiftCountThreshold;
+    private long bestSolutionPersistIntervalMillis;
 
     @Inject
     private RosterRestService rosterRestService;
+    @Inject
+    private RosterRevisionTracker rosterRevisionTracker;
+    @Inject
+    private SolverStatusBroadcaster solverStatusBroadcaster;
 
     private ConcurrentMap<Integer, SolverStatus> tenantIdToSolverStateMap = new ConcurrentHashMap<>();
     private ConcurrentMap<Integer, Solver<Roster>> tenantIdToSolverMap = new ConcurrentHashMap<>();
+    // Of the last persisted best solution
+    private ConcurrentMap<Integer, HardSoftScore> tenantIdToBestScoreMap = new ConcurrentHashMap<>();
+    private ConcurrentMap<Integer, Long> tenantIdToRevisionMap = new ConcurrentHashMap<>();
+    // Of the current (or last) solve
+    private ConcurrentMap<Integer, TerminationConfig> tenantIdToTerminationConfigMap = new ConcurrentHashMap<>();
 
     @PostConstruct
-    public void setUpSolverFactory() {
+    public void setUp() {
         solverFactory = SolverFactory.createFromXmlResource(
                 "org/optaplanner/openshift/employeerostering/server/solver/employeeRosteringSolverConfig.xml");
+        int parallelSolverCount = Integer.getInteger(PARALLEL_SOLVER_COUNT_PROPERTY,
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 2));
+        int solverQueueCapacity = Integer.getInteger(SOLVER_QUEUE_CAPACITY_PROPERTY, 100);
+        multithreadedShiftCountThreshold = Integer.getInteger(MULTITHREADED_SHIFT_COUNT_THRESHOLD_PROPERTY, 1000);
+        bestSolutionPersistIntervalMillis = Long.getLong(BEST_SOLUTION_PERSIST_INTERVAL_MILLIS_PROPERTY, 1000L);
+        if (parallelSolverCount < 1) {
+            throw new IllegalStateException("The " + PARALLEL_SOLVER_COUNT_PROPERTY + " (" + parallelSolverCount
+                    + ") must be at least 1.");
+        }
+        if (solverQueueCapacity < 1) {
+            throw new IllegalStateException("The " + SOLVER_QUEUE_CAPACITY_PROPERTY + " (" + solverQueueCapacity
+                    + ") must be at least 1.");
+        }
+        if (bestSolutionPersistIntervalMillis < 0L) {
+            throw new IllegalStateException("The " + BEST_SOLUTION_PERSIST_INTERVAL_MILLIS_PROPERTY + " ("
+                    + bestSolutionPersistIntervalMillis + ") must not be negative.");
+        }
+        String ruinAndRecreateMoveWeight = System.getProperty(RUIN_AND_RECREATE_MOVE_WEIGHT_PROPERTY);
+        if (ruinAndRecreateMoveWeight != null) {
+            addRuinAndRecreateMoveSelector(solverFactory.getSolverConfig(),
+                    Double.parseDouble(ruinAndRecreateMoveWeight));
+        }
+        logger.info("Solving up to {} rosters in parallel with a queue capacity of {}.",
+                parallelSolverCount, solverQueueCapacity);
+        // FIFO: the tenant that pressed solve first, gets the first free solver thread
+        executorService = new ThreadPoolExecutor(parallelSolverCount, parallelSolverCount,
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(solverQueueCapacity), threadFactory);
+        persistScheduler = new ScheduledThreadPoolExecutor(1, threadFactory);
     }
-    
+
+    private void addRuinAndRecreateMoveSelector(SolverConfig solverConfig, double fixedProbabilityWeight) {
+        if (fixedProbabilityWeight <= 0.0) {
+            throw new IllegalStateException("The " + RUIN_AND_RECREATE_MOVE_WEIGHT_PROPERTY + " ("
+                    + fixedProbabilityWeight + ") must be positive.");
+        }
+        MoveIteratorFactoryConfig moveIteratorFactoryConfig = new MoveIteratorFactoryConfig();
+        moveIteratorFactoryConfig.setFixedProbabilityWeight(fixedProbabilityWeight);
+        moveIteratorFactoryConfig.setMoveIteratorFactoryClass(RuinAndRecreateMoveIteratorFactory.class);
+        for (PhaseConfig phaseConfig : solverConfig.getPhaseConfigList()) {
+            if (phaseConfig instanceof LocalSearchPhaseConfig) {
+                ((UnionMoveSelectorConfig) ((LocalSearchPhaseConfig) phaseConfig).getMoveSelectorConfig())
+                        .getMoveSelectorConfigList().add(moveIteratorFactoryConfig);
+            }
+        }
+        logger.info("Solving with ruin and recreate moves of fixedProbabilityWeight ({}).", fixedProbabilityWeight);
+    }
+
+    @PreDestroy
+    public void tearDown() {
+        tenantIdToSolverMap.values().forEach(Solver::terminateEarly);
+        executorService.shutdownNow();
+        persistScheduler.shutdownNow();
+    }
+
     public void terminate(Integer tenantId) {
         Solver<Roster> solver = tenantIdToSolverMap.get(tenantId);
         if (null != solver) {
             solver.terminateEarly();
         }
+        else if (executorService.getQueue().removeIf(job -> ((SolverJob) job).getTenantId().equals(tenantId))) {
+            logger.info("Unscheduled solver for tenantId ({}).", tenantId);
+            updateSolverStatus(tenantId, SolverStatus.TERMINATED);
+            broadcastQueuePositions();
+        }
         else {
             throw new IllegalStateException("The roster with tenantId (" + tenantId
                     + ") is not being solved currently.");
         }
     }
-    
+
     public void solve(Integer tenantId) {
-        logger.info("Scheduling solver for tenantId ({})...", tenantId);
+        schedule(tenantId, false);
+    }
+
+    /**
+     * Like {@link #solve(Integer)}, but starts from the persisted assignments:
+     * only the shifts that are unassigned or break a hard constraint are reassigned.
+     * Stops as soon as the roster is feasible.
+     * @param tenantId never null
+     */
+    public void repair(Integer tenantId) {
+        schedule(tenantId, true);
+    }
+
+    private void schedule(Integer tenantId, boolean repair) {
+        logger.info("Scheduling {} for tenantId ({})...", repair ? "repair solver" : "solver", tenantId);
         // No 2 solve() calls of the same dataset in parallel
         tenantIdToSolverStateMap.compute(tenantId, (k, solverStatus) -> {
             if (solverStatus != null && solverStatus != SolverStatus.TERMINATED) {
@@ -75,32 +221,360 @@ public class WannabeSolverManager {
             }
             return SolverStatus.SCHEDULED;
         });
-        executorService.submit(() -> {
+        tenantIdToBestScoreMap.remove(tenantId);
+        tenantIdToTerminationConfigMap.remove(tenantId);
+        try {
+            executorService.execute(new SolverJob(tenantId, repair));
+            broadcastSolverStatus(tenantId);
+        } catch (RejectedExecutionException e) {
+            updateSolverStatus(tenantId, SolverStatus.TERMINATED);
+            throw new IllegalStateException("The roster with tenantId (" + tenantId
+                    + ") cannot be scheduled because the solver queue is full ("
+                    + executorService.getQueue().size() + " rosters waiting).", e);
+        }
+    }
+
+    public SolverStatus getSolverStatus(Integer tenantId) {
+        return tenantIdToSolverStateMap.getOrDefault(tenantId, SolverStatus.TERMINATED);
+    }
+
+    /**
+     * @param tenantId never null
+     * @return never null
+     */
+    public SolverStatusView getSolverStatusView(Integer tenantId) {
+        SolverStatusView solverStatusView = new SolverStatusView(tenantId, getSolverStatus(tenantId),
+                getQueuePosition(tenantId));
+        solverStatusView.setBestScore(tenantIdToBestScoreMap.get(tenantId));
+        solverStatusView.setRevision(tenantIdToRevisionMap.get(tenantId));
+        TerminationConfig terminationConfig = tenantIdToTerminationConfigMap.get(tenantId);
+        if (terminationConfig != null) {
+            solverStatusView.setTimeMillisSpentLimit(terminationConfig.calculateTimeMillisSpentLimit());
+            solverStatusView.setUnimprovedTimeMillisSpentLimit(
+                    terminationConfig.calculateUnimprovedTimeMillisSpentLimit());
+            solverStatusView.setBestScoreLimit(terminationConfig.getBestScoreLimit());
+        }
+        return solverStatusView;
+    }
+
+    private void updateSolverStatus(Integer tenantId, SolverStatus solverStatus) {
+        tenantIdToSolverStateMap.put(tenantId, solverStatus);
+        broadcastSolverStatus(tenantId);
+    }
+
+    private void broadcastSolverStatus(Integer tenantId) {
+        // Doesn't block on the browsers, see SolverStatusBroadcaster
+        solverStatusBroadcaster.broadcast(tenantId, () -> getSolverStatusView(tenantId));
+    }
+
+    /**
+     * The queue position of every waiting roster changes when one leaves the queue.
+     */
+    private void broadcastQueuePositions() {
+        for (Runnable job : executorService.getQueue()) {
+            broadcastSolverStatus(((SolverJob) job).getTenantId());
+        }
+    }
+
+    /**
+     * Applies an edit to the roster that is being solved, so the solver continues from it (without restarting)
+     * and its next best solution doesn't overwrite the edit in the database.
+     * Does nothing if the roster isn't solving: a scheduled solver loads the roster when it starts.
+     * Inside a transaction, the change is only applied after it commits,
+     * so the solver never continues from an edit that was rolled back.
+     * @param tenantId never null
+     * @param problemFactChange never null, see {@link RosterProblemFactChanges}
+     */
+    public void addProblemFactChange(Integer tenantId, ProblemFactChange<Roster> problemFactChange) {
+        if (transactionSynchronizationRegistry != null
+                && transactionSynchronizationRegistry.getTransactionStatus() == Status.STATUS_ACTIVE) {
+            transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == Status.STATUS_COMMITTED) {
+                        addProblemFactChangeNow(tenantId, problemFactChange);
+                    }
+                }
+            });
+        } else {
+            addProblemFactChangeNow(tenantId, problemFactChange);
+        }
+    }
+
+    private void addProblemFactChangeNow(Integer tenantId, ProblemFactChange<Roster> problemFactChange) {
+        Solver<Roster> solver = tenantIdToSolverMap.get(tenantId);
+        if (solver != null) {
+            solver.addProblemFactChange(problemFactChange);
+        }
+    }
+
+    /**
+     * @param tenantId never null
+     * @return 1-based position in the solver queue, null if the roster isn't waiting for a solver thread
+     */
+    public Integer getQueuePosition(Integer tenantId) {
+        int queuePosition = 1;
+        for (Runnable job : executorService.getQueue()) {
+            if (((SolverJob) job).getTenantId().equals(tenantId)) {
+                return queuePosition;
+            }
+            queuePosition++;
+        }
+        return null;
+    }
+
+    /**
+     * The time limit scales with the number of shifts,
+     * between the minimum and maximum of the {@link TenantConfiguration}.
+     * A repair starts from a mostly assigned roster, so it gets a fifth of that time limit
+     * and terminates as soon as the roster is feasible.
+     * @param roster never null
+     * @param repair true for {@link #repair(Integer)}
+     * @return never null
+     */
+    private TerminationConfig buildTerminationConfig(Roster roster, boolean repair) {
+        TenantConfiguration tenantConfiguration = roster.getTenantConfiguration();
+        long secondsSpentLimit = (long) tenantConfiguration.getSolverSecondsPerThousandShifts()
+                * roster.getShiftList().size() / 1000L;
+        secondsSpentLimit = Math.min(Math.max(secondsSpentLimit, tenantConfiguration.getMinimumSolverSeconds()),
+                tenantConfiguration.getMaximumSolverSeconds());
+        TerminationConfig terminationConfig = new TerminationConfig();
+        if (repair) {
+            terminationConfig.setMillisecondsSpentLimit(secondsSpentLimit * 1000L / 5L);
+            terminationConfig.setBestScoreFeasible(true);
+        } else {
+            terminationConfig.setSecondsSpentLimit(secondsSpentLimit);
+        }
+        if (tenantConfiguration.getUnimprovedSolverSeconds() > 0) {
+            terminationConfig.setUnimprovedSecondsSpentLimit((long) tenantConfiguration.getUnimprovedSolverSeconds());
+        }
+        terminationConfig.setBestScoreLimit(tenantConfiguration.getBestScoreLimit());
+        return terminationConfig;
+    }
+
+    /**
+     * Large rosters are split into parts (see {@link RosterPartitioner}) that are solved in parallel,
+     * followed by a local search on the whole roster to fix the conflicts between parts.
+     * A repair is always single threaded.
+     * @param roster never null
+     * @param terminationConfig never null, see {@link #buildTerminationConfig(Roster, boolean)}
+     * @param repair true for {@link #repair(Integer)}
+     * @return never null
+     */
+    private Solver<Roster> buildSolver(Roster roster, TerminationConfig terminationConfig, boolean repair) {
+        TenantConfiguration tenantConfiguration = roster.getTenantConfiguration();
+        int solverThreadCount = tenantConfiguration.getSolverThreadCount();
+        int shiftCount = roster.getShiftList().size();
+        SolverFactory<Roster> tenantSolverFactory = solverFactory.cloneSolverFactory();
+        SolverConfig solverConfig = tenantSolverFactory.getSolverConfig();
+        // The unimproved time and best score limits only terminate the local search on the whole roster:
+        // the construction heuristic has no best solution until it ends
+        // and the BestScoreTermination doesn't support the child threads of the partitioned search
+        TerminationConfig solverTerminationConfig = new TerminationConfig();
+        solverTerminationConfig.inherit(terminationConfig);
+        solverTerminationConfig.setUnimprovedSecondsSpentLimit(null);
+        solverTerminationConfig.setBestScoreLimit(null);
+        solverConfig.setTerminationConfig(solverTerminationConfig);
+        List<PhaseConfig> configuredPhaseConfigList = solverConfig.getPhaseConfigList();
+        List<PhaseConfig> phaseConfigList = new ArrayList<>();
+        if (repair || solverThreadCount <= 1 || shiftCount < multithreadedShiftCountThreshold) {
+            addWholeRosterPhaseConfigs(phaseConfigList, configuredPhaseConfigList, terminationConfig);
+            solverConfig.setPhaseConfigList(phaseConfigList);
+            return tenantSolverFactory.buildSolver();
+        }
+        logger.info("Solving tenantId ({}) with {} shifts on {} threads, partitioned by {}.",
+                roster.getTenantId(), shiftCount, solverThreadCount, tenantConfiguration.getPartitionStrategy());
+        PartitionedSearchPhaseConfig partitionedSearchPhaseConfig = new PartitionedSearchPhaseConfig();
+        partitionedSearchPhaseConfig.setSolutionPartitionerClass(RosterPartitioner.class);
+        Map<String, String> solutionPartitionerCustomProperties = new HashMap<>(2);
+        solutionPartitionerCustomProperties.put("partCount", Integer.toString(solverThreadCount));
+        solutionPartitionerCustomProperties.put("partitionStrategy", tenantConfiguration.getPartitionStrategy().name());
+        partitionedSearchPhaseConfig.setSolutionPartitionerCustomProperties(solutionPartitionerCustomProperties);
+        partitionedSearchPhaseConfig.setRunnablePartThreadLimit(Integer.toString(solverThreadCount));
+        // Each part runs the configured phases (or the default ones if there are none)
+        partitionedSearchPhaseConfig.setPhaseConfigList(configuredPhaseConfigList);
+        TerminationConfig partitionedSearchTerminationConfig = new TerminationConfig();
+        partitionedSearchTerminationConfig.setMillisecondsSpentLimit(
+                terminationConfig.calculateTimeMillisSpentLimit() * 3L / 4L);
+        partitionedSearchPhaseConfig.setTerminationConfig(partitionedSearchTerminationConfig);
+        // The local search on the whole roster fixes the constraints that span parts, such as the rest time
+        // The construction heuristic only assigns the shifts that a part didn't reach in time
+        phaseConfigList.add(partitionedSearchPhaseConfig);
+        addWholeRosterPhaseConfigs(phaseConfigList, configuredPhaseConfigList, terminationConfig);
+        solverConfig.setPhaseConfigList(phaseConfigList);
+        return tenantSolverFactory.buildSolver();
+    }
+
+    /**
+     * @param phaseConfigList never null, the phases are added to it
+     * @param configuredPhaseConfigList null for the default phases, not modified,
+     * because the parts of the partitioned search also use it
+     * @param terminationConfig never null, see {@link #buildTerminationConfig(Roster, boolean)}
+     */
+    private void addWholeRosterPhaseConfigs(List<PhaseConfig> phaseConfigList,
+            List<PhaseConfig> configuredPhaseConfigList, TerminationConfig terminationConfig) {
+        if (configuredPhaseConfigList == null) {
+            configuredPhaseConfigList = Arrays.asList(new ConstructionHeuristicPhaseConfig(),
+                    new LocalSearchPhaseConfig());
+        }
+        for (PhaseConfig phaseConfig : configuredPhaseConfigList) {
+            if (phaseConfig instanceof LocalSearchPhaseConfig) {
+                LocalSearchPhaseConfig localSearchPhaseConfig = new LocalSearchPhaseConfig();
+                localSearchPhaseConfig.inherit((LocalSearchPhaseConfig) phaseConfig);
+                TerminationConfig phaseTerminationConfig = new TerminationConfig();
+                if (phaseConfig.getTerminationConfig() != null) {
+                    phaseTerminationConfig.inherit(phaseConfig.getTerminationConfig());
+                }
+                phaseTerminationConfig.setUnimprovedSecondsSpentLimit(
+                        terminationConfig.getUnimprovedSecondsSpentLimit());
+                phaseTerminationConfig.setBestScoreLimit(terminationConfig.getBestScoreLimit());
+                localSearchPhaseConfig.setTerminationConfig(phaseTerminationConfig);
+                phaseConfig = localSearchPhaseConfig;
+            }
+            phaseConfigList.add(phaseConfig);
+        }
+    }
+
+    private class SolverJob implements Runnable {
+
+        private final Integer tenantId;
+        private final boolean repair;
+
+        // Guarded by this, accessed by the solver thread and the persistScheduler
+        private final Map<Long, Long> persistedShiftIdToEmployeeIdMap = new HashMap<>();
+        private long lastPersistTimeMillis = 0L;
+        private Roster unpersistedBestRoster = null;
+        private ScheduledFuture<?> scheduledPersist = null;
+
+        public SolverJob(Integer tenantId, boolean repair) {
+            this.tenantId = tenantId;
+            this.repair = repair;
+        }
+
+        @Override
+        public void run() {
             try {
-                Solver<Roster> solver = solverFactory.buildSolver();
+                Roster roster = rosterRestService.buildRoster(tenantId);
+                roster.indexSkills();
+                roster.buildEmployeeRanges();
+                for (Shift shift : roster.getShiftList()) {
+                    persistedShiftIdToEmployeeIdMap.put(shift.getId(), getEmployeeId(shift));
+                }
+                if (repair) {
+                    int unassignedShiftCount = new InfeasibleShiftUnassigner().unassignInfeasibleShifts(roster);
+                    logger.info("Repairing tenantId ({}): unassigned {} infeasible shifts.",
+                            tenantId, unassignedShiftCount);
+                }
+                TerminationConfig terminationConfig = buildTerminationConfig(roster, repair);
+                logger.info("Solving tenantId ({}) for at most {} ms, {} ms without improvement or until score ({}).",
+                        tenantId, terminationConfig.calculateTimeMillisSpentLimit(),
+                        terminationConfig.calculateUnimprovedTimeMillisSpentLimit(),
+                        terminationConfig.getBestScoreLimit());
+                Solver<Roster> solver = buildSolver(roster, terminationConfig, repair);
+                tenantIdToTerminationConfigMap.put(tenantId, terminationConfig);
                 tenantIdToSolverMap.put(tenantId, solver);
                 solver.addEventListener(event -> {
                     if (event.isEveryProblemFactChangeProcessed()) {
-                        logger.info("  New best solution found for tenantId ({}).", tenantId);
-                        Roster newBestRoster = event.getNewBestSolution();
-                        // TODO if this throws an OptimisticLockingException, does it kill the solver?
-                        rosterRestService.updateShiftsOfRoster(newBestRoster);
+                        logger.debug("  New best solution found for tenantId ({}).", tenantId);
+                        bestRosterChanged(event.getNewBestSolution());
                     }
                 });
-                Roster roster = rosterRestService.buildRoster(tenantId);
                 try {
-                    tenantIdToSolverStateMap.put(tenantId, SolverStatus.SOLVING);
-                    // TODO No need to store the returned roster because the SolverEventListener already does it?
+                    updateSolverStatus(tenantId, SolverStatus.SOLVING);
+                    broadcastQueuePositions();
                     solver.solve(roster);
+                    // The last best solution might have come within the interval
+                    cancelScheduledPersist();
+                    persistBestRoster();
                 } finally {
                     tenantIdToSolverMap.remove(tenantId);
-                    tenantIdToSolverStateMap.put(tenantId, SolverStatus.TERMINATED);
+                    updateSolverStatus(tenantId, SolverStatus.TERMINATED);
                 }
             } catch (Throwable e) {
                 // TODO handle errors through Thread'sExceptionHandler
                 logger.error("Error solving for tenantId (" + tenantId + ").", e);
             }
-        });
+        }
+
+        /**
+         * Early in a solve, new best solutions come many times per second, so they are persisted at most once
+         * per interval. The last one within an interval is persisted when that interval ends,
+         * so it is visible even if the solver finds no better one for a long time.
+         */
+        private synchronized void bestRosterChanged(Roster bestRoster) {
+            unpersistedBestRoster = bestRoster;
+            long remainingMillis = lastPersistTimeMillis + bestSolutionPersistIntervalMillis
+                    - System.currentTimeMillis();
+            if (remainingMillis <= 0L) {
+                cancelScheduledPersist();
+                persistBestRoster();
+            } else if (scheduledPersist == null) {
+                scheduledPersist = persistScheduler.schedule(this::persistScheduledBestRoster,
+                        remainingMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private synchronized void persistScheduledBestRoster() {
+            scheduledPersist = null;
+            try {
+                persistBestRoster();
+            } catch (RuntimeException e) {
+                // The next persist writes these changes too, because it compares with the persisted employees
+                logger.error("Error persisting the best solution for tenantId (" + tenantId + ").", e);
+            }
+        }
+
+        private synchronized void cancelScheduledPersist() {
+            if (scheduledPersist != null) {
+                scheduledPersist.cancel(false);
+                scheduledPersist = null;
+            }
+        }
+
+        /**
+         * Only writes the shifts whose employee changed since the last write.
+         */
+        private synchronized void persistBestRoster() {
+            if (unpersistedBestRoster == null) {
+                return;
+            }
+            Map<Long, Long> changedShiftIdToEmployeeIdMap = new HashMap<>();
+            for (Shift shift : unpersistedBestRoster.getShiftList()) {
+                Long employeeId = getEmployeeId(shift);
+                if (!persistedShiftIdToEmployeeIdMap.containsKey(shift.getId())
+                        || !Objects.equals(persistedShiftIdToEmployeeIdMap.get(shift.getId()), employeeId)) {
+                    changedShiftIdToEmployeeIdMap.put(shift.getId(), employeeId);
+                }
+            }
+            HardSoftScore bestScore = unpersistedBestRoster.getScore();
+            unpersistedBestRoster = null;
+            lastPersistTimeMillis = System.currentTimeMillis();
+            // A better score without assignment changes (for example after a problem fact change) is still broadcast
+            if (!changedShiftIdToEmployeeIdMap.isEmpty()) {
+                // TODO if this throws an OptimisticLockingException, does it kill the solver?
+                rosterRestService.updateShiftEmployees(tenantId, changedShiftIdToEmployeeIdMap);
+                persistedShiftIdToEmployeeIdMap.putAll(changedShiftIdToEmployeeIdMap);
+                logger.info("  Persisted {} changed shifts of the best solution for tenantId ({}).",
+                        changedShiftIdToEmployeeIdMap.size(), tenantId);
+            }
+            // After the commit, so a browser that reacts to it reads the persisted shifts
+            tenantIdToBestScoreMap.put(tenantId, bestScore);
+            tenantIdToRevisionMap.put(tenantId, rosterRevisionTracker.getRevision());
+            broadcastSolverStatus(tenantId);
+        }
+
+        private Long getEmployeeId(Shift shift) {
+            return (shift.getEmployee() == null) ? null : shift.getEmployee().getId();
+        }
+
+        public Integer getTenantId() {
+            return tenantId;
+        }
+
     }
 
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.util.List;
+
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+
+/**
+ * Tells the move iterator factories when to rebuild their index of the shifts of the working solution,
+ * such as {@link ShiftPillarIndex}, {@link ShiftNearbySwapMoveIteratorFactory}
+ * and {@link RuinAndRecreateMoveIteratorFactory}.
+ * <p>
+ * Before the solver does problem fact changes, it replaces the working solution with a clone of the best solution,
+ * and only those changes add or remove shifts, or change their spot, time slot or employee range.
+ * So the indexed shifts only change if the shift list itself is replaced,
+ * which is much cheaper to check at every step than the shifts themselves.
+ */
+public class WorkingShiftListChangeDetector {
+
+    private List<Shift> indexedShiftList = null;
+
+    /**
+     * Call {@link #markIndexed(Roster)} after rebuilding the index.
+     * @param roster never null, the working solution
+     * @return true if the shift list was replaced since the last {@link #markIndexed(Roster)}
+     */
+    public boolean isChanged(Roster roster) {
+        return roster.getShiftList() != indexedShiftList;
+    }
+
+    /**
+     * @param roster never null, the working solution, just indexed
+     */
+    public void markIndexed(Roster roster) {
+        indexedShiftList = roster.getShiftList();
+    }
+
+}
@@ -18,11 +18,14 @@ package org.optaplanner.openshift.employeerostering.server.spot;
 
 import java.util.List;
 
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
 
 import org.optaplanner.openshift.employeerostering.server.common.AbstractRestServiceImpl;
+import org.optaplanner.openshift.employeerostering.server.roster.RosterRevisionTracker;
+import org.optaplanner.openshift.employeerostering.server.roster.RosterViewCache;
 import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
 import org.optaplanner.openshift.employeerostering.shared.spot.SpotGroup;
 import org.optaplanner.openshift.employeerostering.shared.spot.SpotRestService;
@@ -32,6 +35,12 @@ public class SpotRestServiceImpl extends AbstractRestServiceImpl implements Spot
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Inject
+    private RosterViewCache rosterViewCache;
+
+    @Inject
+    private RosterRevisionTracker rosterRevisionTracker;
+
     @Override
     @Transactional
     public List<Spot> getSpotList(Integer tenantId) {
@@ -53,6 +62,8 @@ public class SpotRestServiceImpl extends AbstractRestServiceImpl implements Spot
     public Spot addSpot(Integer tenantId, Spot spot) {
         validateTenantIdParameter(tenantId, spot);
         entityManager.persist(spot);
+        rosterViewCache.invalidate(tenantId);
+        rosterRevisionTracker.reloadRequired(tenantId);
         return spot;
     }
 
@@ -61,6 +72,8 @@ public class SpotRestServiceImpl extends AbstractRestServiceImpl implements Spot
     public Spot updateSpot(Integer tenantId, Spot spot) {
         validateTenantIdParameter(tenantId, spot);
         spot = entityManager.merge(spot);
+        rosterViewCache.invalidate(tenantId);
+        rosterRevisionTracker.reloadRequired(tenantId);
         return spot;
     }
 
@@ -73,6 +86,8 @@ public class SpotRestServiceImpl extends AbstractRestServiceImpl implements Spot
         }
         validateTenantIdParameter(tenantId, spot);
         entityManager.remove(spot);
+        rosterViewCache.invalidate(tenantId);
+        rosterRevisionTracker.reloadRequired(tenantId);
         return true;
     }
 
@@ -22,6 +22,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
 
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
 import org.optaplanner.openshift.employeerostering.server.common.AbstractRestServiceImpl;
 import org.optaplanner.openshift.employeerostering.shared.tenant.Tenant;
 import org.optaplanner.openshift.employeerostering.shared.tenant.TenantConfiguration;
@@ -61,6 +62,22 @@ public class TenantRestServiceImpl extends AbstractRestServiceImpl implements Te
             throw new IllegalStateException("There is no tenant with id (" +
                                             tenantConfiguration.getTenantId() + ").");
         }
+        if (tenantConfiguration.getBestScoreLimit() != null) {
+            try {
+                HardSoftScore.parseScore(tenantConfiguration.getBestScoreLimit());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("The bestScoreLimit (" + tenantConfiguration.getBestScoreLimit()
+                                                + ") is not a score such as 0hard/-1000soft.", e);
+            }
+        }
+        Integer minimumSolverSeconds = tenantConfiguration.getMinimumSolverSeconds();
+        Integer maximumSolverSeconds = tenantConfiguration.getMaximumSolverSeconds();
+        if (minimumSolverSeconds != null && maximumSolverSeconds != null
+                && minimumSolverSeconds > maximumSolverSeconds) {
+            throw new IllegalStateException("The minimumSolverSeconds (" + minimumSolverSeconds
+                                            + ") is greater than the maximumSolverSeconds ("
+                                            + maximumSolverSeconds + ").");
+        }
         tenant.setConfiguration(tenantConfiguration);
         return entityManager.merge(tenant);
     }
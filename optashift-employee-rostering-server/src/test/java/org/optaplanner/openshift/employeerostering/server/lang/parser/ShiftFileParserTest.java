@@ -0,0 +1,460 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.server.lang.parser;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailability;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailabilityState;
+import org.optaplanner.openshift.employeerostering.shared.lang.parser.DateMatcher;
+import org.optaplanner.openshift.employeerostering.shared.lang.parser.ParserException;
+import org.optaplanner.openshift.employeerostering.shared.lang.tokens.EmployeeConditional;
+import org.optaplanner.openshift.employeerostering.shared.lang.tokens.EmployeeTimeSlotInfo;
+import org.optaplanner.openshift.employeerostering.shared.lang.tokens.EnumOrCustom;
+import org.optaplanner.openshift.employeerostering.shared.lang.tokens.IdOrGroup;
+import org.optaplanner.openshift.employeerostering.shared.lang.tokens.ShiftConditional;
+import org.optaplanner.openshift.employeerostering.shared.lang.tokens.ShiftInfo;
+import org.optaplanner.openshift.employeerostering.shared.lang.tokens.ShiftTemplate;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
+import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
+
+import static org.junit.Assert.*;
+
+public class ShiftFileParserTest {
+
+    private static final Integer TENANT_ID = 1;
+    private static final Long GROUP_ID = 100L;
+    // The start and end times of a shift info are relative to it
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private List<Spot> spotList;
+    private List<Employee> employeeList;
+    private Map<Long, List<Spot>> spotGroupMap;
+    private Map<Long, List<Employee>> employeeGroupMap;
+
+    @Before
+    public void setUp() {
+        spotList = new ArrayList<>();
+        for (long id = 1L; id <= 3L; id++) {
+            Spot spot = new Spot(TENANT_ID, "Spot " + id, null);
+            spot.setId(id);
+            spotList.add(spot);
+        }
+        employeeList = new ArrayList<>();
+        for (long id = 1L; id <= 4L; id++) {
+            Employee employee = new Employee(TENANT_ID, "Employee " + id);
+            employee.setId(id);
+            employeeList.add(employee);
+        }
+        spotGroupMap = Collections.singletonMap(GROUP_ID, spotList.subList(0, 2));
+        employeeGroupMap = Collections.singletonMap(GROUP_ID, employeeList);
+    }
+
+    @Test
+    public void sameAsTemplateOrderWithWeeklyRepeat() throws ParserException {
+        assertSameAsTemplateOrder(createWeeklyTemplate(),
+                LocalDateTime.of(2018, 1, 8, 0, 0), LocalDateTime.of(2018, 3, 31, 0, 0));
+    }
+
+    @Test
+    public void sameAsTemplateOrderWithDailyRepeat() throws ParserException {
+        assertSameAsTemplateOrder(createDailyTemplate(),
+                LocalDateTime.of(2018, 2, 26, 0, 0), LocalDateTime.of(2018, 3, 19, 0, 0));
+    }
+
+    @Test
+    public void sameAsTemplateOrderWithMonthlyRepeat() throws ParserException {
+        assertSameAsTemplateOrder(createMonthlyTemplate(),
+                LocalDateTime.of(2018, 1, 31, 0, 0), LocalDateTime.of(2018, 12, 31, 0, 0));
+    }
+
+    @Test
+    public void sameAsTemplateOrderWithCustomRepeat() throws ParserException {
+        assertSameAsTemplateOrder(createCustomTemplate(),
+                LocalDateTime.of(2018, 1, 3, 0, 0), LocalDateTime.of(2018, 5, 1, 0, 0));
+    }
+
+    @Test
+    public void parallelSameAsSequentialWithWeeklyRepeat() throws ParserException {
+        assertParallelSameAsSequential(createWeeklyTemplate(),
+                LocalDateTime.of(2018, 1, 8, 0, 0), LocalDateTime.of(2018, 3, 31, 0, 0));
+    }
+
+    @Test
+    public void parallelSameAsSequentialWithDailyRepeat() throws ParserException {
+        // 3 weeks of daily occurrences, so each shift info is split in several chunks
+        assertParallelSameAsSequential(createDailyTemplate(),
+                LocalDateTime.of(2018, 2, 26, 0, 0), LocalDateTime.of(2018, 3, 19, 0, 0));
+    }
+
+    @Test
+    public void parallelSameAsSequentialWithMonthlyRepeat() throws ParserException {
+        assertParallelSameAsSequential(createMonthlyTemplate(),
+                LocalDateTime.of(2018, 1, 31, 0, 0), LocalDateTime.of(2018, 12, 31, 0, 0));
+    }
+
+    @Test
+    public void parallelSameAsSequentialWithCustomRepeat() throws ParserException {
+        assertParallelSameAsSequential(createCustomTemplate(),
+                LocalDateTime.of(2018, 1, 3, 0, 0), LocalDateTime.of(2018, 5, 1, 0, 0));
+    }
+
+    /**
+     * Shift info 0 has a replacement on the 5th, which is generated at the base date, like shift info 1
+     * and the replacement of shift info 2 in March.
+     * Employee 3 is unavailable in the replacement of shift info 0, but desired by shift info 1 in the first week.
+     * The replacement of shift info 2 is replaced in turn, because the base date is the 8th.
+     */
+    private ShiftTemplate createWeeklyTemplate() {
+        ShiftInfo nestedReplacement = createShiftInfo(2, 10, 2, 12, Arrays.asList(spot(1)),
+                Arrays.asList(employee(2, EmployeeAvailabilityState.UNDESIRED)));
+        ShiftInfo shiftInfo2Replacement = createShiftInfo(0, 9, 0, 17, Arrays.asList(spot(3)),
+                Arrays.asList(employee(1, EmployeeAvailabilityState.DESIRED),
+                        employee(4, EmployeeAvailabilityState.UNAVAILABLE)),
+                new ShiftConditional(TENANT_ID, "DSUNDAY"),
+                new ShiftConditional(TENANT_ID, "d8", nestedReplacement));
+        ShiftInfo shiftInfo0Replacement = createShiftInfo(0, 9, 0, 17, Arrays.asList(spot(3)),
+                Arrays.asList(employee(3, EmployeeAvailabilityState.UNAVAILABLE)));
+        ShiftInfo shiftInfo0 = createShiftInfo(0, 9, 0, 17, Arrays.asList(spot(1)),
+                Arrays.asList(employee(1, EmployeeAvailabilityState.UNDESIRED),
+                        employee(2, EmployeeAvailabilityState.DESIRED)),
+                new ShiftConditional(TENANT_ID, "d5", shiftInfo0Replacement));
+        EmployeeTimeSlotInfo conditionalEmployee = employee(4, EmployeeAvailabilityState.DESIRED);
+        conditionalEmployee.setAvailabilityConditions(Arrays.asList(
+                new EmployeeConditional(TENANT_ID, "m1", EmployeeAvailabilityState.UNAVAILABLE)));
+        ShiftInfo shiftInfo1 = createShiftInfo(0, 9, 0, 17, Arrays.asList(spot(2)),
+                Arrays.asList(employee(1, EmployeeAvailabilityState.UNAVAILABLE),
+                        employee(3, EmployeeAvailabilityState.DESIRED), conditionalEmployee));
+        ShiftInfo shiftInfo2 = createShiftInfo(1, 8, 1, 16, Arrays.asList(spotGroup()),
+                Arrays.asList(employeeGroup(EmployeeAvailabilityState.DESIRED)),
+                new ShiftConditional(TENANT_ID, "m3", shiftInfo2Replacement));
+        return new ShiftTemplate(TENANT_ID, new EnumOrCustom(TENANT_ID, false, "WEEK_OF_START_DATE"),
+                new EnumOrCustom(TENANT_ID, false, "WEEK"),
+                Arrays.asList(new ShiftConditional(TENANT_ID, "E19/2")),
+                Arrays.asList(shiftInfo0, shiftInfo1, shiftInfo2));
+    }
+
+    /**
+     * Every Saturday, the universal exception generates a replacement at the start date,
+     * where shift info 1 makes every employee undesired.
+     */
+    private ShiftTemplate createDailyTemplate() {
+        ShiftInfo universalReplacement = createShiftInfo(0, 6, 0, 14, Arrays.asList(spot(2)),
+                Arrays.asList(employeeGroup(EmployeeAvailabilityState.UNAVAILABLE)));
+        ShiftInfo shiftInfo0 = createShiftInfo(0, 6, 0, 14, Arrays.asList(spot(1)),
+                Arrays.asList(employee(1, EmployeeAvailabilityState.DESIRED)),
+                new ShiftConditional(TENANT_ID, "DSUNDAY"));
+        ShiftInfo shiftInfo1 = createShiftInfo(0, 6, 0, 14, Arrays.asList(spotGroup()),
+                Arrays.asList(employeeGroup(EmployeeAvailabilityState.UNDESIRED)));
+        EmployeeTimeSlotInfo conditionalEmployee = employee(4, EmployeeAvailabilityState.DESIRED);
+        conditionalEmployee.setAvailabilityConditions(Arrays.asList(
+                new EmployeeConditional(TENANT_ID, "DMONDAY", EmployeeAvailabilityState.UNDESIRED)));
+        ShiftInfo shiftInfo2 = createShiftInfo(0, 22, 1, 6, Arrays.asList(spot(3)),
+                Arrays.asList(conditionalEmployee));
+        return new ShiftTemplate(TENANT_ID, new EnumOrCustom(TENANT_ID, false, "SAME_AS_START_DATE"),
+                new EnumOrCustom(TENANT_ID, false, "DAY"),
+                Arrays.asList(new ShiftConditional(TENANT_ID, "DSATURDAY", universalReplacement)),
+                Arrays.asList(shiftInfo0, shiftInfo1, shiftInfo2));
+    }
+
+    /**
+     * Starts on the 31st, so adding a month depends on the previous occurrence.
+     * The replacement of shift info 0 in June has the time slot of the first occurrence of shift info 1.
+     */
+    private ShiftTemplate createMonthlyTemplate() {
+        ShiftInfo shiftInfo0Replacement = createShiftInfo(1, 9, 1, 17, Arrays.asList(spot(2)),
+                Arrays.asList(employee(1, EmployeeAvailabilityState.UNAVAILABLE)));
+        ShiftInfo shiftInfo0 = createShiftInfo(0, 9, 0, 17, Arrays.asList(spot(1)),
+                Arrays.asList(employeeGroup(EmployeeAvailabilityState.DESIRED)),
+                new ShiftConditional(TENANT_ID, "m6", shiftInfo0Replacement));
+        ShiftInfo shiftInfo1 = createShiftInfo(1, 9, 1, 17, Arrays.asList(spot(2)),
+                Arrays.asList(employee(1, EmployeeAvailabilityState.DESIRED),
+                        employee(2, EmployeeAvailabilityState.UNDESIRED)));
+        return new ShiftTemplate(TENANT_ID, new EnumOrCustom(TENANT_ID, false, "SAME_AS_START_DATE"),
+                new EnumOrCustom(TENANT_ID, false, "MONTH"),
+                Arrays.asList(new ShiftConditional(TENANT_ID, "m8")),
+                Arrays.asList(shiftInfo0, shiftInfo1));
+    }
+
+    /**
+     * Repeats every 9 days, so the Sunday exception of shift info 0 only matches some occurrences.
+     */
+    private ShiftTemplate createCustomTemplate() {
+        ShiftInfo shiftInfo0Replacement = createShiftInfo(0, 7, 0, 15, Arrays.asList(spot(3)),
+                Arrays.asList(employee(2, EmployeeAvailabilityState.UNAVAILABLE)));
+        ShiftInfo shiftInfo0 = createShiftInfo(0, 7, 0, 15, Arrays.asList(spot(1), spot(2)),
+                Arrays.asList(employee(1, EmployeeAvailabilityState.DESIRED),
+                        employeeGroup(EmployeeAvailabilityState.UNDESIRED)),
+                new ShiftConditional(TENANT_ID, "DSUNDAY", shiftInfo0Replacement));
+        ShiftInfo shiftInfo1 = createShiftInfo(0, 7, 0, 15, Arrays.asList(spot(3)),
+                Arrays.asList(employee(2, EmployeeAvailabilityState.DESIRED)));
+        ShiftInfo shiftInfo2 = createShiftInfo(4, 23, 5, 7, Arrays.asList(spotGroup()),
+                Arrays.asList(employee(3, EmployeeAvailabilityState.UNAVAILABLE)));
+        return new ShiftTemplate(TENANT_ID, new EnumOrCustom(TENANT_ID, false, "WEEK_OF_START_DATE"),
+                new EnumOrCustom(TENANT_ID, true, "2:1:0:0"),
+                Collections.emptyList(),
+                Arrays.asList(shiftInfo0, shiftInfo1, shiftInfo2));
+    }
+
+    private static ShiftInfo createShiftInfo(int startDay, int startHour, int endDay, int endHour,
+            List<IdOrGroup> spots, List<EmployeeTimeSlotInfo> employees, ShiftConditional... exceptions) {
+        return new ShiftInfo(TENANT_ID, EPOCH.plusDays(startDay).plusHours(startHour),
+                EPOCH.plusDays(endDay).plusHours(endHour), spots, employees, Arrays.asList(exceptions));
+    }
+
+    private static IdOrGroup spot(long id) {
+        return new IdOrGroup(TENANT_ID, false, id);
+    }
+
+    private static IdOrGroup spotGroup() {
+        return new IdOrGroup(TENANT_ID, true, GROUP_ID);
+    }
+
+    private static EmployeeTimeSlotInfo employee(long id, EmployeeAvailabilityState state) {
+        return new EmployeeTimeSlotInfo(TENANT_ID, new IdOrGroup(TENANT_ID, false, id), state);
+    }
+
+    private static EmployeeTimeSlotInfo employeeGroup(EmployeeAvailabilityState state) {
+        return new EmployeeTimeSlotInfo(TENANT_ID, new IdOrGroup(TENANT_ID, true, GROUP_ID), state);
+    }
+
+    private void assertSameAsTemplateOrder(ShiftTemplate template, LocalDateTime start, LocalDateTime end)
+            throws ParserException {
+        ParserOutput expected = new TemplateOrderExpansion(template, start, end).expand();
+        ParserOutput actual = parse(template, start, end, false);
+        // Checks the test itself: the template has conflicting employee availabilities
+        assertTrue(expected.employeeAvailabilityList.size() < expected.generatedEmployeeAvailabilityCount);
+        assertEquals(sorted(expected.shiftList), sorted(actual.shiftList));
+        assertEquals(sorted(expected.employeeAvailabilityList), sorted(actual.employeeAvailabilityList));
+    }
+
+    private void assertParallelSameAsSequential(ShiftTemplate template, LocalDateTime start, LocalDateTime end)
+            throws ParserException {
+        ParserOutput sequential = parse(template, start, end, false);
+        ParserOutput parallel = parse(template, start, end, true);
+        assertFalse(sequential.eventList.isEmpty());
+        assertEquals(sequential.eventList, parallel.eventList);
+    }
+
+    private ParserOutput parse(ShiftTemplate template, LocalDateTime start, LocalDateTime end, boolean parallel)
+            throws ParserException {
+        ParserOutput output = new ParserOutput();
+        Set<TimeSlot> timeSlotSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<String> timeSlotKeySet = new HashSet<>();
+        ShiftFileParser.parse(TENANT_ID, spotList, employeeList, spotGroupMap, employeeGroupMap, start, end,
+                template, new ShiftFileParser.ParserListener() {
+                    @Override
+                    public void onTimeSlot(TimeSlot timeSlot) {
+                        assertTrue(timeSlotSet.add(timeSlot));
+                        // Time slots with the same start and end are shared
+                        assertTrue(timeSlotKeySet.add(toKey(timeSlot.getStartDateTime(),
+                                timeSlot.getEndDateTime())));
+                        output.timeSlotList.add(toKey(timeSlot.getStartDateTime(), timeSlot.getEndDateTime()));
+                        output.eventList.add("time slot " + output.timeSlotList.get(output.timeSlotList.size() - 1));
+                    }
+
+                    @Override
+                    public void onShift(Shift shift) {
+                        assertTrue(timeSlotSet.contains(shift.getTimeSlot()));
+                        output.shiftList.add(shift.getSpot().getId() + " "
+                                + toKey(shift.getTimeSlot().getStartDateTime(),
+                                shift.getTimeSlot().getEndDateTime()));
+                        output.eventList.add("shift " + output.shiftList.get(output.shiftList.size() - 1));
+                    }
+
+                    @Override
+                    public void onEmployeeAvailability(EmployeeAvailability employeeAvailability) {
+                        TimeSlot timeSlot = employeeAvailability.getTimeSlot();
+                        assertTrue(timeSlotSet.contains(timeSlot));
+                        output.employeeAvailabilityList.add(employeeAvailability.getEmployee().getId() + " "
+                                + toKey(timeSlot.getStartDateTime(), timeSlot.getEndDateTime()) + " "
+                                + employeeAvailability.getState());
+                        output.eventList.add("employee availability "
+                                + output.employeeAvailabilityList.get(output.employeeAvailabilityList.size() - 1));
+                    }
+                }, parallel);
+        return output;
+    }
+
+    private static String toKey(LocalDateTime startDate, LocalDateTime endDate) {
+        return startDate + "-" + endDate;
+    }
+
+    private static List<String> sorted(List<String> list) {
+        List<String> sortedList = new ArrayList<>(list);
+        Collections.sort(sortedList);
+        return sortedList;
+    }
+
+    private static class ParserOutput {
+
+        // In the order of the listener calls
+        final List<String> eventList = new ArrayList<>();
+        final List<String> timeSlotList = new ArrayList<>();
+        final List<String> shiftList = new ArrayList<>();
+        final List<String> employeeAvailabilityList = new ArrayList<>();
+        int generatedEmployeeAvailabilityCount = 0;
+    }
+
+    /**
+     * The expansion of the parser before it generated window by window:
+     * each shift info over the whole date range before the next one, with the replacements where they match,
+     * and only the first employee availability of an employee in a time slot.
+     */
+    private class TemplateOrderExpansion {
+
+        private final LocalDateTime startDate;
+        private final LocalDateTime baseDate;
+        private final LocalDateTime endDate;
+        private final long repeatDays;
+        private final long repeatWeeks;
+        private final long repeatMonths;
+        private final long repeatYears;
+        private final List<ShiftInfo> shiftInfoList;
+        private final List<ShiftConditional> universalExceptionList;
+
+        private final ParserOutput output = new ParserOutput();
+        private final Map<String, String> employeeAvailabilityMap = new LinkedHashMap<>();
+
+        TemplateOrderExpansion(ShiftTemplate template, LocalDateTime start, LocalDateTime end) {
+            startDate = start;
+            switch (template.getBaseDateType().getValue()) {
+                case "SAME_AS_START_DATE":
+                    baseDate = start;
+                    endDate = end;
+                    break;
+                case "WEEK_OF_START_DATE":
+                    baseDate = start.minusDays(start.getDayOfWeek().getValue() - 1).toLocalDate().atStartOfDay();
+                    endDate = end.plusDays(6 - end.getDayOfWeek().getValue());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported base date type ("
+                            + template.getBaseDateType().getValue() + ").");
+            }
+            Map<String, long[]> repeatMap = new HashMap<>();
+            repeatMap.put("DAY", new long[]{1L, 0L, 0L, 0L});
+            repeatMap.put("WEEK", new long[]{0L, 1L, 0L, 0L});
+            repeatMap.put("MONTH", new long[]{0L, 0L, 1L, 0L});
+            long[] repeat;
+            if (template.getRepeatType().getIsCustom()) {
+                repeat = Arrays.stream(template.getRepeatType().getValue().split(":"))
+                        .mapToLong(Long::parseLong).toArray();
+            } else {
+                repeat = repeatMap.get(template.getRepeatType().getValue());
+            }
+            repeatDays = repeat[0];
+            repeatWeeks = repeat[1];
+            repeatMonths = repeat[2];
+            repeatYears = repeat[3];
+            shiftInfoList = template.getShifts();
+            universalExceptionList = template.getUniversalExceptions();
+        }
+
+        ParserOutput expand() throws ParserException {
+            expand(shiftInfoList, repeatDays);
+            for (Map.Entry<String, String> entry : employeeAvailabilityMap.entrySet()) {
+                output.employeeAvailabilityList.add(entry.getKey() + " " + entry.getValue());
+            }
+            return output;
+        }
+
+        private void expand(List<ShiftInfo> expandedShiftInfoList, long expandedRepeatDays) throws ParserException {
+            for (ShiftInfo shiftInfo : expandedShiftInfoList) {
+                LocalDateTime occurrenceStartDate = baseDate.plus(Duration.between(EPOCH, shiftInfo.getStartTime()));
+                LocalDateTime occurrenceEndDate = baseDate.plus(Duration.between(EPOCH, shiftInfo.getEndTime()));
+                for (; occurrenceStartDate.isBefore(endDate);
+                        occurrenceStartDate = next(occurrenceStartDate, expandedRepeatDays),
+                        occurrenceEndDate = next(occurrenceEndDate, expandedRepeatDays)) {
+                    ShiftConditional exception = findFirstMatch(shiftInfo.getExceptions(), occurrenceStartDate);
+                    if (null == exception) {
+                        exception = findFirstMatch(universalExceptionList, occurrenceStartDate);
+                    }
+                    if (null == exception) {
+                        addOccurrence(shiftInfo, occurrenceStartDate, occurrenceEndDate);
+                    } else if (null != exception.getShift()) {
+                        // A replacement is generated once in the whole date range
+                        expand(Collections.singletonList(exception.getShift()),
+                                Duration.between(startDate, endDate).toDays() + 1);
+                    }
+                }
+            }
+        }
+
+        private LocalDateTime next(LocalDateTime date, long nextRepeatDays) {
+            return date.plusYears(repeatYears).plusMonths(repeatMonths).plusWeeks(repeatWeeks)
+                    .plusDays(nextRepeatDays);
+        }
+
+        private ShiftConditional findFirstMatch(List<ShiftConditional> exceptionList, LocalDateTime date)
+                throws ParserException {
+            for (ShiftConditional exception : exceptionList) {
+                if (DateMatcher.getDateMatcher(exception).test(date)) {
+                    return exception;
+                }
+            }
+            return null;
+        }
+
+        private void addOccurrence(ShiftInfo shiftInfo, LocalDateTime occurrenceStartDate,
+                LocalDateTime occurrenceEndDate) throws ParserException {
+            String timeSlotKey = toKey(occurrenceStartDate, occurrenceEndDate);
+            for (IdOrGroup spotId : shiftInfo.getSpots()) {
+                List<Spot> spots = spotId.getIsGroup() ? spotGroupMap.get(spotId.getItemId())
+                        : Collections.singletonList(spotList.get(spotId.getItemId().intValue() - 1));
+                for (Spot spot : spots) {
+                    output.shiftList.add(spot.getId() + " " + timeSlotKey);
+                }
+            }
+            for (EmployeeTimeSlotInfo employeeInfo : shiftInfo.getEmployees()) {
+                EmployeeAvailabilityState state = employeeInfo.getDefaultAvailability();
+                if (null != employeeInfo.getAvailabilityConditions()) {
+                    for (EmployeeConditional condition : employeeInfo.getAvailabilityConditions()) {
+                        if (DateMatcher.getDateMatcher(condition).test(startDate)) {
+                            state = condition.getAvaliability();
+                            break;
+                        }
+                    }
+                }
+                IdOrGroup employeeId = employeeInfo.getEmployeeId();
+                List<Employee> employees = employeeId.getIsGroup() ? employeeGroupMap.get(employeeId.getItemId())
+                        : Collections.singletonList(employeeList.get(employeeId.getItemId().intValue() - 1));
+                for (Employee employee : employees) {
+                    output.generatedEmployeeAvailabilityCount++;
+                    employeeAvailabilityMap.putIfAbsent(employee.getId() + " " + timeSlotKey,
+                            String.valueOf(state));
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.heuristic.selector.move.composite.UnionMoveSelectorConfig;
+import org.optaplanner.core.config.heuristic.selector.move.factory.MoveIteratorFactoryConfig;
+import org.optaplanner.core.config.localsearch.LocalSearchPhaseConfig;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.EnvironmentMode;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+
+import static org.junit.Assert.*;
+
+/**
+ * Solves a generated roster in {@link EnvironmentMode#FULL_ASSERT},
+ * which compares the score of {@link EmployeeRosteringIncrementalScoreCalculator}
+ * with the score of employeeRosteringScoreRules.drl after every move and its undo move.
+ */
+public class EmployeeRosteringIncrementalScoreCalculatorTest {
+
+    private static final String SOLVER_CONFIG
+            = "org/optaplanner/openshift/employeerostering/server/solver/employeeRosteringSolverConfig.xml";
+    private static final String SCORE_DRL
+            = "org/optaplanner/openshift/employeerostering/server/solver/employeeRosteringScoreRules.drl";
+
+    @Test(timeout = 600000)
+    public void sameScoreAsDrlWithUnfilteredEmployeeRanges() {
+        assertSameScoreAsDrl(false);
+    }
+
+    @Test(timeout = 600000)
+    public void sameScoreAsDrlWithFilteredEmployeeRanges() {
+        assertSameScoreAsDrl(true);
+    }
+
+    private void assertSameScoreAsDrl(boolean employeeRangeFiltered) {
+        SolverFactory<Roster> solverFactory = SolverFactory.createFromXmlResource(SOLVER_CONFIG);
+        SolverConfig solverConfig = solverFactory.getSolverConfig();
+        solverConfig.setEnvironmentMode(EnvironmentMode.FULL_ASSERT);
+        ScoreDirectorFactoryConfig assertionScoreDirectorFactoryConfig = new ScoreDirectorFactoryConfig();
+        assertionScoreDirectorFactoryConfig.setScoreDrlList(Collections.singletonList(SCORE_DRL));
+        solverConfig.getScoreDirectorFactoryConfig()
+                .setAssertionScoreDirectorFactory(assertionScoreDirectorFactoryConfig);
+        // Only the local search terminates, by step count, so the test is reproducible
+        solverConfig.setTerminationConfig(new TerminationConfig());
+        LocalSearchPhaseConfig localSearchPhaseConfig = (LocalSearchPhaseConfig) solverConfig.getPhaseConfigList()
+                .get(1);
+        TerminationConfig localSearchTerminationConfig = new TerminationConfig();
+        localSearchTerminationConfig.setStepCountLimit(200);
+        localSearchPhaseConfig.setTerminationConfig(localSearchTerminationConfig);
+        // Also used by the benchmarks
+        MoveIteratorFactoryConfig ruinAndRecreateMoveConfig = new MoveIteratorFactoryConfig();
+        ruinAndRecreateMoveConfig.setFixedProbabilityWeight(0.1);
+        ruinAndRecreateMoveConfig.setMoveIteratorFactoryClass(RuinAndRecreateMoveIteratorFactory.class);
+        ((UnionMoveSelectorConfig) localSearchPhaseConfig.getMoveSelectorConfig()).getMoveSelectorConfigList()
+                .add(ruinAndRecreateMoveConfig);
+        Solver<Roster> solver = solverFactory.buildSolver();
+
+        Roster roster = RosterTestGenerator.generateRoster(new Random(37), employeeRangeFiltered);
+        Roster bestRoster = solver.solve(roster);
+
+        SolverFactory<Roster> drlSolverFactory = SolverFactory.createFromXmlResource(SOLVER_CONFIG);
+        ScoreDirectorFactoryConfig drlScoreDirectorFactoryConfig = new ScoreDirectorFactoryConfig();
+        drlScoreDirectorFactoryConfig.setScoreDrlList(Collections.singletonList(SCORE_DRL));
+        drlSolverFactory.getSolverConfig().setScoreDirectorFactoryConfig(drlScoreDirectorFactoryConfig);
+        ScoreDirector<Roster> drlScoreDirector = drlSolverFactory.buildSolver().getScoreDirectorFactory()
+                .buildScoreDirector();
+        drlScoreDirector.setWorkingSolution(bestRoster);
+        HardSoftScore drlScore = (HardSoftScore) drlScoreDirector.calculateScore();
+        drlScoreDirector.dispose();
+        assertEquals(drlScore, bestRoster.getScore());
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailability;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailabilityState;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
+import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
+import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlotState;
+
+import static org.junit.Assert.*;
+import static org.optaplanner.openshift.employeerostering.server.solver.RosterTestGenerator.TENANT_ID;
+
+public class RosterProblemFactChangesTest {
+
+    private static final String SOLVER_CONFIG
+            = "org/optaplanner/openshift/employeerostering/server/solver/employeeRosteringSolverConfig.xml";
+
+    // Not in the generated roster, like the shifts and time slots that a shift template creates during a solve
+    private static final Long UNKNOWN_ID = 1000000L;
+
+    @Test(timeout = 60000)
+    public void ignoreUnknownIdsOfRunningSolver() {
+        SolverFactory<Roster> solverFactory = SolverFactory.createFromXmlResource(SOLVER_CONFIG);
+        // The test terminates the solver as soon as the changes are processed, this is just a safety net
+        TerminationConfig terminationConfig = new TerminationConfig();
+        terminationConfig.setSecondsSpentLimit(20L);
+        solverFactory.getSolverConfig().setTerminationConfig(terminationConfig);
+        Solver<Roster> solver = solverFactory.buildSolver();
+        Roster roster = RosterTestGenerator.generateRoster(new Random(37), true);
+        int shiftCount = roster.getShiftList().size();
+        int employeeCount = roster.getEmployeeList().size();
+        int employeeAvailabilityCount = roster.getEmployeeAvailabilityList().size();
+        Employee knownEmployee = roster.getEmployeeList().get(0);
+
+        Spot unknownSpot = new Spot(TENANT_ID, "Unknown spot", roster.getSkillList().get(0));
+        unknownSpot.setId(UNKNOWN_ID);
+        TimeSlot knownTimeSlot = roster.getTimeSlotList().get(roster.getTimeSlotList().size() - 1);
+        TimeSlot unknownTimeSlot = new TimeSlot(TENANT_ID, knownTimeSlot.getEndDateTime(),
+                knownTimeSlot.getEndDateTime().plusHours(8));
+        unknownTimeSlot.setId(UNKNOWN_ID);
+        Shift unknownShift = new Shift(TENANT_ID, roster.getSpotList().get(0), knownTimeSlot);
+        unknownShift.setId(UNKNOWN_ID);
+        Shift unknownSpotShift = new Shift(TENANT_ID, unknownSpot, knownTimeSlot);
+        unknownSpotShift.setId(UNKNOWN_ID + 1L);
+        Employee unknownEmployee = new Employee(TENANT_ID, "Unknown employee");
+        unknownEmployee.setId(UNKNOWN_ID);
+        EmployeeAvailability unknownEmployeeAvailability = new EmployeeAvailability(TENANT_ID, knownEmployee,
+                unknownTimeSlot);
+        unknownEmployeeAvailability.setId(UNKNOWN_ID);
+        unknownEmployeeAvailability.setState(EmployeeAvailabilityState.UNAVAILABLE);
+        // A known change too, so the test fails if the changes aren't applied at all
+        Shift knownShift = null;
+        for (Shift shift : roster.getShiftList()) {
+            if (!shift.isLockedByUser() && shift.getTimeSlot().getTimeSlotState() != TimeSlotState.HISTORY) {
+                knownShift = shift;
+                break;
+            }
+        }
+        Shift lockedShift = new Shift(TENANT_ID, knownShift.getSpot(), knownShift.getTimeSlot());
+        lockedShift.setId(knownShift.getId());
+        lockedShift.setLockedByUser(true);
+        lockedShift.setEmployee(knownEmployee);
+
+        List<ProblemFactChange<Roster>> problemFactChangeList = new ArrayList<>();
+        problemFactChangeList.add(RosterProblemFactChanges.updateShift(unknownShift));
+        problemFactChangeList.add(RosterProblemFactChanges.removeShift(unknownShift));
+        problemFactChangeList.add(RosterProblemFactChanges.addShift(unknownSpotShift));
+        problemFactChangeList.add(RosterProblemFactChanges.updateEmployee(unknownEmployee));
+        problemFactChangeList.add(RosterProblemFactChanges.removeEmployee(unknownEmployee));
+        problemFactChangeList.add(RosterProblemFactChanges.addEmployeeAvailability(unknownEmployeeAvailability));
+        problemFactChangeList.add(RosterProblemFactChanges.updateEmployeeAvailability(unknownEmployeeAvailability));
+        problemFactChangeList.add(RosterProblemFactChanges.removeEmployeeAvailability(unknownEmployeeAvailability));
+        problemFactChangeList.add(RosterProblemFactChanges.updateShift(lockedShift));
+        AtomicBoolean problemFactChangesAdded = new AtomicBoolean(false);
+        solver.addEventListener(event -> {
+            // The first best solution comes from the construction heuristic, while the solver is running
+            if (problemFactChangesAdded.compareAndSet(false, true)) {
+                for (ProblemFactChange<Roster> problemFactChange : problemFactChangeList) {
+                    solver.addProblemFactChange(problemFactChange);
+                }
+            } else if (event.isEveryProblemFactChangeProcessed()) {
+                solver.terminateEarly();
+            }
+        });
+        // A change that fails, fails the solve
+        Roster bestRoster = solver.solve(roster);
+
+        assertTrue(problemFactChangesAdded.get());
+        assertEquals(shiftCount, bestRoster.getShiftList().size());
+        assertEquals(employeeCount, bestRoster.getEmployeeList().size());
+        assertEquals(employeeAvailabilityCount, bestRoster.getEmployeeAvailabilityList().size());
+        Shift bestLockedShift = null;
+        for (Shift shift : bestRoster.getShiftList()) {
+            if (shift.getId().equals(lockedShift.getId())) {
+                bestLockedShift = shift;
+            }
+        }
+        assertTrue(bestLockedShift.isLockedByUser());
+        assertEquals(knownEmployee.getId(), bestLockedShift.getEmployee().getId());
+    }
+
+}
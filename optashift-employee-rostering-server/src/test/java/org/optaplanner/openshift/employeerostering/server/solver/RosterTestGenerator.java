@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.server.solver;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailability;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailabilityState;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeSkillProficiency;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+import org.optaplanner.openshift.employeerostering.shared.skill.Skill;
+import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
+import org.optaplanner.openshift.employeerostering.shared.tenant.TenantConfiguration;
+import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
+import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlotState;
+
+/**
+ * Generates rosters for the solver tests, with ids like the database, but without persisting them.
+ */
+public final class RosterTestGenerator {
+
+    public static final Integer TENANT_ID = 1;
+    private static final LocalDate START_DATE = LocalDate.of(2017, 2, 1);
+
+    /**
+     * Generates 2 weeks of 3 time slots a day, of which the first days are history,
+     * with locked shifts, employees without the required skill and every employee availability state.
+     */
+    public static Roster generateRoster(Random random, boolean employeeRangeFiltered) {
+        long nextId = 0L;
+        List<Skill> skillList = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Skill skill = new Skill(TENANT_ID, "Skill " + i);
+            skill.setId(nextId++);
+            skillList.add(skill);
+        }
+        List<Spot> spotList = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Spot spot = new Spot(TENANT_ID, "Spot " + i, skillList.get(i % skillList.size()));
+            spot.setId(nextId++);
+            spotList.add(spot);
+        }
+        List<Employee> employeeList = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Employee employee = new Employee(TENANT_ID, "Employee " + i);
+            employee.setId(nextId++);
+            for (Skill skill : skillList) {
+                if (random.nextInt(2) == 0) {
+                    EmployeeSkillProficiency skillProficiency = new EmployeeSkillProficiency(TENANT_ID, employee,
+                            skill);
+                    skillProficiency.setId(nextId++);
+                    employee.getSkillProficiencyList().add(skillProficiency);
+                }
+            }
+            employeeList.add(employee);
+        }
+        List<TimeSlot> timeSlotList = new ArrayList<>();
+        List<Shift> shiftList = new ArrayList<>();
+        List<EmployeeAvailability> employeeAvailabilityList = new ArrayList<>();
+        EmployeeAvailabilityState[] availabilityStates = EmployeeAvailabilityState.values();
+        for (int day = 0; day < 14; day++) {
+            LocalDate date = START_DATE.plusDays(day);
+            int[] startHours = {6, 14, 22};
+            for (int startHour : startHours) {
+                LocalDateTime startDateTime = date.atTime(startHour, 0);
+                TimeSlot timeSlot = new TimeSlot(TENANT_ID, startDateTime, startDateTime.plusHours(8));
+                timeSlot.setId(nextId++);
+                timeSlot.setTimeSlotState(day < 2 ? TimeSlotState.HISTORY : TimeSlotState.DRAFT);
+                timeSlotList.add(timeSlot);
+                for (Spot spot : spotList) {
+                    Shift shift = new Shift(TENANT_ID, spot, timeSlot);
+                    shift.setId(nextId++);
+                    if (random.nextInt(10) == 0) {
+                        shift.setEmployee(employeeList.get(random.nextInt(employeeList.size())));
+                        shift.setLockedByUser(true);
+                    }
+                    shiftList.add(shift);
+                }
+                for (Employee employee : employeeList) {
+                    if (random.nextInt(4) == 0) {
+                        EmployeeAvailability employeeAvailability = new EmployeeAvailability(TENANT_ID, employee,
+                                timeSlot);
+                        employeeAvailability.setId(nextId++);
+                        employeeAvailability.setState(availabilityStates[random.nextInt(availabilityStates.length)]);
+                        employeeAvailabilityList.add(employeeAvailability);
+                    }
+                }
+            }
+        }
+        TenantConfiguration tenantConfiguration = new TenantConfiguration(TENANT_ID, 1, DayOfWeek.MONDAY, 100, 10);
+        tenantConfiguration.setId(nextId++);
+        tenantConfiguration.setEmployeeRangeFiltered(employeeRangeFiltered);
+        Roster roster = new Roster(nextId++, TENANT_ID, skillList, spotList, employeeList, timeSlotList,
+                employeeAvailabilityList, tenantConfiguration, shiftList);
+        roster.indexSkills();
+        roster.buildEmployeeRanges();
+        return roster;
+    }
+
+    private RosterTestGenerator() {
+    }
+
+}
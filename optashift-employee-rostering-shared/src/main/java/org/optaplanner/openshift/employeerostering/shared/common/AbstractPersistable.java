@@ -22,6 +22,7 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Version;
 import javax.validation.constraints.NotNull;
 
@@ -31,7 +32,10 @@ import org.optaplanner.core.api.domain.lookup.PlanningId;
 public abstract class AbstractPersistable implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    // Pooled, so a bulk insert (such as a template expansion) doesn't need a database roundtrip per id
+    // and Hibernate can batch the inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "persistableSequence")
+    @SequenceGenerator(name = "persistableSequence", sequenceName = "persistable_sequence", allocationSize = 50)
     @PlanningId
     protected Long id;
 
@@ -17,30 +17,37 @@
 package org.optaplanner.openshift.employeerostering.shared.employee;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
+import javax.persistence.QueryHint;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import org.optaplanner.openshift.employeerostering.shared.common.AbstractPersistable;
 import org.optaplanner.openshift.employeerostering.shared.skill.Skill;
 
 @Entity
+@Cacheable
 @NamedQueries({
         @NamedQuery(name = "Employee.findAll",
                 query = "select distinct e from Employee e left join fetch e.skillProficiencyList sp left join fetch sp.skill s" +
                         " where e.tenantId = :tenantId" +
-                        " order by e.name, s.name"),
+                        " order by e.name, s.name",
+                hints = @QueryHint(name = "org.hibernate.cacheable", value = "true")),
 })
 @Table(uniqueConstraints = @UniqueConstraint(columnNames = {"tenantId", "name"}))
 public class Employee extends AbstractPersistable {
@@ -52,6 +59,14 @@ public class Employee extends AbstractPersistable {
     @OneToMany(mappedBy = "employee", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<EmployeeSkillProficiency> skillProficiencyList;
 
+    /**
+     * Bit {@link Skill#getIndex()} is set if this employee has that skill, null if not indexed.
+     * Only set while solving, see {@link #indexSkills()}.
+     */
+    @JsonIgnore
+    @Transient
+    private long[] skillBitSet = null;
+
     @SuppressWarnings("unused")
     public Employee() {
     }
@@ -63,10 +78,37 @@ public class Employee extends AbstractPersistable {
     }
 
     public boolean hasSkill(Skill skill) {
+        int skillIndex = skill.getIndex();
+        if (skillBitSet != null && skillIndex >= 0) {
+            int wordIndex = skillIndex >>> 6;
+            return wordIndex < skillBitSet.length && (skillBitSet[wordIndex] & (1L << skillIndex)) != 0L;
+        }
         return skillProficiencyList.stream()
                 .anyMatch(skillProficiency -> skillProficiency.getSkill().equals(skill));
     }
 
+    /**
+     * Precomputes {@link #hasSkill(Skill)} as a bit set, so it doesn't iterate {@link #skillProficiencyList}.
+     * The skills must be indexed first. Call this again when the skills or the skill proficiencies change.
+     */
+    public void indexSkills() {
+        long[] newSkillBitSet = new long[0];
+        for (EmployeeSkillProficiency skillProficiency : skillProficiencyList) {
+            int skillIndex = skillProficiency.getSkill().getIndex();
+            if (skillIndex < 0) {
+                // Fall back to iterating the skill proficiencies
+                skillBitSet = null;
+                return;
+            }
+            int wordIndex = skillIndex >>> 6;
+            if (wordIndex >= newSkillBitSet.length) {
+                newSkillBitSet = Arrays.copyOf(newSkillBitSet, wordIndex + 1);
+            }
+            newSkillBitSet[wordIndex] |= 1L << skillIndex;
+        }
+        skillBitSet = newSkillBitSet;
+    }
+
     @Override
     public String toString() {
         return name;
@@ -18,6 +18,7 @@ package org.optaplanner.openshift.employeerostering.shared.employee;
 
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
@@ -36,8 +37,20 @@ import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
                         " left join fetch ea.employee e left join fetch ea.timeSlot t" +
                         " where e.tenantId = :tenantId" +
                         " order by e.name, t.startDateTime"),
+        @NamedQuery(name = "EmployeeAvailability.findByStartDateTimeEndDateTime",
+                query = "select distinct ea from EmployeeAvailability ea" +
+                        " left join fetch ea.employee e left join fetch ea.timeSlot t" +
+                        " where ea.tenantId = :tenantId" +
+                        " and t.startDateTime < :endDateTime and t.endDateTime > :startDateTime" +
+                        " order by e.name, t.startDateTime"),
+        @NamedQuery(name = "EmployeeAvailability.findByIdList",
+                query = "select distinct ea from EmployeeAvailability ea" +
+                        " left join fetch ea.employee e left join fetch ea.timeSlot t" +
+                        " where ea.tenantId = :tenantId and ea.id in :employeeAvailabilityIdList" +
+                        " order by e.name, t.startDateTime"),
 })
-@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"tenantId", "employee_id", "timeSlot_id"}))
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"tenantId", "employee_id", "timeSlot_id"}),
+        indexes = @Index(columnList = "tenantId,timeSlot_id"))
 public class EmployeeAvailability extends AbstractPersistable {
 
     @NotNull
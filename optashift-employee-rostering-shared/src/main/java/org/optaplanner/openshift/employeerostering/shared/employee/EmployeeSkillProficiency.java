@@ -16,6 +16,7 @@
 
 package org.optaplanner.openshift.employeerostering.shared.employee;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.ManyToOne;
@@ -28,6 +29,7 @@ import org.optaplanner.openshift.employeerostering.shared.common.AbstractPersist
 import org.optaplanner.openshift.employeerostering.shared.skill.Skill;
 
 @Entity
+@Cacheable
 @Table(uniqueConstraints = @UniqueConstraint(columnNames = {"employee_id", "skill_id"}))
 public class EmployeeSkillProficiency extends AbstractPersistable {
 
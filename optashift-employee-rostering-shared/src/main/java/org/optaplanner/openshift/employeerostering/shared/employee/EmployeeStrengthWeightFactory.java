@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.shared.employee;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionSorterWeightFactory;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
+import org.optaplanner.openshift.employeerostering.shared.skill.Skill;
+
+/**
+ * An employee is stronger if its skills cover more shifts, so a weakest fit construction heuristic
+ * keeps the versatile employees free for the shifts that only they can do.
+ */
+public class EmployeeStrengthWeightFactory implements SelectionSorterWeightFactory<Roster, Employee> {
+
+    // Counted once per roster instead of once per employee
+    private Roster countedRoster = null;
+    private Map<Skill, Integer> skillToShiftCountMap;
+    private Map<Employee, Integer> employeeToUnavailableCountMap;
+
+    @Override
+    public synchronized EmployeeStrengthWeight createSorterWeight(Roster roster, Employee employee) {
+        if (roster != countedRoster) {
+            count(roster);
+        }
+        int coveredShiftCount = 0;
+        for (EmployeeSkillProficiency skillProficiency : employee.getSkillProficiencyList()) {
+            coveredShiftCount += skillToShiftCountMap.getOrDefault(skillProficiency.getSkill(), 0);
+        }
+        return new EmployeeStrengthWeight(employee, coveredShiftCount,
+                employeeToUnavailableCountMap.getOrDefault(employee, 0));
+    }
+
+    private void count(Roster roster) {
+        skillToShiftCountMap = new HashMap<>(roster.getSkillList().size());
+        for (Shift shift : roster.getShiftList()) {
+            skillToShiftCountMap.merge(shift.getSpot().getRequiredSkill(), 1, Integer::sum);
+        }
+        employeeToUnavailableCountMap = new HashMap<>(roster.getEmployeeList().size());
+        for (EmployeeAvailability employeeAvailability : roster.getEmployeeAvailabilityList()) {
+            if (employeeAvailability.getState() == EmployeeAvailabilityState.UNAVAILABLE) {
+                employeeToUnavailableCountMap.merge(employeeAvailability.getEmployee(), 1, Integer::sum);
+            }
+        }
+        countedRoster = roster;
+    }
+
+    public static class EmployeeStrengthWeight implements Comparable<EmployeeStrengthWeight> {
+
+        private static final Comparator<EmployeeStrengthWeight> COMPARATOR = Comparator
+                .comparingInt((EmployeeStrengthWeight weight) -> weight.coveredShiftCount)
+                // More unavailable time slots is weaker
+                .thenComparingInt(weight -> -weight.unavailableCount)
+                .thenComparing(weight -> weight.employee.getId());
+
+        private final Employee employee;
+        private final int coveredShiftCount;
+        private final int unavailableCount;
+
+        public EmployeeStrengthWeight(Employee employee, int coveredShiftCount, int unavailableCount) {
+            this.employee = employee;
+            this.coveredShiftCount = coveredShiftCount;
+            this.unavailableCount = unavailableCount;
+        }
+
+        @Override
+        public int compareTo(EmployeeStrengthWeight other) {
+            return COMPARATOR.compare(this, other);
+        }
+
+    }
+
+}
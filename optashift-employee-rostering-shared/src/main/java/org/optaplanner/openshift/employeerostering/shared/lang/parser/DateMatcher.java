@@ -32,6 +32,11 @@ public class DateMatcher<T> {
         this.replacement = replacement;
     }
 
+    private DateMatcher(List<DatePredicate> predicates, T replacement) {
+        this.predicates = predicates;
+        this.replacement = replacement;
+    }
+
     private void add(DatePredicate p) {
         predicates.add(p);
     }
@@ -41,7 +46,24 @@ public class DateMatcher<T> {
     }
 
     public boolean test(LocalDateTime date) {
-        return predicates.stream().allMatch((p) -> p.test(date));
+        // Called for every generated date, so no stream
+        for (int i = 0; i < predicates.size(); i++) {
+            if (!predicates.get(i).test(date)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Shares the parsed predicates, so a DateMatcher expression can be parsed once and reused with several
+     * replacements.
+     * 
+     * @param replacement The replacement of the new DateMatcher
+     * @return A new DateMatcher that matches the same dates as this one, with {@code replacement}
+     */
+    public <R> DateMatcher<R> withReplacement(R replacement) {
+        return new DateMatcher<>(predicates, replacement);
     }
 
     /**
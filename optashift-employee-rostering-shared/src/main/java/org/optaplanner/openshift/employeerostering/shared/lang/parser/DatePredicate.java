@@ -31,7 +31,9 @@ public interface DatePredicate {
     boolean test(LocalDateTime date);
 
     /**
-     * Creates a {@link DatePredicate} from a DatePredicate Expression as described in  {@link DatePredicate}
+     * Creates a {@link DatePredicate} from a DatePredicate Expression as described in  {@link DatePredicate}.
+     * The expression is compiled once: every E, W, D, d and m predicate, and every disjunction and negation of them,
+     * becomes a single {@link DatePredicateMask}, so testing a date doesn't walk a chain of predicates.
      * 
      * @param subexpr The DatePredicate expression to create the {@link DatePredicate} from
      * @return The {@link DatePredicate} which tests the DatePredicate Expression
@@ -55,7 +57,7 @@ public interface DatePredicate {
                 }
                 dayOfMonth = Integer.parseInt(dateParts[0]);
                 month = Integer.parseInt(dateParts[1]);
-                return (d) -> d.getDayOfMonth() == dayOfMonth && d.getMonthValue() == month;
+                return DatePredicateMask.exactDate(dayOfMonth, month);
 
             //Match before (n+1)th dayOfWeek of month (dayOfWeek:n) 
             case 'W':
@@ -65,46 +67,60 @@ public interface DatePredicate {
                 }
                 DayOfWeek base = DayOfWeek.valueOf(dateParts[0]);
                 week = Integer.parseInt(dateParts[1]);
-
-                return (d) -> {
-                    int mdayOfMonth = d.getDayOfMonth();
-                    LocalDateTime firstDayOfMonth = d.minusDays(mdayOfMonth - 1);
-                    int offset = Math.abs((firstDayOfMonth.getDayOfWeek().getValue() - base.getValue() - 2) % 7);
-                    return ((mdayOfMonth + offset) / 7) == week - 1;
-                };
+                return DatePredicateMask.dayOfWeekOfWeekOfMonth(base, week);
 
             //Match day = dayOfWeek
             case 'D':
                 dayOfWeek = DayOfWeek.valueOf(predicate);
-                return (d) -> dayOfWeek.equals(d.getDayOfWeek());
+                return DatePredicateMask.dayOfWeek(dayOfWeek);
 
             //Match day = dayOfMonth
             case 'd':
                 dayOfMonth = Integer.parseInt(predicate);
-                return (d) -> dayOfMonth == d.getDayOfMonth();
+                return DatePredicateMask.dayOfMonth(dayOfMonth);
 
             //Match date.month = month
             case 'm':
                 month = Integer.parseInt(predicate);
-                return (d) -> month == d.getMonthValue();
+                return DatePredicateMask.month(month);
 
             //Logical disjunct of several DatePredicate
             case 'M':
                 dateParts = predicate.split("\\|");
-                out = (d) -> false;//Identity for OR is false
-                for (String disjunct : dateParts) {
-                    DatePredicate disjunctPredicate = parse(disjunct);
-                    DatePredicate clone = out;
-                    out = (d) -> clone.test(d) || disjunctPredicate.test(d);
+                DatePredicate[] disjuncts = new DatePredicate[dateParts.length];
+                DatePredicateMask mergedMask = null;
+                boolean mergeable = true;
+                for (int i = 0; i < dateParts.length; i++) {
+                    disjuncts[i] = parse(dateParts[i]);
+                    if (mergeable && disjuncts[i] instanceof DatePredicateMask
+                            && !((DatePredicateMask) disjuncts[i]).isNegated()) {
+                        mergedMask = (null == mergedMask) ? (DatePredicateMask) disjuncts[i]
+                                : mergedMask.or((DatePredicateMask) disjuncts[i]);
+                    } else {
+                        mergeable = false;
+                    }
+                }
+                if (mergeable && null != mergedMask) {
+                    return mergedMask;
                 }
-                return out;
+                return (d) -> {
+                    for (DatePredicate disjunct : disjuncts) {
+                        if (disjunct.test(d)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                };
 
             //Negation
             case '!':
-                out = parse(predicate); {
-                DatePredicate clone = out;
-                return (d) -> !clone.test(d);
-            } //To hide scope, since cases don't, which is VERY ANNOYING
+                out = parse(predicate);
+                if (out instanceof DatePredicateMask) {
+                    return ((DatePredicateMask) out).negate();
+                } else {
+                    DatePredicate clone = out;
+                    return (d) -> !clone.test(d);
+                }
 
             default:
                 throw new ParserException("Badly formated predicate");
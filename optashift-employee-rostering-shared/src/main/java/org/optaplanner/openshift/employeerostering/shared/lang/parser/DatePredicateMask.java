@@ -0,0 +1,148 @@
+package org.optaplanner.openshift.employeerostering.shared.lang.parser;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+
+/**
+ * A disjunction of E, W, D, d and m {@link DatePredicate}s, optionally negated, compiled to bit masks.
+ * Testing a date costs a few array lookups, however many disjuncts it has, and allocates nothing.
+ * Immutable.
+ */
+final class DatePredicateMask implements DatePredicate {
+
+    /**
+     * Bit n is set if a date on the nth day of the week (1 is Monday) matches
+     */
+    private final int dayOfWeekMask;
+    /**
+     * Bit n is set if a date on the nth day of any month matches
+     */
+    private final int dayOfMonthMask;
+    /**
+     * Bit n is set if a date in the nth month matches
+     */
+    private final int monthMask;
+    /**
+     * Indexed by month, bit n is set if a date on the nth day of that month matches
+     */
+    private final int[] monthToDayOfMonthMask;
+    /**
+     * Indexed by the day of the week of the first day of the month,
+     * bit n is set if a date on the nth day of that month matches
+     */
+    private final int[] firstDayOfWeekToDayOfMonthMask;
+    private final boolean negated;
+
+    private DatePredicateMask(int dayOfWeekMask, int dayOfMonthMask, int monthMask, int[] monthToDayOfMonthMask,
+            int[] firstDayOfWeekToDayOfMonthMask, boolean negated) {
+        this.dayOfWeekMask = dayOfWeekMask;
+        this.dayOfMonthMask = dayOfMonthMask;
+        this.monthMask = monthMask;
+        this.monthToDayOfMonthMask = monthToDayOfMonthMask;
+        this.firstDayOfWeekToDayOfMonthMask = firstDayOfWeekToDayOfMonthMask;
+        this.negated = negated;
+    }
+
+    private DatePredicateMask() {
+        this(0, 0, 0, new int[13], new int[8], false);
+    }
+
+    /**
+     * @param dayOfMonth out of range never matches
+     * @param month out of range never matches
+     * @return never null
+     */
+    static DatePredicateMask exactDate(int dayOfMonth, int month) {
+        DatePredicateMask mask = new DatePredicateMask();
+        if (isMonth(month)) {
+            mask.monthToDayOfMonthMask[month] = bit(dayOfMonth, 31);
+        }
+        return mask;
+    }
+
+    /**
+     * @param dayOfWeek never null
+     * @param week 1 is the first week
+     * @return never null
+     */
+    static DatePredicateMask dayOfWeekOfWeekOfMonth(DayOfWeek dayOfWeek, int week) {
+        DatePredicateMask mask = new DatePredicateMask();
+        for (int firstDayOfWeek = 1; firstDayOfWeek <= 7; firstDayOfWeek++) {
+            // Same week numbering as before this was compiled to a table
+            int offset = Math.abs((firstDayOfWeek - dayOfWeek.getValue() - 2) % 7);
+            for (int dayOfMonth = 1; dayOfMonth <= 31; dayOfMonth++) {
+                if ((dayOfMonth + offset) / 7 == week - 1) {
+                    mask.firstDayOfWeekToDayOfMonthMask[firstDayOfWeek] |= 1 << dayOfMonth;
+                }
+            }
+        }
+        return mask;
+    }
+
+    static DatePredicateMask dayOfWeek(DayOfWeek dayOfWeek) {
+        return new DatePredicateMask(1 << dayOfWeek.getValue(), 0, 0, new int[13], new int[8], false);
+    }
+
+    static DatePredicateMask dayOfMonth(int dayOfMonth) {
+        return new DatePredicateMask(0, bit(dayOfMonth, 31), 0, new int[13], new int[8], false);
+    }
+
+    static DatePredicateMask month(int month) {
+        return new DatePredicateMask(0, 0, bit(month, 12), new int[13], new int[8], false);
+    }
+
+    private static boolean isMonth(int month) {
+        return 1 <= month && month <= 12;
+    }
+
+    private static int bit(int value, int maximum) {
+        return (1 <= value && value <= maximum) ? 1 << value : 0;
+    }
+
+    boolean isNegated() {
+        return negated;
+    }
+
+    /**
+     * @param other never null, not negated, just like this
+     * @return never null, matches if this or other matches
+     */
+    DatePredicateMask or(DatePredicateMask other) {
+        int[] mergedMonthToDayOfMonthMask = new int[13];
+        for (int i = 0; i < mergedMonthToDayOfMonthMask.length; i++) {
+            mergedMonthToDayOfMonthMask[i] = monthToDayOfMonthMask[i] | other.monthToDayOfMonthMask[i];
+        }
+        int[] mergedFirstDayOfWeekToDayOfMonthMask = new int[8];
+        for (int i = 0; i < mergedFirstDayOfWeekToDayOfMonthMask.length; i++) {
+            mergedFirstDayOfWeekToDayOfMonthMask[i] = firstDayOfWeekToDayOfMonthMask[i]
+                    | other.firstDayOfWeekToDayOfMonthMask[i];
+        }
+        return new DatePredicateMask(dayOfWeekMask | other.dayOfWeekMask, dayOfMonthMask | other.dayOfMonthMask,
+                monthMask | other.monthMask, mergedMonthToDayOfMonthMask, mergedFirstDayOfWeekToDayOfMonthMask,
+                false);
+    }
+
+    /**
+     * @return never null
+     */
+    DatePredicateMask negate() {
+        return new DatePredicateMask(dayOfWeekMask, dayOfMonthMask, monthMask, monthToDayOfMonthMask,
+                firstDayOfWeekToDayOfMonthMask, !negated);
+    }
+
+    @Override
+    public boolean test(LocalDateTime date) {
+        int dayOfWeek = date.getDayOfWeek().getValue();
+        int dayOfMonth = date.getDayOfMonth();
+        int month = date.getMonthValue();
+        int firstDayOfWeek = ((dayOfWeek - dayOfMonth) % 7 + 7) % 7 + 1;
+        int dayOfMonthBit = 1 << dayOfMonth;
+        boolean matches = (dayOfWeekMask & (1 << dayOfWeek)) != 0
+                || (dayOfMonthMask & dayOfMonthBit) != 0
+                || (monthMask & (1 << month)) != 0
+                || (monthToDayOfMonthMask[month] & dayOfMonthBit) != 0
+                || (firstDayOfWeekToDayOfMonthMask[firstDayOfWeek] & dayOfMonthBit) != 0;
+        return matches != negated;
+    }
+
+}
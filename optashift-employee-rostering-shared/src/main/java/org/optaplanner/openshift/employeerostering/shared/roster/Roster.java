@@ -16,7 +16,14 @@
 
 package org.optaplanner.openshift.employeerostering.shared.roster;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
@@ -25,15 +32,16 @@ import org.optaplanner.core.api.domain.solution.PlanningScore;
 import org.optaplanner.core.api.domain.solution.PlanningSolution;
 import org.optaplanner.core.api.domain.solution.drools.ProblemFactCollectionProperty;
 import org.optaplanner.core.api.domain.solution.drools.ProblemFactProperty;
-import org.optaplanner.core.api.domain.valuerange.ValueRangeProvider;
 import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
 import org.optaplanner.openshift.employeerostering.shared.common.AbstractPersistable;
 import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
 import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailability;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailabilityState;
 import org.optaplanner.openshift.employeerostering.shared.shift.Shift;
 import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
 import org.optaplanner.openshift.employeerostering.shared.skill.Skill;
 import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
+import org.optaplanner.openshift.employeerostering.shared.spot.SpotGroup;
 import org.optaplanner.openshift.employeerostering.shared.tenant.TenantConfiguration;
 
 @PlanningSolution
@@ -43,8 +51,10 @@ public class Roster extends AbstractPersistable {
     private List<Skill> skillList;
     @ProblemFactCollectionProperty
     private List<Spot> spotList;
+    // Not a problem fact: only used to partition the roster
+    private List<SpotGroup> spotGroupList = Collections.emptyList();
+    // Not a value range, every shift has its own, see buildEmployeeRanges()
     @ProblemFactCollectionProperty
-    @ValueRangeProvider(id = "employeeRange")
     private List<Employee> employeeList;
     @ProblemFactCollectionProperty
     private List<TimeSlot> timeSlotList;
@@ -76,6 +86,193 @@ public class Roster extends AbstractPersistable {
         this.shiftList = shiftList;
     }
 
+    /**
+     * Gives every {@link Skill} a dense index, so {@link Employee#hasSkill(Skill)} is a single bit test.
+     * Call this once per solve and again after a problem fact change that affects skills or skill proficiencies.
+     */
+    public void indexSkills() {
+        for (int i = 0; i < skillList.size(); i++) {
+            skillList.get(i).setIndex(i);
+        }
+        for (Employee employee : employeeList) {
+            employee.indexSkills();
+        }
+    }
+
+    /**
+     * Gives every {@link Shift} the employees it can be assigned to, see {@link Shift#getEmployeeRange()}.
+     * If {@link TenantConfiguration#getEmployeeRangeFiltered()}, those are only the employees
+     * that have the required skill of its spot and aren't unavailable for its time slot,
+     * so the solver doesn't waste time on moves that break those hard constraints.
+     * A shift that no employee fits, can still be assigned to any employee.
+     * Call this once per solve, after {@link #indexSkills()}, and again after a problem fact change
+     * that adds a shift or affects employees, skills, skill proficiencies or employee availabilities.
+     */
+    public void buildEmployeeRanges() {
+        // By identity, because most shifts share their range with other shifts
+        Map<List<Employee>, Set<Employee>> employeeRangeToSetMap = new IdentityHashMap<>();
+        if (tenantConfiguration != null && !tenantConfiguration.getEmployeeRangeFiltered()) {
+            for (Shift shift : shiftList) {
+                setEmployeeRange(shift, employeeList, employeeRangeToSetMap);
+            }
+            return;
+        }
+        Map<TimeSlot, Set<Employee>> timeSlotToUnavailableEmployeeSetMap = new HashMap<>();
+        for (EmployeeAvailability employeeAvailability : employeeAvailabilityList) {
+            if (employeeAvailability.getState() == EmployeeAvailabilityState.UNAVAILABLE) {
+                timeSlotToUnavailableEmployeeSetMap
+                        .computeIfAbsent(employeeAvailability.getTimeSlot(), k -> new HashSet<>())
+                        .add(employeeAvailability.getEmployee());
+            }
+        }
+        Map<Skill, List<Employee>> skillToEmployeeListMap = new HashMap<>(skillList.size());
+        // The shifts of the same skill and time slot share their range
+        Map<Skill, Map<TimeSlot, List<Employee>>> skillToTimeSlotToEmployeeRangeMap = new HashMap<>(
+                skillList.size());
+        for (Shift shift : shiftList) {
+            Skill requiredSkill = shift.getSpot().getRequiredSkill();
+            TimeSlot timeSlot = shift.getTimeSlot();
+            List<Employee> employeeRange = skillToTimeSlotToEmployeeRangeMap
+                    .computeIfAbsent(requiredSkill, k -> new HashMap<>())
+                    .computeIfAbsent(timeSlot, k -> {
+                        List<Employee> skilledEmployeeList = skillToEmployeeListMap.computeIfAbsent(requiredSkill,
+                                skill -> filterSkilledEmployees(skill));
+                        Set<Employee> unavailableEmployeeSet = timeSlotToUnavailableEmployeeSetMap.get(timeSlot);
+                        if (unavailableEmployeeSet == null) {
+                            return skilledEmployeeList;
+                        }
+                        List<Employee> availableEmployeeList = new ArrayList<>(skilledEmployeeList.size());
+                        for (Employee employee : skilledEmployeeList) {
+                            if (!unavailableEmployeeSet.contains(employee)) {
+                                availableEmployeeList.add(employee);
+                            }
+                        }
+                        return availableEmployeeList;
+                    });
+            // Leave it to the score to pick the least bad employee
+            setEmployeeRange(shift, employeeRange.isEmpty() ? employeeList : employeeRange, employeeRangeToSetMap);
+        }
+    }
+
+    /**
+     * Gives a single added or moved shift its employee range, like {@link #buildEmployeeRanges()},
+     * without rebuilding the ranges of the other shifts.
+     * @param shift never null
+     */
+    public void buildEmployeeRange(Shift shift) {
+        if (tenantConfiguration != null && !tenantConfiguration.getEmployeeRangeFiltered()) {
+            shift.setEmployeeRange(employeeList, new HashSet<>(employeeList));
+            return;
+        }
+        TimeSlot timeSlot = shift.getTimeSlot();
+        Set<Employee> unavailableEmployeeSet = new HashSet<>();
+        for (EmployeeAvailability employeeAvailability : employeeAvailabilityList) {
+            if (employeeAvailability.getState() == EmployeeAvailabilityState.UNAVAILABLE
+                    && employeeAvailability.getTimeSlot().equals(timeSlot)) {
+                unavailableEmployeeSet.add(employeeAvailability.getEmployee());
+            }
+        }
+        Skill requiredSkill = shift.getSpot().getRequiredSkill();
+        List<Employee> employeeRange = new ArrayList<>();
+        for (Employee employee : employeeList) {
+            if (employee.hasSkill(requiredSkill) && !unavailableEmployeeSet.contains(employee)) {
+                employeeRange.add(employee);
+            }
+        }
+        if (employeeRange.isEmpty()) {
+            employeeRange = employeeList;
+        }
+        shift.setEmployeeRange(employeeRange, new HashSet<>(employeeRange));
+    }
+
+    /**
+     * Updates the employee ranges after a single employee was added, changed or removed,
+     * or after one of its employee availabilities changed, like {@link #buildEmployeeRanges()},
+     * but only adds that employee to (or removes it from) the ranges of the shifts.
+     * A range is never changed in place, because the best solution shares it,
+     * and the shifts that shared a range still share one afterwards.
+     * @param oldEmployeeList never null, the {@link #getEmployeeList()} before the change,
+     * which is the range of a shift that no employee fits
+     * @param employee never null, in {@link #getEmployeeList()} unless it was removed
+     */
+    public void updateEmployeeRanges(List<Employee> oldEmployeeList, Employee employee) {
+        // By identity, because most shifts share their range with other shifts
+        Map<List<Employee>, Set<Employee>> employeeRangeToSetMap = new IdentityHashMap<>();
+        if (tenantConfiguration != null && !tenantConfiguration.getEmployeeRangeFiltered()) {
+            for (Shift shift : shiftList) {
+                setEmployeeRange(shift, employeeList, employeeRangeToSetMap);
+            }
+            return;
+        }
+        boolean removed = !employeeList.contains(employee);
+        Set<TimeSlot> unavailableTimeSlotSet = new HashSet<>();
+        for (EmployeeAvailability employeeAvailability : employeeAvailabilityList) {
+            if (employeeAvailability.getState() == EmployeeAvailabilityState.UNAVAILABLE
+                    && employeeAvailability.getEmployee().equals(employee)) {
+                unavailableTimeSlotSet.add(employeeAvailability.getTimeSlot());
+            }
+        }
+        Map<List<Employee>, List<Employee>> oldToFittingRangeMap = new IdentityHashMap<>();
+        Map<List<Employee>, List<Employee>> oldToUnfittingRangeMap = new IdentityHashMap<>();
+        for (Shift shift : shiftList) {
+            List<Employee> oldRange = shift.getEmployeeRange();
+            if (oldRange == null) {
+                buildEmployeeRange(shift);
+                continue;
+            }
+            // An unchanged range keeps its set
+            employeeRangeToSetMap.putIfAbsent(oldRange, shift.getEmployeeRangeSet());
+            boolean fits = !removed && employee.hasSkill(shift.getSpot().getRequiredSkill())
+                    && !unavailableTimeSlotSet.contains(shift.getTimeSlot());
+            List<Employee> employeeRange = (fits ? oldToFittingRangeMap : oldToUnfittingRangeMap).computeIfAbsent(
+                    oldRange, k -> updateEmployeeRange(oldRange, oldRange == oldEmployeeList, employee, fits));
+            setEmployeeRange(shift, employeeRange, employeeRangeToSetMap);
+        }
+    }
+
+    private static void setEmployeeRange(Shift shift, List<Employee> employeeRange,
+            Map<List<Employee>, Set<Employee>> employeeRangeToSetMap) {
+        shift.setEmployeeRange(employeeRange,
+                employeeRangeToSetMap.computeIfAbsent(employeeRange, k -> new HashSet<>(employeeRange)));
+    }
+
+    private List<Employee> updateEmployeeRange(List<Employee> oldRange, boolean noEmployeeFitted, Employee employee,
+            boolean fits) {
+        if (fits) {
+            if (noEmployeeFitted) {
+                List<Employee> employeeRange = new ArrayList<>(1);
+                employeeRange.add(employee);
+                return employeeRange;
+            }
+            if (oldRange.contains(employee)) {
+                return oldRange;
+            }
+            List<Employee> employeeRange = new ArrayList<>(oldRange.size() + 1);
+            employeeRange.addAll(oldRange);
+            employeeRange.add(employee);
+            return employeeRange;
+        }
+        if (noEmployeeFitted) {
+            return employeeList;
+        }
+        if (!oldRange.contains(employee)) {
+            return oldRange;
+        }
+        List<Employee> employeeRange = new ArrayList<>(oldRange);
+        employeeRange.remove(employee);
+        return employeeRange.isEmpty() ? employeeList : employeeRange;
+    }
+
+    private List<Employee> filterSkilledEmployees(Skill skill) {
+        List<Employee> skilledEmployeeList = new ArrayList<>();
+        for (Employee employee : employeeList) {
+            if (employee.hasSkill(skill)) {
+                skilledEmployeeList.add(employee);
+            }
+        }
+        return skilledEmployeeList;
+    }
+
     // ************************************************************************
     // Simple getters and setters
     // ************************************************************************
@@ -96,6 +293,14 @@ public class Roster extends AbstractPersistable {
         this.spotList = spotList;
     }
 
+    public List<SpotGroup> getSpotGroupList() {
+        return spotGroupList;
+    }
+
+    public void setSpotGroupList(List<SpotGroup> spotGroupList) {
+        this.spotGroupList = spotGroupList;
+    }
+
     public List<Employee> getEmployeeList() {
         return employeeList;
     }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.shared.roster;
+
+/**
+ * How a large {@link Roster} is split into parts that are solved in parallel.
+ */
+public enum RosterPartitionStrategy {
+    /**
+     * Every part has its own employees, so no constraint spans 2 parts.
+     */
+    EMPLOYEE,
+    /**
+     * Every part has a range of consecutive weeks (starting on the tenant's week start).
+     * Only the rest time between the last and first shifts of 2 parts is fixed afterwards.
+     */
+    WEEK,
+    /**
+     * Every part has the shifts of some spot groups. Spots that are not in a spot group are grouped by spot.
+     */
+    SPOT_GROUP
+}
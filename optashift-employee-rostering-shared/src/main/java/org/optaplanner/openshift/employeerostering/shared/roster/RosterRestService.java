@@ -2,6 +2,7 @@ package org.optaplanner.openshift.employeerostering.shared.roster;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
@@ -13,7 +14,10 @@ import javax.ws.rs.core.MediaType;
 
 import com.github.nmorel.gwtjackson.rest.processor.GenRestBuilder;
 import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.CompactRosterView;
 import org.optaplanner.openshift.employeerostering.shared.roster.view.EmployeeRosterView;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.RosterChangesView;
+import org.optaplanner.openshift.employeerostering.shared.roster.view.SolverStatusView;
 import org.optaplanner.openshift.employeerostering.shared.roster.view.SpotRosterView;
 import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
 
@@ -39,6 +43,33 @@ public interface RosterRestService {
             @QueryParam("startDate") String startDateString, @QueryParam("endDate") String endDateString,
             List<Spot> spots);
 
+    /**
+     * Same as {@link #getCurrentSpotRosterView(Integer)}, but a lot smaller for large rosters.
+     * @param tenantId never null
+     * @return never null, decode it with
+     * {@link org.optaplanner.openshift.employeerostering.shared.roster.view.CompactRosterViewUtils#toSpotRosterView(CompactRosterView)}
+     */
+    @GET
+    @Path("/spotRosterView/current/compact")
+    CompactRosterView getCurrentCompactSpotRosterView(@PathParam("tenantId") Integer tenantId);
+
+    /**
+     * @see #getCurrentCompactSpotRosterView(Integer)
+     */
+    @GET
+    @Path("/spotRosterView/compact")
+    CompactRosterView getCompactSpotRosterView(@PathParam("tenantId") Integer tenantId,
+            @QueryParam("startDate") String startDateString, @QueryParam("endDate") String endDateString);
+
+    /**
+     * @see #getCurrentCompactSpotRosterView(Integer)
+     */
+    @POST
+    @Path("/spotRosterView/for/compact")
+    CompactRosterView getCompactSpotRosterViewFor(@PathParam("tenantId") Integer tenantId,
+            @QueryParam("startDate") String startDateString, @QueryParam("endDate") String endDateString,
+            List<Spot> spots);
+
     @GET
     @Path("/employeeRosterView/current")
     EmployeeRosterView getCurrentEmployeeRosterView(@PathParam("tenantId") Integer tenantId);
@@ -54,18 +85,77 @@ public interface RosterRestService {
             @QueryParam("startDate") String startDateString, @QueryParam("endDate") String endDateString,
             List<Employee> employees);
 
+    /**
+     * Same as {@link #getCurrentEmployeeRosterView(Integer)}, but a lot smaller for large rosters.
+     * @param tenantId never null
+     * @return never null, decode it with
+     * {@link org.optaplanner.openshift.employeerostering.shared.roster.view.CompactRosterViewUtils#toEmployeeRosterView(CompactRosterView)}
+     */
+    @GET
+    @Path("/employeeRosterView/current/compact")
+    CompactRosterView getCurrentCompactEmployeeRosterView(@PathParam("tenantId") Integer tenantId);
+
+    /**
+     * @see #getCurrentCompactEmployeeRosterView(Integer)
+     */
+    @GET
+    @Path("/employeeRosterView/compact")
+    CompactRosterView getCompactEmployeeRosterView(@PathParam("tenantId") Integer tenantId,
+            @QueryParam("startDate") String startDateString, @QueryParam("endDate") String endDateString);
+
+    /**
+     * @see #getCurrentCompactEmployeeRosterView(Integer)
+     */
+    @POST
+    @Path("/employeeRosterView/for/compact")
+    CompactRosterView getCompactEmployeeRosterViewFor(@PathParam("tenantId") Integer tenantId,
+            @QueryParam("startDate") String startDateString, @QueryParam("endDate") String endDateString,
+            List<Employee> employees);
+
+    /**
+     * Cheaper than reloading the roster view while it changes, for example while solving.
+     * @param tenantId never null
+     * @param revision sometimes null, the revision of the roster view or of the previous changes
+     * @return never null, the shifts and employee availabilities that changed since that revision
+     */
+    @GET
+    @Path("/changes")
+    RosterChangesView getRosterChangesSince(@PathParam("tenantId") Integer tenantId,
+            @QueryParam("revision") Long revision);
+
     @POST
     @Path("/solve")
     void solveRoster(@PathParam("tenantId") Integer tenantId);
 
+    /**
+     * Solves a roster starting from its current assignments, reassigning only the shifts
+     * that are unassigned or break a hard constraint. Faster than {@link #solveRoster(Integer)} after a small change.
+     * @param tenantId never null
+     */
+    @POST
+    @Path("/repair")
+    void repairRoster(@PathParam("tenantId") Integer tenantId);
+
     @POST
     @Path("/terminate")
     void terminateRosterEarly(@PathParam("tenantId") Integer tenantId);
 
+    /**
+     * @param tenantId never null
+     * @return never null, includes the queue position while the roster waits for a free solver thread
+     */
+    @GET
+    @Path("/solverStatus")
+    SolverStatusView getSolverStatus(@PathParam("tenantId") Integer tenantId);
+
     // Not a REST method
     Roster buildRoster(Integer tenantId);
 
-    // Not a REST method
-    void updateShiftsOfRoster(Roster newRoster);
+    /**
+     * Not a REST method
+     * @param tenantId never null
+     * @param shiftIdToEmployeeIdMap never null, only the shifts that changed, a null employeeId unassigns the shift
+     */
+    void updateShiftEmployees(Integer tenantId, Map<Long, Long> shiftIdToEmployeeIdMap);
 
 }
@@ -14,7 +14,7 @@
  * limitations under the License.
  */
 
-package org.optaplanner.openshift.employeerostering.server.solver;
+package org.optaplanner.openshift.employeerostering.shared.roster;
 
 public enum SolverStatus {
     SCHEDULED,
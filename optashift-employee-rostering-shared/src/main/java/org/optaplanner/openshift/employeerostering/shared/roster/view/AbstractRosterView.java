@@ -14,6 +14,7 @@ import org.optaplanner.openshift.employeerostering.shared.jackson.LocalDateDeser
 
 import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
 import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.roster.RosterRestService;
 import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
 import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
 import org.optaplanner.persistence.jackson.api.score.ScoreJacksonJsonSerializer;
@@ -34,6 +35,11 @@ public class AbstractRosterView implements Serializable {
     @NotNull
     protected List<TimeSlot> timeSlotList;
 
+    /**
+     * Pass to {@link RosterRestService#getRosterChangesSince(Integer, Long)} to poll for the later changes.
+     */
+    protected Long revision = null;
+
     private HardSoftScore score = null;
 
     @Override
@@ -99,6 +105,14 @@ public class AbstractRosterView implements Serializable {
         this.timeSlotList = timeSlotList;
     }
 
+    public Long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Long revision) {
+        this.revision = revision;
+    }
+
     @JsonSerialize(using = ScoreJacksonJsonSerializer.class)
     @JsonDeserialize(using = HardSoftScoreJacksonJsonDeserializer.class)
     public HardSoftScore getScore() {
@@ -0,0 +1,458 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.shared.roster.view;
+
+import java.io.Serializable;
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
+import org.optaplanner.persistence.jackson.api.score.ScoreJacksonJsonSerializer;
+import org.optaplanner.persistence.jackson.api.score.buildin.hardsoft.HardSoftScoreJacksonJsonDeserializer;
+
+/**
+ * A {@link SpotRosterView} or {@link EmployeeRosterView} flattened into parallel arrays, a column per property,
+ * for large rosters. Every spot, employee, skill and time slot is written once and referenced by its index,
+ * and time slots are epoch minutes instead of date time strings.
+ * Convert with {@link CompactRosterViewUtils}.
+ * The versions are -1 if null.
+ */
+public class CompactRosterView implements Serializable {
+
+    @NotNull
+    private Integer tenantId;
+    /**
+     * Days since 1970-01-01 of the first day (inclusive).
+     */
+    private long startEpochDay;
+    /**
+     * Days since 1970-01-01 of the last day (inclusive).
+     */
+    private long endEpochDay;
+
+    private Long revision;
+
+    private HardSoftScore score;
+
+    /**
+     * The skill dictionary: the skills required by the spots or held by the employees.
+     */
+    @NotNull
+    private long[] skillIds;
+    @NotNull
+    private long[] skillVersions;
+    @NotNull
+    private String[] skillNames;
+
+    @NotNull
+    private long[] spotIds;
+    @NotNull
+    private long[] spotVersions;
+    @NotNull
+    private String[] spotNames;
+    /**
+     * Index in {@link #skillIds}, -1 if no skill is required.
+     */
+    @NotNull
+    private int[] spotRequiredSkillIndexes;
+
+    @NotNull
+    private long[] employeeIds;
+    @NotNull
+    private long[] employeeVersions;
+    @NotNull
+    private String[] employeeNames;
+
+    @NotNull
+    private long[] skillProficiencyIds;
+    @NotNull
+    private long[] skillProficiencyVersions;
+    /**
+     * Index in {@link #employeeIds}.
+     */
+    @NotNull
+    private int[] skillProficiencyEmployeeIndexes;
+    /**
+     * Index in {@link #skillIds}.
+     */
+    @NotNull
+    private int[] skillProficiencySkillIndexes;
+
+    @NotNull
+    private long[] timeSlotIds;
+    @NotNull
+    private long[] timeSlotVersions;
+    /**
+     * Minutes since 1970-01-01T00:00, ignoring time zones, as {@link TimeSlot#getStartEpochMinute()}.
+     */
+    @NotNull
+    private long[] timeSlotStartEpochMinutes;
+    @NotNull
+    private long[] timeSlotEndEpochMinutes;
+    /**
+     * Ordinal of the {@link org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlotState}, -1 if null.
+     */
+    @NotNull
+    private int[] timeSlotStates;
+
+    @NotNull
+    private long[] shiftIds;
+    @NotNull
+    private long[] shiftVersions;
+    /**
+     * Index in {@link #timeSlotIds}.
+     */
+    @NotNull
+    private int[] shiftTimeSlotIndexes;
+    /**
+     * Index in {@link #spotIds}.
+     */
+    @NotNull
+    private int[] shiftSpotIndexes;
+    /**
+     * Index in {@link #employeeIds}, -1 if unassigned.
+     */
+    @NotNull
+    private int[] shiftEmployeeIndexes;
+    @NotNull
+    private boolean[] shiftLockedByUsers;
+
+    /**
+     * Empty for a {@link SpotRosterView}.
+     */
+    @NotNull
+    private long[] employeeAvailabilityIds;
+    @NotNull
+    private long[] employeeAvailabilityVersions;
+    /**
+     * Index in {@link #timeSlotIds}.
+     */
+    @NotNull
+    private int[] employeeAvailabilityTimeSlotIndexes;
+    /**
+     * Index in {@link #employeeIds}.
+     */
+    @NotNull
+    private int[] employeeAvailabilityEmployeeIndexes;
+    /**
+     * Ordinal of the {@link org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailabilityState}.
+     */
+    @NotNull
+    private int[] employeeAvailabilityStates;
+
+    @SuppressWarnings("unused")
+    public CompactRosterView() {
+    }
+
+    public CompactRosterView(Integer tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    @Override
+    public String toString() {
+        return tenantId + " " + revision;
+    }
+
+    // ************************************************************************
+    // Simple getters and setters
+    // ************************************************************************
+
+    public Integer getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(Integer tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public long getStartEpochDay() {
+        return startEpochDay;
+    }
+
+    public void setStartEpochDay(long startEpochDay) {
+        this.startEpochDay = startEpochDay;
+    }
+
+    public long getEndEpochDay() {
+        return endEpochDay;
+    }
+
+    public void setEndEpochDay(long endEpochDay) {
+        this.endEpochDay = endEpochDay;
+    }
+
+    public Long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Long revision) {
+        this.revision = revision;
+    }
+
+    @JsonSerialize(using = ScoreJacksonJsonSerializer.class)
+    @JsonDeserialize(using = HardSoftScoreJacksonJsonDeserializer.class)
+    public HardSoftScore getScore() {
+        return score;
+    }
+
+    public void setScore(HardSoftScore score) {
+        this.score = score;
+    }
+
+    public long[] getSkillIds() {
+        return skillIds;
+    }
+
+    public void setSkillIds(long[] skillIds) {
+        this.skillIds = skillIds;
+    }
+
+    public long[] getSkillVersions() {
+        return skillVersions;
+    }
+
+    public void setSkillVersions(long[] skillVersions) {
+        this.skillVersions = skillVersions;
+    }
+
+    public String[] getSkillNames() {
+        return skillNames;
+    }
+
+    public void setSkillNames(String[] skillNames) {
+        this.skillNames = skillNames;
+    }
+
+    public long[] getSpotIds() {
+        return spotIds;
+    }
+
+    public void setSpotIds(long[] spotIds) {
+        this.spotIds = spotIds;
+    }
+
+    public long[] getSpotVersions() {
+        return spotVersions;
+    }
+
+    public void setSpotVersions(long[] spotVersions) {
+        this.spotVersions = spotVersions;
+    }
+
+    public String[] getSpotNames() {
+        return spotNames;
+    }
+
+    public void setSpotNames(String[] spotNames) {
+        this.spotNames = spotNames;
+    }
+
+    public int[] getSpotRequiredSkillIndexes() {
+        return spotRequiredSkillIndexes;
+    }
+
+    public void setSpotRequiredSkillIndexes(int[] spotRequiredSkillIndexes) {
+        this.spotRequiredSkillIndexes = spotRequiredSkillIndexes;
+    }
+
+    public long[] getEmployeeIds() {
+        return employeeIds;
+    }
+
+    public void setEmployeeIds(long[] employeeIds) {
+        this.employeeIds = employeeIds;
+    }
+
+    public long[] getEmployeeVersions() {
+        return employeeVersions;
+    }
+
+    public void setEmployeeVersions(long[] employeeVersions) {
+        this.employeeVersions = employeeVersions;
+    }
+
+    public String[] getEmployeeNames() {
+        return employeeNames;
+    }
+
+    public void setEmployeeNames(String[] employeeNames) {
+        this.employeeNames = employeeNames;
+    }
+
+    public long[] getSkillProficiencyIds() {
+        return skillProficiencyIds;
+    }
+
+    public void setSkillProficiencyIds(long[] skillProficiencyIds) {
+        this.skillProficiencyIds = skillProficiencyIds;
+    }
+
+    public long[] getSkillProficiencyVersions() {
+        return skillProficiencyVersions;
+    }
+
+    public void setSkillProficiencyVersions(long[] skillProficiencyVersions) {
+        this.skillProficiencyVersions = skillProficiencyVersions;
+    }
+
+    public int[] getSkillProficiencyEmployeeIndexes() {
+        return skillProficiencyEmployeeIndexes;
+    }
+
+    public void setSkillProficiencyEmployeeIndexes(int[] skillProficiencyEmployeeIndexes) {
+        this.skillProficiencyEmployeeIndexes = skillProficiencyEmployeeIndexes;
+    }
+
+    public int[] getSkillProficiencySkillIndexes() {
+        return skillProficiencySkillIndexes;
+    }
+
+    public void setSkillProficiencySkillIndexes(int[] skillProficiencySkillIndexes) {
+        this.skillProficiencySkillIndexes = skillProficiencySkillIndexes;
+    }
+
+    public long[] getTimeSlotIds() {
+        return timeSlotIds;
+    }
+
+    public void setTimeSlotIds(long[] timeSlotIds) {
+        this.timeSlotIds = timeSlotIds;
+    }
+
+    public long[] getTimeSlotVersions() {
+        return timeSlotVersions;
+    }
+
+    public void setTimeSlotVersions(long[] timeSlotVersions) {
+        this.timeSlotVersions = timeSlotVersions;
+    }
+
+    public long[] getTimeSlotStartEpochMinutes() {
+        return timeSlotStartEpochMinutes;
+    }
+
+    public void setTimeSlotStartEpochMinutes(long[] timeSlotStartEpochMinutes) {
+        this.timeSlotStartEpochMinutes = timeSlotStartEpochMinutes;
+    }
+
+    public long[] getTimeSlotEndEpochMinutes() {
+        return timeSlotEndEpochMinutes;
+    }
+
+    public void setTimeSlotEndEpochMinutes(long[] timeSlotEndEpochMinutes) {
+        this.timeSlotEndEpochMinutes = timeSlotEndEpochMinutes;
+    }
+
+    public int[] getTimeSlotStates() {
+        return timeSlotStates;
+    }
+
+    public void setTimeSlotStates(int[] timeSlotStates) {
+        this.timeSlotStates = timeSlotStates;
+    }
+
+    public long[] getShiftIds() {
+        return shiftIds;
+    }
+
+    public void setShiftIds(long[] shiftIds) {
+        this.shiftIds = shiftIds;
+    }
+
+    public long[] getShiftVersions() {
+        return shiftVersions;
+    }
+
+    public void setShiftVersions(long[] shiftVersions) {
+        this.shiftVersions = shiftVersions;
+    }
+
+    public int[] getShiftTimeSlotIndexes() {
+        return shiftTimeSlotIndexes;
+    }
+
+    public void setShiftTimeSlotIndexes(int[] shiftTimeSlotIndexes) {
+        this.shiftTimeSlotIndexes = shiftTimeSlotIndexes;
+    }
+
+    public int[] getShiftSpotIndexes() {
+        return shiftSpotIndexes;
+    }
+
+    public void setShiftSpotIndexes(int[] shiftSpotIndexes) {
+        this.shiftSpotIndexes = shiftSpotIndexes;
+    }
+
+    public int[] getShiftEmployeeIndexes() {
+        return shiftEmployeeIndexes;
+    }
+
+    public void setShiftEmployeeIndexes(int[] shiftEmployeeIndexes) {
+        this.shiftEmployeeIndexes = shiftEmployeeIndexes;
+    }
+
+    public boolean[] getShiftLockedByUsers() {
+        return shiftLockedByUsers;
+    }
+
+    public void setShiftLockedByUsers(boolean[] shiftLockedByUsers) {
+        this.shiftLockedByUsers = shiftLockedByUsers;
+    }
+
+    public long[] getEmployeeAvailabilityIds() {
+        return employeeAvailabilityIds;
+    }
+
+    public void setEmployeeAvailabilityIds(long[] employeeAvailabilityIds) {
+        this.employeeAvailabilityIds = employeeAvailabilityIds;
+    }
+
+    public long[] getEmployeeAvailabilityVersions() {
+        return employeeAvailabilityVersions;
+    }
+
+    public void setEmployeeAvailabilityVersions(long[] employeeAvailabilityVersions) {
+        this.employeeAvailabilityVersions = employeeAvailabilityVersions;
+    }
+
+    public int[] getEmployeeAvailabilityTimeSlotIndexes() {
+        return employeeAvailabilityTimeSlotIndexes;
+    }
+
+    public void setEmployeeAvailabilityTimeSlotIndexes(int[] employeeAvailabilityTimeSlotIndexes) {
+        this.employeeAvailabilityTimeSlotIndexes = employeeAvailabilityTimeSlotIndexes;
+    }
+
+    public int[] getEmployeeAvailabilityEmployeeIndexes() {
+        return employeeAvailabilityEmployeeIndexes;
+    }
+
+    public void setEmployeeAvailabilityEmployeeIndexes(int[] employeeAvailabilityEmployeeIndexes) {
+        this.employeeAvailabilityEmployeeIndexes = employeeAvailabilityEmployeeIndexes;
+    }
+
+    public int[] getEmployeeAvailabilityStates() {
+        return employeeAvailabilityStates;
+    }
+
+    public void setEmployeeAvailabilityStates(int[] employeeAvailabilityStates) {
+        this.employeeAvailabilityStates = employeeAvailabilityStates;
+    }
+
+}
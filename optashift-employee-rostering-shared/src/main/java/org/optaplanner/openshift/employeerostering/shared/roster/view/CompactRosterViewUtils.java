@@ -0,0 +1,474 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.shared.roster.view;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.optaplanner.openshift.employeerostering.shared.common.AbstractPersistable;
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailabilityState;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeSkillProficiency;
+import org.optaplanner.openshift.employeerostering.shared.employee.view.EmployeeAvailabilityView;
+import org.optaplanner.openshift.employeerostering.shared.shift.view.ShiftView;
+import org.optaplanner.openshift.employeerostering.shared.skill.Skill;
+import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
+import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
+import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlotState;
+
+/**
+ * Converts between the roster views and {@link CompactRosterView}.
+ * Used by the server to encode and by the browser to decode, so both sides agree on the format.
+ */
+public final class CompactRosterViewUtils {
+
+    private static final int NONE = -1;
+
+    private CompactRosterViewUtils() {
+    }
+
+    /**
+     * @param spotRosterView never null
+     * @return never null
+     */
+    public static CompactRosterView encode(SpotRosterView spotRosterView) {
+        CompactRosterView compactRosterView = new CompactRosterView(spotRosterView.getTenantId());
+        IdDictionary dictionary = encodeCommon(spotRosterView, compactRosterView);
+        List<ShiftView> shiftViewList = new ArrayList<>();
+        for (Map<Long, List<ShiftView>> spotIdMap : spotRosterView.getTimeSlotIdToSpotIdToShiftViewListMap()
+                .values()) {
+            for (List<ShiftView> shiftViewSubList : spotIdMap.values()) {
+                shiftViewList.addAll(shiftViewSubList);
+            }
+        }
+        encodeShifts(shiftViewList, dictionary, compactRosterView);
+        encodeEmployeeAvailabilities(Collections.emptyList(), dictionary, compactRosterView);
+        return compactRosterView;
+    }
+
+    /**
+     * @param employeeRosterView never null
+     * @return never null
+     */
+    public static CompactRosterView encode(EmployeeRosterView employeeRosterView) {
+        CompactRosterView compactRosterView = new CompactRosterView(employeeRosterView.getTenantId());
+        IdDictionary dictionary = encodeCommon(employeeRosterView, compactRosterView);
+        List<ShiftView> shiftViewList = new ArrayList<>();
+        for (Map<Long, List<ShiftView>> employeeIdMap : employeeRosterView
+                .getTimeSlotIdToEmployeeIdToShiftViewListMap().values()) {
+            for (List<ShiftView> shiftViewSubList : employeeIdMap.values()) {
+                shiftViewList.addAll(shiftViewSubList);
+            }
+        }
+        encodeShifts(shiftViewList, dictionary, compactRosterView);
+        List<EmployeeAvailabilityView> employeeAvailabilityViewList = new ArrayList<>();
+        for (Map<Long, EmployeeAvailabilityView> employeeIdMap : employeeRosterView
+                .getTimeSlotIdToEmployeeIdToAvailabilityViewMap().values()) {
+            employeeAvailabilityViewList.addAll(employeeIdMap.values());
+        }
+        encodeEmployeeAvailabilities(employeeAvailabilityViewList, dictionary, compactRosterView);
+        return compactRosterView;
+    }
+
+    private static IdDictionary encodeCommon(AbstractRosterView rosterView, CompactRosterView compactRosterView) {
+        compactRosterView.setStartEpochDay(rosterView.getStartDate().toEpochDay());
+        compactRosterView.setEndEpochDay(rosterView.getEndDate().toEpochDay());
+        compactRosterView.setRevision(rosterView.getRevision());
+        compactRosterView.setScore(rosterView.getScore());
+        IdDictionary dictionary = new IdDictionary();
+
+        // Only the skills that are referenced, in order of first reference
+        List<Skill> skillList = new ArrayList<>();
+        for (Spot spot : rosterView.getSpotList()) {
+            Skill requiredSkill = spot.getRequiredSkill();
+            if (requiredSkill != null && dictionary.skillIdToIndexMap.putIfAbsent(requiredSkill.getId(),
+                    skillList.size()) == null) {
+                skillList.add(requiredSkill);
+            }
+        }
+        List<EmployeeSkillProficiency> skillProficiencyList = new ArrayList<>();
+        for (Employee employee : rosterView.getEmployeeList()) {
+            for (EmployeeSkillProficiency skillProficiency : employee.getSkillProficiencyList()) {
+                Skill skill = skillProficiency.getSkill();
+                if (dictionary.skillIdToIndexMap.putIfAbsent(skill.getId(), skillList.size()) == null) {
+                    skillList.add(skill);
+                }
+                skillProficiencyList.add(skillProficiency);
+            }
+        }
+        int skillSize = skillList.size();
+        long[] skillIds = new long[skillSize];
+        long[] skillVersions = new long[skillSize];
+        String[] skillNames = new String[skillSize];
+        for (int i = 0; i < skillSize; i++) {
+            Skill skill = skillList.get(i);
+            skillIds[i] = skill.getId();
+            skillVersions[i] = encodeVersion(skill);
+            skillNames[i] = skill.getName();
+        }
+        compactRosterView.setSkillIds(skillIds);
+        compactRosterView.setSkillVersions(skillVersions);
+        compactRosterView.setSkillNames(skillNames);
+
+        List<Spot> spotList = rosterView.getSpotList();
+        int spotSize = spotList.size();
+        long[] spotIds = new long[spotSize];
+        long[] spotVersions = new long[spotSize];
+        String[] spotNames = new String[spotSize];
+        int[] spotRequiredSkillIndexes = new int[spotSize];
+        for (int i = 0; i < spotSize; i++) {
+            Spot spot = spotList.get(i);
+            spotIds[i] = spot.getId();
+            spotVersions[i] = encodeVersion(spot);
+            spotNames[i] = spot.getName();
+            spotRequiredSkillIndexes[i] = spot.getRequiredSkill() == null ? NONE
+                    : dictionary.skillIdToIndexMap.get(spot.getRequiredSkill().getId());
+            dictionary.spotIdToIndexMap.put(spot.getId(), i);
+        }
+        compactRosterView.setSpotIds(spotIds);
+        compactRosterView.setSpotVersions(spotVersions);
+        compactRosterView.setSpotNames(spotNames);
+        compactRosterView.setSpotRequiredSkillIndexes(spotRequiredSkillIndexes);
+
+        List<Employee> employeeList = rosterView.getEmployeeList();
+        int employeeSize = employeeList.size();
+        long[] employeeIds = new long[employeeSize];
+        long[] employeeVersions = new long[employeeSize];
+        String[] employeeNames = new String[employeeSize];
+        for (int i = 0; i < employeeSize; i++) {
+            Employee employee = employeeList.get(i);
+            employeeIds[i] = employee.getId();
+            employeeVersions[i] = encodeVersion(employee);
+            employeeNames[i] = employee.getName();
+            dictionary.employeeIdToIndexMap.put(employee.getId(), i);
+        }
+        compactRosterView.setEmployeeIds(employeeIds);
+        compactRosterView.setEmployeeVersions(employeeVersions);
+        compactRosterView.setEmployeeNames(employeeNames);
+
+        int skillProficiencySize = skillProficiencyList.size();
+        long[] skillProficiencyIds = new long[skillProficiencySize];
+        long[] skillProficiencyVersions = new long[skillProficiencySize];
+        int[] skillProficiencyEmployeeIndexes = new int[skillProficiencySize];
+        int[] skillProficiencySkillIndexes = new int[skillProficiencySize];
+        for (int i = 0; i < skillProficiencySize; i++) {
+            EmployeeSkillProficiency skillProficiency = skillProficiencyList.get(i);
+            skillProficiencyIds[i] = skillProficiency.getId();
+            skillProficiencyVersions[i] = encodeVersion(skillProficiency);
+            skillProficiencyEmployeeIndexes[i] = dictionary.employeeIdToIndexMap.get(
+                    skillProficiency.getEmployee().getId());
+            skillProficiencySkillIndexes[i] = dictionary.skillIdToIndexMap.get(skillProficiency.getSkill().getId());
+        }
+        compactRosterView.setSkillProficiencyIds(skillProficiencyIds);
+        compactRosterView.setSkillProficiencyVersions(skillProficiencyVersions);
+        compactRosterView.setSkillProficiencyEmployeeIndexes(skillProficiencyEmployeeIndexes);
+        compactRosterView.setSkillProficiencySkillIndexes(skillProficiencySkillIndexes);
+
+        List<TimeSlot> timeSlotList = rosterView.getTimeSlotList();
+        int timeSlotSize = timeSlotList.size();
+        long[] timeSlotIds = new long[timeSlotSize];
+        long[] timeSlotVersions = new long[timeSlotSize];
+        long[] timeSlotStartEpochMinutes = new long[timeSlotSize];
+        long[] timeSlotEndEpochMinutes = new long[timeSlotSize];
+        int[] timeSlotStates = new int[timeSlotSize];
+        for (int i = 0; i < timeSlotSize; i++) {
+            TimeSlot timeSlot = timeSlotList.get(i);
+            timeSlotIds[i] = timeSlot.getId();
+            timeSlotVersions[i] = encodeVersion(timeSlot);
+            timeSlotStartEpochMinutes[i] = timeSlot.getStartEpochMinute();
+            timeSlotEndEpochMinutes[i] = timeSlot.getEndEpochMinute();
+            timeSlotStates[i] = timeSlot.getTimeSlotState() == null ? NONE : timeSlot.getTimeSlotState().ordinal();
+            dictionary.timeSlotIdToIndexMap.put(timeSlot.getId(), i);
+        }
+        compactRosterView.setTimeSlotIds(timeSlotIds);
+        compactRosterView.setTimeSlotVersions(timeSlotVersions);
+        compactRosterView.setTimeSlotStartEpochMinutes(timeSlotStartEpochMinutes);
+        compactRosterView.setTimeSlotEndEpochMinutes(timeSlotEndEpochMinutes);
+        compactRosterView.setTimeSlotStates(timeSlotStates);
+        return dictionary;
+    }
+
+    private static void encodeShifts(List<ShiftView> shiftViewList, IdDictionary dictionary,
+            CompactRosterView compactRosterView) {
+        int shiftSize = shiftViewList.size();
+        long[] shiftIds = new long[shiftSize];
+        long[] shiftVersions = new long[shiftSize];
+        int[] shiftTimeSlotIndexes = new int[shiftSize];
+        int[] shiftSpotIndexes = new int[shiftSize];
+        int[] shiftEmployeeIndexes = new int[shiftSize];
+        boolean[] shiftLockedByUsers = new boolean[shiftSize];
+        for (int i = 0; i < shiftSize; i++) {
+            ShiftView shiftView = shiftViewList.get(i);
+            shiftIds[i] = shiftView.getId();
+            shiftVersions[i] = encodeVersion(shiftView);
+            shiftTimeSlotIndexes[i] = indexOf(dictionary.timeSlotIdToIndexMap, shiftView.getTimeSlotId(), "timeSlot",
+                    shiftView);
+            shiftSpotIndexes[i] = indexOf(dictionary.spotIdToIndexMap, shiftView.getSpotId(), "spot", shiftView);
+            shiftEmployeeIndexes[i] = shiftView.getEmployeeId() == null ? NONE
+                    : indexOf(dictionary.employeeIdToIndexMap, shiftView.getEmployeeId(), "employee", shiftView);
+            shiftLockedByUsers[i] = shiftView.isLockedByUser();
+        }
+        compactRosterView.setShiftIds(shiftIds);
+        compactRosterView.setShiftVersions(shiftVersions);
+        compactRosterView.setShiftTimeSlotIndexes(shiftTimeSlotIndexes);
+        compactRosterView.setShiftSpotIndexes(shiftSpotIndexes);
+        compactRosterView.setShiftEmployeeIndexes(shiftEmployeeIndexes);
+        compactRosterView.setShiftLockedByUsers(shiftLockedByUsers);
+    }
+
+    private static void encodeEmployeeAvailabilities(List<EmployeeAvailabilityView> employeeAvailabilityViewList,
+            IdDictionary dictionary, CompactRosterView compactRosterView) {
+        int employeeAvailabilitySize = employeeAvailabilityViewList.size();
+        long[] employeeAvailabilityIds = new long[employeeAvailabilitySize];
+        long[] employeeAvailabilityVersions = new long[employeeAvailabilitySize];
+        int[] employeeAvailabilityTimeSlotIndexes = new int[employeeAvailabilitySize];
+        int[] employeeAvailabilityEmployeeIndexes = new int[employeeAvailabilitySize];
+        int[] employeeAvailabilityStates = new int[employeeAvailabilitySize];
+        for (int i = 0; i < employeeAvailabilitySize; i++) {
+            EmployeeAvailabilityView employeeAvailabilityView = employeeAvailabilityViewList.get(i);
+            employeeAvailabilityIds[i] = employeeAvailabilityView.getId();
+            employeeAvailabilityVersions[i] = encodeVersion(employeeAvailabilityView);
+            employeeAvailabilityTimeSlotIndexes[i] = indexOf(dictionary.timeSlotIdToIndexMap,
+                    employeeAvailabilityView.getTimeSlotId(), "timeSlot", employeeAvailabilityView);
+            employeeAvailabilityEmployeeIndexes[i] = indexOf(dictionary.employeeIdToIndexMap,
+                    employeeAvailabilityView.getEmployeeId(), "employee", employeeAvailabilityView);
+            employeeAvailabilityStates[i] = employeeAvailabilityView.getState().ordinal();
+        }
+        compactRosterView.setEmployeeAvailabilityIds(employeeAvailabilityIds);
+        compactRosterView.setEmployeeAvailabilityVersions(employeeAvailabilityVersions);
+        compactRosterView.setEmployeeAvailabilityTimeSlotIndexes(employeeAvailabilityTimeSlotIndexes);
+        compactRosterView.setEmployeeAvailabilityEmployeeIndexes(employeeAvailabilityEmployeeIndexes);
+        compactRosterView.setEmployeeAvailabilityStates(employeeAvailabilityStates);
+    }
+
+    private static long encodeVersion(AbstractPersistable persistable) {
+        return persistable.getVersion() == null ? NONE : persistable.getVersion();
+    }
+
+    private static int indexOf(Map<Long, Integer> idToIndexMap, Long id, String type, Object referrer) {
+        Integer index = idToIndexMap.get(id);
+        if (index == null) {
+            throw new IllegalStateException("The " + type + "Id (" + id + ") of (" + referrer
+                    + ") is not in the roster view.");
+        }
+        return index;
+    }
+
+    /**
+     * @param compactRosterView never null, encoded from a {@link SpotRosterView}
+     * @return never null
+     */
+    public static SpotRosterView toSpotRosterView(CompactRosterView compactRosterView) {
+        Integer tenantId = compactRosterView.getTenantId();
+        SpotRosterView spotRosterView = new SpotRosterView(tenantId,
+                LocalDate.ofEpochDay(compactRosterView.getStartEpochDay()),
+                LocalDate.ofEpochDay(compactRosterView.getEndEpochDay()));
+        decodeCommon(compactRosterView, spotRosterView);
+        long[] timeSlotIds = compactRosterView.getTimeSlotIds();
+        long[] spotIds = compactRosterView.getSpotIds();
+        List<ShiftView> shiftViewList = decodeShifts(compactRosterView);
+        int[] shiftTimeSlotIndexes = compactRosterView.getShiftTimeSlotIndexes();
+        int[] shiftSpotIndexes = compactRosterView.getShiftSpotIndexes();
+        Map<Long, Map<Long, List<ShiftView>>> timeSlotIdToSpotIdToShiftViewListMap = new LinkedHashMap<>(
+                timeSlotIds.length);
+        for (int i = 0; i < shiftViewList.size(); i++) {
+            timeSlotIdToSpotIdToShiftViewListMap
+                    .computeIfAbsent(timeSlotIds[shiftTimeSlotIndexes[i]], k -> new LinkedHashMap<>(spotIds.length))
+                    .computeIfAbsent(spotIds[shiftSpotIndexes[i]], k -> new ArrayList<>(2))
+                    .add(shiftViewList.get(i));
+        }
+        spotRosterView.setTimeSlotIdToSpotIdToShiftViewListMap(timeSlotIdToSpotIdToShiftViewListMap);
+        return spotRosterView;
+    }
+
+    /**
+     * Unlike the server, puts a (possibly empty) employee map in both maps for every time slot.
+     * @param compactRosterView never null, encoded from an {@link EmployeeRosterView}
+     * @return never null
+     */
+    public static EmployeeRosterView toEmployeeRosterView(CompactRosterView compactRosterView) {
+        Integer tenantId = compactRosterView.getTenantId();
+        EmployeeRosterView employeeRosterView = new EmployeeRosterView(tenantId,
+                LocalDate.ofEpochDay(compactRosterView.getStartEpochDay()),
+                LocalDate.ofEpochDay(compactRosterView.getEndEpochDay()));
+        decodeCommon(compactRosterView, employeeRosterView);
+        long[] timeSlotIds = compactRosterView.getTimeSlotIds();
+        long[] employeeIds = compactRosterView.getEmployeeIds();
+        Map<Long, Map<Long, List<ShiftView>>> timeSlotIdToEmployeeIdToShiftViewListMap = new LinkedHashMap<>(
+                timeSlotIds.length);
+        Map<Long, Map<Long, EmployeeAvailabilityView>> timeSlotIdToEmployeeIdToAvailabilityViewMap =
+                new LinkedHashMap<>(timeSlotIds.length);
+        for (long timeSlotId : timeSlotIds) {
+            timeSlotIdToEmployeeIdToShiftViewListMap.put(timeSlotId, new LinkedHashMap<>());
+            timeSlotIdToEmployeeIdToAvailabilityViewMap.put(timeSlotId, new LinkedHashMap<>());
+        }
+
+        List<ShiftView> shiftViewList = decodeShifts(compactRosterView);
+        int[] shiftTimeSlotIndexes = compactRosterView.getShiftTimeSlotIndexes();
+        int[] shiftEmployeeIndexes = compactRosterView.getShiftEmployeeIndexes();
+        for (int i = 0; i < shiftViewList.size(); i++) {
+            timeSlotIdToEmployeeIdToShiftViewListMap.get(timeSlotIds[shiftTimeSlotIndexes[i]])
+                    .computeIfAbsent(employeeIds[shiftEmployeeIndexes[i]], k -> new ArrayList<>(2))
+                    .add(shiftViewList.get(i));
+        }
+        employeeRosterView.setTimeSlotIdToEmployeeIdToShiftViewListMap(timeSlotIdToEmployeeIdToShiftViewListMap);
+
+        long[] employeeAvailabilityIds = compactRosterView.getEmployeeAvailabilityIds();
+        long[] employeeAvailabilityVersions = compactRosterView.getEmployeeAvailabilityVersions();
+        int[] employeeAvailabilityTimeSlotIndexes = compactRosterView.getEmployeeAvailabilityTimeSlotIndexes();
+        int[] employeeAvailabilityEmployeeIndexes = compactRosterView.getEmployeeAvailabilityEmployeeIndexes();
+        int[] employeeAvailabilityStates = compactRosterView.getEmployeeAvailabilityStates();
+        EmployeeAvailabilityState[] states = EmployeeAvailabilityState.values();
+        for (int i = 0; i < employeeAvailabilityIds.length; i++) {
+            EmployeeAvailabilityView employeeAvailabilityView = new EmployeeAvailabilityView();
+            employeeAvailabilityView.setId(employeeAvailabilityIds[i]);
+            employeeAvailabilityView.setTenantId(tenantId);
+            employeeAvailabilityView.setVersion(decodeVersion(employeeAvailabilityVersions[i]));
+            Long timeSlotId = timeSlotIds[employeeAvailabilityTimeSlotIndexes[i]];
+            Long employeeId = employeeIds[employeeAvailabilityEmployeeIndexes[i]];
+            employeeAvailabilityView.setTimeSlotId(timeSlotId);
+            employeeAvailabilityView.setEmployeeId(employeeId);
+            employeeAvailabilityView.setState(states[employeeAvailabilityStates[i]]);
+            timeSlotIdToEmployeeIdToAvailabilityViewMap.get(timeSlotId).put(employeeId, employeeAvailabilityView);
+        }
+        employeeRosterView.setTimeSlotIdToEmployeeIdToAvailabilityViewMap(
+                timeSlotIdToEmployeeIdToAvailabilityViewMap);
+        return employeeRosterView;
+    }
+
+    private static void decodeCommon(CompactRosterView compactRosterView, AbstractRosterView rosterView) {
+        Integer tenantId = compactRosterView.getTenantId();
+        rosterView.setRevision(compactRosterView.getRevision());
+        rosterView.setScore(compactRosterView.getScore());
+
+        long[] skillIds = compactRosterView.getSkillIds();
+        long[] skillVersions = compactRosterView.getSkillVersions();
+        String[] skillNames = compactRosterView.getSkillNames();
+        Skill[] skills = new Skill[skillIds.length];
+        for (int i = 0; i < skills.length; i++) {
+            Skill skill = new Skill(tenantId, skillNames[i]);
+            skill.setId(skillIds[i]);
+            skill.setVersion(decodeVersion(skillVersions[i]));
+            skills[i] = skill;
+        }
+
+        long[] spotIds = compactRosterView.getSpotIds();
+        long[] spotVersions = compactRosterView.getSpotVersions();
+        String[] spotNames = compactRosterView.getSpotNames();
+        int[] spotRequiredSkillIndexes = compactRosterView.getSpotRequiredSkillIndexes();
+        List<Spot> spotList = new ArrayList<>(spotIds.length);
+        for (int i = 0; i < spotIds.length; i++) {
+            Spot spot = new Spot(tenantId, spotNames[i],
+                    spotRequiredSkillIndexes[i] == NONE ? null : skills[spotRequiredSkillIndexes[i]]);
+            spot.setId(spotIds[i]);
+            spot.setVersion(decodeVersion(spotVersions[i]));
+            spotList.add(spot);
+        }
+        rosterView.setSpotList(spotList);
+
+        long[] employeeIds = compactRosterView.getEmployeeIds();
+        long[] employeeVersions = compactRosterView.getEmployeeVersions();
+        String[] employeeNames = compactRosterView.getEmployeeNames();
+        List<Employee> employeeList = new ArrayList<>(employeeIds.length);
+        for (int i = 0; i < employeeIds.length; i++) {
+            Employee employee = new Employee(tenantId, employeeNames[i]);
+            employee.setId(employeeIds[i]);
+            employee.setVersion(decodeVersion(employeeVersions[i]));
+            employeeList.add(employee);
+        }
+        long[] skillProficiencyIds = compactRosterView.getSkillProficiencyIds();
+        long[] skillProficiencyVersions = compactRosterView.getSkillProficiencyVersions();
+        int[] skillProficiencyEmployeeIndexes = compactRosterView.getSkillProficiencyEmployeeIndexes();
+        int[] skillProficiencySkillIndexes = compactRosterView.getSkillProficiencySkillIndexes();
+        for (int i = 0; i < skillProficiencyIds.length; i++) {
+            Employee employee = employeeList.get(skillProficiencyEmployeeIndexes[i]);
+            EmployeeSkillProficiency skillProficiency = new EmployeeSkillProficiency(tenantId, employee,
+                    skills[skillProficiencySkillIndexes[i]]);
+            skillProficiency.setId(skillProficiencyIds[i]);
+            skillProficiency.setVersion(decodeVersion(skillProficiencyVersions[i]));
+            employee.getSkillProficiencyList().add(skillProficiency);
+        }
+        rosterView.setEmployeeList(employeeList);
+
+        long[] timeSlotIds = compactRosterView.getTimeSlotIds();
+        long[] timeSlotVersions = compactRosterView.getTimeSlotVersions();
+        long[] timeSlotStartEpochMinutes = compactRosterView.getTimeSlotStartEpochMinutes();
+        long[] timeSlotEndEpochMinutes = compactRosterView.getTimeSlotEndEpochMinutes();
+        int[] timeSlotStates = compactRosterView.getTimeSlotStates();
+        TimeSlotState[] states = TimeSlotState.values();
+        List<TimeSlot> timeSlotList = new ArrayList<>(timeSlotIds.length);
+        for (int i = 0; i < timeSlotIds.length; i++) {
+            TimeSlot timeSlot = new TimeSlot(tenantId, toLocalDateTime(timeSlotStartEpochMinutes[i]),
+                    toLocalDateTime(timeSlotEndEpochMinutes[i]));
+            timeSlot.setId(timeSlotIds[i]);
+            timeSlot.setVersion(decodeVersion(timeSlotVersions[i]));
+            timeSlot.setTimeSlotState(timeSlotStates[i] == NONE ? null : states[timeSlotStates[i]]);
+            timeSlotList.add(timeSlot);
+        }
+        rosterView.setTimeSlotList(timeSlotList);
+    }
+
+    private static List<ShiftView> decodeShifts(CompactRosterView compactRosterView) {
+        long[] shiftIds = compactRosterView.getShiftIds();
+        long[] shiftVersions = compactRosterView.getShiftVersions();
+        int[] shiftTimeSlotIndexes = compactRosterView.getShiftTimeSlotIndexes();
+        int[] shiftSpotIndexes = compactRosterView.getShiftSpotIndexes();
+        int[] shiftEmployeeIndexes = compactRosterView.getShiftEmployeeIndexes();
+        boolean[] shiftLockedByUsers = compactRosterView.getShiftLockedByUsers();
+        long[] timeSlotIds = compactRosterView.getTimeSlotIds();
+        long[] spotIds = compactRosterView.getSpotIds();
+        long[] employeeIds = compactRosterView.getEmployeeIds();
+        List<ShiftView> shiftViewList = new ArrayList<>(shiftIds.length);
+        for (int i = 0; i < shiftIds.length; i++) {
+            ShiftView shiftView = new ShiftView();
+            shiftView.setId(shiftIds[i]);
+            shiftView.setTenantId(compactRosterView.getTenantId());
+            shiftView.setVersion(decodeVersion(shiftVersions[i]));
+            shiftView.setTimeSlotId(timeSlotIds[shiftTimeSlotIndexes[i]]);
+            shiftView.setSpotId(spotIds[shiftSpotIndexes[i]]);
+            shiftView.setEmployeeId(shiftEmployeeIndexes[i] == NONE ? null : employeeIds[shiftEmployeeIndexes[i]]);
+            shiftView.setLockedByUser(shiftLockedByUsers[i]);
+            shiftViewList.add(shiftView);
+        }
+        return shiftViewList;
+    }
+
+    private static Long decodeVersion(long version) {
+        return version == NONE ? null : version;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    private static class IdDictionary {
+
+        private final Map<Long, Integer> skillIdToIndexMap = new HashMap<>();
+        private final Map<Long, Integer> spotIdToIndexMap = new HashMap<>();
+        private final Map<Long, Integer> employeeIdToIndexMap = new HashMap<>();
+        private final Map<Long, Integer> timeSlotIdToIndexMap = new HashMap<>();
+
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.shared.roster.view;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import javax.validation.constraints.NotNull;
+
+import org.optaplanner.openshift.employeerostering.shared.employee.view.EmployeeAvailabilityView;
+import org.optaplanner.openshift.employeerostering.shared.shift.view.ShiftView;
+
+/**
+ * The shifts and employee availabilities of a roster that changed since a revision,
+ * to patch a {@link SpotRosterView} or {@link EmployeeRosterView} in place.
+ */
+public class RosterChangesView implements Serializable {
+
+    @NotNull
+    private Integer tenantId;
+    /**
+     * Pass to the next poll. Changes are never lost, but a change can be returned by 2 consecutive polls.
+     */
+    @NotNull
+    private Long revision;
+    /**
+     * True if the changes can't be expressed as shifts and employee availabilities
+     * (for example a spot or employee changed, or the server restarted).
+     * The roster view must then be reloaded entirely and the other lists are empty.
+     */
+    private boolean reloadRequired = false;
+
+    @NotNull
+    private List<ShiftView> shiftList = new ArrayList<>();
+    @NotNull
+    private List<Long> removedShiftIdList = new ArrayList<>();
+    @NotNull
+    private List<EmployeeAvailabilityView> employeeAvailabilityList = new ArrayList<>();
+    @NotNull
+    private List<Long> removedEmployeeAvailabilityIdList = new ArrayList<>();
+
+    @SuppressWarnings("unused")
+    public RosterChangesView() {
+    }
+
+    public RosterChangesView(Integer tenantId, Long revision) {
+        this.tenantId = tenantId;
+        this.revision = revision;
+    }
+
+    @Override
+    public String toString() {
+        return tenantId + " " + revision;
+    }
+
+    // ************************************************************************
+    // Simple getters and setters
+    // ************************************************************************
+
+    public Integer getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(Integer tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public Long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Long revision) {
+        this.revision = revision;
+    }
+
+    public boolean isReloadRequired() {
+        return reloadRequired;
+    }
+
+    public void setReloadRequired(boolean reloadRequired) {
+        this.reloadRequired = reloadRequired;
+    }
+
+    public List<ShiftView> getShiftList() {
+        return shiftList;
+    }
+
+    public void setShiftList(List<ShiftView> shiftList) {
+        this.shiftList = shiftList;
+    }
+
+    public List<Long> getRemovedShiftIdList() {
+        return removedShiftIdList;
+    }
+
+    public void setRemovedShiftIdList(List<Long> removedShiftIdList) {
+        this.removedShiftIdList = removedShiftIdList;
+    }
+
+    public List<EmployeeAvailabilityView> getEmployeeAvailabilityList() {
+        return employeeAvailabilityList;
+    }
+
+    public void setEmployeeAvailabilityList(List<EmployeeAvailabilityView> employeeAvailabilityList) {
+        this.employeeAvailabilityList = employeeAvailabilityList;
+    }
+
+    public List<Long> getRemovedEmployeeAvailabilityIdList() {
+        return removedEmployeeAvailabilityIdList;
+    }
+
+    public void setRemovedEmployeeAvailabilityIdList(List<Long> removedEmployeeAvailabilityIdList) {
+        this.removedEmployeeAvailabilityIdList = removedEmployeeAvailabilityIdList;
+    }
+
+}
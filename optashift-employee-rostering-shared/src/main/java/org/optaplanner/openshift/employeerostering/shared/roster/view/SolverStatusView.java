@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.shared.roster.view;
+
+import java.io.Serializable;
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.openshift.employeerostering.shared.roster.SolverStatus;
+import org.optaplanner.persistence.jackson.api.score.ScoreJacksonJsonSerializer;
+import org.optaplanner.persistence.jackson.api.score.buildin.hardsoft.HardSoftScoreJacksonJsonDeserializer;
+
+public class SolverStatusView implements Serializable {
+
+    @NotNull
+    private Integer tenantId;
+    @NotNull
+    private SolverStatus solverStatus;
+    /**
+     * 1-based position in the solver queue, only set if {@link #solverStatus} is {@link SolverStatus#SCHEDULED}.
+     */
+    private Integer queuePosition = null;
+    /**
+     * The score of the last persisted best solution of the current (or last) solve, null before the first one.
+     */
+    private HardSoftScore bestScore = null;
+    /**
+     * The roster revision after the last persisted best solution,
+     * to pass to {@link org.optaplanner.openshift.employeerostering.shared.roster.RosterRestService#getRosterChangesSince(Integer, Long)}.
+     */
+    private Long revision = null;
+    /**
+     * The time limit of the current (or last) solve, which depends on its number of shifts,
+     * null before it starts.
+     */
+    private Long timeMillisSpentLimit = null;
+    /**
+     * The current (or last) solve stops if the best score didn't improve for this long,
+     * null if it always uses its whole {@link #timeMillisSpentLimit}.
+     */
+    private Long unimprovedTimeMillisSpentLimit = null;
+    /**
+     * The current (or last) solve stops as soon as the best score reaches it, null if it doesn't.
+     */
+    private String bestScoreLimit = null;
+
+    @SuppressWarnings("unused")
+    public SolverStatusView() {
+    }
+
+    public SolverStatusView(Integer tenantId, SolverStatus solverStatus, Integer queuePosition) {
+        this.tenantId = tenantId;
+        this.solverStatus = solverStatus;
+        this.queuePosition = queuePosition;
+    }
+
+    @Override
+    public String toString() {
+        return tenantId + " " + solverStatus;
+    }
+
+    // ************************************************************************
+    // Simple getters and setters
+    // ************************************************************************
+
+    public Integer getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(Integer tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public SolverStatus getSolverStatus() {
+        return solverStatus;
+    }
+
+    public void setSolverStatus(SolverStatus solverStatus) {
+        this.solverStatus = solverStatus;
+    }
+
+    public Integer getQueuePosition() {
+        return queuePosition;
+    }
+
+    public void setQueuePosition(Integer queuePosition) {
+        this.queuePosition = queuePosition;
+    }
+
+    @JsonSerialize(using = ScoreJacksonJsonSerializer.class)
+    @JsonDeserialize(using = HardSoftScoreJacksonJsonDeserializer.class)
+    public HardSoftScore getBestScore() {
+        return bestScore;
+    }
+
+    public void setBestScore(HardSoftScore bestScore) {
+        this.bestScore = bestScore;
+    }
+
+    public Long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Long revision) {
+        this.revision = revision;
+    }
+
+    public Long getTimeMillisSpentLimit() {
+        return timeMillisSpentLimit;
+    }
+
+    public void setTimeMillisSpentLimit(Long timeMillisSpentLimit) {
+        this.timeMillisSpentLimit = timeMillisSpentLimit;
+    }
+
+    public Long getUnimprovedTimeMillisSpentLimit() {
+        return unimprovedTimeMillisSpentLimit;
+    }
+
+    public void setUnimprovedTimeMillisSpentLimit(Long unimprovedTimeMillisSpentLimit) {
+        this.unimprovedTimeMillisSpentLimit = unimprovedTimeMillisSpentLimit;
+    }
+
+    public String getBestScoreLimit() {
+        return bestScoreLimit;
+    }
+
+    public void setBestScoreLimit(String bestScoreLimit) {
+        this.bestScoreLimit = bestScoreLimit;
+    }
+
+}
@@ -16,16 +16,24 @@
 
 package org.optaplanner.openshift.employeerostering.shared.shift;
 
+import java.util.List;
+import java.util.Set;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.validation.constraints.NotNull;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.optaplanner.core.api.domain.entity.PlanningEntity;
+import org.optaplanner.core.api.domain.valuerange.ValueRangeProvider;
 import org.optaplanner.core.api.domain.variable.PlanningVariable;
 import org.optaplanner.openshift.employeerostering.shared.common.AbstractPersistable;
 import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeStrengthWeightFactory;
 import org.optaplanner.openshift.employeerostering.shared.shift.view.ShiftView;
 import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
 import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
@@ -39,8 +47,32 @@ import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
                         " left join fetch sa.employee e" +
                         " where sa.tenantId = :tenantId" +
                         " order by t.startDateTime, s.name, e.name"),
+        @NamedQuery(name = "Shift.findByStartDateTimeEndDateTime",
+                query = "select distinct sa from Shift sa" +
+                        " left join fetch sa.spot s" +
+                        " left join fetch sa.timeSlot t" +
+                        " left join fetch sa.employee e" +
+                        " where sa.tenantId = :tenantId" +
+                        " and t.startDateTime < :endDateTime and t.endDateTime > :startDateTime" +
+                        " order by t.startDateTime, s.name, e.name"),
+        @NamedQuery(name = "Shift.findByIdList",
+                query = "select distinct sa from Shift sa" +
+                        " left join fetch sa.spot s" +
+                        " left join fetch sa.timeSlot t" +
+                        " left join fetch sa.employee e" +
+                        " where sa.tenantId = :tenantId and sa.id in :shiftIdList" +
+                        " order by t.startDateTime, s.name, e.name"),
+        // TODO HACK bumps the version but circumvents optimistic locking, to avoid exceptions while solving
+        @NamedQuery(name = "Shift.updateEmployee",
+                query = "update Shift sa set sa.employee = :employee, sa.version = sa.version + 1" +
+                        " where sa.tenantId = :tenantId and sa.id in :shiftIdList"),
+        @NamedQuery(name = "Shift.unassignEmployee",
+                query = "update Shift sa set sa.employee = null, sa.version = sa.version + 1" +
+                        " where sa.tenantId = :tenantId and sa.id in :shiftIdList"),
 })
-@PlanningEntity(movableEntitySelectionFilter = MovableShiftFilter.class)
+@Table(indexes = @Index(columnList = "tenantId,timeSlot_id"))
+@PlanningEntity(movableEntitySelectionFilter = MovableShiftFilter.class,
+        difficultyWeightFactoryClass = ShiftDifficultyWeightFactory.class)
 public class Shift extends AbstractPersistable {
 
     @NotNull
@@ -53,9 +85,23 @@ public class Shift extends AbstractPersistable {
     private boolean lockedByUser = false;
 
     @ManyToOne
-    @PlanningVariable(valueRangeProviderRefs = "employeeRange")
+    @PlanningVariable(valueRangeProviderRefs = "employeeRange",
+            strengthWeightFactoryClass = EmployeeStrengthWeightFactory.class)
     private Employee employee = null;
 
+    /**
+     * Only set while solving, see {@link org.optaplanner.openshift.employeerostering.shared.roster.Roster#buildEmployeeRanges()}.
+     */
+    @JsonIgnore
+    @Transient
+    private List<Employee> employeeRange = null;
+    /**
+     * The same employees as {@link #employeeRange}, for {@link #isInEmployeeRange(Employee)}.
+     */
+    @JsonIgnore
+    @Transient
+    private Set<Employee> employeeRangeSet = null;
+
     @SuppressWarnings("unused")
     public Shift() {
     }
@@ -73,6 +119,15 @@ public class Shift extends AbstractPersistable {
         this.lockedByUser = shiftView.isLockedByUser();
     }
 
+    /**
+     * Faster than {@code getEmployeeRange().contains(employee)}, because moves call it for every selected shift.
+     * @param employee sometimes null, which is never in the range, because the employee variable isn't nullable
+     * @return true if the employee can be assigned to this shift
+     */
+    public boolean isInEmployeeRange(Employee employee) {
+        return employee != null && employeeRangeSet.contains(employee);
+    }
+
     @Override
     public String toString() {
         return spot + " " + timeSlot;
@@ -114,4 +169,22 @@ public class Shift extends AbstractPersistable {
         this.employee = employee;
     }
 
+    @ValueRangeProvider(id = "employeeRange")
+    public List<Employee> getEmployeeRange() {
+        return employeeRange;
+    }
+
+    public Set<Employee> getEmployeeRangeSet() {
+        return employeeRangeSet;
+    }
+
+    /**
+     * @param employeeRange never null, usually shared with other shifts
+     * @param employeeRangeSet never null, the same employees, shared with the shifts that share the range
+     */
+    public void setEmployeeRange(List<Employee> employeeRange, Set<Employee> employeeRangeSet) {
+        this.employeeRange = employeeRange;
+        this.employeeRangeSet = employeeRangeSet;
+    }
+
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.shared.shift;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionSorterWeightFactory;
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailability;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailabilityState;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeSkillProficiency;
+import org.optaplanner.openshift.employeerostering.shared.roster.Roster;
+import org.optaplanner.openshift.employeerostering.shared.skill.Skill;
+import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
+
+/**
+ * A shift is more difficult if fewer employees have its required skill and are available for its time slot,
+ * so the construction heuristic assigns those shifts first, while they still have a choice of employees.
+ */
+public class ShiftDifficultyWeightFactory implements SelectionSorterWeightFactory<Roster, Shift> {
+
+    // Counted once per roster instead of once per shift
+    private Roster countedRoster = null;
+    private Map<Skill, Integer> skillToEmployeeCountMap;
+    private Map<TimeSlot, List<Employee>> timeSlotToUnavailableEmployeeListMap;
+
+    @Override
+    public synchronized ShiftDifficultyWeight createSorterWeight(Roster roster, Shift shift) {
+        if (roster != countedRoster) {
+            count(roster);
+        }
+        Skill requiredSkill = shift.getSpot().getRequiredSkill();
+        List<Employee> unavailableEmployeeList = timeSlotToUnavailableEmployeeListMap
+                .getOrDefault(shift.getTimeSlot(), new ArrayList<>(0));
+        int eligibleEmployeeCount = skillToEmployeeCountMap.getOrDefault(requiredSkill, 0);
+        for (Employee unavailableEmployee : unavailableEmployeeList) {
+            if (unavailableEmployee.hasSkill(requiredSkill)) {
+                eligibleEmployeeCount--;
+            }
+        }
+        return new ShiftDifficultyWeight(shift, eligibleEmployeeCount, unavailableEmployeeList.size());
+    }
+
+    private void count(Roster roster) {
+        skillToEmployeeCountMap = new HashMap<>(roster.getSkillList().size());
+        for (Employee employee : roster.getEmployeeList()) {
+            for (EmployeeSkillProficiency skillProficiency : employee.getSkillProficiencyList()) {
+                skillToEmployeeCountMap.merge(skillProficiency.getSkill(), 1, Integer::sum);
+            }
+        }
+        timeSlotToUnavailableEmployeeListMap = new HashMap<>(roster.getTimeSlotList().size());
+        for (EmployeeAvailability employeeAvailability : roster.getEmployeeAvailabilityList()) {
+            if (employeeAvailability.getState() == EmployeeAvailabilityState.UNAVAILABLE) {
+                timeSlotToUnavailableEmployeeListMap
+                        .computeIfAbsent(employeeAvailability.getTimeSlot(), k -> new ArrayList<>())
+                        .add(employeeAvailability.getEmployee());
+            }
+        }
+        countedRoster = roster;
+    }
+
+    public static class ShiftDifficultyWeight implements Comparable<ShiftDifficultyWeight> {
+
+        private static final Comparator<ShiftDifficultyWeight> COMPARATOR = Comparator
+                // Fewer eligible employees is more difficult
+                .comparingInt((ShiftDifficultyWeight weight) -> -weight.eligibleEmployeeCount)
+                .thenComparingInt(weight -> weight.unavailableEmployeeCount)
+                .thenComparing(weight -> weight.shift.getId());
+
+        private final Shift shift;
+        private final int eligibleEmployeeCount;
+        private final int unavailableEmployeeCount;
+
+        public ShiftDifficultyWeight(Shift shift, int eligibleEmployeeCount, int unavailableEmployeeCount) {
+            this.shift = shift;
+            this.eligibleEmployeeCount = eligibleEmployeeCount;
+            this.unavailableEmployeeCount = unavailableEmployeeCount;
+        }
+
+        @Override
+        public int compareTo(ShiftDifficultyWeight other) {
+            return COMPARATOR.compare(this, other);
+        }
+
+    }
+
+}
@@ -16,23 +16,29 @@
 
 package org.optaplanner.openshift.employeerostering.shared.skill;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.QueryHint;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.optaplanner.openshift.employeerostering.shared.common.AbstractPersistable;
 
 @Entity
+@Cacheable
 @NamedQueries({
         @NamedQuery(name = "Skill.findAll",
                 query = "select s from Skill s" +
                         " where s.tenantId = :tenantId" +
-                        " order by s.name"),
+                        " order by s.name",
+                hints = @QueryHint(name = "org.hibernate.cacheable", value = "true")),
 })
 @Table(uniqueConstraints = @UniqueConstraint(columnNames = {"tenantId", "name"}))
 public class Skill extends AbstractPersistable {
@@ -40,6 +46,14 @@ public class Skill extends AbstractPersistable {
     @NotNull @Size(min = 1, max = 120)
     private String name;
 
+    /**
+     * Dense index of this skill in {@link org.optaplanner.openshift.employeerostering.shared.roster.Roster#getSkillList()},
+     * -1 if not indexed. Only set while solving, see {@link org.optaplanner.openshift.employeerostering.shared.roster.Roster#indexSkills()}.
+     */
+    @JsonIgnore
+    @Transient
+    private int index = -1;
+
     @SuppressWarnings("unused")
     public Skill() {
     }
@@ -66,4 +80,12 @@ public class Skill extends AbstractPersistable {
         this.name = name;
     }
 
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
 }
@@ -16,11 +16,13 @@
 
 package org.optaplanner.openshift.employeerostering.shared.spot;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.ManyToOne;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.QueryHint;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.NotNull;
@@ -30,11 +32,13 @@ import org.optaplanner.openshift.employeerostering.shared.common.AbstractPersist
 import org.optaplanner.openshift.employeerostering.shared.skill.Skill;
 
 @Entity
+@Cacheable
 @NamedQueries({
         @NamedQuery(name = "Spot.findAll",
                 query = "select distinct s from Spot s left join fetch s.requiredSkill" +
                         " where s.tenantId = :tenantId" +
-                        " order by s.name"),
+                        " order by s.name",
+                hints = @QueryHint(name = "org.hibernate.cacheable", value = "true")),
 })
 @Table(uniqueConstraints = {@UniqueConstraint(columnNames = {"tenantId", "name"}), @UniqueConstraint(columnNames = {"id"})})
 public class Spot extends AbstractPersistable {
@@ -3,10 +3,12 @@ package org.optaplanner.openshift.employeerostering.shared.spot;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.ManyToMany;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.QueryHint;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.NotNull;
@@ -16,6 +18,7 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import org.optaplanner.openshift.employeerostering.shared.common.AbstractPersistable;
 
 @Entity
+@Cacheable
 @NamedQueries({
         @NamedQuery(name = "SpotGroup.findByName",
                 query = "select distinct g from SpotGroup g left join fetch g.spots" +
@@ -24,7 +27,8 @@ import org.optaplanner.openshift.employeerostering.shared.common.AbstractPersist
         @NamedQuery(name = "SpotGroup.findAll",
                 query = "select distinct g from SpotGroup g left join fetch g.spots" +
                         " where g.tenantId = :tenantId" +
-                        " order by g.name"),
+                        " order by g.name",
+                hints = @QueryHint(name = "org.hibernate.cacheable", value = "true")),
 })
 @Table(uniqueConstraints = @UniqueConstraint(columnNames = {"tenantId", "name"}))
 public class SpotGroup extends AbstractPersistable {
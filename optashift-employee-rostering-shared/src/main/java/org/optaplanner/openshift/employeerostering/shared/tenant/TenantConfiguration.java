@@ -3,9 +3,11 @@ package org.optaplanner.openshift.employeerostering.shared.tenant;
 import java.time.DayOfWeek;
 
 import javax.persistence.Entity;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import org.optaplanner.openshift.employeerostering.shared.common.AbstractPersistable;
+import org.optaplanner.openshift.employeerostering.shared.roster.RosterPartitionStrategy;
 
 @Entity
 public class TenantConfiguration extends AbstractPersistable {
@@ -18,6 +20,41 @@ public class TenantConfiguration extends AbstractPersistable {
     private Integer templateDuration = 1;
     @NotNull
     private DayOfWeek weekStart = DayOfWeek.MONDAY;
+    /**
+     * Number of threads to solve a large roster with, 1 to always solve on a single thread.
+     */
+    @NotNull @Min(1)
+    private Integer solverThreadCount = 4;
+    @NotNull
+    private RosterPartitionStrategy partitionStrategy = RosterPartitionStrategy.EMPLOYEE;
+    /**
+     * If true, the solver only assigns a shift to the employees that have its required skill
+     * and aren't unavailable for its time slot, see {@link org.optaplanner.openshift.employeerostering.shared.roster.Roster#buildEmployeeRanges()}.
+     * Turn it off for a roster that can't be feasible, to let the solver trade those hard constraints for others.
+     */
+    @NotNull
+    private Boolean employeeRangeFiltered = true;
+    /**
+     * The solver gets this many seconds per 1000 shifts,
+     * but at least {@link #minimumSolverSeconds} and at most {@link #maximumSolverSeconds}.
+     */
+    @NotNull @Min(0)
+    private Integer solverSecondsPerThousandShifts = 20;
+    @NotNull @Min(1)
+    private Integer minimumSolverSeconds = 10;
+    @NotNull @Min(1)
+    private Integer maximumSolverSeconds = 300;
+    /**
+     * Stops solving if the local search didn't improve the best score for this many seconds,
+     * 0 to always use the whole time limit.
+     */
+    @NotNull @Min(0)
+    private Integer unimprovedSolverSeconds = 5;
+    /**
+     * Stops solving as soon as the local search reaches this best score, for example {@code 0hard/-1000soft},
+     * null to never stop on the score.
+     */
+    private String bestScoreLimit = null;
 
     @SuppressWarnings("unused")
     public TenantConfiguration() {
@@ -65,4 +102,68 @@ public class TenantConfiguration extends AbstractPersistable {
         this.weekStart = weekStart;
     }
 
+    public Integer getSolverThreadCount() {
+        return solverThreadCount;
+    }
+
+    public void setSolverThreadCount(Integer solverThreadCount) {
+        this.solverThreadCount = solverThreadCount;
+    }
+
+    public RosterPartitionStrategy getPartitionStrategy() {
+        return partitionStrategy;
+    }
+
+    public void setPartitionStrategy(RosterPartitionStrategy partitionStrategy) {
+        this.partitionStrategy = partitionStrategy;
+    }
+
+    public Boolean getEmployeeRangeFiltered() {
+        return employeeRangeFiltered;
+    }
+
+    public void setEmployeeRangeFiltered(Boolean employeeRangeFiltered) {
+        this.employeeRangeFiltered = employeeRangeFiltered;
+    }
+
+    public Integer getSolverSecondsPerThousandShifts() {
+        return solverSecondsPerThousandShifts;
+    }
+
+    public void setSolverSecondsPerThousandShifts(Integer solverSecondsPerThousandShifts) {
+        this.solverSecondsPerThousandShifts = solverSecondsPerThousandShifts;
+    }
+
+    public Integer getMinimumSolverSeconds() {
+        return minimumSolverSeconds;
+    }
+
+    public void setMinimumSolverSeconds(Integer minimumSolverSeconds) {
+        this.minimumSolverSeconds = minimumSolverSeconds;
+    }
+
+    public Integer getMaximumSolverSeconds() {
+        return maximumSolverSeconds;
+    }
+
+    public void setMaximumSolverSeconds(Integer maximumSolverSeconds) {
+        this.maximumSolverSeconds = maximumSolverSeconds;
+    }
+
+    public Integer getUnimprovedSolverSeconds() {
+        return unimprovedSolverSeconds;
+    }
+
+    public void setUnimprovedSolverSeconds(Integer unimprovedSolverSeconds) {
+        this.unimprovedSolverSeconds = unimprovedSolverSeconds;
+    }
+
+    public String getBestScoreLimit() {
+        return bestScoreLimit;
+    }
+
+    public void setBestScoreLimit(String bestScoreLimit) {
+        this.bestScoreLimit = bestScoreLimit;
+    }
+
 }
@@ -17,13 +17,17 @@
 package org.optaplanner.openshift.employeerostering.shared.timeslot;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
@@ -37,12 +41,16 @@ import org.optaplanner.openshift.employeerostering.shared.common.AbstractPersist
                 query = "select t from TimeSlot t" +
                         " where t.tenantId = :tenantId" +
                         " order by t.startDateTime"),
-//        @NamedQuery(name = "TimeSlot.findByStartDateEndDate",
-//                query = "select t from TimeSlot t" +
-//                        " where t.tenantId = :tenantId" +
-//                        " and t.startDateTime between :startDate and :endDate"
-//                        " order by t.startDateTime"),
+        @NamedQuery(name = "TimeSlot.findByStartDateTimeEndDateTime",
+                query = "select t from TimeSlot t" +
+                        " where t.tenantId = :tenantId" +
+                        " and t.startDateTime < :endDateTime and t.endDateTime > :startDateTime" +
+                        " order by t.startDateTime"),
+        @NamedQuery(name = "TimeSlot.findStartDateTimeRange",
+                query = "select min(t.startDateTime), max(t.startDateTime) from TimeSlot t" +
+                        " where t.tenantId = :tenantId"),
 })
+@Table(indexes = @Index(columnList = "tenantId,startDateTime"))
 public class TimeSlot extends AbstractPersistable {
 
     @NotNull
@@ -63,6 +71,36 @@ public class TimeSlot extends AbstractPersistable {
         this.endDateTime = endDateTime;
     }
 
+    /**
+     * Plain arithmetic on the date time, so the score rules can compare time slots without creating garbage.
+     * @return minutes since 1970-01-01T00:00, ignoring time zones
+     */
+    @JsonIgnore
+    public long getStartEpochMinute() {
+        return toEpochMinute(startDateTime);
+    }
+
+    /**
+     * @return minutes since 1970-01-01T00:00, ignoring time zones
+     * @see #getStartEpochMinute()
+     */
+    @JsonIgnore
+    public long getEndEpochMinute() {
+        return toEpochMinute(endDateTime);
+    }
+
+    /**
+     * @return days since 1970-01-01 of the {@link #getStartDateTime() start}
+     */
+    @JsonIgnore
+    public long getStartEpochDay() {
+        return startDateTime.toLocalDate().toEpochDay();
+    }
+
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60L);
+    }
+
     @Override
     public String toString() {
         return startDateTime + "-" + endDateTime.toLocalTime();
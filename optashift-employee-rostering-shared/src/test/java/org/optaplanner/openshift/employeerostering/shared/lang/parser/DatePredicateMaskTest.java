@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.shared.lang.parser;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the {@link DatePredicateMask}s that {@link DatePredicate#parse(String)} compiles
+ * with the chain of predicates it built before, for every expression form of {@link DatePredicate},
+ * on every day of a range that includes leap years and every weekday of the first of a month.
+ */
+@RunWith(Parameterized.class)
+public class DatePredicateMaskTest {
+
+    private static final LocalDate FROM_DATE = LocalDate.of(2015, 1, 1);
+    private static final LocalDate TO_DATE = LocalDate.of(2025, 1, 1);
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> data() {
+        List<String> expressionList = new ArrayList<>();
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            expressionList.add("D" + dayOfWeek);
+            // Week 0 and 6 never match, but still compile
+            for (int week = 0; week <= 6; week++) {
+                expressionList.add("W" + dayOfWeek + ":" + week);
+            }
+        }
+        // Out of range values never match, but still compile
+        for (int dayOfMonth = 0; dayOfMonth <= 32; dayOfMonth++) {
+            expressionList.add("d" + dayOfMonth);
+        }
+        for (int month = 0; month <= 13; month++) {
+            expressionList.add("m" + month);
+        }
+        String[] exactDates = {"1/1", "29/2", "28/2", "31/4", "30/4", "31/12", "15/6", "0/1", "32/1", "1/0", "1/13"};
+        for (String exactDate : exactDates) {
+            expressionList.add("E" + exactDate);
+        }
+        List<String> disjunctionList = new ArrayList<>();
+        disjunctionList.add("MDSATURDAY|DSUNDAY");
+        disjunctionList.add("Md1|d15|d31");
+        disjunctionList.add("Mm2|E29/2|d31");
+        disjunctionList.add("MWMONDAY:1|WFRIDAY:5|E25/12");
+        disjunctionList.add("MDWEDNESDAY|m7|E1/1|WSUNDAY:2|d13");
+        // A negated disjunct isn't merged into a single mask
+        disjunctionList.add("M!DMONDAY|d1");
+        disjunctionList.add("MWTUESDAY:3|!m12");
+        disjunctionList.add("MDFRIDAY");
+        expressionList.addAll(disjunctionList);
+        List<String> negationList = new ArrayList<>();
+        for (String expression : expressionList) {
+            negationList.add("!" + expression);
+        }
+        expressionList.addAll(negationList);
+        expressionList.add("!!DMONDAY");
+        expressionList.add("!!MDSATURDAY|WSUNDAY:4");
+        List<Object[]> data = new ArrayList<>(expressionList.size());
+        for (String expression : expressionList) {
+            data.add(new Object[]{expression});
+        }
+        return data;
+    }
+
+    private final String expression;
+
+    public DatePredicateMaskTest(String expression) {
+        this.expression = expression;
+    }
+
+    @Test
+    public void sameAsPredicateChain() throws ParserException {
+        DatePredicate predicate = DatePredicate.parse(expression);
+        DatePredicate expectedPredicate = parsePredicateChain(expression);
+        for (LocalDate date = FROM_DATE; date.isBefore(TO_DATE); date = date.plusDays(1)) {
+            LocalDateTime dateTime = date.atTime(9, 30);
+            assertEquals(expression + " on " + date, expectedPredicate.test(dateTime), predicate.test(dateTime));
+        }
+    }
+
+    /**
+     * The implementation of {@link DatePredicate#parse(String)} before it compiled to {@link DatePredicateMask}s.
+     */
+    private static DatePredicate parsePredicateChain(String subexpr) throws ParserException {
+        String predicate = subexpr.substring(1);
+        String[] dateParts;
+        switch (subexpr.charAt(0)) {
+            case 'E': {
+                dateParts = predicate.split("/");
+                int dayOfMonth = Integer.parseInt(dateParts[0]);
+                int month = Integer.parseInt(dateParts[1]);
+                return (d) -> d.getDayOfMonth() == dayOfMonth && d.getMonthValue() == month;
+            }
+            case 'W': {
+                dateParts = predicate.split(":");
+                DayOfWeek base = DayOfWeek.valueOf(dateParts[0]);
+                int week = Integer.parseInt(dateParts[1]);
+                return (d) -> {
+                    int mdayOfMonth = d.getDayOfMonth();
+                    LocalDateTime firstDayOfMonth = d.minusDays(mdayOfMonth - 1);
+                    int offset = Math.abs((firstDayOfMonth.getDayOfWeek().getValue() - base.getValue() - 2) % 7);
+                    return ((mdayOfMonth + offset) / 7) == week - 1;
+                };
+            }
+            case 'D': {
+                DayOfWeek dayOfWeek = DayOfWeek.valueOf(predicate);
+                return (d) -> dayOfWeek.equals(d.getDayOfWeek());
+            }
+            case 'd': {
+                int dayOfMonth = Integer.parseInt(predicate);
+                return (d) -> dayOfMonth == d.getDayOfMonth();
+            }
+            case 'm': {
+                int month = Integer.parseInt(predicate);
+                return (d) -> month == d.getMonthValue();
+            }
+            case 'M': {
+                dateParts = predicate.split("\\|");
+                DatePredicate out = (d) -> false;
+                for (String disjunct : dateParts) {
+                    DatePredicate disjunctPredicate = parsePredicateChain(disjunct);
+                    DatePredicate clone = out;
+                    out = (d) -> clone.test(d) || disjunctPredicate.test(d);
+                }
+                return out;
+            }
+            case '!': {
+                DatePredicate negatedPredicate = parsePredicateChain(predicate);
+                return (d) -> !negatedPredicate.test(d);
+            }
+            default:
+                throw new ParserException("Badly formated predicate");
+        }
+    }
+
+}
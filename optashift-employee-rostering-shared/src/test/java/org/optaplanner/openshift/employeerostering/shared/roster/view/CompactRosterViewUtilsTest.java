@@ -0,0 +1,320 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.openshift.employeerostering.shared.roster.view;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.openshift.employeerostering.shared.common.AbstractPersistable;
+import org.optaplanner.openshift.employeerostering.shared.employee.Employee;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeAvailabilityState;
+import org.optaplanner.openshift.employeerostering.shared.employee.EmployeeSkillProficiency;
+import org.optaplanner.openshift.employeerostering.shared.employee.view.EmployeeAvailabilityView;
+import org.optaplanner.openshift.employeerostering.shared.shift.view.ShiftView;
+import org.optaplanner.openshift.employeerostering.shared.skill.Skill;
+import org.optaplanner.openshift.employeerostering.shared.spot.Spot;
+import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlot;
+import org.optaplanner.openshift.employeerostering.shared.timeslot.TimeSlotState;
+
+import static org.junit.Assert.*;
+
+/**
+ * Encodes generated roster views with {@link CompactRosterViewUtils} and compares every field after decoding,
+ * because {@link AbstractPersistable#equals(Object)} only compares ids.
+ */
+public class CompactRosterViewUtilsTest {
+
+    private static final Integer TENANT_ID = 1;
+    private static final LocalDate START_DATE = LocalDate.of(2017, 2, 1);
+    private static final LocalDate END_DATE = START_DATE.plusDays(7);
+
+    private long nextId = 0L;
+
+    @Test
+    public void spotRosterViewRoundTrip() {
+        Random random = new Random(37);
+        SpotRosterView spotRosterView = new SpotRosterView(TENANT_ID, START_DATE, END_DATE);
+        generateCommon(random, spotRosterView);
+        Map<Long, Map<Long, List<ShiftView>>> timeSlotIdToSpotIdToShiftViewListMap = new LinkedHashMap<>();
+        for (TimeSlot timeSlot : spotRosterView.getTimeSlotList()) {
+            // Some time slots have no shifts at all
+            if (random.nextInt(5) == 0) {
+                continue;
+            }
+            Map<Long, List<ShiftView>> spotIdMap = new LinkedHashMap<>();
+            for (Spot spot : spotRosterView.getSpotList()) {
+                List<ShiftView> shiftViewList = new ArrayList<>();
+                int shiftCount = random.nextInt(3);
+                for (int i = 0; i < shiftCount; i++) {
+                    ShiftView shiftView = new ShiftView(TENANT_ID, spot, timeSlot);
+                    // Some shifts are unassigned
+                    if (random.nextInt(3) != 0) {
+                        List<Employee> employeeList = spotRosterView.getEmployeeList();
+                        shiftView.setEmployeeId(employeeList.get(random.nextInt(employeeList.size())).getId());
+                    }
+                    shiftView.setLockedByUser(random.nextBoolean());
+                    shiftViewList.add(initPersistable(random, shiftView));
+                }
+                if (!shiftViewList.isEmpty()) {
+                    spotIdMap.put(spot.getId(), shiftViewList);
+                }
+            }
+            timeSlotIdToSpotIdToShiftViewListMap.put(timeSlot.getId(), spotIdMap);
+        }
+        spotRosterView.setTimeSlotIdToSpotIdToShiftViewListMap(timeSlotIdToSpotIdToShiftViewListMap);
+
+        SpotRosterView decodedSpotRosterView = CompactRosterViewUtils.toSpotRosterView(
+                CompactRosterViewUtils.encode(spotRosterView));
+        assertCommonEquals(spotRosterView, decodedSpotRosterView);
+        // The decoder leaves out the time slots and spots without shifts
+        Map<Long, Map<Long, List<ShiftView>>> decodedMap = decodedSpotRosterView
+                .getTimeSlotIdToSpotIdToShiftViewListMap();
+        for (TimeSlot timeSlot : spotRosterView.getTimeSlotList()) {
+            Map<Long, List<ShiftView>> expectedSpotIdMap = timeSlotIdToSpotIdToShiftViewListMap.getOrDefault(
+                    timeSlot.getId(), Collections.emptyMap());
+            Map<Long, List<ShiftView>> spotIdMap = decodedMap.getOrDefault(timeSlot.getId(),
+                    Collections.emptyMap());
+            assertEquals(expectedSpotIdMap.keySet(), spotIdMap.keySet());
+            for (Map.Entry<Long, List<ShiftView>> entry : expectedSpotIdMap.entrySet()) {
+                assertShiftViewListEquals(entry.getValue(), spotIdMap.get(entry.getKey()));
+            }
+        }
+    }
+
+    @Test
+    public void employeeRosterViewRoundTrip() {
+        Random random = new Random(37);
+        EmployeeRosterView employeeRosterView = new EmployeeRosterView(TENANT_ID, START_DATE, END_DATE);
+        generateCommon(random, employeeRosterView);
+        List<Spot> spotList = employeeRosterView.getSpotList();
+        EmployeeAvailabilityState[] availabilityStates = EmployeeAvailabilityState.values();
+        Map<Long, Map<Long, List<ShiftView>>> timeSlotIdToEmployeeIdToShiftViewListMap = new LinkedHashMap<>();
+        Map<Long, Map<Long, EmployeeAvailabilityView>> timeSlotIdToEmployeeIdToAvailabilityViewMap =
+                new LinkedHashMap<>();
+        for (TimeSlot timeSlot : employeeRosterView.getTimeSlotList()) {
+            Map<Long, List<ShiftView>> employeeIdMap = new LinkedHashMap<>();
+            Map<Long, EmployeeAvailabilityView> employeeIdToAvailabilityViewMap = new LinkedHashMap<>();
+            for (Employee employee : employeeRosterView.getEmployeeList()) {
+                List<ShiftView> shiftViewList = new ArrayList<>();
+                int shiftCount = random.nextInt(3);
+                for (int i = 0; i < shiftCount; i++) {
+                    ShiftView shiftView = new ShiftView(TENANT_ID, spotList.get(random.nextInt(spotList.size())),
+                            timeSlot);
+                    shiftView.setEmployeeId(employee.getId());
+                    shiftView.setLockedByUser(random.nextBoolean());
+                    shiftViewList.add(initPersistable(random, shiftView));
+                }
+                if (!shiftViewList.isEmpty()) {
+                    employeeIdMap.put(employee.getId(), shiftViewList);
+                }
+                if (random.nextInt(3) == 0) {
+                    EmployeeAvailabilityView employeeAvailabilityView = new EmployeeAvailabilityView(TENANT_ID,
+                            employee, timeSlot, availabilityStates[random.nextInt(availabilityStates.length)]);
+                    employeeIdToAvailabilityViewMap.put(employee.getId(),
+                            initPersistable(random, employeeAvailabilityView));
+                }
+            }
+            // Like the server, only the time slots with shifts or employee availabilities are in the maps
+            if (!employeeIdMap.isEmpty()) {
+                timeSlotIdToEmployeeIdToShiftViewListMap.put(timeSlot.getId(), employeeIdMap);
+            }
+            if (!employeeIdToAvailabilityViewMap.isEmpty()) {
+                timeSlotIdToEmployeeIdToAvailabilityViewMap.put(timeSlot.getId(), employeeIdToAvailabilityViewMap);
+            }
+        }
+        employeeRosterView.setTimeSlotIdToEmployeeIdToShiftViewListMap(timeSlotIdToEmployeeIdToShiftViewListMap);
+        employeeRosterView.setTimeSlotIdToEmployeeIdToAvailabilityViewMap(
+                timeSlotIdToEmployeeIdToAvailabilityViewMap);
+
+        EmployeeRosterView decodedEmployeeRosterView = CompactRosterViewUtils.toEmployeeRosterView(
+                CompactRosterViewUtils.encode(employeeRosterView));
+        assertCommonEquals(employeeRosterView, decodedEmployeeRosterView);
+        Map<Long, Map<Long, List<ShiftView>>> decodedShiftViewMap = decodedEmployeeRosterView
+                .getTimeSlotIdToEmployeeIdToShiftViewListMap();
+        Map<Long, Map<Long, EmployeeAvailabilityView>> decodedAvailabilityViewMap = decodedEmployeeRosterView
+                .getTimeSlotIdToEmployeeIdToAvailabilityViewMap();
+        for (TimeSlot timeSlot : employeeRosterView.getTimeSlotList()) {
+            Map<Long, List<ShiftView>> expectedEmployeeIdMap = timeSlotIdToEmployeeIdToShiftViewListMap
+                    .getOrDefault(timeSlot.getId(), Collections.emptyMap());
+            Map<Long, List<ShiftView>> employeeIdMap = decodedShiftViewMap.get(timeSlot.getId());
+            assertEquals(expectedEmployeeIdMap.keySet(), employeeIdMap.keySet());
+            for (Map.Entry<Long, List<ShiftView>> entry : expectedEmployeeIdMap.entrySet()) {
+                assertShiftViewListEquals(entry.getValue(), employeeIdMap.get(entry.getKey()));
+            }
+            Map<Long, EmployeeAvailabilityView> expectedEmployeeIdToAvailabilityViewMap =
+                    timeSlotIdToEmployeeIdToAvailabilityViewMap.getOrDefault(timeSlot.getId(),
+                            Collections.emptyMap());
+            Map<Long, EmployeeAvailabilityView> employeeIdToAvailabilityViewMap = decodedAvailabilityViewMap
+                    .get(timeSlot.getId());
+            assertEquals(expectedEmployeeIdToAvailabilityViewMap.keySet(), employeeIdToAvailabilityViewMap.keySet());
+            for (Map.Entry<Long, EmployeeAvailabilityView> entry : expectedEmployeeIdToAvailabilityViewMap
+                    .entrySet()) {
+                EmployeeAvailabilityView expected = entry.getValue();
+                EmployeeAvailabilityView actual = employeeIdToAvailabilityViewMap.get(entry.getKey());
+                assertPersistableEquals(expected, actual);
+                assertEquals(expected.getEmployeeId(), actual.getEmployeeId());
+                assertEquals(expected.getTimeSlotId(), actual.getTimeSlotId());
+                assertEquals(expected.getState(), actual.getState());
+            }
+        }
+    }
+
+    @Test
+    public void emptyRosterViewRoundTrip() {
+        SpotRosterView spotRosterView = new SpotRosterView(TENANT_ID, START_DATE, END_DATE);
+        spotRosterView.setSpotList(Collections.emptyList());
+        spotRosterView.setEmployeeList(Collections.emptyList());
+        spotRosterView.setTimeSlotList(Collections.emptyList());
+        spotRosterView.setTimeSlotIdToSpotIdToShiftViewListMap(Collections.emptyMap());
+        SpotRosterView decodedSpotRosterView = CompactRosterViewUtils.toSpotRosterView(
+                CompactRosterViewUtils.encode(spotRosterView));
+        assertCommonEquals(spotRosterView, decodedSpotRosterView);
+        assertTrue(decodedSpotRosterView.getTimeSlotIdToSpotIdToShiftViewListMap().isEmpty());
+    }
+
+    /**
+     * Generates skills that are only referenced by spots or only by employees, a spot without a required skill,
+     * employees without skills, time slots without a state and entities with and without a version.
+     */
+    private void generateCommon(Random random, AbstractRosterView rosterView) {
+        rosterView.setRevision(42L);
+        rosterView.setScore(HardSoftScore.valueOf(-3, -1200));
+        List<Skill> skillList = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            skillList.add(initPersistable(random, new Skill(TENANT_ID, "Skill " + i)));
+        }
+        List<Spot> spotList = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Skill requiredSkill = i == 0 ? null : skillList.get(i - 1);
+            spotList.add(initPersistable(random, new Spot(TENANT_ID, "Spot " + i, requiredSkill)));
+        }
+        rosterView.setSpotList(spotList);
+        List<Employee> employeeList = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Employee employee = initPersistable(random, new Employee(TENANT_ID, "Employee " + i));
+            for (Skill skill : skillList) {
+                if (random.nextInt(3) == 0) {
+                    employee.getSkillProficiencyList().add(initPersistable(random,
+                            new EmployeeSkillProficiency(TENANT_ID, employee, skill)));
+                }
+            }
+            employeeList.add(employee);
+        }
+        rosterView.setEmployeeList(employeeList);
+        List<TimeSlot> timeSlotList = new ArrayList<>();
+        TimeSlotState[] timeSlotStates = TimeSlotState.values();
+        for (LocalDate date = START_DATE; date.isBefore(END_DATE); date = date.plusDays(1)) {
+            for (int startHour = 6; startHour < 30; startHour += 8) {
+                LocalDateTime startDateTime = date.atStartOfDay().plusHours(startHour).plusMinutes(15);
+                TimeSlot timeSlot = initPersistable(random, new TimeSlot(TENANT_ID, startDateTime,
+                        startDateTime.plusHours(8)));
+                int stateIndex = random.nextInt(timeSlotStates.length + 1);
+                timeSlot.setTimeSlotState(stateIndex == timeSlotStates.length ? null : timeSlotStates[stateIndex]);
+                timeSlotList.add(timeSlot);
+            }
+        }
+        rosterView.setTimeSlotList(timeSlotList);
+    }
+
+    private <P extends AbstractPersistable> P initPersistable(Random random, P persistable) {
+        persistable.setId(nextId++);
+        persistable.setVersion(random.nextBoolean() ? null : (long) random.nextInt(10));
+        return persistable;
+    }
+
+    private void assertCommonEquals(AbstractRosterView expected, AbstractRosterView actual) {
+        assertEquals(expected.getTenantId(), actual.getTenantId());
+        assertEquals(expected.getStartDate(), actual.getStartDate());
+        assertEquals(expected.getEndDate(), actual.getEndDate());
+        assertEquals(expected.getRevision(), actual.getRevision());
+        assertEquals(expected.getScore(), actual.getScore());
+
+        assertEquals(expected.getSpotList().size(), actual.getSpotList().size());
+        for (int i = 0; i < expected.getSpotList().size(); i++) {
+            Spot expectedSpot = expected.getSpotList().get(i);
+            Spot spot = actual.getSpotList().get(i);
+            assertPersistableEquals(expectedSpot, spot);
+            assertEquals(expectedSpot.getName(), spot.getName());
+            if (expectedSpot.getRequiredSkill() == null) {
+                assertNull(spot.getRequiredSkill());
+            } else {
+                assertSkillEquals(expectedSpot.getRequiredSkill(), spot.getRequiredSkill());
+            }
+        }
+
+        assertEquals(expected.getEmployeeList().size(), actual.getEmployeeList().size());
+        for (int i = 0; i < expected.getEmployeeList().size(); i++) {
+            Employee expectedEmployee = expected.getEmployeeList().get(i);
+            Employee employee = actual.getEmployeeList().get(i);
+            assertPersistableEquals(expectedEmployee, employee);
+            assertEquals(expectedEmployee.getName(), employee.getName());
+            List<EmployeeSkillProficiency> expectedSkillProficiencyList = expectedEmployee.getSkillProficiencyList();
+            List<EmployeeSkillProficiency> skillProficiencyList = employee.getSkillProficiencyList();
+            assertEquals(expectedSkillProficiencyList.size(), skillProficiencyList.size());
+            for (int j = 0; j < expectedSkillProficiencyList.size(); j++) {
+                EmployeeSkillProficiency expectedSkillProficiency = expectedSkillProficiencyList.get(j);
+                EmployeeSkillProficiency skillProficiency = skillProficiencyList.get(j);
+                assertPersistableEquals(expectedSkillProficiency, skillProficiency);
+                assertSame(employee, skillProficiency.getEmployee());
+                assertSkillEquals(expectedSkillProficiency.getSkill(), skillProficiency.getSkill());
+            }
+        }
+
+        assertEquals(expected.getTimeSlotList().size(), actual.getTimeSlotList().size());
+        for (int i = 0; i < expected.getTimeSlotList().size(); i++) {
+            TimeSlot expectedTimeSlot = expected.getTimeSlotList().get(i);
+            TimeSlot timeSlot = actual.getTimeSlotList().get(i);
+            assertPersistableEquals(expectedTimeSlot, timeSlot);
+            assertEquals(expectedTimeSlot.getStartDateTime(), timeSlot.getStartDateTime());
+            assertEquals(expectedTimeSlot.getEndDateTime(), timeSlot.getEndDateTime());
+            assertEquals(expectedTimeSlot.getTimeSlotState(), timeSlot.getTimeSlotState());
+        }
+    }
+
+    private void assertSkillEquals(Skill expected, Skill actual) {
+        assertPersistableEquals(expected, actual);
+        assertEquals(expected.getName(), actual.getName());
+    }
+
+    private void assertShiftViewListEquals(List<ShiftView> expectedList, List<ShiftView> actualList) {
+        assertEquals(expectedList.size(), actualList.size());
+        for (int i = 0; i < expectedList.size(); i++) {
+            ShiftView expected = expectedList.get(i);
+            ShiftView actual = actualList.get(i);
+            assertPersistableEquals(expected, actual);
+            assertEquals(expected.getTimeSlotId(), actual.getTimeSlotId());
+            assertEquals(expected.getSpotId(), actual.getSpotId());
+            assertEquals(expected.getEmployeeId(), actual.getEmployeeId());
+            assertEquals(expected.isLockedByUser(), actual.isLockedByUser());
+        }
+    }
+
+    private void assertPersistableEquals(AbstractPersistable expected, AbstractPersistable actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTenantId(), actual.getTenantId());
+        assertEquals(expected.getVersion(), actual.getVersion());
+    }
+
+}